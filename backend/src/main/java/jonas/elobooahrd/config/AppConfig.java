@@ -1,23 +1,64 @@
 package jonas.elobooahrd.config;
 
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.util.unit.DataSize;
 
 import jonas.elobooahrd.model.GameContainer;
+import jonas.elobooahrd.model.LeagueRegistry;
+import jonas.elobooahrd.model.cache.PlayerTiering;
+import jonas.elobooahrd.model.history.HistoryTiering;
 
 /**
  * Application configuration for the Eloboard system.
  */
 @Configuration
+@EnableScheduling
 public class AppConfig {
     
     /**
-     * Creates a singleton GameContainer bean to be shared across services
+     * Creates the GameContainer of the default league.
+     * If a history directory is configured, match history beyond the hot window
+     * is moved to segment files in that directory. If a player cache directory is configured,
+     * the least recently used players are moved there once the others exceed the memory budget.
      * 
+     * @param historyDirectory The directory for history segments, empty to keep all history in memory
+     * @param hotWindow The number of recent matches per game kept in memory
+     * @param segmentRows The number of matches per segment file
+     * @param playerDirectory The directory for evicted players, empty to keep all players in memory
+     * @param playerMemoryBudget The estimated heap the resident players of a league may take
      * @return The GameContainer instance
      */
     @Bean
-    public GameContainer gameContainer() {
-        return new GameContainer("Main Game Container");
+    public GameContainer gameContainer(
+            @Value("${elobooahrd.history.directory:}") String historyDirectory,
+            @Value("${elobooahrd.history.hot-window:100000}") int hotWindow,
+            @Value("${elobooahrd.history.segment-rows:50000}") int segmentRows,
+            @Value("${elobooahrd.player-cache.directory:}") String playerDirectory,
+            @Value("${elobooahrd.player-cache.memory-budget:256MB}") DataSize playerMemoryBudget) {
+        GameContainer gameContainer = new GameContainer("Main Game Container");
+        if (!historyDirectory.isBlank()) {
+            gameContainer.setHistoryTiering(new HistoryTiering(Path.of(historyDirectory), hotWindow, segmentRows));
+        }
+        if (!playerDirectory.isBlank()) {
+            gameContainer.setPlayerTiering(new PlayerTiering(Path.of(playerDirectory), playerMemoryBudget.toBytes()));
+        }
+        return gameContainer;
+    }
+
+    /**
+     * Creates the registry of leagues, starting with the default league.
+     * New leagues move their history to segment files and evict players like the default league.
+     * 
+     * @param gameContainer The container of the default league
+     * @return The LeagueRegistry instance
+     */
+    @Bean
+    public LeagueRegistry leagueRegistry(GameContainer gameContainer) {
+        return new LeagueRegistry(gameContainer, gameContainer.getHistoryTiering(), gameContainer.getPlayerTiering());
     }
 }
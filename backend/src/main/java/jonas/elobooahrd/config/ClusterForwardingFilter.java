@@ -0,0 +1,141 @@
+package jonas.elobooahrd.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jonas.elobooahrd.model.LeagueRegistry;
+import jonas.elobooahrd.service.ClusterService;
+
+/**
+ * Forwards requests for leagues owned by another node of the cluster.
+ * The league is resolved like in the LeagueFilter, and requests for remote leagues are
+ * passed on with their method, headers and body; the owner's answer is copied back as it
+ * is, including its status and content encoding. Forwarded requests are marked, so a node
+ * that disagrees about the owner during a membership change serves them itself instead of
+ * forwarding them in a loop.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class ClusterForwardingFilter extends OncePerRequestFilter {
+    private static final Duration TIMEOUT = Duration.ofMinutes(1);
+    // Connection-specific headers, and those the HTTP client sets itself
+    private static final Set<String> SKIPPED_HEADERS = Set.of("connection", "content-length", "date", "expect",
+            "from", "host", "keep-alive", "proxy-authenticate", "proxy-authorization", "te", "trailer",
+            "transfer-encoding", "upgrade", "via", "warning");
+
+    private final ClusterService clusterService;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+
+    @Autowired
+    public ClusterForwardingFilter(ClusterService clusterService) {
+        this.clusterService = clusterService;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return !clusterService.isEnabled()
+                || !uri.startsWith("/api/")
+                || uri.startsWith("/api/cluster")
+                || uri.startsWith("/api/leagues")
+                || uri.startsWith("/api/replication")
+                || uri.startsWith("/api/persistence")
+                || "OPTIONS".equals(request.getMethod())
+                || request.getHeader(ClusterService.FORWARDED_HEADER) != null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String requested = request.getHeader(LeagueFilter.LEAGUE_HEADER);
+        if (requested == null) {
+            requested = request.getParameter(LeagueFilter.LEAGUE_PARAMETER);
+        }
+        String leagueId;
+        try {
+            leagueId = requested != null ? LeagueRegistry.normalize(requested) : LeagueRegistry.DEFAULT_LEAGUE;
+        } catch (IllegalArgumentException e) {
+            // The LeagueFilter rejects the request
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (clusterService.isLocal(leagueId)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        forward(request, response, clusterService.ownerOf(leagueId));
+    }
+
+    /**
+     * Passes a request on to another node and copies its answer back
+     *
+     * @param request The incoming request
+     * @param response The response to the client
+     * @param owner The base URL of the node that owns the league
+     */
+    private void forward(HttpServletRequest request, HttpServletResponse response, String owner) throws IOException {
+        String query = request.getQueryString();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(
+                URI.create(owner + request.getRequestURI() + (query != null ? "?" + query : "")))
+                .timeout(TIMEOUT);
+        for (String name : Collections.list(request.getHeaderNames())) {
+            if (!SKIPPED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                for (String value : Collections.list(request.getHeaders(name))) {
+                    builder.header(name, value);
+                }
+            }
+        }
+        byte[] body = request.getInputStream().readAllBytes();
+        builder.header(ClusterService.FORWARDED_HEADER, clusterService.getSelf())
+                .method(request.getMethod(), body.length > 0
+                        ? HttpRequest.BodyPublishers.ofByteArray(body)
+                        : HttpRequest.BodyPublishers.noBody());
+
+        HttpResponse<InputStream> answer;
+        try {
+            answer = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException e) {
+            response.sendError(HttpStatus.BAD_GATEWAY.value(), "League owner " + owner + " is not reachable");
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+
+        response.setStatus(answer.statusCode());
+        for (Map.Entry<String, List<String>> header : answer.headers().map().entrySet()) {
+            if (!SKIPPED_HEADERS.contains(header.getKey().toLowerCase(Locale.ROOT)) && !header.getKey().startsWith(":")) {
+                for (String value : header.getValue()) {
+                    response.addHeader(header.getKey(), value);
+                }
+            }
+        }
+        try (InputStream in = answer.body()) {
+            in.transferTo(response.getOutputStream());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package jonas.elobooahrd.config;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jonas.elobooahrd.model.GameContainer;
+import jonas.elobooahrd.model.LeagueRegistry;
+
+/**
+ * Binds the league of a request to the handling thread.
+ * The league is taken from the X-League header or the league query parameter and
+ * defaults to the main league. Unknown leagues are rejected before reaching a controller.
+ */
+@Component
+public class LeagueFilter extends OncePerRequestFilter {
+    public static final String LEAGUE_HEADER = "X-League";
+    public static final String LEAGUE_PARAMETER = "league";
+
+    private final LeagueRegistry leagueRegistry;
+
+    @Autowired
+    public LeagueFilter(LeagueRegistry leagueRegistry) {
+        this.leagueRegistry = leagueRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/") || request.getRequestURI().startsWith("/api/leagues")
+                || request.getRequestURI().startsWith("/api/replication")
+                || request.getRequestURI().startsWith("/api/persistence");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String requested = request.getHeader(LEAGUE_HEADER);
+        if (requested == null) {
+            requested = request.getParameter(LEAGUE_PARAMETER);
+        }
+        GameContainer container;
+        try {
+            container = leagueRegistry.getLeague(
+                    requested != null ? LeagueRegistry.normalize(requested) : LeagueRegistry.DEFAULT_LEAGUE);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+            return;
+        }
+        if (container == null) {
+            response.sendError(HttpStatus.NOT_FOUND.value(), "League not found: " + requested);
+            return;
+        }
+
+        GameContainer previous = leagueRegistry.bind(container);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            leagueRegistry.bind(previous);
+        }
+    }
+}
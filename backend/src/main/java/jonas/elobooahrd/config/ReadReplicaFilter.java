@@ -0,0 +1,52 @@
+package jonas.elobooahrd.config;
+
+import java.io.IOException;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jonas.elobooahrd.service.ReplicationService;
+
+/**
+ * Rejects writes on a read replica, whose data only changes through the primary's change feed.
+ * Reads are served as usual, including the POST endpoints that only compute suggestions.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ReadReplicaFilter extends OncePerRequestFilter {
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final ReplicationService replicationService;
+
+    @Autowired
+    public ReadReplicaFilter(ReplicationService replicationService) {
+        this.replicationService = replicationService;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return !replicationService.isFollower()
+                || READ_METHODS.contains(request.getMethod())
+                || !uri.startsWith("/api/")
+                || uri.startsWith("/api/matchmaking/")
+                || uri.equals("/api/tournaments/simulate");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        response.setHeader("Allow", String.join(", ", READ_METHODS));
+        response.sendError(HttpStatus.METHOD_NOT_ALLOWED.value(),
+                "This node is a read replica; send writes to " + replicationService.getPrimaryUrl());
+    }
+}
@@ -0,0 +1,49 @@
+package jonas.elobooahrd.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Serialization configuration for the Eloboard system.
+ * Registers compact binary encodings next to the default JSON converter, so clients
+ * can pick a format through the Accept and Content-Type headers on every endpoint.
+ * The binary formats share the JSON data model described in /schema/elobooahrd.schema.json,
+ * but write UUIDs as 16 raw bytes instead of 36 character strings.
+ */
+@Configuration
+public class SerializationConfig {
+
+    /**
+     * Media type for Smile encoded payloads
+     */
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    /**
+     * Creates the CBOR message converter (application/cbor)
+     *
+     * @param builder The Jackson builder configured by Spring Boot
+     * @return The CBOR converter
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    /**
+     * Creates the Smile message converter (application/x-jackson-smile)
+     *
+     * @param builder The Jackson builder configured by Spring Boot
+     * @return The Smile converter
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
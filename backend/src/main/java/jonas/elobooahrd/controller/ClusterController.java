@@ -0,0 +1,113 @@
+package jonas.elobooahrd.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import jonas.elobooahrd.dto.ClusterMembersDTO;
+import jonas.elobooahrd.dto.LeagueDTO;
+import jonas.elobooahrd.dto.LeagueSnapshotDTO;
+import jonas.elobooahrd.service.ClusterService;
+
+/**
+ * REST controller for the membership of a cluster of backend nodes.
+ * These endpoints are called by the nodes themselves and are never forwarded.
+ */
+@RestController
+@RequestMapping("/api/cluster")
+public class ClusterController {
+
+    @Autowired
+    private ClusterService clusterService;
+
+    /**
+     * GET /api/cluster/members : Get the membership as seen by this node
+     *
+     * @return The members and the leagues this node owns
+     */
+    @GetMapping("/members")
+    public ResponseEntity<ClusterMembersDTO> getMembers() {
+        return ResponseEntity.ok(clusterService.getMembers());
+    }
+
+    /**
+     * PUT /api/cluster/members : Reconcile with the membership shared by another node
+     *
+     * @param members The epoch and the base URLs of all nodes
+     * @return No content
+     */
+    @PutMapping("/members")
+    public ResponseEntity<Void> updateMembers(@RequestBody ClusterMembersDTO members) {
+        if (!clusterService.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (members.getMembers() == null || members.getMembers().isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        clusterService.updateMembers(members.getMembers(), members.getEpoch());
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * POST /api/cluster/join : Add a node to the cluster
+     *
+     * @param node The joining node, identified by self
+     * @return The new membership
+     */
+    @PostMapping("/join")
+    public ResponseEntity<ClusterMembersDTO> join(@RequestBody ClusterMembersDTO node) {
+        if (!clusterService.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (node.getSelf() == null || node.getSelf().isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(clusterService.join(node.getSelf()));
+    }
+
+    /**
+     * POST /api/cluster/leave : Remove a node that has handed off its leagues
+     *
+     * @param node The leaving node, identified by self
+     * @return No content
+     */
+    @PostMapping("/leave")
+    public ResponseEntity<Void> leave(@RequestBody ClusterMembersDTO node) {
+        if (!clusterService.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (node.getSelf() == null || node.getSelf().isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        clusterService.leave(node.getSelf());
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * PUT /api/cluster/leagues/{id} : Take over a league from another node
+     *
+     * @param id The league ID
+     * @param snapshot The complete state of the league
+     * @return The restored league
+     */
+    @PutMapping("/leagues/{id}")
+    public ResponseEntity<LeagueDTO> receiveLeague(@PathVariable String id, @RequestBody LeagueSnapshotDTO snapshot) {
+        if (!clusterService.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        snapshot.setId(id);
+        try {
+            return ResponseEntity.ok(clusterService.receiveLeague(snapshot));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
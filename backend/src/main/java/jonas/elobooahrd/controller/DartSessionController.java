@@ -0,0 +1,97 @@
+package jonas.elobooahrd.controller;
+
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import jonas.elobooahrd.dto.DartSessionDTO;
+import jonas.elobooahrd.dto.DartVisitDTO;
+import jonas.elobooahrd.service.DartSessionService;
+
+/**
+ * REST controller for live dart match sessions in the Eloboard system.
+ */
+@RestController
+@RequestMapping("/api/dart-sessions")
+public class DartSessionController {
+
+    @Autowired
+    private DartSessionService dartSessionService;
+
+    /**
+     * POST /api/dart-sessions : Start a live dart match
+     * 
+     * @param request The gameId, player1Id and player2Id of the match
+     * @return The state of the new session
+     */
+    @PostMapping
+    public ResponseEntity<DartSessionDTO> createSession(@RequestBody DartSessionDTO request) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(dartSessionService.createSession(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .build();
+        }
+    }
+
+    /**
+     * GET /api/dart-sessions/{id} : Get the state of a live dart match
+     * 
+     * @param id The session ID
+     * @return The session state
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<DartSessionDTO> getSession(@PathVariable UUID id) {
+        return dartSessionService.getSession(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * POST /api/dart-sessions/{id}/visits : Score a visit
+     * 
+     * @param id The session ID
+     * @param visit The player, score and number of darts of the visit
+     * @return The session state after the visit
+     */
+    @PostMapping("/{id}/visits")
+    public ResponseEntity<DartSessionDTO> recordVisit(
+            @PathVariable UUID id, 
+            @RequestBody DartVisitDTO visit) {
+        try {
+            return dartSessionService.recordVisit(id, visit)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .build();
+        }
+    }
+
+    /**
+     * DELETE /api/dart-sessions/{id} : Abandon a live dart match
+     * 
+     * @param id The session ID
+     * @return No content if successful
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> abandonSession(@PathVariable UUID id) {
+        if (dartSessionService.abandonSession(id)) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.notFound().build();
+    }
+}
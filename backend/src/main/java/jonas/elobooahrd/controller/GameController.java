@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -12,10 +13,19 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import jonas.elobooahrd.dto.DuoDTO;
 import jonas.elobooahrd.dto.GameDTO;
+import jonas.elobooahrd.dto.HeadToHeadDTO;
+import jonas.elobooahrd.dto.PercentileRankDTO;
+import jonas.elobooahrd.dto.RatingDistributionDTO;
+import jonas.elobooahrd.dto.TeamDTO;
+import jonas.elobooahrd.dto.WinProbabilityRowDTO;
 import jonas.elobooahrd.service.GameService;
 
 /**
@@ -28,6 +38,9 @@ public class GameController {
     @Autowired
     private GameService gameService;
 
+    @Autowired
+    private StreamingResponseWriter streamingResponseWriter;
+
     /**
      * GET /api/games : Get all games
      * 
@@ -98,4 +111,163 @@ public class GameController {
         gameService.deleteGame(id);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * GET /api/games/{id}/distribution : Get the rating distribution of a game
+     * 
+     * @param id The game ID
+     * @return Bucketed rating counts and percentiles
+     */
+    @GetMapping("/{id}/distribution")
+    public ResponseEntity<RatingDistributionDTO> getRatingDistribution(@PathVariable UUID id) {
+        return gameService.getRatingDistribution(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * GET /api/games/{id}/distribution/players/{playerId} : Get a player's percentile rank in a game
+     * 
+     * @param id The game ID
+     * @param playerId The player ID
+     * @return The player's rating and percentile rank
+     */
+    @GetMapping("/{id}/distribution/players/{playerId}")
+    public ResponseEntity<PercentileRankDTO> getPercentileRank(
+            @PathVariable UUID id, 
+            @PathVariable UUID playerId) {
+        return gameService.getPercentileRank(id, playerId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * GET /api/games/{id}/head-to-head?a=&b= : Get the record of player a against player b
+     * 
+     * @param id The game ID
+     * @param a The player ID
+     * @param b The opponent ID
+     * @return The record from player a's point of view
+     */
+    @GetMapping("/{id}/head-to-head")
+    public ResponseEntity<HeadToHeadDTO> getHeadToHead(
+            @PathVariable UUID id, 
+            @RequestParam UUID a, 
+            @RequestParam UUID b) {
+        return gameService.getHeadToHead(id, a, b)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * GET /api/games/{id}/rivals?player=&limit= : Get the opponents a player has played most often
+     * 
+     * @param id The game ID
+     * @param player The player ID
+     * @param limit The maximum number of rivals (default 10, at most 100)
+     * @return The player's records against the rivals, most matches first
+     */
+    @GetMapping("/{id}/rivals")
+    public ResponseEntity<List<HeadToHeadDTO>> getRivals(
+            @PathVariable UUID id, 
+            @RequestParam UUID player, 
+            @RequestParam(defaultValue = "10") int limit) {
+        return gameService.getRivals(id, player, Math.max(0, Math.min(limit, 100)))
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * GET /api/games/{id}/win-probabilities : Get the predicted outcome of every pairing of rated players
+     * The matrix is streamed row by row, so large fields start immediately
+     * and are never held in memory as a whole.
+     * 
+     * @param id The game ID
+     * @param accept The Accept header, selects JSON, CBOR or Smile
+     * @return The rows of the matrix, highest rated player first
+     */
+    @GetMapping("/{id}/win-probabilities")
+    public ResponseEntity<StreamingResponseBody> getWinProbabilities(
+            @PathVariable UUID id, 
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        if (gameService.getGame(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return streamingResponseWriter.array(accept, WinProbabilityRowDTO.class,
+                sink -> gameService.forEachWinProbabilityRow(id, sink));
+    }
+
+    /**
+     * GET /api/games/{id}/partners?player=&minGames=&limit= : Get the partners a player performs best with
+     * 
+     * @param id The game ID
+     * @param player The player ID
+     * @param minGames The minimum number of games together (default 1)
+     * @param limit The maximum number of partners (default 10, at most 100)
+     * @return The player's duos, highest synergy first
+     */
+    @GetMapping("/{id}/partners")
+    public ResponseEntity<List<DuoDTO>> getBestPartners(
+            @PathVariable UUID id, 
+            @RequestParam UUID player, 
+            @RequestParam(defaultValue = "1") int minGames, 
+            @RequestParam(defaultValue = "10") int limit) {
+        return gameService.getBestPartners(id, player, minGames, Math.max(0, Math.min(limit, 100)))
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * GET /api/games/{id}/duos?minGames=&limit= : Get the pairs of players that perform best together
+     * 
+     * @param id The game ID
+     * @param minGames The minimum number of games together (default 3)
+     * @param limit The maximum number of pairs (default 10, at most 100)
+     * @return The duos, highest synergy first
+     */
+    @GetMapping("/{id}/duos")
+    public ResponseEntity<List<DuoDTO>> getStrongestDuos(
+            @PathVariable UUID id, 
+            @RequestParam(defaultValue = "3") int minGames, 
+            @RequestParam(defaultValue = "10") int limit) {
+        return gameService.getStrongestDuos(id, minGames, Math.max(0, Math.min(limit, 100)))
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * GET /api/games/{id}/teams?limit= : Get the team leaderboard of a table football game
+     * 
+     * @param id The game ID
+     * @param limit The maximum number of teams (default 50, at most 1000)
+     * @return The teams, highest rating first
+     */
+    @GetMapping("/{id}/teams")
+    public ResponseEntity<List<TeamDTO>> getTeams(
+            @PathVariable UUID id, 
+            @RequestParam(defaultValue = "50") int limit) {
+        return gameService.getTeams(id, Math.max(0, Math.min(limit, 1000)))
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * POST /api/games/{id}/teams : Create a team for a table football game
+     * 
+     * @param id The game ID
+     * @param teamDTO The team to create
+     * @return The created team
+     */
+    @PostMapping("/{id}/teams")
+    public ResponseEntity<TeamDTO> createTeam(
+            @PathVariable UUID id, 
+            @RequestBody TeamDTO teamDTO) {
+        try {
+            return gameService.createTeam(id, teamDTO)
+                    .map(team -> ResponseEntity.status(HttpStatus.CREATED).body(team))
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
 }
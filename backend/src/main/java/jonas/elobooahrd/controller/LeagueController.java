@@ -0,0 +1,61 @@
+package jonas.elobooahrd.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import jonas.elobooahrd.dto.LeagueDTO;
+import jonas.elobooahrd.service.ClusterService;
+
+/**
+ * REST controller for managing leagues in the Eloboard system.
+ * All other endpoints act on the league named by the X-League header or the league
+ * query parameter, and on the default league if neither is given. In clustered mode
+ * leagues are listed from all nodes and created on the node that owns them.
+ */
+@RestController
+@RequestMapping("/api/leagues")
+public class LeagueController {
+
+    @Autowired
+    private ClusterService clusterService;
+
+    /**
+     * GET /api/leagues : Get all leagues
+     *
+     * @param forwardedBy Set when another node asks for the leagues owned by this node only
+     * @return List of all leagues
+     */
+    @GetMapping
+    public ResponseEntity<List<LeagueDTO>> getAllLeagues(
+            @RequestHeader(value = ClusterService.FORWARDED_HEADER, required = false) String forwardedBy) {
+        return ResponseEntity.ok(clusterService.getAllLeagues(forwardedBy != null));
+    }
+
+    /**
+     * POST /api/leagues : Create a new league
+     *
+     * @param leagueDTO The league to create
+     * @param forwardedBy Set when another node forwarded the request to the owner of the league
+     * @return The created league
+     */
+    @PostMapping
+    public ResponseEntity<LeagueDTO> createLeague(@RequestBody LeagueDTO leagueDTO,
+            @RequestHeader(value = ClusterService.FORWARDED_HEADER, required = false) String forwardedBy) {
+        try {
+            return new ResponseEntity<>(clusterService.createLeague(leagueDTO, forwardedBy != null), HttpStatus.CREATED);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package jonas.elobooahrd.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import jonas.elobooahrd.dto.MatchmakingRequestDTO;
+import jonas.elobooahrd.dto.MatchmakingResultDTO;
+import jonas.elobooahrd.service.MatchmakingService;
+
+/**
+ * REST controller for suggesting fair pairings in the Eloboard system.
+ */
+@RestController
+@RequestMapping("/api/matchmaking")
+public class MatchmakingController {
+
+    @Autowired
+    private MatchmakingService matchmakingService;
+
+    /**
+     * POST /api/matchmaking/teams : Suggest the fairest splits of a lobby into two teams
+     *
+     * @param request The gameId, the playerIds of the lobby and the number of suggestions
+     * @return The splits with their predicted win probabilities, fairest first
+     */
+    @PostMapping("/teams")
+    public ResponseEntity<MatchmakingResultDTO> suggestTeams(@RequestBody MatchmakingRequestDTO request) {
+        try {
+            return matchmakingService.suggestTeams(request)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * POST /api/matchmaking/opponents : Suggest the fairest 1v1 opponents for a player
+     *
+     * @param request The gameId, the playerId, the playerIds of the lobby and the number of suggestions
+     * @return The pairings with their predicted win probabilities, closest rating first
+     */
+    @PostMapping("/opponents")
+    public ResponseEntity<MatchmakingResultDTO> suggestOpponents(@RequestBody MatchmakingRequestDTO request) {
+        try {
+            return matchmakingService.suggestOpponents(request)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
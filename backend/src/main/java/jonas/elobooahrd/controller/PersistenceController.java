@@ -0,0 +1,32 @@
+package jonas.elobooahrd.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import jonas.elobooahrd.dto.PersistenceStatusDTO;
+import jonas.elobooahrd.service.PersistenceService;
+
+/**
+ * REST controller for the state of the write-behind persistence.
+ * It covers all leagues and is never bound to a single one.
+ */
+@RestController
+@RequestMapping("/api/persistence")
+public class PersistenceController {
+
+    @Autowired
+    private PersistenceService persistenceService;
+
+    /**
+     * GET /api/persistence/status : Get the state of the write-behind persistence
+     *
+     * @return The sequence numbers, lag and consecutive flush failures
+     */
+    @GetMapping("/status")
+    public ResponseEntity<PersistenceStatusDTO> getStatus() {
+        return ResponseEntity.ok(persistenceService.getStatus());
+    }
+}
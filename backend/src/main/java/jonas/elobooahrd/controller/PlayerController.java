@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -12,12 +13,17 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import jonas.elobooahrd.dto.MatchDTO;
+import jonas.elobooahrd.dto.PlayerCacheStatsDTO;
 import jonas.elobooahrd.dto.PlayerDTO;
 import jonas.elobooahrd.model.Player;
+import jonas.elobooahrd.service.MatchService;
 import jonas.elobooahrd.service.PlayerService;
 
 /**
@@ -30,19 +36,31 @@ public class PlayerController {
     @Autowired
     private PlayerService playerService;
 
+    @Autowired
+    private MatchService matchService;
+
+    @Autowired
+    private StreamingResponseWriter streamingResponseWriter;
+
     /**
      * GET /api/players : Get all players
+     * The list is streamed element by element, so large exports start immediately
+     * and do not need to be held in memory as a whole.
      * 
      * @param gameId Optional game ID to filter players by game
-     * @return List of players
+     * @param minRating Optional minimum rating in the game, requires gameId
+     * @param maxRating Optional maximum rating in the game, requires gameId
+     * @param accept The requested response format
+     * @return Streamed list of players
      */
     @GetMapping
-    public ResponseEntity<List<PlayerDTO>> getAllPlayers(
-            @RequestParam(required = false) UUID gameId) {
-        if (gameId != null) {
-            return ResponseEntity.ok(playerService.getPlayersByGame(gameId));
-        }
-        return ResponseEntity.ok(playerService.getAllPlayers());
+    public ResponseEntity<StreamingResponseBody> getAllPlayers(
+            @RequestParam(required = false) UUID gameId,
+            @RequestParam(required = false) Integer minRating,
+            @RequestParam(required = false) Integer maxRating,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return streamingResponseWriter.array(accept, PlayerDTO.class,
+                sink -> playerService.forEachPlayer(gameId, minRating, maxRating, sink));
     }
 
     /**
@@ -58,6 +76,23 @@ public class PlayerController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * GET /api/players/{id}/matches : Get the most recent matches of a player
+     * 
+     * @param id The player ID
+     * @param limit The maximum number of matches
+     * @return List of matches across all games, most recent first
+     */
+    @GetMapping("/{id}/matches")
+    public ResponseEntity<List<MatchDTO>> getPlayerMatches(
+            @PathVariable UUID id,
+            @RequestParam(defaultValue = "20") int limit) {
+        if (playerService.getPlayer(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(matchService.getPlayerMatches(id, Math.max(0, Math.min(limit, 500))));
+    }
+
     /**
      * POST /api/players : Create a new player
      * 
@@ -97,6 +132,30 @@ public class PlayerController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * GET /api/players/search : Autocomplete players by name prefix
+     * 
+     * @param q The name prefix, matched case-insensitively
+     * @param limit The maximum number of results
+     * @return List of matching players, ordered by name
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<PlayerDTO>> searchPlayers(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(playerService.searchPlayers(q, Math.max(0, Math.min(limit, 100))));
+    }
+
+    /**
+     * GET /api/players/cache : Get the hit and miss counts and the size of the player cache
+     * 
+     * @return The cache statistics of the league
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<PlayerCacheStatsDTO> getCacheStats() {
+        return ResponseEntity.ok(playerService.getCacheStats());
+    }
+
     /**
      * GET /api/players/leaderboard : Get player leaderboard for a game
      * 
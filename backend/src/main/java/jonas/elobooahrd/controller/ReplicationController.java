@@ -0,0 +1,92 @@
+package jonas.elobooahrd.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import jonas.elobooahrd.dto.ChangeBatchDTO;
+import jonas.elobooahrd.dto.LeagueSnapshotDTO;
+import jonas.elobooahrd.dto.ReplicationSnapshotDTO;
+import jonas.elobooahrd.dto.ReplicationStatusDTO;
+import jonas.elobooahrd.model.LeagueRegistry;
+import jonas.elobooahrd.service.ChangeFeedService;
+import jonas.elobooahrd.service.LeagueService;
+import jonas.elobooahrd.service.ReplicationService;
+
+/**
+ * REST controller for the change feed and snapshots that read replicas follow.
+ * These endpoints cover all leagues and are never bound to a single one.
+ */
+@RestController
+@RequestMapping("/api/replication")
+public class ReplicationController {
+
+    private static final int MAX_BATCH_SIZE = 10_000;
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private ReplicationService replicationService;
+
+    @Autowired
+    private LeagueService leagueService;
+
+    /**
+     * GET /api/replication/changes : Get the changes after a sequence number
+     *
+     * @param after The last sequence number the reader has applied
+     * @param limit The maximum number of changes
+     * @return The changes, oldest first
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<ChangeBatchDTO> getChanges(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "1000") int limit) {
+        if (after < 0 || limit < 1 || limit > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(changeFeedService.getChanges(after, limit));
+    }
+
+    /**
+     * GET /api/replication/snapshot : Get a snapshot of all leagues
+     *
+     * @return The leagues, with the sequence number to follow the feed from
+     */
+    @GetMapping("/snapshot")
+    public ResponseEntity<ReplicationSnapshotDTO> getSnapshot() {
+        return ResponseEntity.ok(replicationService.exportAll());
+    }
+
+    /**
+     * GET /api/replication/leagues/{id} : Get a snapshot of one league
+     *
+     * @param id The league ID
+     * @return The league, with the latest change it contains
+     */
+    @GetMapping("/leagues/{id}")
+    public ResponseEntity<LeagueSnapshotDTO> getLeague(@PathVariable String id) {
+        LeagueSnapshotDTO snapshot;
+        try {
+            snapshot = leagueService.exportLeague(LeagueRegistry.normalize(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return snapshot != null ? ResponseEntity.ok(snapshot) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * GET /api/replication/status : Get the replication state of this node
+     *
+     * @return The role, sequence numbers and lag
+     */
+    @GetMapping("/status")
+    public ResponseEntity<ReplicationStatusDTO> getStatus() {
+        return ResponseEntity.ok(replicationService.getStatus());
+    }
+}
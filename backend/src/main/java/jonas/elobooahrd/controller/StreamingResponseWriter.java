@@ -0,0 +1,149 @@
+package jonas.elobooahrd.controller;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import jonas.elobooahrd.config.SerializationConfig;
+import jonas.elobooahrd.model.GameContainer;
+import jonas.elobooahrd.model.LeagueRegistry;
+
+/**
+ * Writes large collections incrementally as a JSON, CBOR or Smile array.
+ * Elements are serialized as soon as they are produced, so memory use does not grow
+ * with the size of the response and the first bytes leave the server immediately.
+ * The body is written on another thread, so the league of the request is bound there as well.
+ */
+@Component
+public class StreamingResponseWriter {
+
+    // In order of preference when the Accept header rates several of them equally
+    private static final List<MediaType> SUPPORTED = List.of(
+            MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR, SerializationConfig.APPLICATION_SMILE);
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper cborMapper;
+    private final ObjectMapper smileMapper;
+    private final LeagueRegistry leagueRegistry;
+
+    @Autowired
+    public StreamingResponseWriter(ObjectMapper jsonMapper,
+            MappingJackson2CborHttpMessageConverter cborConverter,
+            MappingJackson2SmileHttpMessageConverter smileConverter,
+            LeagueRegistry leagueRegistry) {
+        this.jsonMapper = jsonMapper;
+        this.cborMapper = cborConverter.getObjectMapper();
+        this.smileMapper = smileConverter.getObjectMapper();
+        this.leagueRegistry = leagueRegistry;
+    }
+
+    /**
+     * Creates a streamed array response in the format requested by the Accept header
+     *
+     * @param accept The Accept header of the request, may be null
+     * @param elementType The type of the array elements
+     * @param producer Produces the elements by passing each one to the given sink
+     * @return The streaming response, 400 if the Accept header is malformed, or 406 if none of the
+     *         supported formats is acceptable
+     */
+    public <T> ResponseEntity<StreamingResponseBody> array(String accept, Class<T> elementType,
+            Consumer<Consumer<T>> producer) {
+        MediaType mediaType;
+        try {
+            mediaType = negotiate(accept);
+        } catch (InvalidMediaTypeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (mediaType == null) {
+            return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
+        }
+        ObjectMapper mapper = mapperFor(mediaType);
+        ObjectWriter writer = mapper.writerFor(elementType)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        GameContainer league = leagueRegistry.current();
+
+        StreamingResponseBody body = outputStream -> {
+            GameContainer previous = leagueRegistry.bind(league);
+            try (JsonGenerator generator = mapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                producer.accept(element -> {
+                    try {
+                        writer.writeValue(generator, element);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            } finally {
+                leagueRegistry.bind(previous);
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .body(body);
+    }
+
+    /**
+     * Picks the supported media type the Accept header rates highest. Each supported type takes
+     * the quality of the most specific range that includes it; ties go to JSON, then CBOR, then Smile.
+     *
+     * @param accept The Accept header of the request, may be null
+     * @return The media type to respond with, or null if the header rules out every supported type
+     * @throws InvalidMediaTypeException if the header cannot be parsed
+     */
+    private MediaType negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> requested = MediaType.parseMediaTypes(accept);
+        MediaType best = null;
+        double bestQuality = 0;
+        for (MediaType supported : SUPPORTED) {
+            MediaType range = null;
+            for (MediaType candidate : requested) {
+                if (candidate.includes(supported) && (range == null || specificity(candidate) > specificity(range))) {
+                    range = candidate;
+                }
+            }
+            if (range != null && range.getQualityValue() > bestQuality) {
+                best = supported;
+                bestQuality = range.getQualityValue();
+            }
+        }
+        return best;
+    }
+
+    private static int specificity(MediaType range) {
+        if (range.isWildcardType()) {
+            return 0;
+        }
+        return range.isWildcardSubtype() ? 1 : 2;
+    }
+
+    private ObjectMapper mapperFor(MediaType mediaType) {
+        if (MediaType.APPLICATION_CBOR.equals(mediaType)) {
+            return cborMapper;
+        }
+        if (SerializationConfig.APPLICATION_SMILE.equals(mediaType)) {
+            return smileMapper;
+        }
+        return jsonMapper;
+    }
+}
@@ -0,0 +1,40 @@
+package jonas.elobooahrd.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import jonas.elobooahrd.dto.TournamentRequestDTO;
+import jonas.elobooahrd.dto.TournamentSimulationDTO;
+import jonas.elobooahrd.service.TournamentService;
+
+/**
+ * REST controller for tournament predictions in the Eloboard system.
+ */
+@RestController
+@RequestMapping("/api/tournaments")
+public class TournamentController {
+
+    @Autowired
+    private TournamentService tournamentService;
+
+    /**
+     * POST /api/tournaments/simulate : Simulate a knockout or round-robin tournament
+     *
+     * @param request The gameId, format, playerIds, number of simulations and optional seed
+     * @return The win and placement probabilities of each player
+     */
+    @PostMapping("/simulate")
+    public ResponseEntity<TournamentSimulationDTO> simulate(@RequestBody TournamentRequestDTO request) {
+        try {
+            return tournamentService.simulate(request)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
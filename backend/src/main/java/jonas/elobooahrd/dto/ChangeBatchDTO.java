@@ -0,0 +1,22 @@
+package jonas.elobooahrd.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for a page of the change feed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeBatchDTO {
+    private UUID feedId; // Changes with each start of the primary, whose sequence numbers then start over
+    private long oldestSequence; // Oldest change still retained; a reader behind it has to resynchronize
+    private long latestSequence; // Latest change published so far
+    private List<ChangeEventDTO> events = new ArrayList<>();
+}
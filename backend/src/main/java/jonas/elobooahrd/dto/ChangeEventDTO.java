@@ -0,0 +1,45 @@
+package jonas.elobooahrd.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for one entry of the change feed.
+ * Only the field that matches the type is set.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeEventDTO {
+    private long sequence;
+    private String leagueId;
+    private Type type;
+    private LocalDateTime timestamp;
+    private UUID entityId; // Set for deletions
+    private LeagueDTO league;
+    private GameDTO game;
+    private PlayerDTO player;
+    private TeamDTO team;
+    private MatchDTO match;
+
+    /**
+     * The kinds of changes in the feed
+     */
+    public enum Type {
+        LEAGUE_CREATED,
+        LEAGUE_REPLACED, // The league was restored from a snapshot and has to be fetched again
+        GAME_CREATED,
+        GAME_UPDATED,
+        GAME_DELETED,
+        PLAYER_CREATED,
+        PLAYER_UPDATED,
+        PLAYER_DELETED,
+        TEAM_CREATED,
+        MATCH_RECORDED, // As submitted, with the ID, timestamp and teams it was recorded with
+        DART_MATCH_COMPLETED // The result of a live dart session
+    }
+}
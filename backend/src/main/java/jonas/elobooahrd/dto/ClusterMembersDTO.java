@@ -0,0 +1,21 @@
+package jonas.elobooahrd.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for the membership of a cluster as seen by one node.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterMembersDTO {
+    private String self; // Base URL of the answering node
+    private long epoch; // Version of the membership, raised by every change
+    private List<String> members = new ArrayList<>(); // Base URLs of all nodes, including self
+    private List<String> leagues = new ArrayList<>(); // Leagues owned by the answering node
+}
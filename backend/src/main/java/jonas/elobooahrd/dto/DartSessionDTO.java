@@ -0,0 +1,44 @@
+package jonas.elobooahrd.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for live dart match sessions.
+ * Clients send gameId, player1Id and player2Id to create a session;
+ * the server answers with the current state of the match.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DartSessionDTO {
+    private UUID id;
+    private UUID gameId;
+    private UUID matchId;
+    private UUID player1Id;
+    private UUID player2Id;
+    private String variant; // X01, CRICKET, AROUND_THE_CLOCK, SHANGHAI or KILLER; defaults to the game's variant
+    private int player1RemainingScore;
+    private int player2RemainingScore;
+    private int player1Darts;
+    private int player2Darts;
+    private double player1Average;
+    private double player2Average;
+    private int player1Points; // Cricket and Shanghai points, Killer lives
+    private int player2Points;
+    private int player1Target; // Around the Clock: next number (25 for the bull); Killer: own number
+    private int player2Target;
+    private int[] player1Marks; // Cricket: marks on 20, 19, 18, 17, 16, 15 and the bull
+    private int[] player2Marks;
+    private int round; // Shanghai: current round
+    private UUID nextPlayerId; // Player expected to throw the next visit
+    private List<String> checkoutSuggestions = new ArrayList<>(); // Finishing routes for the next player, e.g. "T20 T20 D20"
+    private String lastVisitOutcome; // SCORED, BUST or CHECKOUT
+    private boolean completed;
+    private UUID winnerId;
+}
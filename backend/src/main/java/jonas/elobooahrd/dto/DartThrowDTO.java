@@ -0,0 +1,16 @@
+package jonas.elobooahrd.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for a single dart in variants that are scored dart by dart.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DartThrowDTO {
+    private int segment; // 0 for a miss, 1 - 20, or 25 for the bull
+    private int multiplier = 1; // 1 for a single, 2 for a double, 3 for a treble
+}
@@ -0,0 +1,23 @@
+package jonas.elobooahrd.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for one visit (up to three darts) in a live dart session.
+ * X01 visits send the total score; the other variants send the individual darts.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DartVisitDTO {
+    private UUID playerId;
+    private int score; // Total score of the visit
+    private int dartsThrown = 3;
+    private List<DartThrowDTO> darts = new ArrayList<>(); // Individual darts for Cricket, Around the Clock, Shanghai and Killer
+}
@@ -0,0 +1,23 @@
+package jonas.elobooahrd.dto;
+
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for the record of two players on the same team.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DuoDTO {
+    private UUID gameId;
+    private UUID playerId;
+    private UUID partnerId;
+    private int games;
+    private int wins;
+    private int losses;
+    private double synergy; // Average actual minus expected score per game
+}
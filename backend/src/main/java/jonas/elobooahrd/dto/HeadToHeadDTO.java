@@ -0,0 +1,26 @@
+package jonas.elobooahrd.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for the record of a player against one opponent.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HeadToHeadDTO {
+    private UUID gameId;
+    private UUID playerId;
+    private UUID opponentId;
+    private int matches;
+    private int wins;
+    private int losses;
+    private int goalsFor;
+    private int goalsAgainst;
+    private LocalDateTime lastPlayed; // Null if the players have not met
+}
@@ -0,0 +1,18 @@
+package jonas.elobooahrd.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for a league and the size of its container.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeagueDTO {
+    private String id;
+    private String name;
+    private int gameCount;
+    private int playerCount;
+}
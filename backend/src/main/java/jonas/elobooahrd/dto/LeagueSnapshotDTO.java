@@ -0,0 +1,25 @@
+package jonas.elobooahrd.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for the complete state of a league, as handed from one node to another.
+ * Matches are listed per game in the order they were played.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeagueSnapshotDTO {
+    private String id;
+    private String name;
+    private long sequence; // Latest change of the change feed that is part of the snapshot
+    private List<GameDTO> games = new ArrayList<>();
+    private List<PlayerDTO> players = new ArrayList<>(); // With their current ratings
+    private List<TeamDTO> teams = new ArrayList<>();
+    private List<MatchDTO> matches = new ArrayList<>();
+}
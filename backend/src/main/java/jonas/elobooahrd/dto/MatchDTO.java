@@ -1,5 +1,6 @@
 package jonas.elobooahrd.dto;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -14,9 +15,12 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class MatchDTO {
+    private UUID id; // Set when returned from the match history
     private UUID gameId;
+    private LocalDateTime timestamp; // Set when returned from the match history
     private List<UUID> winnerIds;
     private List<UUID> loserIds;
+    private List<UUID> finishingOrder; // Optional, for free-for-all matches: players from first to last place
     private List<Integer> winnerScores; // Optional, for games that track scores
     private List<Integer> loserScores; // Optional, for games that track scores
     private boolean isTeamMatch = false;
@@ -0,0 +1,21 @@
+package jonas.elobooahrd.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for a matchmaking request.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MatchmakingRequestDTO {
+    private UUID gameId;
+    private List<UUID> playerIds; // The players present in the lobby
+    private UUID playerId; // Only used when looking for a 1v1 opponent
+    private int limit = 5; // The maximum number of suggestions
+}
@@ -0,0 +1,20 @@
+package jonas.elobooahrd.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for the result of a matchmaking request.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MatchmakingResultDTO {
+    private UUID gameId;
+    private List<TeamSplitDTO> suggestions; // Fairest first
+    private boolean exhaustive; // false if the time budget ran out before the search was complete
+}
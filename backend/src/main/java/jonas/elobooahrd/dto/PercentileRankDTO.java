@@ -0,0 +1,20 @@
+package jonas.elobooahrd.dto;
+
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for a player's position within the rating distribution of a game.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PercentileRankDTO {
+    private UUID gameId;
+    private UUID playerId;
+    private int rating;
+    private double percentileRank; // Share of players rated below the player, 0 - 100
+}
@@ -0,0 +1,23 @@
+package jonas.elobooahrd.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for the state of the write-behind persistence.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PersistenceStatusDTO {
+    private boolean enabled;
+    private long flushedSequence; // Latest change that is in the database
+    private long latestSequence; // Latest change held in memory
+    private long lagEvents;
+    private long lagMillis; // Time since the database last had every change; a crash loses at most this much
+    private int consecutiveFailures; // Flushes that failed since the last successful one
+    private LocalDateTime lastFlush; // Last successful flush
+}
@@ -0,0 +1,24 @@
+package jonas.elobooahrd.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for the player cache of a league.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlayerCacheStatsDTO {
+    private boolean enabled; // False if all players are kept in memory
+    private long hits; // Lookups of resident players
+    private long misses; // Lookups that loaded an evicted player back
+    private double hitRate;
+    private long evictions;
+    private int residentPlayers;
+    private int evictedPlayers;
+    private long residentBytes; // Estimated heap of the resident players
+    private long memoryBudget;
+    private long storeBytes; // Size of the store file, including replaced records
+}
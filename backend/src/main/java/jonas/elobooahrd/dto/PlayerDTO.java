@@ -18,4 +18,6 @@ public class PlayerDTO {
     private UUID id;
     private String name;
     private Map<UUID, Integer> eloRatings = new HashMap<>();
+    private Integer ratingLow; // Only set in leaderboards, lower bound of the rating's confidence interval
+    private Integer ratingHigh; // Only set in leaderboards, upper bound of the rating's confidence interval
 }
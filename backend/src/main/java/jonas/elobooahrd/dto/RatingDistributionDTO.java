@@ -0,0 +1,26 @@
+package jonas.elobooahrd.dto;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for the rating distribution of a game.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RatingDistributionDTO {
+    private UUID gameId;
+    private int totalPlayers;
+    private int minRating; // Lower bound of the first bucket
+    private int bucketWidth;
+    private List<Integer> counts = new ArrayList<>(); // Number of players per bucket
+    private Map<String, Integer> percentiles = new LinkedHashMap<>(); // e.g. "p50" -> median rating
+}
@@ -0,0 +1,21 @@
+package jonas.elobooahrd.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for the complete state of a primary, as a follower starts from.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReplicationSnapshotDTO {
+    private UUID feedId; // The change feed to follow from here
+    private long sequence; // Every change up to here is part of the snapshot
+    private List<LeagueSnapshotDTO> leagues = new ArrayList<>();
+}
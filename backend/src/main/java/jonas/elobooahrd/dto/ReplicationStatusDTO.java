@@ -0,0 +1,23 @@
+package jonas.elobooahrd.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for the replication state of a node.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReplicationStatusDTO {
+    private String role; // "primary" or "follower"
+    private String primaryUrl; // Only set for followers
+    private long appliedSequence; // Latest change contained in this node's data
+    private long primarySequence; // Latest change the primary reported
+    private long lagEvents;
+    private long lagMillis; // Time since the node last had every change of the primary; reads are at most this stale
+    private LocalDateTime lastContact; // Last successful poll of the primary
+}
@@ -0,0 +1,22 @@
+package jonas.elobooahrd.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for Team data.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TeamDTO {
+    private UUID id;
+    private String name;
+    private UUID gameId;
+    private List<UUID> playerIds;
+    private int eloRating; // Average rating of the members, set when returned
+}
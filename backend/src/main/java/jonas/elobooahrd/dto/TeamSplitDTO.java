@@ -0,0 +1,23 @@
+package jonas.elobooahrd.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for a suggested pairing of two teams or two players.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TeamSplitDTO {
+    private List<UUID> team1Ids;
+    private List<UUID> team2Ids;
+    private int team1Rating; // Average rating of the members
+    private int team2Rating; // Average rating of the members
+    private int ratingDifference;
+    private double team1WinProbability; // Predicted from the Elo expected score
+}
@@ -0,0 +1,20 @@
+package jonas.elobooahrd.dto;
+
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for the simulated odds of one tournament participant.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TournamentOddsDTO {
+    private UUID playerId;
+    private int eloRating;
+    private double winProbability;
+    private double[] placementProbabilities; // Index i is the probability of finishing in place i + 1
+}
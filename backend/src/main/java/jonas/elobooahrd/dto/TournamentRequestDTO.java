@@ -0,0 +1,22 @@
+package jonas.elobooahrd.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for a tournament simulation request.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TournamentRequestDTO {
+    private UUID gameId;
+    private String format = "KNOCKOUT"; // KNOCKOUT or ROUND_ROBIN
+    private List<UUID> playerIds; // For knockouts in bracket order; the first players get the byes
+    private int simulations = 1_000_000;
+    private Long seed; // Optional, for reproducible results
+}
@@ -0,0 +1,21 @@
+package jonas.elobooahrd.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for the result of a tournament simulation.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TournamentSimulationDTO {
+    private UUID gameId;
+    private String format;
+    private int simulations;
+    private List<TournamentOddsDTO> players; // Highest win probability first
+}
@@ -0,0 +1,20 @@
+package jonas.elobooahrd.dto;
+
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for one row of a win-probability matrix.
+ * Rows and columns list the players in the same order, so column k belongs to the player of row k.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WinProbabilityRowDTO {
+    private UUID playerId;
+    private int eloRating;
+    private double[] winProbabilities; // Expected score of this player against the player of each column
+}
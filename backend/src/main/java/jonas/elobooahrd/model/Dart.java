@@ -1,12 +1,27 @@
 package jonas.elobooahrd.model;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
+import jonas.elobooahrd.model.history.DartMatchLog;
+import jonas.elobooahrd.model.history.HistoryTiering;
+import jonas.elobooahrd.model.index.MatchIndex;
+import jonas.elobooahrd.model.interfaces.DartVariantEngine;
+import jonas.elobooahrd.model.util.IntList;
+import jonas.elobooahrd.model.variant.AroundTheClockEngine;
+import jonas.elobooahrd.model.variant.CricketEngine;
+import jonas.elobooahrd.model.variant.DartLegState;
+import jonas.elobooahrd.model.variant.KillerEngine;
+import jonas.elobooahrd.model.variant.ShanghaiEngine;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
@@ -23,8 +38,19 @@ import lombok.ToString;
 public class Dart extends Game {
     private int startingScore = 501; // Default starting score for a dart game (501)
     private boolean doubleOut = true; // Whether players need to finish on a double
-    private List<Match> matchHistory = new ArrayList<>(); // History of matches played
-    private Map<UUID, List<Integer>> playerScoreHistory = new HashMap<>(); // Track score history for each player
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private DartMatchLog matchLog = new DartMatchLog(); // Packed history of matches played
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Map<Integer, Match> liveMatches = new ConcurrentHashMap<>(); // Matches still being scored, by history row
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Map<UUID, Integer> liveRows = new ConcurrentHashMap<>(); // History rows of the live matches
+    private Map<UUID, PlayerStats> playerStats = new ConcurrentHashMap<>(); // Running throw statistics for each player
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private MatchIndex matchIndex = new MatchIndex(); // Match history rows per player
     
     /**
      * Represents a dart game variant
@@ -38,6 +64,13 @@ public class Dart extends Game {
     }
     
     private DartVariant variant = DartVariant.X01;
+    
+    // Scoring engines of the variants that are played dart by dart; X01 is scored by visit total
+    private static final Map<DartVariant, DartVariantEngine> ENGINES = new EnumMap<>(Map.of(
+            DartVariant.CRICKET, new CricketEngine(),
+            DartVariant.AROUND_THE_CLOCK, new AroundTheClockEngine(),
+            DartVariant.SHANGHAI, new ShanghaiEngine(),
+            DartVariant.KILLER, new KillerEngine()));
 
     /**
      * Represents a match in dart
@@ -55,36 +88,115 @@ public class Dart extends Game {
         private int player2RemainingScore;
         private int player1Darts = 0; // Total number of darts thrown
         private int player2Darts = 0;
-        private LocalDateTime timestamp = LocalDateTime.now();
+        private LocalDateTime timestamp = LocalDateTime.ofInstant(Instant.now(), ZoneOffset.UTC); // UTC, as the match log stores it
         private UUID winnerId;
         private boolean completed = false;
         private int startingScore;
         private DartVariant variant;
+        private boolean doubleOut = true;
+        @ToString.Exclude
+        @EqualsAndHashCode.Exclude
+        private DartLegState legState; // State of variants scored dart by dart, null for X01
         
         /**
          * Creates a new dart match with the given players
          */
         public Match(UUID player1Id, UUID player2Id, int startingScore, DartVariant variant) {
+            this(player1Id, player2Id, startingScore, variant, true);
+        }
+        
+        /**
+         * Creates a new dart match with the given players and finishing rule
+         */
+        public Match(UUID player1Id, UUID player2Id, int startingScore, DartVariant variant, boolean doubleOut) {
             this.player1Id = player1Id;
             this.player2Id = player2Id;
             this.player1RemainingScore = startingScore;
             this.player2RemainingScore = startingScore;
             this.startingScore = startingScore;
             this.variant = variant;
+            this.doubleOut = doubleOut;
+            DartVariantEngine engine = variant != null ? ENGINES.get(variant) : null;
+            if (engine != null) {
+                this.legState = new DartLegState();
+                engine.start(legState);
+            }
         }
         
         /**
-         * Records a score for player 1
+         * Records a visit in a variant that is scored dart by dart.
+         * The darts are scored in order and the visit stops at the dart that decides the leg.
+         * @param isPlayer1 Whether player 1 threw the visit
+         * @param segments The segment of each dart: 0 for a miss, 1 - 20, or 25 for the bull
+         * @param multipliers The multiplier of each dart: 1, 2 or 3
+         * @return true if the visit completed the match, false otherwise
+         */
+        public boolean recordVariantVisit(boolean isPlayer1, int[] segments, int[] multipliers) {
+            if (legState == null) {
+                throw new IllegalStateException("X01 matches are scored by visit total");
+            }
+            if (segments.length < 1 || segments.length > 3 || segments.length != multipliers.length) {
+                throw new IllegalArgumentException("A visit has 1 - 3 darts");
+            }
+            for (int i = 0; i < segments.length; i++) {
+                if (!DartLegState.isValidThrow(segments[i], multipliers[i])) {
+                    throw new IllegalArgumentException("Invalid dart: " + multipliers[i] + " x " + segments[i]);
+                }
+            }
+            
+            DartVariantEngine engine = ENGINES.get(variant);
+            int player = isPlayer1 ? 0 : 1;
+            int darts = 0;
+            while (darts < segments.length && !legState.isFinished()) {
+                engine.throwDart(legState, player, segments[darts], multipliers[darts]);
+                darts++;
+            }
+            if (!legState.isFinished()) {
+                engine.endVisit(legState, player);
+            }
+            
+            if (isPlayer1) {
+                player1Darts += darts;
+            } else {
+                player2Darts += darts;
+            }
+            if (legState.isFinished()) {
+                winnerId = legState.getWinner() == 0 ? player1Id : player2Id;
+                completed = true;
+                return true;
+            }
+            return false;
+        }
+        
+        /**
+         * Evaluates a visit for a player without recording it
+         * @param remaining The player's remaining score
+         * @param score The score of the visit
+         * @param dartsThrown The number of darts thrown in the visit
+         * @return The outcome of the visit
+         */
+        public DartCheckouts.VisitOutcome evaluateVisit(int remaining, int score, int dartsThrown) {
+            return DartCheckouts.evaluate(remaining, score, dartsThrown, doubleOut);
+        }
+        
+        /**
+         * Records a score for player 1. A bust counts the darts but leaves the remaining score unchanged.
          * @param score The score achieved in this round
          * @param dartsThrown The number of darts thrown in this round
          * @return true if the player has won, false otherwise
          */
         public boolean recordPlayer1Score(int score, int dartsThrown) {
-            player1Scores.add(score);
+            DartCheckouts.VisitOutcome outcome = evaluateVisit(player1RemainingScore, score, dartsThrown);
             player1Darts += dartsThrown;
+            if (outcome == DartCheckouts.VisitOutcome.BUST) {
+                player1Scores.add(0);
+                return false;
+            }
+            
+            player1Scores.add(score);
             player1RemainingScore -= score;
             
-            if (player1RemainingScore == 0) {
+            if (outcome == DartCheckouts.VisitOutcome.CHECKOUT) {
                 winnerId = player1Id;
                 completed = true;
                 return true;
@@ -94,17 +206,23 @@ public class Dart extends Game {
         }
         
         /**
-         * Records a score for player 2
+         * Records a score for player 2. A bust counts the darts but leaves the remaining score unchanged.
          * @param score The score achieved in this round
          * @param dartsThrown The number of darts thrown in this round
          * @return true if the player has won, false otherwise
          */
         public boolean recordPlayer2Score(int score, int dartsThrown) {
-            player2Scores.add(score);
+            DartCheckouts.VisitOutcome outcome = evaluateVisit(player2RemainingScore, score, dartsThrown);
             player2Darts += dartsThrown;
+            if (outcome == DartCheckouts.VisitOutcome.BUST) {
+                player2Scores.add(0);
+                return false;
+            }
+            
+            player2Scores.add(score);
             player2RemainingScore -= score;
             
-            if (player2RemainingScore == 0) {
+            if (outcome == DartCheckouts.VisitOutcome.CHECKOUT) {
                 winnerId = player2Id;
                 completed = true;
                 return true;
@@ -134,6 +252,111 @@ public class Dart extends Game {
         }
     }
 
+    /**
+     * Running throw statistics of a player in a dart game.
+     * Every aggregate is updated in O(1) per visit, so stat queries cost the same
+     * regardless of how many matches the player has played.
+     */
+    @ToString
+    public static class PlayerStats {
+        private final IntList scores = new IntList(); // Raw visit scores, in order
+        private long totalPoints;
+        private int totalDarts;
+        private int highestVisit;
+        private int legsPlayed;
+        private int legsWon;
+        private int bestLegDarts; // Fewest darts needed to win a leg, 0 if no leg was won yet
+        private int checkoutAttempts; // Visits started on a score that can be finished in one visit
+        private int checkoutsHit;
+
+        /**
+         * Records one visit at the board
+         * @param score The points the visit counted for (0 for a bust)
+         * @param dartsThrown The number of darts thrown
+         * @param checkoutAttempt Whether the visit started on a score that can be finished in one visit
+         * @param finished Whether the visit finished the leg
+         */
+        public synchronized void recordVisit(int score, int dartsThrown, boolean checkoutAttempt, boolean finished) {
+            scores.add(score);
+            totalPoints += score;
+            totalDarts += dartsThrown;
+            highestVisit = Math.max(highestVisit, score);
+            if (checkoutAttempt) {
+                checkoutAttempts++;
+                if (finished) {
+                    checkoutsHit++;
+                }
+            }
+        }
+
+        /**
+         * Records the end of a leg
+         * @param won Whether the player won the leg
+         * @param dartsInLeg The number of darts the player threw in the leg
+         */
+        public synchronized void recordLeg(boolean won, int dartsInLeg) {
+            legsPlayed++;
+            if (won) {
+                legsWon++;
+                if (bestLegDarts == 0 || dartsInLeg < bestLegDarts) {
+                    bestLegDarts = dartsInLeg;
+                }
+            }
+        }
+
+        /**
+         * Gets the standard 3-dart average over all visits
+         * @return The average score per three darts
+         */
+        public synchronized double getThreeDartAverage() {
+            return totalDarts == 0 ? 0 : (double) totalPoints / totalDarts * 3;
+        }
+
+        /**
+         * Gets the share of checkout attempts that finished the leg
+         * @return The checkout rate between 0 and 1
+         */
+        public synchronized double getCheckoutRate() {
+            return checkoutAttempts == 0 ? 0 : (double) checkoutsHit / checkoutAttempts;
+        }
+
+        public synchronized int getVisitCount() {
+            return scores.size();
+        }
+
+        public synchronized long getTotalPoints() {
+            return totalPoints;
+        }
+
+        public synchronized int getTotalDarts() {
+            return totalDarts;
+        }
+
+        public synchronized int getHighestVisit() {
+            return highestVisit;
+        }
+
+        public synchronized int getLegsPlayed() {
+            return legsPlayed;
+        }
+
+        public synchronized int getLegsWon() {
+            return legsWon;
+        }
+
+        public synchronized int getBestLegDarts() {
+            return bestLegDarts;
+        }
+
+        /**
+         * Gets a copy of the raw visit scores
+         * @return The scores in the order they were thrown
+         */
+        public synchronized int[] getScores() {
+            return scores.toArray();
+        }
+    }
+
     /**
      * Creates a new dart game with default settings (501, double out)
      */
@@ -194,12 +417,28 @@ public class Dart extends Game {
      * @return The created match
      */
     public Match createMatch(Player player1, Player player2) {
-        Match match = new Match(player1.getId(), player2.getId(), startingScore, variant);
-        matchHistory.add(match);
+        return createMatch(player1, player2, variant);
+    }
+    
+    /**
+     * Creates a new match between two players in the given variant
+     * @param player1 The first player
+     * @param player2 The second player
+     * @param matchVariant The variant to play
+     * @return The created match
+     */
+    public Match createMatch(Player player1, Player player2, DartVariant matchVariant) {
+        Match match = new Match(player1.getId(), player2.getId(), startingScore, matchVariant, doubleOut);
+        int row = matchLog.append(match);
+        liveMatches.put(row, match);
+        liveRows.put(match.getId(), row);
+        matchLog.spillIfNeeded(matchIndex, firstLiveRow());
+        matchIndex.add(player1.getId(), row);
+        matchIndex.add(player2.getId(), row);
         
-        // Initialize score history for players if not already done
-        playerScoreHistory.putIfAbsent(player1.getId(), new ArrayList<>());
-        playerScoreHistory.putIfAbsent(player2.getId(), new ArrayList<>());
+        // Initialize statistics for players if not already done
+        playerStats.computeIfAbsent(player1.getId(), id -> new PlayerStats());
+        playerStats.computeIfAbsent(player2.getId(), id -> new PlayerStats());
         
         return match;
     }
@@ -217,43 +456,183 @@ public class Dart extends Game {
         if (match.isCompleted()) {
             throw new IllegalStateException("Match is already completed");
         }
+        if (match.getLegState() != null) {
+            throw new IllegalStateException(match.getVariant() + " matches are scored dart by dart");
+        }
         
         UUID playerId = player.getId();
-        
-        // Record the score in the player's history
-        List<Integer> scoreHistory = playerScoreHistory.get(playerId);
-        if (scoreHistory != null) {
-            scoreHistory.add(score);
+        boolean isPlayer1 = playerId.equals(match.getPlayer1Id());
+        if (!isPlayer1 && !playerId.equals(match.getPlayer2Id())) {
+            throw new IllegalArgumentException("Player is not part of this match");
         }
         
-        boolean isWinner = false;
-        
         // Record the score in the match
-        if (playerId.equals(match.getPlayer1Id())) {
-            isWinner = match.recordPlayer1Score(score, dartsThrown);
-        } else if (playerId.equals(match.getPlayer2Id())) {
-            isWinner = match.recordPlayer2Score(score, dartsThrown);
-        } else {
-            throw new IllegalArgumentException("Player is not part of this match");
-        }
+        int remainingBefore = isPlayer1 ? match.getPlayer1RemainingScore() : match.getPlayer2RemainingScore();
+        boolean isWinner = isPlayer1
+                ? match.recordPlayer1Score(score, dartsThrown)
+                : match.recordPlayer2Score(score, dartsThrown);
+        
+        // Update the player's running statistics; a bust counts as zero points
+        int remainingAfter = isPlayer1 ? match.getPlayer1RemainingScore() : match.getPlayer2RemainingScore();
+        PlayerStats stats = playerStats.computeIfAbsent(playerId, id -> new PlayerStats());
+        stats.recordVisit(remainingBefore - remainingAfter, dartsThrown,
+                DartCheckouts.isCheckout(remainingBefore, match.isDoubleOut()), isWinner);
         
-        // If the match is completed, update Elo ratings
+        // If the match is completed, close the leg for both players and update Elo ratings
         if (isWinner) {
+            archiveMatch(match);
+            stats.recordLeg(true, isPlayer1 ? match.getPlayer1Darts() : match.getPlayer2Darts());
+            playerStats.computeIfAbsent(opponent.getId(), id -> new PlayerStats())
+                    .recordLeg(false, isPlayer1 ? match.getPlayer2Darts() : match.getPlayer1Darts());
             recordMatch(player, opponent);
         }
         
         return isWinner;
     }
     
+    /**
+     * Records the result of a completed variant match and updates the Elo ratings.
+     * Throw statistics are kept for X01 only, so only the legs are counted here.
+     * @param match The completed match
+     * @param player1 The first player of the match
+     * @param player2 The second player of the match
+     */
+    public void recordVariantResult(Match match, Player player1, Player player2) {
+        if (!match.isCompleted()) {
+            throw new IllegalStateException("Match is not completed");
+        }
+        archiveMatch(match);
+        boolean player1Won = player1.getId().equals(match.getWinnerId());
+        playerStats.computeIfAbsent(player1.getId(), id -> new PlayerStats())
+                .recordLeg(player1Won, match.getPlayer1Darts());
+        playerStats.computeIfAbsent(player2.getId(), id -> new PlayerStats())
+                .recordLeg(!player1Won, match.getPlayer2Darts());
+        if (player1Won) {
+            recordMatch(player1, player2);
+        } else {
+            recordMatch(player2, player1);
+        }
+    }
+    
+    /**
+     * Adds a completed match from another node's history and updates the Elo ratings.
+     * Only the result is replayed; visit statistics stay with the node the match was scored on.
+     * @param match The completed match with its ID, timestamp and winner
+     * @param winner The winning player
+     * @param loser The losing player
+     */
+    public void importMatch(Match match, Player winner, Player loser) {
+        if (!match.isCompleted() || !winner.getId().equals(match.getWinnerId())) {
+            throw new IllegalArgumentException("Only completed matches can be imported");
+        }
+        int row = matchLog.append(match);
+        matchIndex.add(match.getPlayer1Id(), row);
+        matchIndex.add(match.getPlayer2Id(), row);
+        matchLog.spillIfNeeded(matchIndex, firstLiveRow());
+        recordMatch(winner, loser);
+    }
+    
+    /**
+     * Packs the current state of a live match into the history and releases the match object.
+     * Called when a match is completed or abandoned; later reads decode the packed row.
+     * @param match The match to archive
+     */
+    public void archiveMatch(Match match) {
+        Integer row = liveRows.remove(match.getId());
+        if (row != null) {
+            matchLog.update(row, match);
+            liveMatches.remove(row);
+            matchLog.spillIfNeeded(matchIndex, firstLiveRow());
+        }
+    }
+    
+    /**
+     * Gets the matches played within a time range, from memory and from history segments
+     * @param from The start of the range (inclusive)
+     * @param to The end of the range (exclusive)
+     * @return The matches, oldest first
+     */
+    public List<Match> getMatchesBetween(LocalDateTime from, LocalDateTime to) {
+        List<Match> result = new ArrayList<>();
+        for (int row : matchLog.rowsBetween(from, to)) {
+            result.add(matchAt(row));
+        }
+        return result;
+    }
+    
+    @Override
+    public void enableHistoryTiering(HistoryTiering tiering) {
+        matchLog.enableTiering(tiering, tiering.directory().resolve(getId().toString()));
+    }
+    
+    @Override
+    public void discardHistorySegments() {
+        matchLog.discardSegments();
+    }
+    
+    @Override
+    public void discardStoredHistorySegments() {
+        matchLog.discardStoredSegments();
+    }
+    
+    // Matches that are still being scored are rewritten later, so they must stay in memory
+    private int firstLiveRow() {
+        int first = Integer.MAX_VALUE;
+        for (int row : liveMatches.keySet()) {
+            first = Math.min(first, row);
+        }
+        return first;
+    }
+    
+    /**
+     * Gets the match history as a read-only list.
+     * Live matches are returned as they are; archived matches are decoded on access.
+     * @return The matches played, oldest first
+     */
+    public List<Match> getMatchHistory() {
+        return new AbstractList<>() {
+            @Override
+            public Match get(int index) {
+                return matchAt(index);
+            }
+            
+            @Override
+            public int size() {
+                return matchLog.size();
+            }
+        };
+    }
+    
+    private Match matchAt(int row) {
+        Match live = liveMatches.get(row);
+        return live != null ? live : matchLog.get(row);
+    }
+    
     /**
      * Gets the match history for a specific player
      * @param playerId The ID of the player
      * @return A list of matches involving the player
      */
     public List<Match> getPlayerMatches(UUID playerId) {
-        return matchHistory.stream()
-                .filter(match -> match.getPlayer1Id().equals(playerId) || match.getPlayer2Id().equals(playerId))
-                .toList();
+        List<Match> result = new ArrayList<>();
+        for (int row : matchLog.allRows(playerId, matchIndex)) {
+            result.add(matchAt(row));
+        }
+        return result;
+    }
+    
+    /**
+     * Gets the most recent matches of a player
+     * @param playerId The ID of the player
+     * @param limit The maximum number of matches
+     * @return The matches involving the player, most recent first
+     */
+    public List<Match> getRecentMatches(UUID playerId, int limit) {
+        List<Match> result = new ArrayList<>();
+        for (int row : matchLog.recentRows(playerId, limit, matchIndex)) {
+            result.add(matchAt(row));
+        }
+        return result;
     }
     
     /**
@@ -262,33 +641,35 @@ public class Dart extends Game {
      * @return A list of scores for the player, or an empty list if not found
      */
     public List<Integer> getPlayerScoreHistory(UUID playerId) {
-        return playerScoreHistory.getOrDefault(playerId, new ArrayList<>());
+        return Arrays.stream(getPlayerScores(playerId)).boxed().toList();
+    }
+    
+    /**
+     * Gets the raw visit scores of a player as a primitive array
+     * @param playerId The ID of the player
+     * @return The scores in the order they were thrown, or an empty array if not found
+     */
+    public int[] getPlayerScores(UUID playerId) {
+        PlayerStats stats = playerStats.get(playerId);
+        return stats != null ? stats.getScores() : new int[0];
     }
     
     /**
-     * Gets the average score per dart for a player across all matches
+     * Gets the running statistics of a player
      * @param playerId The ID of the player
-     * @return The average score per dart
+     * @return The player's statistics, or null if the player has not played this game
+     */
+    public PlayerStats getPlayerStats(UUID playerId) {
+        return playerStats.get(playerId);
+    }
+    
+    /**
+     * Gets the 3-dart average of a player across all matches
+     * @param playerId The ID of the player
+     * @return The average score per three darts
      */
     public double getPlayerAverageScore(UUID playerId) {
-        List<Match> playerMatches = getPlayerMatches(playerId);
-        if (playerMatches.isEmpty()) {
-            return 0;
-        }
-        
-        double totalAverage = 0;
-        int matchCount = 0;
-        
-        for (Match match : playerMatches) {
-            if (match.getPlayer1Id().equals(playerId)) {
-                totalAverage += match.getPlayer1Average();
-                matchCount++;
-            } else if (match.getPlayer2Id().equals(playerId)) {
-                totalAverage += match.getPlayer2Average();
-                matchCount++;
-            }
-        }
-        
-        return matchCount > 0 ? totalAverage / matchCount : 0;
+        PlayerStats stats = playerStats.get(playerId);
+        return stats != null ? stats.getThreeDartAverage() : 0;
     }
 }
@@ -0,0 +1,228 @@
+package jonas.elobooahrd.model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Precomputed checkout tables for X01 darts.
+ * All finishes from 2 to 170 (double out) and 1 to 180 (single out) are enumerated once
+ * when the class is loaded, so bust checks, finish validation and route suggestions are
+ * plain array lookups while a match is being scored.
+ */
+public final class DartCheckouts {
+    public static final int MAX_VISIT_SCORE = 180;
+    public static final int MAX_DOUBLE_OUT_CHECKOUT = 170;
+    public static final int MAX_SUGGESTIONS = 3;
+
+    /**
+     * The result of scoring a visit in X01
+     */
+    public enum VisitOutcome {
+        SCORED,   // Points were deducted and the leg goes on
+        BUST,     // The visit went below zero or left an unfinishable score; points are discarded
+        CHECKOUT  // The visit finished the leg
+    }
+
+    // A single dart: its value, whether it is a double, and how a player would call it
+    private record Throw(int value, boolean isDouble, String label) {
+    }
+
+    private static final Throw[] THROWS = buildThrows();
+
+    // Minimum number of darts needed to finish a score, 0 if it cannot be finished in one visit
+    private static final int[] DOUBLE_OUT_MIN_DARTS = new int[MAX_VISIT_SCORE + 1];
+    private static final int[] SINGLE_OUT_MIN_DARTS = new int[MAX_VISIT_SCORE + 1];
+    private static final String[][] DOUBLE_OUT_ROUTES = new String[MAX_VISIT_SCORE + 1][];
+    private static final String[][] SINGLE_OUT_ROUTES = new String[MAX_VISIT_SCORE + 1][];
+
+    // Bit n of VISIT_DARTS_MASK[score] is set if the score can be thrown with exactly n + 1 darts
+    private static final int[] VISIT_DARTS_MASK = new int[MAX_VISIT_SCORE + 1];
+
+    static {
+        buildVisitMasks();
+        buildRoutes(true, DOUBLE_OUT_MIN_DARTS, DOUBLE_OUT_ROUTES);
+        buildRoutes(false, SINGLE_OUT_MIN_DARTS, SINGLE_OUT_ROUTES);
+    }
+
+    private DartCheckouts() {
+    }
+
+    /**
+     * Evaluates a visit against the remaining score
+     * @param remaining The remaining score before the visit
+     * @param score The total score of the visit
+     * @param dartsThrown The number of darts thrown in the visit
+     * @param doubleOut Whether the leg must be finished on a double
+     * @return The outcome of the visit
+     * @throws IllegalArgumentException if the score cannot be thrown with the given number of darts
+     */
+    public static VisitOutcome evaluate(int remaining, int score, int dartsThrown, boolean doubleOut) {
+        if (!isPossibleVisit(score, dartsThrown)) {
+            throw new IllegalArgumentException("A score of " + score + " cannot be thrown with " + dartsThrown + " darts");
+        }
+        int left = remaining - score;
+        if (left < 0 || (doubleOut && left == 1)) {
+            return VisitOutcome.BUST;
+        }
+        if (left == 0) {
+            return isLegalFinish(score, dartsThrown, doubleOut) ? VisitOutcome.CHECKOUT : VisitOutcome.BUST;
+        }
+        return VisitOutcome.SCORED;
+    }
+
+    /**
+     * Checks whether a score can be thrown with the given number of darts
+     * @param score The total score of the visit
+     * @param dartsThrown The number of darts thrown, 1 to 3
+     * @return true if the score is reachable
+     */
+    public static boolean isPossibleVisit(int score, int dartsThrown) {
+        if (score < 0 || score > MAX_VISIT_SCORE || dartsThrown < 1 || dartsThrown > 3) {
+            return false;
+        }
+        // Missing the board scores 0, so fewer scoring darts are allowed too
+        int allowed = (1 << dartsThrown) - 1;
+        return score == 0 || (VISIT_DARTS_MASK[score] & allowed) != 0;
+    }
+
+    /**
+     * Checks whether a remaining score can be finished in one visit
+     * @param remaining The remaining score
+     * @param doubleOut Whether the leg must be finished on a double
+     * @return true if a checkout exists
+     */
+    public static boolean isCheckout(int remaining, boolean doubleOut) {
+        return minDarts(remaining, doubleOut) > 0;
+    }
+
+    /**
+     * Checks whether a visit that brings the score to exactly zero is a legal finish
+     * @param score The remaining score that was finished
+     * @param dartsThrown The number of darts used
+     * @param doubleOut Whether the leg must be finished on a double
+     * @return true if the finish is legal
+     */
+    public static boolean isLegalFinish(int score, int dartsThrown, boolean doubleOut) {
+        int needed = minDarts(score, doubleOut);
+        return needed > 0 && needed <= dartsThrown;
+    }
+
+    /**
+     * Gets the minimum number of darts needed to finish a remaining score
+     * @param remaining The remaining score
+     * @param doubleOut Whether the leg must be finished on a double
+     * @return The number of darts, or 0 if the score cannot be finished in one visit
+     */
+    public static int minDarts(int remaining, boolean doubleOut) {
+        if (remaining < 1 || remaining > MAX_VISIT_SCORE) {
+            return 0;
+        }
+        return doubleOut ? DOUBLE_OUT_MIN_DARTS[remaining] : SINGLE_OUT_MIN_DARTS[remaining];
+    }
+
+    /**
+     * Gets suggested checkout routes for a remaining score, best first
+     * @param remaining The remaining score
+     * @param doubleOut Whether the leg must be finished on a double
+     * @return The routes, e.g. "T20 T20 D20", or an empty list if no checkout exists
+     */
+    public static List<String> suggestions(int remaining, boolean doubleOut) {
+        if (remaining < 1 || remaining > MAX_VISIT_SCORE) {
+            return List.of();
+        }
+        String[] routes = doubleOut ? DOUBLE_OUT_ROUTES[remaining] : SINGLE_OUT_ROUTES[remaining];
+        return routes != null ? List.of(routes) : List.of();
+    }
+
+    private static Throw[] buildThrows() {
+        List<Throw> throwsList = new ArrayList<>();
+        for (int segment = 20; segment >= 1; segment--) {
+            throwsList.add(new Throw(segment * 3, false, "T" + segment));
+        }
+        throwsList.add(new Throw(50, true, "BULL"));
+        for (int segment = 20; segment >= 1; segment--) {
+            throwsList.add(new Throw(segment * 2, true, "D" + segment));
+        }
+        throwsList.add(new Throw(25, false, "25"));
+        for (int segment = 20; segment >= 1; segment--) {
+            throwsList.add(new Throw(segment, false, String.valueOf(segment)));
+        }
+        return throwsList.toArray(new Throw[0]);
+    }
+
+    private static void buildVisitMasks() {
+        for (Throw first : THROWS) {
+            VISIT_DARTS_MASK[first.value()] |= 1;
+            for (Throw second : THROWS) {
+                VISIT_DARTS_MASK[first.value() + second.value()] |= 2;
+                for (Throw third : THROWS) {
+                    VISIT_DARTS_MASK[first.value() + second.value() + third.value()] |= 4;
+                }
+            }
+        }
+    }
+
+    // A candidate route with the data used to rank it
+    private record Route(int darts, int firstValue, int finishRank, String label) {
+    }
+
+    private static void buildRoutes(boolean doubleOut, int[] minDarts, String[][] routes) {
+        List<List<Route>> candidates = new ArrayList<>();
+        for (int score = 0; score <= MAX_VISIT_SCORE; score++) {
+            candidates.add(new ArrayList<>());
+        }
+
+        for (Throw last : THROWS) {
+            if (doubleOut && !last.isDouble()) {
+                continue;
+            }
+            int rank = finishRank(last);
+            candidates.get(last.value()).add(new Route(1, last.value(), rank, last.label()));
+            for (Throw first : THROWS) {
+                int two = first.value() + last.value();
+                candidates.get(two).add(new Route(2, first.value(), rank, first.label() + " " + last.label()));
+                for (Throw second : THROWS) {
+                    // Setup darts in either order describe the same route; keep the higher one first
+                    if (second.value() > first.value()) {
+                        continue;
+                    }
+                    int three = two + second.value();
+                    if (three <= MAX_VISIT_SCORE) {
+                        candidates.get(three).add(new Route(3, first.value(), rank,
+                                first.label() + " " + second.label() + " " + last.label()));
+                    }
+                }
+            }
+        }
+
+        Comparator<Route> order = Comparator.comparingInt(Route::darts)
+                .thenComparingInt(Route::finishRank)
+                .thenComparing(Comparator.comparingInt(Route::firstValue).reversed());
+        int maxScore = doubleOut ? MAX_DOUBLE_OUT_CHECKOUT : MAX_VISIT_SCORE;
+        for (int score = 1; score <= maxScore; score++) {
+            List<Route> options = candidates.get(score);
+            if (options.isEmpty()) {
+                continue;
+            }
+            options.sort(order);
+            minDarts[score] = options.get(0).darts();
+            routes[score] = options.stream()
+                    .map(Route::label)
+                    .distinct()
+                    .limit(MAX_SUGGESTIONS)
+                    .toArray(String[]::new);
+        }
+    }
+
+    // Lower is better: the doubles most players prefer to finish on come first
+    private static int finishRank(Throw last) {
+        return switch (last.label()) {
+            case "D20" -> 0;
+            case "D16" -> 1;
+            case "D18", "D12", "D10", "D8" -> 2;
+            case "BULL" -> 4;
+            default -> last.isDouble() ? 3 : 5;
+        };
+    }
+}
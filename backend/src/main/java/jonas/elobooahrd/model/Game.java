@@ -3,6 +3,7 @@ package jonas.elobooahrd.model;
 import java.util.List;
 import java.util.UUID;
 
+import jonas.elobooahrd.model.history.HistoryTiering;
 import jonas.elobooahrd.model.interfaces.GameInterface;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -49,8 +50,17 @@ public abstract class Game implements GameInterface {
      */
     @Override
     public int calculateEloChange(int playerRating, int opponentRating, double score) {
-        double expectedScore = 1.0 / (1.0 + Math.pow(10, (opponentRating - playerRating) / 400.0));
-        return (int) Math.round(kFactor * (score - expectedScore));
+        return (int) Math.round(kFactor * (score - expectedScore(playerRating, opponentRating)));
+    }
+
+    /**
+     * Calculates the expected score of a player against an opponent
+     * @param playerRating The current rating of the player
+     * @param opponentRating The current rating of the opponent
+     * @return The expected score between 0 and 1
+     */
+    public static double expectedScore(int playerRating, int opponentRating) {
+        return 1.0 / (1.0 + Math.pow(10, (opponentRating - playerRating) / 400.0));
     }
 
     /**
@@ -87,6 +97,73 @@ public abstract class Game implements GameInterface {
         }
     }
     
+    /**
+     * Records a free-for-all result between N players.
+     * Every pair of players counts as one game won by the player who finished ahead,
+     * with the K-factor split over the N - 1 opponents so that a single leg moves a
+     * rating about as far as a head-to-head match. All changes are computed from the
+     * ratings before the match and only then committed, so the result does not depend
+     * on the order in which players are processed, and they are rounded so that the
+     * match neither creates nor destroys rating points.
+     * @param finishingOrder The players from first to last place
+     */
+    @Override
+    public void recordFreeForAll(List<Player> finishingOrder) {
+        int count = finishingOrder.size();
+        if (count < 2) {
+            throw new IllegalArgumentException("A free-for-all needs at least two players");
+        }
+
+        int[] ratings = new int[count];
+        for (int i = 0; i < count; i++) {
+            ratings[i] = finishingOrder.get(i).getEloRating(getId());
+        }
+
+        // Pairwise outcomes are zero-sum, so each pair is evaluated once and applied to both sides
+        double[] changes = new double[count];
+        double pairFactor = (double) kFactor / (count - 1);
+        for (int i = 0; i < count; i++) {
+            for (int j = i + 1; j < count; j++) {
+                double change = pairFactor * (1.0 - expectedScore(ratings[i], ratings[j]));
+                changes[i] += change;
+                changes[j] -= change;
+            }
+        }
+
+        int[] rounded = roundZeroSum(changes);
+        for (int i = 0; i < count; i++) {
+            finishingOrder.get(i).setEloRating(getId(), ratings[i] + rounded[i]);
+        }
+    }
+    
+    /**
+     * Rounds rating changes that sum to zero so that the rounded changes do as well.
+     * Rounding each change on its own could create or destroy up to N / 2 rating points per match;
+     * the difference is taken from the changes that were rounded the furthest.
+     * @param changes The exact changes
+     * @return The rounded changes
+     */
+    static int[] roundZeroSum(double[] changes) {
+        int[] rounded = new int[changes.length];
+        int drift = 0;
+        for (int i = 0; i < changes.length; i++) {
+            rounded[i] = (int) Math.round(changes[i]);
+            drift += rounded[i];
+        }
+        while (drift != 0) {
+            int step = Integer.signum(drift);
+            int furthest = 0;
+            for (int i = 1; i < changes.length; i++) {
+                if ((rounded[i] - changes[i]) * step > (rounded[furthest] - changes[furthest]) * step) {
+                    furthest = i;
+                }
+            }
+            rounded[furthest] -= step;
+            drift -= step;
+        }
+        return rounded;
+    }
+    
     /**
      * Records a match result between two teams
      * Default implementation uses the team's players as winners and losers
@@ -98,6 +175,28 @@ public abstract class Game implements GameInterface {
         recordMatch(winnerTeam.getPlayers(), loserTeam.getPlayers());
     }
     
+    /**
+     * Enables moving old match history to segment files.
+     * Games without a match history ignore this.
+     * @param tiering The tiering settings
+     */
+    public void enableHistoryTiering(HistoryTiering tiering) {
+    }
+    
+    /**
+     * Deletes the segment files of the match history, e.g. when the game is removed.
+     * Games without a match history ignore this.
+     */
+    public void discardHistorySegments() {
+    }
+    
+    /**
+     * Deletes the segment files of an earlier run that were not reused while replaying the history.
+     * Games without a match history ignore this.
+     */
+    public void discardStoredHistorySegments() {
+    }
+    
     /**
      * Calculates the average Elo rating for a list of players
      * @param players The list of players
@@ -2,12 +2,26 @@ package jonas.elobooahrd.model;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import jonas.elobooahrd.model.cache.PlayerCache;
+import jonas.elobooahrd.model.cache.PlayerTiering;
+import jonas.elobooahrd.model.history.HistoryTiering;
+import jonas.elobooahrd.model.index.PlayerNameIndex;
+import jonas.elobooahrd.model.index.RatingHistogram;
+import jonas.elobooahrd.model.index.RatingIndex;
+import jonas.elobooahrd.model.interfaces.RatingListener;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 
@@ -18,11 +32,36 @@ import lombok.ToString;
 @Data
 @NoArgsConstructor
 @ToString
-public class GameContainer {
+public class GameContainer implements RatingListener {
     private UUID id = UUID.randomUUID();
     private String name = "Default Game Container";
+    private String leagueId; // Set when the container is registered as a league
     private Map<UUID, Game> games = new HashMap<>();
-    private List<Player> players = new ArrayList<>();
+    private Map<UUID, Player> players = new LinkedHashMap<>(); // Null for players evicted by the player cache
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private PlayerNameIndex nameIndex = new PlayerNameIndex(); // Name and email lookups
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private RatingIndex ratingIndex = new RatingIndex(); // Players per game, ordered by rating
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Map<UUID, RatingHistogram> ratingHistograms = new HashMap<>(); // Rating distribution per game
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private HistoryTiering historyTiering; // Null keeps all match history in memory
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private PlayerTiering playerTiering; // Null keeps all players in memory
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private PlayerCache playerCache;
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final ReadWriteLock lock = new ReentrantReadWriteLock(); // Guards the games and players of this container only
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private volatile boolean retired; // Set once the league has been handed to another node
 
     /**
      * Creates a new game container with the given name
@@ -31,13 +70,77 @@ public class GameContainer {
         this.name = name;
     }
 
+    /**
+     * Runs an action that changes games, ratings or indexes while holding this container's write lock
+     * @param action The action
+     * @return The result of the action
+     */
+    public <T> T withWriteLock(Supplier<T> action) {
+        return locked(lock.writeLock(), () -> {
+            // A writer that waited for a handoff would otherwise change a copy nobody reads any more
+            if (retired) {
+                throw new IllegalStateException("League " + name + " has moved to another node");
+            }
+            return action.get();
+        });
+    }
+
+    /**
+     * Runs an action that changes games, ratings or indexes while holding this container's write lock
+     * @param action The action
+     */
+    public void withWriteLock(Runnable action) {
+        withWriteLock(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs an action that needs a consistent view of games and ratings while holding this
+     * container's read lock; readers run concurrently with each other
+     * @param action The action
+     * @return The result of the action
+     */
+    public <T> T withReadLock(Supplier<T> action) {
+        return locked(lock.readLock(), action);
+    }
+
+    /**
+     * Marks the container as handed over to another node, so that later writers are rejected.
+     * Waits for the current writer, if any, and may be called more than once.
+     */
+    public void retire() {
+        locked(lock.writeLock(), () -> {
+            if (!retired && playerCache != null) {
+                playerCache.close();
+            }
+            retired = true;
+            return null;
+        });
+    }
+
+    private static <T> T locked(Lock lock, Supplier<T> action) {
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
     /**
      * Adds a game to the container
      * @param game The game to add
      * @return The added game
      */
     public Game addGame(Game game) {
+        if (historyTiering != null) {
+            game.enableHistoryTiering(historyTiering);
+        }
         games.put(game.getId(), game);
+        // Created here, so readers holding only the read lock never change the map
+        histogramFor(game.getId());
         return game;
     }
 
@@ -47,7 +150,43 @@ public class GameContainer {
      * @return The removed game, or null if not found
      */
     public Game removeGame(UUID gameId) {
-        return games.remove(gameId);
+        ratingIndex.removeGame(gameId);
+        ratingHistograms.remove(gameId);
+        Game game = games.remove(gameId);
+        if (game != null) {
+            game.discardHistorySegments();
+        }
+        return game;
+    }
+    
+    /**
+     * Enables moving old match history to segment files for all current and future games
+     * @param tiering The tiering settings
+     */
+    public void setHistoryTiering(HistoryTiering tiering) {
+        this.historyTiering = tiering;
+        games.values().forEach(game -> game.enableHistoryTiering(tiering));
+    }
+
+    /**
+     * Enables moving inactive players to a player store once the resident players exceed the memory budget
+     * @param tiering The tiering settings
+     */
+    public void setPlayerTiering(PlayerTiering tiering) {
+        if (playerCache != null) {
+            throw new IllegalStateException("Player tiering is already enabled");
+        }
+        this.playerTiering = tiering;
+        this.playerCache = new PlayerCache(players, this, tiering);
+    }
+
+    /**
+     * Moves the least recently used players to the player store until the others fit the memory budget.
+     * Must be called while holding the write lock, so no caller is about to change an evicted player.
+     * @return The number of evicted players
+     */
+    public int evictPlayers() {
+        return playerCache != null ? playerCache.evict() : 0;
     }
 
     /**
@@ -85,7 +224,19 @@ public class GameContainer {
      * @return The added player
      */
     public Player addPlayer(Player player) {
-        players.add(player);
+        Player previous = players.put(player.getId(), player);
+        if (playerCache != null) {
+            // An evicted player is read back from the store to be unindexed
+            previous = playerCache.remove(player.getId());
+            playerCache.admit(player);
+        }
+        if (previous != null) {
+            unindexPlayer(previous);
+        }
+        nameIndex.add(player.getId(), player.getName(), player.getEmail());
+        ratingIndex.add(player);
+        player.getEloRatings().forEach((gameId, rating) -> histogramFor(gameId).add(rating));
+        player.addRatingListener(this);
         return player;
     }
 
@@ -95,19 +246,191 @@ public class GameContainer {
      * @return true if the player was removed, false otherwise
      */
     public boolean removePlayer(UUID playerId) {
-        return players.removeIf(player -> player.getId().equals(playerId));
+        boolean known = players.containsKey(playerId);
+        Player removed = players.remove(playerId);
+        if (playerCache != null && known) {
+            removed = playerCache.remove(playerId);
+        }
+        if (removed == null) {
+            return false;
+        }
+        unindexPlayer(removed);
+        return true;
+    }
+
+    private void unindexPlayer(Player player) {
+        player.removeRatingListener(this);
+        nameIndex.remove(player.getId(), player.getName(), player.getEmail());
+        ratingIndex.remove(player);
+        player.getEloRatings().forEach((gameId, rating) -> {
+            RatingHistogram histogram = ratingHistograms.get(gameId);
+            if (histogram != null) {
+                histogram.remove(rating);
+            }
+        });
+    }
+
+    /**
+     * Keeps the rating index and histograms in sync when a player's rating changes
+     */
+    @Override
+    public void onRatingChanged(Player player, UUID gameId, Integer oldRating, int newRating) {
+        if (playerCache != null && !playerCache.onRatingChanged(player, gameId, oldRating, newRating)) {
+            return; // An outdated instance of a removed player
+        }
+        ratingIndex.update(gameId, player.getId(), oldRating, newRating);
+        RatingHistogram histogram = histogramFor(gameId);
+        if (oldRating == null) {
+            histogram.add(newRating);
+        } else {
+            histogram.move(oldRating, newRating);
+        }
+    }
+
+    /**
+     * Gets the rating distribution of a specific game
+     * @param gameId The ID of the game
+     * @return The histogram of the ratings in the game, or null if the game does not exist
+     */
+    public RatingHistogram getRatingHistogram(UUID gameId) {
+        return ratingHistograms.get(gameId);
+    }
+
+    private RatingHistogram histogramFor(UUID gameId) {
+        return ratingHistograms.computeIfAbsent(gameId, id -> new RatingHistogram());
+    }
+
+    /**
+     * Updates a player's name and email and keeps the lookup index in sync
+     * @param playerId The ID of the player to update
+     * @param name The new name
+     * @param email The new email
+     * @return The updated player, or null if not found
+     */
+    public Player updatePlayer(UUID playerId, String name, String email) {
+        Player player = getPlayer(playerId);
+        if (player == null) {
+            return null;
+        }
+        nameIndex.update(playerId, player.getName(), player.getEmail(), name, email);
+        player.setName(name);
+        player.setEmail(email);
+        if (playerCache != null) {
+            playerCache.invalidate(playerId);
+        }
+        return player;
     }
 
     /**
-     * Gets a player by their ID
+     * Gets a player by their ID, loading it back if it was evicted
      * @param playerId The ID of the player to get
      * @return The player, or null if not found
      */
     public Player getPlayer(UUID playerId) {
-        return players.stream()
-                .filter(player -> player.getId().equals(playerId))
-                .findFirst()
-                .orElse(null);
+        return playerCache != null ? playerCache.get(playerId) : players.get(playerId);
+    }
+
+    /**
+     * Gets a player for reading only; an evicted player is read from the store without loading it back
+     */
+    private Player peekPlayer(UUID playerId) {
+        return playerCache != null ? playerCache.peek(playerId) : players.get(playerId);
+    }
+
+    /**
+     * Gets a player by their name, ignoring case
+     * @param name The name of the player to get
+     * @return The player, or null if not found
+     */
+    public Player getPlayerByName(String name) {
+        UUID playerId = nameIndex.findByName(name);
+        return playerId != null ? getPlayer(playerId) : null;
+    }
+
+    /**
+     * Gets a player by their email, ignoring case
+     * @param email The email of the player to get
+     * @return The player, or null if not found
+     */
+    public Player getPlayerByEmail(String email) {
+        UUID playerId = nameIndex.findByEmail(email);
+        return playerId != null ? getPlayer(playerId) : null;
+    }
+
+    /**
+     * Searches players whose name starts with the given prefix, ignoring case
+     * @param prefix The name prefix
+     * @param limit The maximum number of results
+     * @return The matching players, ordered by name
+     */
+    public List<Player> searchPlayers(String prefix, int limit) {
+        return resolvePlayers(nameIndex.searchByPrefix(prefix, limit));
+    }
+
+    /**
+     * Gets the players that have a rating in a specific game
+     * @param gameId The ID of the game
+     * @return A list of the rated players, highest rating first
+     */
+    public List<Player> getPlayersByGame(UUID gameId) {
+        return resolvePlayers(ratingIndex.playersInGame(gameId));
+    }
+
+    /**
+     * Gets the players whose rating in a specific game lies within the given bounds
+     * @param gameId The ID of the game
+     * @param minRating The minimum rating (inclusive)
+     * @param maxRating The maximum rating (inclusive)
+     * @return A list of the matching players, highest rating first
+     */
+    public List<Player> getPlayersInRatingRange(UUID gameId, int minRating, int maxRating) {
+        return resolvePlayers(ratingIndex.playersInRange(gameId, minRating, maxRating));
+    }
+
+    /**
+     * Gets a page of the players whose rating in a game lies within the given bounds, e.g. to stream them in chunks
+     * @param gameId The ID of the game
+     * @param minRating The minimum rating (inclusive)
+     * @param maxRating The maximum rating (inclusive)
+     * @param after The rating entry of the last player of the previous page, or null for the first page
+     * @param limit The maximum number of players
+     * @return The matching players that follow the given entry, highest rating first
+     */
+    public List<Player> getPlayersInRatingRange(UUID gameId, int minRating, int maxRating,
+            RatingIndex.Entry after, int limit) {
+        return resolvePlayers(ratingIndex.playersInRange(gameId, minRating, maxRating, after, limit));
+    }
+
+    /**
+     * Gets the IDs of all players in the container
+     * @return A copy of the player IDs, in the order the players were added
+     */
+    public List<UUID> getPlayerIds() {
+        return new ArrayList<>(players.keySet());
+    }
+
+    /**
+     * Gets players for reading only, without loading evicted players back
+     * @param playerIds The IDs of the players
+     * @return The players that still exist, in the order of their IDs
+     */
+    public List<Player> peekPlayers(List<UUID> playerIds) {
+        List<Player> result = new ArrayList<>(playerIds.size());
+        for (UUID playerId : playerIds) {
+            Player player = peekPlayer(playerId);
+            if (player != null) {
+                result.add(player);
+            }
+        }
+        return result;
+    }
+
+    private List<Player> resolvePlayers(List<UUID> playerIds) {
+        List<Player> result = new ArrayList<>(playerIds.size());
+        for (UUID playerId : playerIds) {
+            result.add(peekPlayer(playerId));
+        }
+        return result;
     }
 
     /**
@@ -115,18 +438,26 @@ public class GameContainer {
      * @return A list of all players
      */
     public List<Player> getAllPlayers() {
-        return new ArrayList<>(players);
+        List<Player> result = new ArrayList<>(players.size());
+        forEachPlayer(result::add);
+        return result;
     }
 
     /**
-     * Gets the leaderboard for a specific game
+     * Performs an action for every player in the container without copying the player list
+     * @param action The action to perform for each player
+     */
+    public void forEachPlayer(Consumer<Player> action) {
+        players.forEach((playerId, player) -> action.accept(player != null ? player : peekPlayer(playerId)));
+    }
+
+    /**
+     * Gets the leaderboard for a specific game, read in order from the rating index
      * @param gameId The ID of the game
-     * @return A list of players sorted by their Elo rating for the game (highest first)
+     * @return The players rated in the game, sorted by their Elo rating for the game (highest first)
      */
     public List<Player> getLeaderboard(UUID gameId) {
-        return players.stream()
-                .sorted((p1, p2) -> Integer.compare(p2.getEloRating(gameId), p1.getEloRating(gameId)))
-                .collect(Collectors.toList());
+        return resolvePlayers(ratingIndex.playersInGame(gameId));
     }
 
     /**
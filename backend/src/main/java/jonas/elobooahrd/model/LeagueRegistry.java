@@ -0,0 +1,185 @@
+package jonas.elobooahrd.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import jonas.elobooahrd.model.cache.PlayerTiering;
+import jonas.elobooahrd.model.history.HistoryTiering;
+
+/**
+ * Registry of the leagues in the Eloboard system.
+ * Every league has its own GameContainer with its own games, players, indexes and lock,
+ * so leagues never contend with each other. The league of a request is bound to the
+ * handling thread, and services resolve the container through current().
+ */
+public class LeagueRegistry {
+    public static final String DEFAULT_LEAGUE = "main";
+    private static final Pattern LEAGUE_ID = Pattern.compile("[a-z0-9][a-z0-9_-]{0,63}");
+
+    private final Map<String, GameContainer> leagues = new ConcurrentHashMap<>();
+    private final ThreadLocal<GameContainer> current = new ThreadLocal<>();
+    private final HistoryTiering historyTiering; // Null keeps all match history in memory
+    private final PlayerTiering playerTiering; // Null keeps all players in memory
+
+    /**
+     * Creates a registry
+     * @param defaultContainer The container of the default league
+     * @param historyTiering The tiering settings for new leagues, or null
+     * @param playerTiering The player tiering settings for new leagues, or null
+     */
+    public LeagueRegistry(GameContainer defaultContainer, HistoryTiering historyTiering, PlayerTiering playerTiering) {
+        this.historyTiering = historyTiering;
+        this.playerTiering = playerTiering;
+        defaultContainer.setLeagueId(DEFAULT_LEAGUE);
+        leagues.put(DEFAULT_LEAGUE, defaultContainer);
+    }
+
+    /**
+     * Normalizes a league ID
+     * @param leagueId The league ID as given by a client
+     * @return The lower-case league ID
+     * @throws IllegalArgumentException if the ID is not 1 - 64 letters, digits, '-' or '_'
+     */
+    public static String normalize(String leagueId) {
+        String normalized = leagueId == null ? "" : leagueId.trim().toLowerCase(Locale.ROOT);
+        if (!LEAGUE_ID.matcher(normalized).matches()) {
+            throw new IllegalArgumentException("Invalid league ID: " + leagueId);
+        }
+        return normalized;
+    }
+
+    /**
+     * Creates a new league
+     * @param leagueId The league ID
+     * @param name The display name of the league
+     * @return The container of the new league
+     * @throws IllegalArgumentException if the ID is invalid
+     * @throws IllegalStateException if the league already exists
+     */
+    public GameContainer createLeague(String leagueId, String name) {
+        String id = normalize(leagueId);
+        GameContainer container = newContainer(id, name);
+        if (leagues.putIfAbsent(id, container) != null) {
+            throw new IllegalStateException("League already exists: " + id);
+        }
+        return container;
+    }
+
+    /**
+     * Creates an empty container for a league without registering it, e.g. to restore a snapshot into
+     * @param leagueId The normalized league ID
+     * @param name The display name of the league
+     * @return The new container
+     */
+    public GameContainer newContainer(String leagueId, String name) {
+        GameContainer container = new GameContainer(name != null && !name.isBlank() ? name : leagueId);
+        container.setLeagueId(leagueId);
+        if (historyTiering != null) {
+            // Each league keeps its segment files apart, so game directories never collide
+            container.setHistoryTiering(new HistoryTiering(historyTiering.directory().resolve("leagues").resolve(leagueId),
+                    historyTiering.hotWindow(), historyTiering.segmentRows()));
+        }
+        if (playerTiering != null) {
+            container.setPlayerTiering(new PlayerTiering(playerTiering.directory().resolve("leagues").resolve(leagueId),
+                    playerTiering.memoryBudget()));
+        }
+        return container;
+    }
+
+    /**
+     * Registers a container for a league, replacing the league's current container.
+     * Writers still holding the replaced container are rejected from then on.
+     * @param leagueId The normalized league ID
+     * @param container The new container
+     */
+    public void putLeague(String leagueId, GameContainer container) {
+        GameContainer previous = leagues.put(leagueId, container);
+        if (previous != null && previous != container) {
+            previous.retire();
+        }
+    }
+
+    /**
+     * Removes a league after it has been handed to another node.
+     * The default league cannot be removed and is replaced by an empty container instead.
+     * @param leagueId The normalized league ID
+     * @return The removed container, or null if the league did not exist
+     */
+    public GameContainer removeLeague(String leagueId) {
+        return removeLeague(leagueId, leagues.get(leagueId));
+    }
+
+    /**
+     * Removes a league only if it is still backed by the given container, so that a
+     * snapshot that arrived in the meantime is kept
+     * @param leagueId The normalized league ID
+     * @param expected The container to remove
+     * @return The removed container, or null if the league is backed by another container
+     */
+    public GameContainer removeLeague(String leagueId, GameContainer expected) {
+        if (expected == null) {
+            return null;
+        }
+        boolean removed = DEFAULT_LEAGUE.equals(leagueId)
+                ? leagues.replace(leagueId, expected, newContainer(leagueId, expected.getName()))
+                : leagues.remove(leagueId, expected);
+        if (!removed) {
+            return null;
+        }
+        expected.retire();
+        return expected;
+    }
+
+    /**
+     * Gets the container of a league
+     * @param leagueId The league ID
+     * @return The container, or null if the league does not exist
+     */
+    public GameContainer getLeague(String leagueId) {
+        return leagues.get(leagueId);
+    }
+
+    /**
+     * Gets the IDs of all leagues
+     * @return The league IDs
+     */
+    public List<String> getLeagueIds() {
+        return new ArrayList<>(leagues.keySet());
+    }
+
+    /**
+     * Gets all league containers
+     * @return The containers by league ID
+     */
+    public Map<String, GameContainer> getLeagues() {
+        return Map.copyOf(leagues);
+    }
+
+    /**
+     * Gets the container of the league bound to the current thread
+     * @return The bound container, or the default league's current container if none is bound
+     */
+    public GameContainer current() {
+        GameContainer container = current.get();
+        return container != null ? container : leagues.get(DEFAULT_LEAGUE);
+    }
+
+    /**
+     * Binds a container to the current thread
+     * @param container The container, or null to fall back to the default league
+     * @return The previously bound container, to be restored with bind afterwards
+     */
+    public GameContainer bind(GameContainer container) {
+        GameContainer previous = current.get();
+        if (container == null) {
+            current.remove();
+        } else {
+            current.set(container);
+        }
+        return previous;
+    }
+}
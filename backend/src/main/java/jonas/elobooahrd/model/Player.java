@@ -1,12 +1,20 @@
 package jonas.elobooahrd.model;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import jonas.elobooahrd.model.interfaces.PlayerInterface;
+import jonas.elobooahrd.model.interfaces.RatingListener;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 import lombok.ToString;
 
 /**
@@ -20,7 +28,14 @@ public class Player implements PlayerInterface {
     private UUID id;
     private String name;
     private String email;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
     private Map<UUID, Integer> eloRatings = new HashMap<>(); // Maps game ID to Elo rating
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final List<RatingListener> ratingListeners = new CopyOnWriteArrayList<>(); // Notified on rating changes
 
     /**
      * Creates a new player with the given name and email
@@ -31,6 +46,39 @@ public class Player implements PlayerInterface {
         this.email = email;
     }
 
+    /**
+     * Gets all Elo ratings of the player.
+     * Ratings change through setEloRating and updateEloRating, which notify the rating listeners.
+     * @return A read-only view of the ratings by game ID
+     */
+    @Override
+    public Map<UUID, Integer> getEloRatings() {
+        return Collections.unmodifiableMap(eloRatings);
+    }
+
+    /**
+     * Replaces all ratings without notifying rating listeners.
+     * Only for building or restoring a player that nothing follows yet, e.g. one read back from a store.
+     * @param eloRatings The ratings by game ID
+     * @throws IllegalStateException if a rating listener is registered
+     */
+    public void setEloRatings(Map<UUID, Integer> eloRatings) {
+        if (!ratingListeners.isEmpty()) {
+            throw new IllegalStateException("Ratings of a player with rating listeners must be set one at a time");
+        }
+        this.eloRatings = new HashMap<>(eloRatings);
+    }
+
+    /**
+     * Copies a rating change that the rating listeners already saw on another instance of the
+     * same player, without notifying them again. Only for caches keeping such instances in sync.
+     * @param gameId The ID of the game
+     * @param rating The new Elo rating
+     */
+    public void mirrorEloRating(UUID gameId, int rating) {
+        eloRatings.put(gameId, rating);
+    }
+
     /**
      * Gets the player's Elo rating for a specific game
      * @param gameId The ID of the game
@@ -48,7 +96,8 @@ public class Player implements PlayerInterface {
      */
     @Override
     public void setEloRating(UUID gameId, int rating) {
-        eloRatings.put(gameId, rating);
+        Integer oldRating = eloRatings.put(gameId, rating);
+        notifyRatingChanged(gameId, oldRating, rating);
     }
 
     /**
@@ -59,6 +108,49 @@ public class Player implements PlayerInterface {
     @Override
     public void updateEloRating(UUID gameId, int ratingChange) {
         int currentRating = getEloRating(gameId);
-        eloRatings.put(gameId, currentRating + ratingChange);
+        Integer oldRating = eloRatings.put(gameId, currentRating + ratingChange);
+        notifyRatingChanged(gameId, oldRating, currentRating + ratingChange);
+    }
+
+    /**
+     * Registers a listener that is notified whenever one of the player's ratings changes
+     * @param listener The listener to add
+     */
+    public void addRatingListener(RatingListener listener) {
+        // Listeners are compared by identity, as containers define value-based equality
+        for (RatingListener registered : ratingListeners) {
+            if (registered == listener) {
+                return;
+            }
+        }
+        ratingListeners.add(listener);
+    }
+
+    /**
+     * Unregisters a rating listener
+     * @param listener The listener to remove
+     */
+    public void removeRatingListener(RatingListener listener) {
+        ratingListeners.removeIf(registered -> registered == listener);
+    }
+
+    /**
+     * Checks whether anything but the given listener follows the player's ratings
+     * @param listener The listener to disregard
+     * @return true if another listener is registered, e.g. a team caching its rating
+     */
+    public boolean hasRatingListenersBesides(RatingListener listener) {
+        for (RatingListener registered : ratingListeners) {
+            if (registered != listener) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void notifyRatingChanged(UUID gameId, Integer oldRating, int newRating) {
+        for (RatingListener listener : ratingListeners) {
+            listener.onRatingChanged(this, gameId, oldRating, newRating);
+        }
     }
 }
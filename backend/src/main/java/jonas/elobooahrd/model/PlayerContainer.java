@@ -7,7 +7,11 @@ import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import jonas.elobooahrd.model.index.PlayerNameIndex;
+import jonas.elobooahrd.model.index.RatingIndex;
+import jonas.elobooahrd.model.interfaces.RatingListener;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 
@@ -18,10 +22,16 @@ import lombok.ToString;
 @Data
 @NoArgsConstructor
 @ToString
-public class PlayerContainer {
+public class PlayerContainer implements RatingListener {
     private UUID id = UUID.randomUUID();
     private String name = "Default Player Container";
     private Map<UUID, Player> players = new HashMap<>();
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private PlayerNameIndex nameIndex = new PlayerNameIndex(); // Name and email lookups
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private RatingIndex ratingIndex = new RatingIndex(); // Players per game, ordered by rating
 
     /**
      * Creates a new player container with the given name
@@ -36,7 +46,13 @@ public class PlayerContainer {
      * @return The added player
      */
     public Player addPlayer(Player player) {
-        players.put(player.getId(), player);
+        Player previous = players.put(player.getId(), player);
+        if (previous != null) {
+            unindexPlayer(previous);
+        }
+        nameIndex.add(player.getId(), player.getName(), player.getEmail());
+        ratingIndex.add(player);
+        player.addRatingListener(this);
         return player;
     }
 
@@ -46,7 +62,43 @@ public class PlayerContainer {
      * @return The removed player, or null if not found
      */
     public Player removePlayer(UUID playerId) {
-        return players.remove(playerId);
+        Player removed = players.remove(playerId);
+        if (removed != null) {
+            unindexPlayer(removed);
+        }
+        return removed;
+    }
+
+    private void unindexPlayer(Player player) {
+        player.removeRatingListener(this);
+        nameIndex.remove(player.getId(), player.getName(), player.getEmail());
+        ratingIndex.remove(player);
+    }
+
+    /**
+     * Keeps the rating index in sync when a player's rating changes
+     */
+    @Override
+    public void onRatingChanged(Player player, UUID gameId, Integer oldRating, int newRating) {
+        ratingIndex.update(gameId, player.getId(), oldRating, newRating);
+    }
+
+    /**
+     * Updates a player's name and email and keeps the lookup index in sync
+     * @param playerId The ID of the player to update
+     * @param name The new name
+     * @param email The new email
+     * @return The updated player, or null if not found
+     */
+    public Player updatePlayer(UUID playerId, String name, String email) {
+        Player player = players.get(playerId);
+        if (player == null) {
+            return null;
+        }
+        nameIndex.update(playerId, player.getName(), player.getEmail(), name, email);
+        player.setName(name);
+        player.setEmail(email);
+        return player;
     }
 
     /**
@@ -64,10 +116,8 @@ public class PlayerContainer {
      * @return The player, or null if not found
      */
     public Player getPlayerByName(String name) {
-        return players.values().stream()
-                .filter(player -> player.getName().equalsIgnoreCase(name))
-                .findFirst()
-                .orElse(null);
+        UUID playerId = nameIndex.findByName(name);
+        return playerId != null ? players.get(playerId) : null;
     }
 
     /**
@@ -76,10 +126,26 @@ public class PlayerContainer {
      * @return The player, or null if not found
      */
     public Player getPlayerByEmail(String email) {
-        return players.values().stream()
-                .filter(player -> player.getEmail().equalsIgnoreCase(email))
-                .findFirst()
-                .orElse(null);
+        UUID playerId = nameIndex.findByEmail(email);
+        return playerId != null ? players.get(playerId) : null;
+    }
+
+    /**
+     * Searches players whose name starts with the given prefix, ignoring case
+     * @param prefix The name prefix
+     * @param limit The maximum number of results
+     * @return The matching players, ordered by name
+     */
+    public List<Player> searchPlayers(String prefix, int limit) {
+        return resolvePlayers(nameIndex.searchByPrefix(prefix, limit));
+    }
+
+    private List<Player> resolvePlayers(List<UUID> playerIds) {
+        List<Player> result = new ArrayList<>(playerIds.size());
+        for (UUID playerId : playerIds) {
+            result.add(players.get(playerId));
+        }
+        return result;
     }
 
     /**
@@ -121,9 +187,27 @@ public class PlayerContainer {
      * @return A list of players with Elo ratings above the threshold
      */
     public List<Player> getPlayersAboveRating(UUID gameId, int minRating) {
-        return players.values().stream()
-                .filter(player -> player.getEloRating(gameId) >= minRating)
-                .collect(Collectors.toList());
+        return resolvePlayers(ratingIndex.playersInRange(gameId, minRating, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Gets players with Elo ratings within the given bounds for a specific game
+     * @param gameId The ID of the game
+     * @param minRating The minimum Elo rating (inclusive)
+     * @param maxRating The maximum Elo rating (inclusive)
+     * @return A list of the matching players, highest rating first
+     */
+    public List<Player> getPlayersInRatingRange(UUID gameId, int minRating, int maxRating) {
+        return resolvePlayers(ratingIndex.playersInRange(gameId, minRating, maxRating));
+    }
+
+    /**
+     * Gets the players that have a rating in a specific game
+     * @param gameId The ID of the game
+     * @return A list of the rated players, highest rating first
+     */
+    public List<Player> getPlayersByGame(UUID gameId) {
+        return resolvePlayers(ratingIndex.playersInGame(gameId));
     }
 
     /**
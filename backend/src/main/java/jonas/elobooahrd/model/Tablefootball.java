@@ -1,12 +1,22 @@
 package jonas.elobooahrd.model;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
+import jonas.elobooahrd.model.history.HistoryTiering;
+import jonas.elobooahrd.model.history.TablefootballMatchLog;
+import jonas.elobooahrd.model.index.DuoSynergyIndex;
+import jonas.elobooahrd.model.index.HeadToHeadIndex;
+import jonas.elobooahrd.model.index.MatchIndex;
+import jonas.elobooahrd.model.interfaces.TeamListener;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
@@ -20,11 +30,25 @@ import lombok.ToString;
 @NoArgsConstructor
 @ToString(callSuper = true)
 @EqualsAndHashCode(callSuper = true)
-public class Tablefootball extends Game {
+public class Tablefootball extends Game implements TeamListener {
     private int maxGoals = 10; // Maximum number of goals to win a match
     private boolean allowTeams = false; // Whether team play is allowed
-    private List<Match> matchHistory = new ArrayList<>(); // History of matches played
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private TablefootballMatchLog matchLog = new TablefootballMatchLog(); // Packed history of matches played
     private Map<UUID, Team> teams = new HashMap<>(); // Teams for this game
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Map<UUID, List<Team>> teamsByPlayer = new HashMap<>(); // Registered teams of each player, oldest first
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private MatchIndex matchIndex = new MatchIndex(); // Match history rows per player and team
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private HeadToHeadIndex headToHead = new HeadToHeadIndex(); // Pairwise records of individual players
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private DuoSynergyIndex duoSynergy = new DuoSynergyIndex(); // Records of players on the same team
 
     /**
      * Represents a match in table football
@@ -38,7 +62,7 @@ public class Tablefootball extends Game {
         private UUID team2Id; // Can be a single player ID or a team ID
         private int team1Score;
         private int team2Score;
-        private LocalDateTime timestamp = LocalDateTime.now();
+        private LocalDateTime timestamp = LocalDateTime.ofInstant(Instant.now(), ZoneOffset.UTC); // UTC, as the match log stores it
         private UUID winnerId;
         private boolean isTeamMatch = false;
 
@@ -128,13 +152,24 @@ public class Tablefootball extends Game {
      * Records a match with specific scores between individual players
      */
     public void recordMatch(Player player1, Player player2, int player1Score, int player2Score) {
-        // Create and add match to history
-        Match match = new Match(player1.getId(), player2.getId(), player1Score, player2Score);
-        matchHistory.add(match);
+        recordMatch(new Match(player1.getId(), player2.getId(), player1Score, player2Score), player1, player2);
+    }
+    
+    /**
+     * Records an individual match that already has its ID and timestamp, e.g. one replayed from another node
+     * @param match The match, with player1 as team 1 and player2 as team 2
+     * @param player1 The first player
+     * @param player2 The second player
+     */
+    public void recordMatch(Match match, Player player1, Player player2) {
+        // Add match to history
+        appendMatch(match, null, null);
+        headToHead.record(player1.getId(), player2.getId(), match.getTeam1Score(), match.getTeam2Score(),
+                match.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli());
         
         // Determine winner and loser
-        Player winner = player1Score > player2Score ? player1 : player2;
-        Player loser = player1Score > player2Score ? player2 : player1;
+        Player winner = match.getTeam1Score() > match.getTeam2Score() ? player1 : player2;
+        Player loser = match.getTeam1Score() > match.getTeam2Score() ? player2 : player1;
         
         // Update Elo ratings
         recordMatch(winner, loser);
@@ -150,6 +185,11 @@ public class Tablefootball extends Game {
         int winnerTeamRating = winnerTeam.getTeamEloRating(getId());
         int loserTeamRating = loserTeam.getTeamEloRating(getId());
         
+        // Partner statistics compare the result with the ratings before the match
+        double winnerExpected = expectedScore(winnerTeamRating, loserTeamRating);
+        duoSynergy.record(winnerTeam.getPlayers(), true, winnerExpected);
+        duoSynergy.record(loserTeam.getPlayers(), false, 1.0 - winnerExpected);
+        
         // Calculate Elo changes for each player in the winning team
         for (Player player : winnerTeam.getPlayers()) {
             int playerRating = player.getEloRating(getId());
@@ -169,22 +209,160 @@ public class Tablefootball extends Game {
      * Records a team match with specific scores
      */
     public void recordTeamMatch(Team team1, Team team2, int team1Score, int team2Score) {
+        recordTeamMatch(new Match(team1.getId(), team2.getId(), team1Score, team2Score, true), team1, team2);
+    }
+    
+    /**
+     * Records a team match that already has its ID and timestamp, e.g. one replayed from another node
+     * @param match The match, with team1 as team 1 and team2 as team 2
+     * @param team1 The first team
+     * @param team2 The second team
+     */
+    public void recordTeamMatch(Match match, Team team1, Team team2) {
         // Ensure teams are registered with this game
         registerTeam(team1);
         registerTeam(team2);
         
-        // Create and add match to history
-        Match match = new Match(team1.getId(), team2.getId(), team1Score, team2Score, true);
-        matchHistory.add(match);
+        // Add match to history
+        appendMatch(match, team1, team2);
         
         // Determine winner and loser teams
-        Team winnerTeam = team1Score > team2Score ? team1 : team2;
-        Team loserTeam = team1Score > team2Score ? team2 : team1;
+        Team winnerTeam = match.getTeam1Score() > match.getTeam2Score() ? team1 : team2;
+        Team loserTeam = match.getTeam1Score() > match.getTeam2Score() ? team2 : team1;
         
         // Update Elo ratings
         recordTeamMatch(winnerTeam, loserTeam);
     }
     
+    /**
+     * Adds a match to the history and indexes it under its participants
+     * @param match The match to add
+     * @param team1 The first team for team matches, or null
+     * @param team2 The second team for team matches, or null
+     */
+    private void appendMatch(Match match, Team team1, Team team2) {
+        int row = matchLog.append(match);
+        matchIndex.add(match.getTeam1Id(), row);
+        matchIndex.add(match.getTeam2Id(), row);
+        // Team matches are also listed under each member
+        indexMembers(team1, row);
+        indexMembers(team2, row);
+        matchLog.spillIfNeeded(matchIndex, Integer.MAX_VALUE);
+    }
+    
+    private void indexMembers(Team team, int row) {
+        if (team != null) {
+            for (Player player : team.getPlayers()) {
+                matchIndex.add(player.getId(), row);
+            }
+        }
+    }
+    
+    /**
+     * Gets the match history as a read-only list that decodes matches on access
+     * @return The matches played, oldest first
+     */
+    public List<Match> getMatchHistory() {
+        return matchLog.asList();
+    }
+    
+    /**
+     * Gets the record of a player against an opponent in individual matches
+     * @param playerId The player
+     * @param opponentId The opponent
+     * @return The record from the player's point of view, or null if they have not played each other
+     */
+    public HeadToHeadIndex.Record getHeadToHead(UUID playerId, UUID opponentId) {
+        return headToHead.get(playerId, opponentId);
+    }
+    
+    /**
+     * Gets the opponents a player has played most often in individual matches
+     * @param playerId The player
+     * @param limit The maximum number of rivals
+     * @return The player's records against them, most matches first
+     */
+    public List<HeadToHeadIndex.Record> getRivals(UUID playerId, int limit) {
+        return headToHead.rivals(playerId, limit);
+    }
+    
+    /**
+     * Gets the partners a player performs best with in team matches
+     * @param playerId The player
+     * @param minGames The minimum number of games together
+     * @param limit The maximum number of partners
+     * @return The player's pairs, highest synergy first
+     */
+    public List<DuoSynergyIndex.Pair> getBestPartners(UUID playerId, int minGames, int limit) {
+        return duoSynergy.bestPartners(playerId, minGames, limit);
+    }
+    
+    /**
+     * Gets the pairs of players that perform best together in team matches
+     * @param minGames The minimum number of games together
+     * @param limit The maximum number of pairs
+     * @return The pairs, highest synergy first
+     */
+    public List<DuoSynergyIndex.Pair> getStrongestDuos(int minGames, int limit) {
+        return duoSynergy.strongestDuos(minGames, limit);
+    }
+    
+    /**
+     * Gets the matches played within a time range, from memory and from history segments
+     * @param from The start of the range (inclusive)
+     * @param to The end of the range (exclusive)
+     * @return The matches, oldest first
+     */
+    public List<Match> getMatchesBetween(LocalDateTime from, LocalDateTime to) {
+        List<Match> result = new ArrayList<>();
+        for (int row : matchLog.rowsBetween(from, to)) {
+            result.add(matchLog.get(row));
+        }
+        return result;
+    }
+    
+    @Override
+    public void enableHistoryTiering(HistoryTiering tiering) {
+        matchLog.enableTiering(tiering, tiering.directory().resolve(getId().toString()));
+    }
+    
+    @Override
+    public void discardHistorySegments() {
+        matchLog.discardSegments();
+    }
+    
+    @Override
+    public void discardStoredHistorySegments() {
+        matchLog.discardStoredSegments();
+    }
+    
+    /**
+     * Gets the match history of a player or team
+     * @param participantId The ID of the player or team
+     * @return The matches involving the participant, oldest first
+     */
+    public List<Match> getPlayerMatches(UUID participantId) {
+        List<Match> result = new ArrayList<>();
+        for (int row : matchLog.allRows(participantId, matchIndex)) {
+            result.add(matchLog.get(row));
+        }
+        return result;
+    }
+    
+    /**
+     * Gets the most recent matches of a player or team
+     * @param participantId The ID of the player or team
+     * @param limit The maximum number of matches
+     * @return The matches involving the participant, most recent first
+     */
+    public List<Match> getRecentMatches(UUID participantId, int limit) {
+        List<Match> result = new ArrayList<>();
+        for (int row : matchLog.recentRows(participantId, limit, matchIndex)) {
+            result.add(matchLog.get(row));
+        }
+        return result;
+    }
+    
     /**
      * Creates a new team for this game
      * @param name The name of the team
@@ -193,22 +371,88 @@ public class Tablefootball extends Game {
      */
     public Team createTeam(String name, List<Player> players) {
         Team team = new Team(name, getId(), players);
-        teams.put(team.getId(), team);
-        return team;
+        return registerTeam(team);
     }
     
     /**
-     * Registers an existing team with this game
+     * Registers an existing team with this game.
+     * Registered teams cache their rating and are found again by their members, also after their members change.
      * @param team The team to register
      * @return The registered team
      */
     public Team registerTeam(Team team) {
         if (!teams.containsKey(team.getId())) {
+            team.setGameId(getId());
+            team.startTracking();
             teams.put(team.getId(), team);
+            indexTeam(team);
+            team.setTeamListener(this);
         }
         return team;
     }
     
+    /**
+     * Removes a team from this game and stops caching its rating
+     * @param teamId The ID of the team
+     * @return true if the team was removed
+     */
+    public boolean removeTeam(UUID teamId) {
+        Team team = teams.remove(teamId);
+        if (team == null) {
+            return false;
+        }
+        team.stopTracking();
+        team.setTeamListener(null);
+        unindexTeam(team, team.getPlayers());
+        return true;
+    }
+    
+    /**
+     * Gets the team made up of exactly the given players, registering a new one on first use
+     * @param players The players in the team
+     * @return The stored team
+     */
+    public Team findOrCreateTeam(List<Player> players) {
+        Team team = findTeam(players);
+        if (team != null) {
+            return team;
+        }
+        String name = players.stream()
+                .map(Player::getName)
+                .collect(Collectors.joining(" & "));
+        return createTeam(name, players);
+    }
+    
+    /**
+     * Gets the team made up of exactly the given players.
+     * If several registered teams have these members, the one registered first is returned.
+     * @param players The players in the team
+     * @return The stored team, or null if there is none
+     */
+    public Team findTeam(List<Player> players) {
+        List<Team> candidates = players.isEmpty() ? null : teamsByPlayer.get(players.get(0).getId());
+        if (candidates == null) {
+            return null;
+        }
+        for (Team team : candidates) {
+            if (containsAll(team.getPlayers(), players) && containsAll(players, team.getPlayers())) {
+                return team;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Re-indexes a registered team whose members changed
+     * @param team The team
+     * @param previousMembers The members before the change
+     */
+    @Override
+    public void onMembersChanged(Team team, List<Player> previousMembers) {
+        unindexTeam(team, previousMembers);
+        indexTeam(team);
+    }
+    
     /**
      * Gets a team by its ID
      * @param teamId The ID of the team
@@ -225,4 +469,48 @@ public class Tablefootball extends Game {
     public List<Team> getAllTeams() {
         return new ArrayList<>(teams.values());
     }
+    
+    /**
+     * Gets the teams of this game ordered by their cached rating
+     * @param limit The maximum number of teams
+     * @return The teams, highest rating first
+     */
+    public List<Team> getTeamLeaderboard(int limit) {
+        return teams.values().stream()
+                .sorted(Comparator.comparingInt((Team team) -> team.getTeamEloRating()).reversed())
+                .limit(limit)
+                .toList();
+    }
+    
+    private void indexTeam(Team team) {
+        for (Player player : team.getPlayers()) {
+            teamsByPlayer.computeIfAbsent(player.getId(), id -> new ArrayList<>(2)).add(team);
+        }
+    }
+    
+    private void unindexTeam(Team team, List<Player> members) {
+        for (Player player : members) {
+            List<Team> registered = teamsByPlayer.get(player.getId());
+            if (registered != null && registered.removeIf(candidate -> candidate == team) && registered.isEmpty()) {
+                teamsByPlayer.remove(player.getId());
+            }
+        }
+    }
+    
+    // Compares by ID without building sets, as teams have a handful of players
+    private static boolean containsAll(List<Player> players, List<Player> members) {
+        for (Player member : members) {
+            boolean found = false;
+            for (Player player : players) {
+                if (player.getId().equals(member.getId())) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -4,22 +4,44 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
+import jonas.elobooahrd.model.interfaces.RatingListener;
 import jonas.elobooahrd.model.interfaces.TeamInterface;
+import jonas.elobooahrd.model.interfaces.TeamListener;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 import lombok.ToString;
 
 /**
  * Represents a team of players in the Eloboard system.
+ * Once a game tracks the team, it listens to the rating changes of its members and keeps
+ * the sum of their ratings for its game up to date, so the team rating is read in O(1).
  */
 @Data
 @NoArgsConstructor
 @ToString
-public class Team implements TeamInterface {
+public class Team implements TeamInterface, RatingListener {
     private UUID id = UUID.randomUUID();
     private String name;
     private List<Player> players = new ArrayList<>();
     private UUID gameId; // The game this team is associated with
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private long ratingSum; // Sum of the members' ratings for gameId, valid while tracking
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private boolean tracking; // Whether the team is registered as a rating listener of its members
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private TeamListener teamListener; // The game that indexes the team by its members, if any
 
     /**
      * Creates a new team with the given name for a specific game
@@ -41,14 +63,99 @@ public class Team implements TeamInterface {
     @Override
     public boolean addPlayer(Player player) {
         if (!players.contains(player)) {
-            return players.add(player);
+            List<Player> previous = teamListener != null ? List.copyOf(players) : null;
+            players.add(player);
+            if (tracking) {
+                ratingSum += player.getEloRating(gameId);
+                player.addRatingListener(this);
+            }
+            notifyMembersChanged(previous);
+            return true;
         }
         return false;
     }
 
     @Override
     public boolean removePlayer(UUID playerId) {
-        return players.removeIf(player -> player.getId().equals(playerId));
+        for (Player player : players) {
+            if (player.getId().equals(playerId)) {
+                List<Player> previous = teamListener != null ? List.copyOf(players) : null;
+                players.remove(player);
+                if (tracking) {
+                    ratingSum -= player.getEloRating(gameId);
+                    player.removeRatingListener(this);
+                }
+                notifyMembersChanged(previous);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replaces the members of the team
+     * @param players The new members
+     */
+    public void setPlayers(List<Player> players) {
+        boolean wasTracking = tracking;
+        stopTracking();
+        List<Player> previous = this.players;
+        this.players = new ArrayList<>(players);
+        if (wasTracking) {
+            startTracking();
+        }
+        notifyMembersChanged(previous);
+    }
+
+    /**
+     * Sets the listener notified after the members change, e.g. the game indexing the team by its members
+     * @param teamListener The listener, or null to remove it
+     */
+    public void setTeamListener(TeamListener teamListener) {
+        this.teamListener = teamListener;
+    }
+
+    /**
+     * Sets the game of the team; a tracked team recomputes its cached rating for the new game
+     * @param gameId The ID of the game
+     */
+    public void setGameId(UUID gameId) {
+        this.gameId = gameId;
+        if (tracking) {
+            ratingSum = sumRatings(gameId);
+        }
+    }
+
+    /**
+     * Starts caching the team rating. The team registers itself as a rating listener
+     * of its members, so it must be stopped again once the team is discarded.
+     */
+    public void startTracking() {
+        if (tracking) {
+            return;
+        }
+        ratingSum = sumRatings(gameId);
+        players.forEach(player -> player.addRatingListener(this));
+        tracking = true;
+    }
+
+    /**
+     * Stops caching the team rating and unregisters the team from its members
+     */
+    public void stopTracking() {
+        if (!tracking) {
+            return;
+        }
+        players.forEach(player -> player.removeRatingListener(this));
+        tracking = false;
+    }
+
+    @Override
+    public void onRatingChanged(Player player, UUID changedGameId, Integer oldRating, int newRating) {
+        if (changedGameId.equals(gameId)) {
+            // Unrated players counted with the default rating
+            ratingSum += newRating - (oldRating != null ? oldRating : 1000);
+        }
     }
 
     @Override
@@ -57,12 +164,11 @@ public class Team implements TeamInterface {
         if (players.isEmpty()) {
             return 1000; // Default rating for empty teams
         }
+        if (tracking && gameId != null && gameId.equals(this.gameId)) {
+            return (int) (ratingSum / players.size());
+        }
         
-        int totalRating = players.stream()
-                .mapToInt(player -> player.getEloRating(gameId))
-                .sum();
-        
-        return totalRating / players.size();
+        return (int) (sumRatings(gameId) / players.size());
     }
     
     /**
@@ -72,4 +178,18 @@ public class Team implements TeamInterface {
     public int getTeamEloRating() {
         return getTeamEloRating(gameId);
     }
+
+    private void notifyMembersChanged(List<Player> previousMembers) {
+        if (teamListener != null) {
+            teamListener.onMembersChanged(this, previousMembers);
+        }
+    }
+
+    private long sumRatings(UUID gameId) {
+        long total = 0;
+        for (Player player : players) {
+            total += player.getEloRating(gameId);
+        }
+        return total;
+    }
 }
@@ -0,0 +1,242 @@
+package jonas.elobooahrd.model.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import jonas.elobooahrd.model.Player;
+import jonas.elobooahrd.model.interfaces.RatingListener;
+
+/**
+ * Keeps the recently used players of a container in memory and moves the others to a PlayerStore.
+ * <p>
+ * The container's player map keeps an entry for every player; the value is null while the
+ * player is evicted. Resident players are ordered by their last use, and their heap is
+ * counted with a rough estimate. Once the estimate exceeds the memory budget, the least
+ * recently used players are written to the store, unless something besides the container
+ * follows their ratings (e.g. a team caching its rating), as such listeners would miss
+ * changes made to a reloaded copy. Looking a player up loads it back; scans read evicted
+ * players from the store without loading them, so a leaderboard does not flush the cache.
+ * <p>
+ * Eviction must only run while no caller holds players it is about to change, i.e. under
+ * the container's write lock. Should a rating change reach an instance evicted regardless,
+ * e.g. one looked up before the lock was taken, it is copied to the player loaded back.
+ * Lookups may run under the read lock concurrently with each other; the cache is guarded
+ * by its own monitor.
+ */
+public class PlayerCache {
+    // Rough estimates of the heap a resident player takes: the player with its ID, rating map,
+    // listener list and cache entry, plus every rating and every character of name and email
+    private static final long PLAYER_BYTES = 360;
+    private static final long RATING_BYTES = 64;
+
+    private final Map<UUID, Player> players;
+    private final RatingListener owner;
+    private final PlayerStore store;
+    private final long memoryBudget;
+    private final LinkedHashMap<UUID, Player> resident = new LinkedHashMap<>(16, 0.75f, true); // Least recently used first
+    private volatile long residentBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates a cache for the players of a container; all current players are resident
+     * @param players The container's players by ID
+     * @param owner The container, which is registered as rating listener of loaded players
+     * @param tiering The store directory and memory budget
+     */
+    public PlayerCache(Map<UUID, Player> players, RatingListener owner, PlayerTiering tiering) {
+        this.players = players;
+        this.owner = owner;
+        this.store = new PlayerStore(tiering.directory());
+        this.memoryBudget = tiering.memoryBudget();
+        players.values().forEach(this::admit);
+    }
+
+    /**
+     * Starts tracking a player that was added to the container
+     * @param player The player
+     */
+    public synchronized void admit(Player player) {
+        Player previous = resident.put(player.getId(), player);
+        if (previous != null) {
+            residentBytes -= estimate(previous);
+        }
+        residentBytes += estimate(player);
+        store.remove(player.getId());
+    }
+
+    /**
+     * Gets a player, loading it from the store if it was evicted
+     * @param playerId The ID of the player
+     * @return The player, or null if the container does not hold it
+     */
+    public synchronized Player get(UUID playerId) {
+        Player player = resident.get(playerId);
+        if (player != null) {
+            hits++;
+            return player;
+        }
+        if (!players.containsKey(playerId)) {
+            return null;
+        }
+        misses++;
+        player = store.read(playerId);
+        if (player == null) {
+            return null;
+        }
+        // The record is kept, so the player needs no write when evicted again unchanged
+        player.addRatingListener(owner);
+        players.put(playerId, player);
+        resident.put(playerId, player);
+        residentBytes += estimate(player);
+        return player;
+    }
+
+    /**
+     * Gets a player for reading without loading it, e.g. while scanning all players
+     * @param playerId The ID of the player
+     * @return The resident player, a detached copy of an evicted player, or null if not found
+     */
+    public Player peek(UUID playerId) {
+        Player player = players.get(playerId);
+        if (player == null) {
+            player = store.read(playerId);
+        }
+        // A writer may have loaded the player back and dropped its record meanwhile
+        return player != null ? player : players.get(playerId);
+    }
+
+    /**
+     * Stops tracking a player that is removed from the container
+     * @param playerId The ID of the player
+     * @return The resident player, a detached copy of an evicted player, or null if not found
+     */
+    public synchronized Player remove(UUID playerId) {
+        Player player = resident.remove(playerId);
+        if (player != null) {
+            residentBytes -= estimate(player);
+        } else {
+            player = store.read(playerId);
+        }
+        store.remove(playerId);
+        return player;
+    }
+
+    /**
+     * Drops the stored copy of a player whose name or email changed
+     * @param playerId The ID of the player
+     */
+    public synchronized void invalidate(UUID playerId) {
+        store.remove(playerId);
+    }
+
+    /**
+     * Follows a rating change of a player.
+     * A change to an instance that was evicted meanwhile is copied to the player loaded back from the store.
+     * @param player The player whose rating changed
+     * @param gameId The ID of the game
+     * @param oldRating The previous rating, or null if the player had none
+     * @param newRating The new rating
+     * @return false if the container does not hold the player any more
+     */
+    public synchronized boolean onRatingChanged(Player player, UUID gameId, Integer oldRating, int newRating) {
+        UUID playerId = player.getId();
+        if (!players.containsKey(playerId)) {
+            return false;
+        }
+        Player current = players.get(playerId);
+        if (current == null) {
+            current = get(playerId);
+        }
+        if (current != null && current != player) {
+            current.mirrorEloRating(gameId, newRating);
+        }
+        if (current != null && oldRating == null) {
+            residentBytes += RATING_BYTES;
+        }
+        store.remove(playerId);
+        return true;
+    }
+
+    /**
+     * Checks whether the resident players exceed the memory budget
+     * @return true if players should be evicted
+     */
+    public boolean isOverBudget() {
+        return residentBytes > memoryBudget;
+    }
+
+    /**
+     * Evicts the least recently used players until the resident players fit the memory budget.
+     * Call only while holding the container's write lock.
+     * @return The number of evicted players
+     */
+    public synchronized int evict() {
+        int evicted = 0;
+        Iterator<Player> iterator = resident.values().iterator();
+        while (residentBytes > memoryBudget && iterator.hasNext()) {
+            Player player = iterator.next();
+            if (player.hasRatingListenersBesides(owner)) {
+                continue;
+            }
+            if (!store.contains(player.getId())) {
+                store.write(player);
+            }
+            // The container stays registered, so a change to an outdated reference is noticed
+            players.put(player.getId(), null);
+            iterator.remove();
+            residentBytes -= estimate(player);
+            evicted++;
+        }
+        evictions += evicted;
+        return evicted;
+    }
+
+    /**
+     * Closes the store and deletes its file; the evicted players are lost
+     */
+    public synchronized void close() {
+        store.close();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized int getResidentPlayers() {
+        return resident.size();
+    }
+
+    public synchronized int getEvictedPlayers() {
+        return players.size() - resident.size();
+    }
+
+    public long getResidentBytes() {
+        return residentBytes;
+    }
+
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    public long getStoreBytes() {
+        return store.getFileSize();
+    }
+
+    private static long estimate(Player player) {
+        long characters = (player.getName() != null ? player.getName().length() : 0)
+                + (player.getEmail() != null ? player.getEmail().length() : 0);
+        return PLAYER_BYTES + 2 * characters + RATING_BYTES * player.getEloRatings().size();
+    }
+}
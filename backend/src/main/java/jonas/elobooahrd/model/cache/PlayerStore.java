@@ -0,0 +1,246 @@
+package jonas.elobooahrd.model.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import jonas.elobooahrd.model.Player;
+
+/**
+ * Append-only file holding players that were evicted from memory.
+ * <p>
+ * Each record is the record length followed by the player's ID, name, email and ratings
+ * (big endian). Only the position of each player's latest record is kept in memory; records
+ * that were replaced or removed stay in the file until they make up more than half of it,
+ * then the live records are copied to a new file. The file is temporary and deleted when the
+ * store is closed.
+ */
+public class PlayerStore {
+    private static final long MIN_COMPACTION_BYTES = 1 << 20;
+
+    private final Path directory;
+    private final Map<UUID, Location> locations = new HashMap<>();
+    private Path file;
+    private FileChannel channel;
+    private long size; // Bytes written to the file, including replaced records
+    private long liveBytes; // Bytes of the records still referenced
+
+    private record Location(long offset, int length) {
+    }
+
+    /**
+     * Creates an empty store with a new file in a directory
+     * @param directory The directory, created if missing
+     * @throws UncheckedIOException if the file cannot be created
+     */
+    public PlayerStore(Path directory) {
+        this.directory = directory;
+        this.channel = openFile();
+    }
+
+    /**
+     * Writes a player, replacing its previous record
+     * @param player The player
+     */
+    public synchronized void write(Player player) {
+        byte[] record = encode(player);
+        remove(player.getId());
+        try {
+            writeFully(channel, ByteBuffer.wrap(record), size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write player store " + file, e);
+        }
+        locations.put(player.getId(), new Location(size, record.length));
+        size += record.length;
+        liveBytes += record.length;
+    }
+
+    /**
+     * Reads a player; the returned player is a new instance without rating listeners
+     * @param playerId The ID of the player
+     * @return The player, or null if the store does not hold it
+     */
+    public synchronized Player read(UUID playerId) {
+        Location location = locations.get(playerId);
+        if (location == null) {
+            return null;
+        }
+        try {
+            return decode(readRecord(location));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read player store " + file, e);
+        }
+    }
+
+    /**
+     * Checks whether the store holds a player
+     * @param playerId The ID of the player
+     * @return true if the player has a record
+     */
+    public synchronized boolean contains(UUID playerId) {
+        return locations.containsKey(playerId);
+    }
+
+    /**
+     * Drops the record of a player
+     * @param playerId The ID of the player
+     * @return true if the player had a record
+     */
+    public synchronized boolean remove(UUID playerId) {
+        Location location = locations.remove(playerId);
+        if (location == null) {
+            return false;
+        }
+        liveBytes -= location.length();
+        if (size > MIN_COMPACTION_BYTES && size > 2 * liveBytes) {
+            compact();
+        }
+        return true;
+    }
+
+    /**
+     * Gets the number of players in the store
+     * @return The number of players
+     */
+    public synchronized int size() {
+        return locations.size();
+    }
+
+    /**
+     * Gets the size of the store file
+     * @return The number of bytes in the file
+     */
+    public synchronized long getFileSize() {
+        return size;
+    }
+
+    /**
+     * Closes the store and deletes its file
+     */
+    public synchronized void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not close player store " + file, e);
+        }
+        locations.clear();
+    }
+
+    /**
+     * Copies the live records to a new file and drops the old one
+     */
+    private void compact() {
+        Path oldFile = file;
+        FileChannel oldChannel = channel;
+        FileChannel newChannel = openFile();
+        long position = 0;
+        try {
+            for (Map.Entry<UUID, Location> entry : locations.entrySet()) {
+                Location location = entry.getValue();
+                writeFully(newChannel, ByteBuffer.wrap(readRecord(location)), position);
+                entry.setValue(new Location(position, location.length()));
+                position += location.length();
+            }
+            oldChannel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not compact player store " + oldFile, e);
+        }
+        channel = newChannel;
+        size = position;
+        liveBytes = position;
+    }
+
+    private FileChannel openFile() {
+        try {
+            Files.createDirectories(directory);
+            file = Files.createTempFile(directory, "players-", ".bin");
+            return FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create player store in " + directory, e);
+        }
+    }
+
+    private byte[] readRecord(Location location) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(location.length());
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, location.offset() + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of player store " + file);
+            }
+        }
+        return buffer.array();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static byte[] encode(Player player) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + 20 * player.getEloRatings().size());
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0); // Record length, filled in below
+            writeUuid(out, player.getId());
+            writeString(out, player.getName());
+            writeString(out, player.getEmail());
+            out.writeInt(player.getEloRatings().size());
+            for (Map.Entry<UUID, Integer> rating : player.getEloRatings().entrySet()) {
+                writeUuid(out, rating.getKey());
+                out.writeInt(rating.getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] record = bytes.toByteArray();
+        ByteBuffer.wrap(record).putInt(0, record.length);
+        return record;
+    }
+
+    private static Player decode(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record, 4, record.length - 4));
+        Player player = new Player();
+        player.setId(readUuid(in));
+        player.setName(readString(in));
+        player.setEmail(readString(in));
+        int ratings = in.readInt();
+        Map<UUID, Integer> eloRatings = new HashMap<>(Math.max(4, ratings * 2));
+        for (int i = 0; i < ratings; i++) {
+            eloRatings.put(readUuid(in), in.readInt());
+        }
+        // Set as a whole, so no rating listener is notified
+        player.setEloRatings(eloRatings);
+        return player;
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID id) throws IOException {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
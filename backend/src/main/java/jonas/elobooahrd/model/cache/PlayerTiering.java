@@ -0,0 +1,16 @@
+package jonas.elobooahrd.model.cache;
+
+import java.nio.file.Path;
+
+/**
+ * Settings for moving inactive players from memory to a player store.
+ * @param directory The directory for the store files of the players
+ * @param memoryBudget The estimated heap in bytes that the resident players of a container may take
+ */
+public record PlayerTiering(Path directory, long memoryBudget) {
+    public PlayerTiering {
+        if (memoryBudget <= 0) {
+            throw new IllegalArgumentException("The memory budget for players must be positive");
+        }
+    }
+}
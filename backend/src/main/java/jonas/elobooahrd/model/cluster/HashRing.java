@@ -0,0 +1,77 @@
+package jonas.elobooahrd.model.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Consistent hash ring that assigns leagues to the nodes of a cluster.
+ * <p>
+ * Every node is placed on the ring at a number of virtual positions, and a key belongs to
+ * the first node at or after the key's own position. When a node joins or leaves only the
+ * keys between its positions and their predecessors change owner, about 1/n of all keys,
+ * and the virtual positions spread them evenly over the remaining nodes. The ring is
+ * immutable, so membership changes build a new ring that can be compared with the old one.
+ */
+public class HashRing {
+    private final TreeMap<Long, String> positions = new TreeMap<>();
+    private final List<String> nodes;
+
+    /**
+     * Creates a ring
+     * @param nodes The base URLs of the nodes
+     * @param virtualNodes The number of positions per node
+     */
+    public HashRing(Iterable<String> nodes, int virtualNodes) {
+        TreeSet<String> sorted = new TreeSet<>();
+        nodes.forEach(sorted::add);
+        this.nodes = List.copyOf(sorted);
+        for (String node : this.nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                // Colliding positions go to the smaller URL, so every node builds the same ring
+                positions.putIfAbsent(hash(node + "#" + i), node);
+            }
+        }
+    }
+
+    /**
+     * Gets the node that owns a key
+     * @param key The key, e.g. a league ID
+     * @return The owning node, or null if the ring is empty
+     */
+    public String ownerOf(String key) {
+        if (positions.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> entry = positions.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : positions.firstEntry().getValue();
+    }
+
+    /**
+     * Gets the nodes on the ring
+     * @return The node URLs, sorted
+     */
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, followed by the MurmurHash3 finalizer so that
+     * keys differing only in their last characters still land far apart
+     */
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb3fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,217 @@
+package jonas.elobooahrd.model.history;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import jonas.elobooahrd.model.Dart;
+import jonas.elobooahrd.model.util.VarIntBuffer;
+
+/**
+ * Packed match history of a dart game.
+ * Besides the common columns a row holds the player ordinals, the starting and
+ * remaining scores in one long, the dart counts in one int and the flags in one byte.
+ * Visit scores are written as variable-length ints to a shared byte buffer, so a
+ * 180 takes two bytes and most visits take one, instead of a boxed Integer each.
+ * A row is rewritten when its match is archived; only the newest visit list is kept.
+ * Rows that have been moved to a segment can no longer be rewritten.
+ */
+public class DartMatchLog extends PackedMatchLog<Dart.Match> {
+    private static final int NO_VISITS = -1;
+    private static final int COMPLETED = 1;
+    private static final int DOUBLE_OUT = 1 << 1;
+    private static final int WINNER_SHIFT = 2; // 0 = none, 1 = player 1, 2 = player 2
+    private static final int VARIANT_SHIFT = 4;
+    private static final Dart.DartVariant[] VARIANTS = Dart.DartVariant.values();
+
+    private int[] player1 = new int[capacity()];
+    private int[] player2 = new int[capacity()];
+    private long[] scores = new long[capacity()]; // Starting score, player 1 and player 2 remaining, 16 bits each
+    private int[] darts = new int[capacity()]; // Player 1 darts in the high, player 2 darts in the low 16 bits
+    private byte[] flags = new byte[capacity()];
+    private int[] visitOffsets = new int[capacity()];
+    private VarIntBuffer visits = new VarIntBuffer();
+
+    /**
+     * Appends a match in its current state
+     * @param match The match to store
+     * @return The row of the match
+     */
+    public int append(Dart.Match match) {
+        int row = appendRow(match.getId(), match.getTimestamp());
+        int slot = slot(row);
+        player1[slot] = participants.ordinal(match.getPlayer1Id());
+        player2[slot] = participants.ordinal(match.getPlayer2Id());
+        visitOffsets[slot] = NO_VISITS;
+        match.setTimestamp(timestampAt(slot));
+        update(row, match);
+        return row;
+    }
+
+    /**
+     * Rewrites the mutable columns of a row from the current state of its match
+     * @param row The row of the match
+     * @param match The match
+     */
+    public void update(int row, Dart.Match match) {
+        int slot = slot(row);
+        scores[slot] = ((long) unsigned16(match.getStartingScore()) << 32)
+                | ((long) unsigned16(match.getPlayer1RemainingScore()) << 16)
+                | unsigned16(match.getPlayer2RemainingScore());
+        darts[slot] = (unsigned16(match.getPlayer1Darts()) << 16) | unsigned16(match.getPlayer2Darts());
+
+        int winner = 0;
+        if (match.getWinnerId() != null) {
+            winner = match.getWinnerId().equals(match.getPlayer1Id()) ? 1 : 2;
+        }
+        int variant = match.getVariant() != null ? match.getVariant().ordinal() : 0;
+        flags[slot] = (byte) ((match.isCompleted() ? COMPLETED : 0)
+                | (match.isDoubleOut() ? DOUBLE_OUT : 0)
+                | (winner << WINNER_SHIFT)
+                | (variant << VARIANT_SHIFT));
+
+        if (!match.getPlayer1Scores().isEmpty() || !match.getPlayer2Scores().isEmpty()) {
+            visitOffsets[slot] = writeVisits(match.getPlayer1Scores());
+            writeVisits(match.getPlayer2Scores());
+        }
+    }
+
+    @Override
+    protected Dart.Match decode(int slot) {
+        Dart.Match match = newMatch(participants.get(player1[slot]), participants.get(player2[slot]),
+                scores[slot], darts[slot], flags[slot]);
+        match.setId(idAt(slot));
+        match.setTimestamp(timestampAt(slot));
+        int position = visitOffsets[slot];
+        if (position != NO_VISITS) {
+            position = readVisits(position, match.getPlayer1Scores());
+            readVisits(position, match.getPlayer2Scores());
+        }
+        return match;
+    }
+
+    @Override
+    protected void encode(int slot, DataOutputStream out) throws IOException {
+        writeUuid(out, participants.get(player1[slot]));
+        writeUuid(out, participants.get(player2[slot]));
+        out.writeLong(scores[slot]);
+        out.writeInt(darts[slot]);
+        out.writeByte(flags[slot]);
+        // Visit scores are at most 180, so a segment stores each in one unsigned byte
+        int position = visitOffsets[slot];
+        for (int player = 0; player < 2; player++) {
+            int count = position != NO_VISITS ? visits.read(position) : 0;
+            out.writeInt(count);
+            if (position != NO_VISITS) {
+                position = visits.skip(position);
+                for (int i = 0; i < count; i++) {
+                    out.writeByte(visits.read(position));
+                    position = visits.skip(position);
+                }
+            }
+        }
+    }
+
+    @Override
+    protected Dart.Match decodeRecord(ByteBuffer record, UUID id, LocalDateTime timestamp) {
+        UUID player1Id = readUuid(record);
+        UUID player2Id = readUuid(record);
+        Dart.Match match = newMatch(player1Id, player2Id, record.getLong(), record.getInt(), record.get());
+        match.setId(id);
+        match.setTimestamp(timestamp);
+        for (List<Integer> target : List.of(match.getPlayer1Scores(), match.getPlayer2Scores())) {
+            int count = record.getInt();
+            for (int i = 0; i < count; i++) {
+                target.add(record.get() & 0xFF);
+            }
+        }
+        return match;
+    }
+
+    private static Dart.Match newMatch(UUID player1Id, UUID player2Id, long packedScores, int packedDarts, int flag) {
+        Dart.Match match = new Dart.Match(player1Id, player2Id,
+                (int) (packedScores >>> 32) & 0xFFFF, VARIANTS[(flag >>> VARIANT_SHIFT) & 0x7],
+                (flag & DOUBLE_OUT) != 0);
+        match.setPlayer1RemainingScore((int) (packedScores >>> 16) & 0xFFFF);
+        match.setPlayer2RemainingScore((int) packedScores & 0xFFFF);
+        match.setPlayer1Darts(packedDarts >>> 16);
+        match.setPlayer2Darts(packedDarts & 0xFFFF);
+        match.setCompleted((flag & COMPLETED) != 0);
+        int winner = (flag >>> WINNER_SHIFT) & 0x3;
+        if (winner != 0) {
+            match.setWinnerId(winner == 1 ? player1Id : player2Id);
+        }
+        if (match.isCompleted()) {
+            // A finished leg has no live variant state to restore
+            match.setLegState(null);
+        }
+        return match;
+    }
+
+    @Override
+    protected void growColumns(int capacity) {
+        player1 = Arrays.copyOf(player1, capacity);
+        player2 = Arrays.copyOf(player2, capacity);
+        scores = Arrays.copyOf(scores, capacity);
+        darts = Arrays.copyOf(darts, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        visitOffsets = Arrays.copyOf(visitOffsets, capacity);
+    }
+
+    @Override
+    protected void replaceColumns(int count, int remaining, int capacity) {
+        player1 = Arrays.copyOfRange(player1, count, count + capacity);
+        player2 = Arrays.copyOfRange(player2, count, count + capacity);
+        scores = Arrays.copyOfRange(scores, count, count + capacity);
+        darts = Arrays.copyOfRange(darts, count, count + capacity);
+        flags = Arrays.copyOfRange(flags, count, count + capacity);
+        visitOffsets = Arrays.copyOfRange(visitOffsets, count, count + capacity);
+
+        // Drop the visit bytes that only the moved rows referenced
+        int firstUsed = visits.size();
+        for (int slot = 0; slot < remaining; slot++) {
+            if (visitOffsets[slot] != NO_VISITS) {
+                firstUsed = Math.min(firstUsed, visitOffsets[slot]);
+            }
+        }
+        visits = visits.copyFrom(firstUsed);
+        for (int slot = 0; slot < remaining; slot++) {
+            if (visitOffsets[slot] != NO_VISITS) {
+                visitOffsets[slot] -= firstUsed;
+            }
+        }
+    }
+
+    private int writeVisits(List<Integer> values) {
+        int position = visits.write(values.size());
+        for (int value : values) {
+            visits.write(value);
+        }
+        return position;
+    }
+
+    private int readVisits(int position, List<Integer> target) {
+        int count = visits.read(position);
+        position = visits.skip(position);
+        if (target instanceof ArrayList<Integer> list) {
+            list.ensureCapacity(count);
+        }
+        for (int i = 0; i < count; i++) {
+            target.add(visits.read(position));
+            position = visits.skip(position);
+        }
+        return position;
+    }
+
+    private static int unsigned16(int value) {
+        if (value < 0 || value > 0xFFFF) {
+            throw new IllegalArgumentException("Value out of range for a packed column: " + value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,17 @@
+package jonas.elobooahrd.model.history;
+
+import java.nio.file.Path;
+
+/**
+ * Settings for moving old match history from memory to segment files.
+ * @param directory The root directory for segment files; each game uses a subdirectory
+ * @param hotWindow The number of most recent matches per game kept in memory
+ * @param segmentRows The number of matches written to one segment file
+ */
+public record HistoryTiering(Path directory, int hotWindow, int segmentRows) {
+    public HistoryTiering {
+        if (hotWindow < 0 || segmentRows <= 0) {
+            throw new IllegalArgumentException("Hot window must not be negative and segment rows must be positive");
+        }
+    }
+}
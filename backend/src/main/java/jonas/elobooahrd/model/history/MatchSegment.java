@@ -0,0 +1,376 @@
+package jonas.elobooahrd.model.history;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Immutable, memory-mapped file holding a contiguous range of cold history rows.
+ * <p>
+ * A segment is sealed in memory first, holding its indexes in a heap buffer and its records
+ * uncompressed, so the writer that seals it neither compresses nor waits for the disk.
+ * persist() then writes and syncs the file, typically on a background thread, and swaps
+ * the heap buffer for the mapping. Both buffers hold the same indexes at the same offsets.
+ * <p>
+ * Layout (big endian):
+ * <pre>
+ * header        magic, firstRow, rowCount, minTime, maxTime, participantCount
+ * participants  per participant: UUID (2 longs), offset and count into the row list, sorted by UUID
+ * row list      int row numbers of every participant, ascending per participant
+ * timestamps    long epoch millis per row, ascending
+ * row offsets   int offset of each row in the uncompressed record block
+ * records       uncompressed and compressed length, then the deflated record block
+ * </pre>
+ * The participant and time indexes are read straight from the mapping; only the record
+ * block is inflated, and the inflated copy is held by a soft reference so that cold
+ * segments never pin heap under memory pressure.
+ */
+public class MatchSegment {
+    private static final int MAGIC = 0x454D5331; // "EMS1"
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 8 + 8 + 4;
+    private static final int PARTICIPANT_BYTES = 8 + 8 + 4 + 4;
+
+    private final Path file;
+    private volatile ByteBuffer mapping; // Heap buffer with the indexes until persisted, then the mapped file
+    private final int firstRow;
+    private final int rowCount;
+    private final long minTime;
+    private final long maxTime;
+    private final int participantCount;
+    private final int rowListStart;
+    private final int timestampStart;
+    private final int rowOffsetStart;
+    private final int recordStart;
+    private SoftReference<byte[]> records = new SoftReference<>(null);
+    private byte[] pendingRecords; // Uncompressed records of a segment not yet persisted
+    private boolean deleted;
+
+    private MatchSegment(Path file, ByteBuffer mapping, byte[] pendingRecords) {
+        this.file = file;
+        this.mapping = mapping;
+        this.pendingRecords = pendingRecords;
+        if (mapping.getInt(0) != MAGIC) {
+            throw new IllegalStateException("Not a match segment: " + file);
+        }
+        this.firstRow = mapping.getInt(4);
+        this.rowCount = mapping.getInt(8);
+        this.minTime = mapping.getLong(12);
+        this.maxTime = mapping.getLong(20);
+        this.participantCount = mapping.getInt(28);
+        int rowListLength = 0;
+        for (int i = 0; i < participantCount; i++) {
+            rowListLength += mapping.getInt(HEADER_BYTES + i * PARTICIPANT_BYTES + 20);
+        }
+        this.rowListStart = HEADER_BYTES + participantCount * PARTICIPANT_BYTES;
+        this.timestampStart = rowListStart + rowListLength * 4;
+        this.rowOffsetStart = timestampStart + rowCount * 8;
+        this.recordStart = rowOffsetStart + rowCount * 4;
+    }
+
+    /**
+     * Seals rows into a segment held in memory; persist() writes it to its file
+     * @param file The file the segment will be written to
+     * @param firstRow The first history row in the segment
+     * @param timestamps The timestamp of each row in epoch millis, ascending
+     * @param recordOffsets The offset of each row in the record block
+     * @param recordBlock The encoded rows
+     * @param recordLength The number of used bytes in the record block
+     * @param rowsByParticipant The rows of each participant, ascending
+     * @return The sealed segment
+     */
+    public static MatchSegment seal(Path file, int firstRow, long[] timestamps, int[] recordOffsets,
+            byte[] recordBlock, int recordLength, Map<UUID, int[]> rowsByParticipant) {
+        int rowCount = timestamps.length;
+        UUID[] participants = rowsByParticipant.keySet().toArray(new UUID[0]);
+        Arrays.sort(participants, Comparator.naturalOrder());
+        int rowListLength = rowsByParticipant.values().stream().mapToInt(rows -> rows.length).sum();
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + participants.length * PARTICIPANT_BYTES
+                + rowListLength * 4 + rowCount * 12);
+        buffer.putInt(MAGIC).putInt(firstRow).putInt(rowCount)
+                .putLong(rowCount > 0 ? timestamps[0] : 0).putLong(rowCount > 0 ? timestamps[rowCount - 1] : 0)
+                .putInt(participants.length);
+        int offset = 0;
+        for (UUID participant : participants) {
+            int count = rowsByParticipant.get(participant).length;
+            buffer.putLong(participant.getMostSignificantBits()).putLong(participant.getLeastSignificantBits())
+                    .putInt(offset).putInt(count);
+            offset += count;
+        }
+        for (UUID participant : participants) {
+            for (int row : rowsByParticipant.get(participant)) {
+                buffer.putInt(row);
+            }
+        }
+        for (long timestamp : timestamps) {
+            buffer.putLong(timestamp);
+        }
+        for (int recordOffset : recordOffsets) {
+            buffer.putInt(recordOffset);
+        }
+        return new MatchSegment(file, buffer, Arrays.copyOf(recordBlock, recordLength));
+    }
+
+    /**
+     * Compresses the records, writes and syncs the segment file and serves the segment from
+     * the mapping afterwards. Does nothing if the segment was persisted or deleted before;
+     * if it is deleted while being written, the file is removed again.
+     * @throws UncheckedIOException if the file cannot be written; the segment stays in memory
+     */
+    public void persist() {
+        byte[] uncompressed;
+        synchronized (this) {
+            if (pendingRecords == null || deleted) {
+                return;
+            }
+            uncompressed = pendingRecords;
+        }
+        byte[] compressed = deflate(uncompressed, uncompressed.length);
+        ByteBuffer buffer = ByteBuffer.allocate(recordStart + 8 + compressed.length);
+        buffer.put(mapping.duplicate().clear().limit(recordStart));
+        buffer.putInt(uncompressed.length).putInt(compressed.length).put(compressed);
+        buffer.flip();
+
+        try {
+            Files.createDirectories(file.getParent());
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write match segment " + file, e);
+        }
+        MappedByteBuffer mapped = map(file);
+        synchronized (this) {
+            if (deleted) {
+                delete();
+                return;
+            }
+            mapping = mapped;
+            // The records stay cached until memory runs short, as after inflating them
+            records = new SoftReference<>(pendingRecords);
+            pendingRecords = null;
+        }
+    }
+
+    /**
+     * Maps an existing segment file
+     * @param file The segment file
+     * @return The mapped segment
+     */
+    public static MatchSegment open(Path file) {
+        return new MatchSegment(file, map(file), null);
+    }
+
+    private static MappedByteBuffer map(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map match segment " + file, e);
+        }
+    }
+
+    public int getFirstRow() {
+        return firstRow;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public long getMinTime() {
+        return minTime;
+    }
+
+    public long getMaxTime() {
+        return maxTime;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Checks whether the segment has been written to its file
+     * @return true if the segment is served from the mapped file
+     */
+    public synchronized boolean isPersisted() {
+        return pendingRecords == null;
+    }
+
+    /**
+     * Checks whether another segment holds the same rows with the same indexes, e.g. so that a
+     * block sealed while replaying the history can be served from the file of an earlier run
+     * @param other The other segment
+     * @return true if both segments have the same content
+     */
+    public boolean hasSameContent(MatchSegment other) {
+        return recordStart == other.recordStart
+                && mapping.slice(0, recordStart).equals(other.mapping.slice(0, recordStart))
+                && Arrays.equals(inflatedRecords(), other.inflatedRecords());
+    }
+
+    /**
+     * Checks whether a history row lies in this segment
+     * @param row The row
+     * @return true if the segment holds the row
+     */
+    public boolean contains(int row) {
+        return row >= firstRow && row < firstRow + rowCount;
+    }
+
+    /**
+     * Gets the rows of a participant from the participant index
+     * @param participantId The ID of the player or team
+     * @return The rows, ascending, or an empty array if the participant has no match here
+     */
+    public int[] rowsOf(UUID participantId) {
+        int low = 0;
+        int high = participantCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entry = HEADER_BYTES + middle * PARTICIPANT_BYTES;
+            int compare = compare(mapping.getLong(entry), mapping.getLong(entry + 8), participantId);
+            if (compare < 0) {
+                low = middle + 1;
+            } else if (compare > 0) {
+                high = middle - 1;
+            } else {
+                int offset = mapping.getInt(entry + 16);
+                int[] rows = new int[mapping.getInt(entry + 20)];
+                for (int i = 0; i < rows.length; i++) {
+                    rows[i] = mapping.getInt(rowListStart + (offset + i) * 4);
+                }
+                return rows;
+            }
+        }
+        return new int[0];
+    }
+
+    /**
+     * Gets the timestamp of a row
+     * @param row The history row
+     * @return The time the match was played in epoch millis
+     */
+    public long timestampOf(int row) {
+        return mapping.getLong(timestampStart + (row - firstRow) * 8);
+    }
+
+    /**
+     * Finds the first row played at or after a time, using the ascending timestamps
+     * @param epochMillis The time in epoch millis
+     * @return The first matching row, or the row after the segment if there is none
+     */
+    public int firstRowAtOrAfter(long epochMillis) {
+        int low = 0;
+        int high = rowCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (mapping.getLong(timestampStart + middle * 8) < epochMillis) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return firstRow + low;
+    }
+
+    /**
+     * Gets the encoded record of a row
+     * @param row The history row
+     * @return A buffer positioned at the start of the row's record
+     */
+    public ByteBuffer record(int row) {
+        if (!contains(row)) {
+            throw new IndexOutOfBoundsException("Row " + row + " is not in segment " + file);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(inflatedRecords());
+        buffer.position(mapping.getInt(rowOffsetStart + (row - firstRow) * 4));
+        return buffer;
+    }
+
+    /**
+     * Deletes the segment file. The segment must not be used afterwards.
+     */
+    public synchronized void delete() {
+        deleted = true;
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete match segment " + file, e);
+        }
+    }
+
+    private synchronized byte[] inflatedRecords() {
+        if (pendingRecords != null) {
+            return pendingRecords;
+        }
+        byte[] cached = records.get();
+        if (cached != null) {
+            return cached;
+        }
+        int length = mapping.getInt(recordStart);
+        int compressedLength = mapping.getInt(recordStart + 4);
+        byte[] compressed = new byte[compressedLength];
+        mapping.get(recordStart + 8, compressed);
+        byte[] inflated = new byte[length];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                read += inflater.inflate(inflated, read, length - read);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt match segment " + file, e);
+        } finally {
+            inflater.end();
+        }
+        records = new SoftReference<>(inflated);
+        return inflated;
+    }
+
+    private static byte[] deflate(byte[] data, int length) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            byte[] buffer = new byte[Math.max(64, length / 2)];
+            int size = 0;
+            while (!deflater.finished()) {
+                if (size == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                size += deflater.deflate(buffer, size, buffer.length - size);
+            }
+            return Arrays.copyOf(buffer, size);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static int compare(long most, long least, UUID id) {
+        // Same ordering as UUID.compareTo, which compares the halves as signed longs
+        int compare = Long.compare(most, id.getMostSignificantBits());
+        return compare != 0 ? compare : Long.compare(least, id.getLeastSignificantBits());
+    }
+}
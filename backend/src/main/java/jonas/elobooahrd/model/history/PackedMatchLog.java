@@ -0,0 +1,506 @@
+package jonas.elobooahrd.model.history;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jonas.elobooahrd.model.index.MatchIndex;
+import jonas.elobooahrd.model.util.IntList;
+import jonas.elobooahrd.model.util.UuidTable;
+
+/**
+ * Columnar store for a game's match history.
+ * Each match is one row spread over primitive arrays: the match ID as two longs,
+ * the timestamp as epoch milliseconds and the participants as ordinals into a shared
+ * UuidTable. Subclasses add the columns of their game and decode rows back into
+ * match objects on demand, so the heap holds a few dozen bytes per match instead
+ * of a graph of UUID, LocalDateTime and boxed score objects.
+ * <p>
+ * With tiering enabled only the most recent rows stay in these arrays. Older rows
+ * are moved in blocks to compressed MatchSegment files, each carrying its own index
+ * on participant and time, and the in-memory MatchIndex drops them. Row numbers stay
+ * the same, so reads go to whichever tier holds a row.
+ * <p>
+ * Moving a block seals it into a segment held in memory and swaps in fresh columns
+ * holding the remaining rows; the columns of the sealed block are never written again.
+ * Compressing and syncing the segment file runs on a dedicated writer thread; a write
+ * that fails is logged and retried, and the segment serves its rows from memory until then.
+ * Like the match objects, the log relies on the league's lock: rows are appended and moved
+ * under the write lock, and read under the read lock.
+ * <p>
+ * Segment files outlive the process, while the history itself is replayed from the database
+ * on startup. Enabling tiering on an empty log therefore opens the files of the earlier run,
+ * and a block sealed during the replay takes over the stored file holding the same rows
+ * instead of writing it again. Stored files the replay does not reach are deleted afterwards.
+ * @param <M> The match type decoded from a row
+ */
+public abstract class PackedMatchLog<M> {
+    private static final Logger log = LoggerFactory.getLogger(PackedMatchLog.class);
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final long RETRY_DELAY_MILLIS = 1_000;
+    private static final long MAX_RETRY_DELAY_MILLIS = 60_000;
+    // One thread compresses and syncs the segments of all logs, so the writes never compete with requests for more than one core
+    private static final ScheduledExecutorService SEGMENT_WRITER = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "match-segment-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    protected final UuidTable participants = new UuidTable();
+    private long[] idMostSignificant = new long[DEFAULT_CAPACITY];
+    private long[] idLeastSignificant = new long[DEFAULT_CAPACITY];
+    private long[] timestamps = new long[DEFAULT_CAPACITY];
+    private int size; // Total number of rows in both tiers
+    private int hotBase; // First row still held in memory
+    private long latestTimestamp = Long.MIN_VALUE; // Timestamp of the last row, as rows are kept in time order
+
+    private HistoryTiering tiering;
+    private Path segmentDirectory;
+    private final List<MatchSegment> segments = new ArrayList<>(); // Ordered by first row
+    private final NavigableMap<Integer, MatchSegment> storedSegments = new TreeMap<>(); // Files of an earlier run, by first row
+
+    /**
+     * Decodes a row held in memory
+     * @param slot The position of the row in the in-memory columns
+     * @return A new match object with the row's values
+     */
+    protected abstract M decode(int slot);
+
+    /**
+     * Writes the game specific columns of an in-memory row as a self-contained record
+     * @param slot The position of the row in the in-memory columns
+     * @param out The record output
+     * @throws IOException if writing fails
+     */
+    protected abstract void encode(int slot, DataOutputStream out) throws IOException;
+
+    /**
+     * Decodes a record read from a cold segment
+     * @param record The record, positioned after the match ID
+     * @param id The match ID
+     * @param timestamp The time the match was played
+     * @return A new match object with the record's values
+     */
+    protected abstract M decodeRecord(ByteBuffer record, UUID id, LocalDateTime timestamp);
+
+    /**
+     * Grows the subclass columns to the given capacity
+     * @param capacity The new capacity in rows
+     */
+    protected abstract void growColumns(int capacity);
+
+    /**
+     * Replaces the subclass columns with new arrays after the first rows were moved to a segment.
+     * The rows left in memory are copied to the front of the new arrays; the old arrays stay untouched.
+     * @param count The number of rows that were moved out
+     * @param remaining The number of rows left in memory
+     * @param capacity The capacity of the new arrays in rows
+     */
+    protected abstract void replaceColumns(int count, int remaining, int capacity);
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of rows held in memory
+     * @return The size of the hot tier
+     */
+    public int getHotRowCount() {
+        return size - hotBase;
+    }
+
+    /**
+     * Gets the number of cold segment files
+     * @return The number of segments
+     */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Decodes a row from whichever tier holds it
+     * @param row The row
+     * @return A new match object with the row's values
+     */
+    public M get(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for size " + size);
+        }
+        if (row >= hotBase) {
+            return decode(row - hotBase);
+        }
+        MatchSegment segment = segmentOf(row);
+        ByteBuffer record = segment.record(row);
+        UUID id = new UUID(record.getLong(), record.getLong());
+        return decodeRecord(record, id, toLocalDateTime(segment.timestampOf(row)));
+    }
+
+    /**
+     * Gets a read-only list view of the log that decodes rows as they are accessed
+     * @return The match list view
+     */
+    public List<M> asList() {
+        return new AbstractList<>() {
+            @Override
+            public M get(int index) {
+                return PackedMatchLog.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Enables moving old rows to segment files.
+     * If the log is still empty, the segment files already in the directory are opened so that
+     * replaying the history can reuse them.
+     * @param tiering The tiering settings
+     * @param directory The directory for this log's segment files
+     * @throws UncheckedIOException if the directory cannot be read
+     */
+    public void enableTiering(HistoryTiering tiering, Path directory) {
+        this.tiering = tiering;
+        this.segmentDirectory = directory;
+        if (size == 0 && storedSegments.isEmpty() && Files.isDirectory(directory)) {
+            openStoredSegments();
+        }
+    }
+
+    /**
+     * Deletes the segment files of an earlier run that were not reused while replaying the history
+     */
+    public void discardStoredSegments() {
+        storedSegments.values().forEach(MatchSegment::delete);
+        storedSegments.clear();
+    }
+
+    /**
+     * Gets the number of segment files of an earlier run that are still waiting to be reused
+     * @return The number of stored segments
+     */
+    public int getStoredSegmentCount() {
+        return storedSegments.size();
+    }
+
+    /**
+     * Moves the oldest in-memory rows to segment files while the hot tier exceeds its window
+     * @param index The in-memory index of the game; moved rows are removed from it
+     * @param pinnedRow The first row that must stay in memory, e.g. a match that is still being scored
+     */
+    public void spillIfNeeded(MatchIndex index, int pinnedRow) {
+        if (tiering == null) {
+            return;
+        }
+        while (size - hotBase > tiering.hotWindow()) {
+            int count = Math.min(tiering.segmentRows(), Math.min(pinnedRow, size) - hotBase);
+            if (count <= 0) {
+                return;
+            }
+            spill(index, count);
+        }
+    }
+
+    /**
+     * Gets the rows of a participant across both tiers, most recent first
+     * @param participantId The ID of the player or team
+     * @param limit The maximum number of rows
+     * @param index The in-memory index of the game
+     * @return The rows, most recent first
+     */
+    public int[] recentRows(UUID participantId, int limit, MatchIndex index) {
+        int[] hot = index.recentRows(participantId, limit);
+        if (hot.length >= limit || segments.isEmpty()) {
+            return hot;
+        }
+        IntList rows = new IntList(limit);
+        for (int row : hot) {
+            rows.add(row);
+        }
+        for (int s = segments.size() - 1; s >= 0 && rows.size() < limit; s--) {
+            int[] cold = segments.get(s).rowsOf(participantId);
+            for (int i = cold.length - 1; i >= 0 && rows.size() < limit; i--) {
+                rows.add(cold[i]);
+            }
+        }
+        return rows.toArray();
+    }
+
+    /**
+     * Gets all rows of a participant across both tiers, oldest first
+     * @param participantId The ID of the player or team
+     * @param index The in-memory index of the game
+     * @return The rows, oldest first
+     */
+    public int[] allRows(UUID participantId, MatchIndex index) {
+        IntList rows = new IntList();
+        for (MatchSegment segment : segments) {
+            for (int row : segment.rowsOf(participantId)) {
+                rows.add(row);
+            }
+        }
+        for (int row : index.allRows(participantId)) {
+            rows.add(row);
+        }
+        return rows.toArray();
+    }
+
+    /**
+     * Gets the rows played within a time range across both tiers
+     * @param from The start of the range (inclusive)
+     * @param to The end of the range (exclusive)
+     * @return The rows, oldest first
+     */
+    public int[] rowsBetween(LocalDateTime from, LocalDateTime to) {
+        long fromMillis = toEpochMillis(from);
+        long toMillis = toEpochMillis(to);
+        IntList rows = new IntList();
+        for (MatchSegment segment : segments) {
+            if (segment.getRowCount() == 0 || segment.getMaxTime() < fromMillis || segment.getMinTime() >= toMillis) {
+                continue;
+            }
+            int end = segment.getFirstRow() + segment.getRowCount();
+            for (int row = segment.firstRowAtOrAfter(fromMillis); row < end && segment.timestampOf(row) < toMillis; row++) {
+                rows.add(row);
+            }
+        }
+        int slot = Arrays.binarySearch(timestamps, 0, size - hotBase, fromMillis);
+        if (slot < 0) {
+            slot = -slot - 1;
+        }
+        // Step back over equal timestamps that the binary search may have skipped
+        while (slot > 0 && timestamps[slot - 1] >= fromMillis) {
+            slot--;
+        }
+        for (; slot < size - hotBase && timestamps[slot] < toMillis; slot++) {
+            rows.add(hotBase + slot);
+        }
+        return rows.toArray();
+    }
+
+    /**
+     * Deletes all segment files of this log, e.g. when its game is removed
+     */
+    public void discardSegments() {
+        segments.forEach(MatchSegment::delete);
+        segments.clear();
+        discardStoredSegments();
+    }
+
+    /**
+     * Appends the common columns of a new row.
+     * The time index and rowsBetween rely on rows being in time order, so a timestamp before
+     * that of the previous row, e.g. after the clock was set back, is moved up to it.
+     * Subclasses copy the stored timestamp back to the match.
+     * @param id The match ID
+     * @param timestamp The time the match was played
+     * @return The new row
+     */
+    protected int appendRow(UUID id, LocalDateTime timestamp) {
+        int slot = size - hotBase;
+        if (slot == timestamps.length) {
+            int capacity = slot + (slot >> 1) + 1;
+            idMostSignificant = Arrays.copyOf(idMostSignificant, capacity);
+            idLeastSignificant = Arrays.copyOf(idLeastSignificant, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            growColumns(capacity);
+        }
+        idMostSignificant[slot] = id.getMostSignificantBits();
+        idLeastSignificant[slot] = id.getLeastSignificantBits();
+        latestTimestamp = Math.max(toEpochMillis(timestamp), latestTimestamp);
+        timestamps[slot] = latestTimestamp;
+        return size++;
+    }
+
+    /**
+     * Gets the capacity of the in-memory columns in rows
+     * @return The capacity
+     */
+    protected int capacity() {
+        return timestamps.length;
+    }
+
+    /**
+     * Gets the in-memory position of a row
+     * @param row The row
+     * @return The position in the columns
+     * @throws IllegalStateException if the row has been moved to a segment
+     */
+    protected int slot(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for size " + size);
+        }
+        if (row < hotBase) {
+            throw new IllegalStateException("Row " + row + " has been moved to a history segment");
+        }
+        return row - hotBase;
+    }
+
+    protected UUID idAt(int slot) {
+        return new UUID(idMostSignificant[slot], idLeastSignificant[slot]);
+    }
+
+    protected LocalDateTime timestampAt(int slot) {
+        return toLocalDateTime(timestamps[slot]);
+    }
+
+    protected static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+
+    protected static long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    protected static void writeUuid(DataOutputStream out, UUID id) throws IOException {
+        out.writeLong(id != null ? id.getMostSignificantBits() : 0);
+        out.writeLong(id != null ? id.getLeastSignificantBits() : 0);
+    }
+
+    protected static UUID readUuid(ByteBuffer record) {
+        long most = record.getLong();
+        long least = record.getLong();
+        return most == 0 && least == 0 ? null : new UUID(most, least);
+    }
+
+    private void spill(MatchIndex index, int count) {
+        ByteArrayOutputStream block = new ByteArrayOutputStream(count * 64);
+        DataOutputStream out = new DataOutputStream(block);
+        int[] recordOffsets = new int[count];
+        try {
+            for (int slot = 0; slot < count; slot++) {
+                recordOffsets[slot] = out.size();
+                out.writeLong(idMostSignificant[slot]);
+                out.writeLong(idLeastSignificant[slot]);
+                encode(slot, out);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        int firstRow = hotBase;
+        Map<UUID, int[]> rowsByParticipant = index.removeRowsBelow(firstRow + count);
+        Path file = segmentDirectory.resolve(String.format("%010d.seg", firstRow));
+        MatchSegment sealed = MatchSegment.seal(file, firstRow, Arrays.copyOf(timestamps, count), recordOffsets,
+                block.toByteArray(), block.size(), rowsByParticipant);
+        MatchSegment stored = takeStoredSegment(sealed);
+        if (stored != null) {
+            segments.add(stored);
+        } else {
+            segments.add(sealed);
+            SEGMENT_WRITER.execute(() -> persist(sealed, 1));
+        }
+
+        int remaining = size - hotBase - count;
+        int capacity = timestamps.length;
+        idMostSignificant = Arrays.copyOfRange(idMostSignificant, count, count + capacity);
+        idLeastSignificant = Arrays.copyOfRange(idLeastSignificant, count, count + capacity);
+        timestamps = Arrays.copyOfRange(timestamps, count, count + capacity);
+        replaceColumns(count, remaining, capacity);
+        hotBase += count;
+    }
+
+    /**
+     * Takes the stored file of an earlier run that holds exactly the rows of a sealed block.
+     * Other stored files overlapping the block are stale; one with the same name is replaced
+     * when the block is written, the others are deleted.
+     */
+    private MatchSegment takeStoredSegment(MatchSegment sealed) {
+        MatchSegment reused = null;
+        Iterator<MatchSegment> overlapping = storedSegments
+                .headMap(sealed.getFirstRow() + sealed.getRowCount()).values().iterator();
+        while (overlapping.hasNext()) {
+            MatchSegment stored = overlapping.next();
+            overlapping.remove();
+            if (!stored.getFile().equals(sealed.getFile())) {
+                stored.delete();
+            } else if (hasSameContent(stored, sealed)) {
+                reused = stored;
+            }
+        }
+        return reused;
+    }
+
+    private static boolean hasSameContent(MatchSegment stored, MatchSegment sealed) {
+        try {
+            return stored.hasSameContent(sealed);
+        } catch (RuntimeException e) {
+            log.warn("Rewriting unreadable match segment {}", stored.getFile(), e);
+            return false;
+        }
+    }
+
+    private void openStoredSegments() {
+        try (Stream<Path> files = Files.list(segmentDirectory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (!file.getFileName().toString().endsWith(".seg")) {
+                    continue;
+                }
+                try {
+                    MatchSegment segment = MatchSegment.open(file);
+                    storedSegments.put(segment.getFirstRow(), segment);
+                } catch (RuntimeException e) {
+                    log.warn("Deleting unreadable match segment {}", file, e);
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the match segments in " + segmentDirectory, e);
+        }
+    }
+
+    // A segment that cannot be written stays in memory and keeps serving its rows until a retry succeeds
+    private static void persist(MatchSegment segment, int attempt) {
+        try {
+            segment.persist();
+        } catch (RuntimeException e) {
+            long delay = Math.min(RETRY_DELAY_MILLIS << Math.min(attempt - 1, 6), MAX_RETRY_DELAY_MILLIS);
+            log.error("Could not write match segment {} (attempt {}), retrying in {} ms", segment.getFile(), attempt,
+                    delay, e);
+            SEGMENT_WRITER.schedule(() -> persist(segment, attempt + 1), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private MatchSegment segmentOf(int row) {
+        int low = 0;
+        int high = segments.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            MatchSegment segment = segments.get(middle);
+            if (row < segment.getFirstRow()) {
+                high = middle - 1;
+            } else if (row >= segment.getFirstRow() + segment.getRowCount()) {
+                low = middle + 1;
+            } else {
+                return segment;
+            }
+        }
+        throw new IllegalStateException("No segment holds row " + row);
+    }
+}
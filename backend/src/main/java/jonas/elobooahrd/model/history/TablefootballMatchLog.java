@@ -0,0 +1,89 @@
+package jonas.elobooahrd.model.history;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.UUID;
+
+import jonas.elobooahrd.model.Tablefootball;
+
+/**
+ * Packed match history of a table football game.
+ * Besides the common columns a row holds the two side ordinals, both scores in one
+ * int and the team match flag, about 40 bytes per match in total. The winner is
+ * derived from the scores, as the match itself does.
+ */
+public class TablefootballMatchLog extends PackedMatchLog<Tablefootball.Match> {
+    private int[] team1 = new int[capacity()];
+    private int[] team2 = new int[capacity()];
+    private int[] scores = new int[capacity()]; // Team 1 score in the high, team 2 score in the low 16 bits
+    private boolean[] teamMatch = new boolean[capacity()];
+
+    /**
+     * Appends a match
+     * @param match The match to store
+     * @return The row of the match
+     */
+    public int append(Tablefootball.Match match) {
+        if (match.getTeam1Score() < 0 || match.getTeam1Score() > 0xFFFF
+                || match.getTeam2Score() < 0 || match.getTeam2Score() > 0xFFFF) {
+            throw new IllegalArgumentException("Scores must be between 0 and 65535");
+        }
+        int row = appendRow(match.getId(), match.getTimestamp());
+        int slot = slot(row);
+        team1[slot] = participants.ordinal(match.getTeam1Id());
+        team2[slot] = participants.ordinal(match.getTeam2Id());
+        scores[slot] = (match.getTeam1Score() << 16) | match.getTeam2Score();
+        teamMatch[slot] = match.isTeamMatch();
+        match.setTimestamp(timestampAt(slot));
+        return row;
+    }
+
+    @Override
+    protected Tablefootball.Match decode(int slot) {
+        Tablefootball.Match match = new Tablefootball.Match(
+                participants.get(team1[slot]), participants.get(team2[slot]),
+                scores[slot] >>> 16, scores[slot] & 0xFFFF, teamMatch[slot]);
+        match.setId(idAt(slot));
+        match.setTimestamp(timestampAt(slot));
+        return match;
+    }
+
+    @Override
+    protected void encode(int slot, DataOutputStream out) throws IOException {
+        writeUuid(out, participants.get(team1[slot]));
+        writeUuid(out, participants.get(team2[slot]));
+        out.writeInt(scores[slot]);
+        out.writeBoolean(teamMatch[slot]);
+    }
+
+    @Override
+    protected Tablefootball.Match decodeRecord(ByteBuffer record, UUID id, LocalDateTime timestamp) {
+        UUID side1 = readUuid(record);
+        UUID side2 = readUuid(record);
+        int packedScores = record.getInt();
+        Tablefootball.Match match = new Tablefootball.Match(side1, side2,
+                packedScores >>> 16, packedScores & 0xFFFF, record.get() != 0);
+        match.setId(id);
+        match.setTimestamp(timestamp);
+        return match;
+    }
+
+    @Override
+    protected void growColumns(int capacity) {
+        team1 = Arrays.copyOf(team1, capacity);
+        team2 = Arrays.copyOf(team2, capacity);
+        scores = Arrays.copyOf(scores, capacity);
+        teamMatch = Arrays.copyOf(teamMatch, capacity);
+    }
+
+    @Override
+    protected void replaceColumns(int count, int remaining, int capacity) {
+        team1 = Arrays.copyOfRange(team1, count, count + capacity);
+        team2 = Arrays.copyOfRange(team2, count, count + capacity);
+        scores = Arrays.copyOfRange(scores, count, count + capacity);
+        teamMatch = Arrays.copyOfRange(teamMatch, count, count + capacity);
+    }
+}
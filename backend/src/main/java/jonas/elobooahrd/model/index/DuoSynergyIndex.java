@@ -0,0 +1,161 @@
+package jonas.elobooahrd.model.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import jonas.elobooahrd.model.Player;
+
+/**
+ * Sparse statistics of players who played on the same team.
+ * Only pairs that have played together have an entry, and both partners share it.
+ * Besides games and wins each pair accumulates its over- or under-performance: the
+ * actual result minus the result expected from the Elo ratings before the match.
+ */
+public class DuoSynergyIndex {
+    private final Map<UUID, Map<UUID, Pair>> byPlayer = new HashMap<>();
+    private final List<Pair> pairs = new ArrayList<>();
+
+    /**
+     * The record of two partners, shared by both of them
+     */
+    public static class Pair {
+        private final UUID player1Id;
+        private final UUID player2Id;
+        private int games;
+        private int wins;
+        private double performance; // Sum of actual minus expected score
+
+        private Pair(UUID player1Id, UUID player2Id) {
+            this.player1Id = player1Id;
+            this.player2Id = player2Id;
+        }
+
+        public UUID getPlayer1Id() {
+            return player1Id;
+        }
+
+        public UUID getPlayer2Id() {
+            return player2Id;
+        }
+
+        /**
+         * Gets the partner of a player in this pair
+         * @param playerId One of the partners
+         * @return The other partner
+         */
+        public UUID getPartnerOf(UUID playerId) {
+            return player1Id.equals(playerId) ? player2Id : player1Id;
+        }
+
+        public int getGames() {
+            return games;
+        }
+
+        public int getWins() {
+            return wins;
+        }
+
+        public int getLosses() {
+            return games - wins;
+        }
+
+        /**
+         * Gets the average over-performance per game
+         * @return Actual minus expected score per game, positive if the pair wins more than its ratings suggest
+         */
+        public double getSynergy() {
+            return games > 0 ? performance / games : 0;
+        }
+    }
+
+    // Highest synergy first; the pair with more games wins a tie
+    private static final Comparator<Pair> SYNERGY = Comparator.comparingDouble(Pair::getSynergy).reversed()
+            .thenComparing(Comparator.comparingInt(Pair::getGames).reversed());
+
+    /**
+     * Records a match of a team under every pair of its members
+     * @param members The members of the team
+     * @param won Whether the team won
+     * @param expectedScore The score expected from the ratings before the match, between 0 and 1
+     */
+    public void record(List<Player> members, boolean won, double expectedScore) {
+        double performance = (won ? 1.0 : 0.0) - expectedScore;
+        for (int i = 0; i < members.size(); i++) {
+            for (int j = i + 1; j < members.size(); j++) {
+                Pair pair = pairOf(members.get(i).getId(), members.get(j).getId());
+                pair.games++;
+                if (won) {
+                    pair.wins++;
+                }
+                pair.performance += performance;
+            }
+        }
+    }
+
+    /**
+     * Gets the record of two partners
+     * @param playerId One partner
+     * @param partnerId The other partner
+     * @return The pair, or null if they have not played together
+     */
+    public Pair get(UUID playerId, UUID partnerId) {
+        Map<UUID, Pair> partners = byPlayer.get(playerId);
+        return partners != null ? partners.get(partnerId) : null;
+    }
+
+    /**
+     * Gets the partners a player performs best with
+     * @param playerId The player
+     * @param minGames The minimum number of games together
+     * @param limit The maximum number of partners
+     * @return The player's pairs, highest synergy first
+     */
+    public List<Pair> bestPartners(UUID playerId, int minGames, int limit) {
+        Map<UUID, Pair> partners = byPlayer.get(playerId);
+        if (partners == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+        return top(partners.values(), minGames, limit);
+    }
+
+    /**
+     * Gets the pairs that perform best together
+     * @param minGames The minimum number of games together
+     * @param limit The maximum number of pairs
+     * @return The pairs, highest synergy first
+     */
+    public List<Pair> strongestDuos(int minGames, int limit) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        return top(pairs, minGames, limit);
+    }
+
+    private static List<Pair> top(Iterable<Pair> candidates, int minGames, int limit) {
+        List<Pair> result = new ArrayList<>();
+        for (Pair pair : candidates) {
+            if (pair.games >= minGames) {
+                result.add(pair);
+            }
+        }
+        result.sort(SYNERGY);
+        return result.subList(0, Math.min(limit, result.size()));
+    }
+
+    private Pair pairOf(UUID player1Id, UUID player2Id) {
+        Map<UUID, Pair> partners = byPlayer.computeIfAbsent(player1Id, id -> new HashMap<>());
+        Pair pair = partners.get(player2Id);
+        if (pair == null) {
+            pair = new Pair(player1Id, player2Id);
+            partners.put(player2Id, pair);
+            byPlayer.computeIfAbsent(player2Id, id -> new HashMap<>()).put(player1Id, pair);
+            pairs.add(pair);
+        }
+        return pair;
+    }
+}
@@ -0,0 +1,124 @@
+package jonas.elobooahrd.model.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Sparse head-to-head statistics between pairs of players.
+ * Only pairs that have played each other have an entry. Each result updates the
+ * record of both players in O(1), so "A against B" is a lookup and "rivals of A"
+ * only visits A's opponents.
+ */
+public class HeadToHeadIndex {
+    private final Map<UUID, Map<UUID, Record>> byPlayer = new HashMap<>();
+
+    /**
+     * The record of one player against one opponent, from the player's point of view
+     */
+    public static class Record {
+        private final UUID opponentId;
+        private int wins;
+        private int losses;
+        private int goalsFor;
+        private int goalsAgainst;
+        private long lastPlayed; // Epoch millis of the most recent match
+
+        private Record(UUID opponentId) {
+            this.opponentId = opponentId;
+        }
+
+        public UUID getOpponentId() {
+            return opponentId;
+        }
+
+        public int getWins() {
+            return wins;
+        }
+
+        public int getLosses() {
+            return losses;
+        }
+
+        public int getMatches() {
+            return wins + losses;
+        }
+
+        public int getGoalsFor() {
+            return goalsFor;
+        }
+
+        public int getGoalsAgainst() {
+            return goalsAgainst;
+        }
+
+        public long getLastPlayed() {
+            return lastPlayed;
+        }
+    }
+
+    // Most matches first; the more recent rivalry wins a tie
+    private static final Comparator<Record> RIVALRY = Comparator.comparingInt(Record::getMatches).reversed()
+            .thenComparing(Comparator.comparingLong(Record::getLastPlayed).reversed());
+
+    /**
+     * Records a match between two players
+     * @param player1Id The first player
+     * @param player2Id The second player
+     * @param player1Score The goals of the first player
+     * @param player2Score The goals of the second player
+     * @param playedAt The time of the match in epoch millis
+     */
+    public void record(UUID player1Id, UUID player2Id, int player1Score, int player2Score, long playedAt) {
+        boolean player1Won = player1Score > player2Score;
+        update(recordOf(player1Id, player2Id), player1Won, player1Score, player2Score, playedAt);
+        update(recordOf(player2Id, player1Id), !player1Won, player2Score, player1Score, playedAt);
+    }
+
+    /**
+     * Gets the record of a player against an opponent
+     * @param playerId The player
+     * @param opponentId The opponent
+     * @return The record, or null if they have not played each other
+     */
+    public Record get(UUID playerId, UUID opponentId) {
+        Map<UUID, Record> opponents = byPlayer.get(playerId);
+        return opponents != null ? opponents.get(opponentId) : null;
+    }
+
+    /**
+     * Gets the opponents a player has played most often
+     * @param playerId The player
+     * @param limit The maximum number of rivals
+     * @return The player's records, most matches first
+     */
+    public List<Record> rivals(UUID playerId, int limit) {
+        Map<UUID, Record> opponents = byPlayer.get(playerId);
+        if (opponents == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+        List<Record> records = new ArrayList<>(opponents.values());
+        records.sort(RIVALRY);
+        return records.subList(0, Math.min(limit, records.size()));
+    }
+
+    private Record recordOf(UUID playerId, UUID opponentId) {
+        return byPlayer.computeIfAbsent(playerId, id -> new HashMap<>())
+                .computeIfAbsent(opponentId, Record::new);
+    }
+
+    private static void update(Record record, boolean won, int goalsFor, int goalsAgainst, long playedAt) {
+        if (won) {
+            record.wins++;
+        } else {
+            record.losses++;
+        }
+        record.goalsFor += goalsFor;
+        record.goalsAgainst += goalsAgainst;
+        record.lastPlayed = Math.max(record.lastPlayed, playedAt);
+    }
+}
@@ -0,0 +1,104 @@
+package jonas.elobooahrd.model.index;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+import jonas.elobooahrd.model.util.IntList;
+
+/**
+ * Index from a participant (player or team) to its rows in a game's match history.
+ * Rows are appended in the order matches are recorded, which is also timestamp order,
+ * so the most recent matches of a participant are read from the end of its row list.
+ */
+public class MatchIndex {
+    private final Map<UUID, IntList> rowsByParticipant = new HashMap<>();
+
+    /**
+     * Adds a history row for a participant
+     * @param participantId The ID of the player or team
+     * @param row The position of the match in the history
+     */
+    public void add(UUID participantId, int row) {
+        rowsByParticipant.computeIfAbsent(participantId, id -> new IntList()).add(row);
+    }
+
+    /**
+     * Gets the number of matches of a participant
+     * @param participantId The ID of the player or team
+     * @return The number of indexed matches
+     */
+    public int count(UUID participantId) {
+        IntList rows = rowsByParticipant.get(participantId);
+        return rows != null ? rows.size() : 0;
+    }
+
+    /**
+     * Gets the history rows of a participant, most recent first
+     * @param participantId The ID of the player or team
+     * @param limit The maximum number of rows
+     * @return The rows, most recent first
+     */
+    public int[] recentRows(UUID participantId, int limit) {
+        IntList rows = rowsByParticipant.get(participantId);
+        if (rows == null || limit <= 0) {
+            return new int[0];
+        }
+        int count = Math.min(limit, rows.size());
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = rows.get(rows.size() - 1 - i);
+        }
+        return result;
+    }
+
+    /**
+     * Gets all history rows of a participant, oldest first
+     * @param participantId The ID of the player or team
+     * @return The rows, oldest first
+     */
+    public int[] allRows(UUID participantId) {
+        IntList rows = rowsByParticipant.get(participantId);
+        return rows != null ? rows.toArray() : new int[0];
+    }
+
+    /**
+     * Removes all rows below a boundary, e.g. after they were moved to a cold history segment
+     * @param boundary The first row to keep
+     * @return The removed rows per participant, oldest first
+     */
+    public Map<UUID, int[]> removeRowsBelow(int boundary) {
+        Map<UUID, int[]> removed = new HashMap<>();
+        Iterator<Map.Entry<UUID, IntList>> entries = rowsByParticipant.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<UUID, IntList> entry = entries.next();
+            IntList rows = entry.getValue();
+            // Rows are appended in ascending order, so the removed rows form a prefix
+            int count = 0;
+            while (count < rows.size() && rows.get(count) < boundary) {
+                count++;
+            }
+            if (count == 0) {
+                continue;
+            }
+            int[] prefix = new int[count];
+            for (int i = 0; i < count; i++) {
+                prefix[i] = rows.get(i);
+            }
+            removed.put(entry.getKey(), prefix);
+            rows.removeFirst(count);
+            if (rows.isEmpty()) {
+                entries.remove();
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Removes all entries from the index
+     */
+    public void clear() {
+        rowsByParticipant.clear();
+    }
+}
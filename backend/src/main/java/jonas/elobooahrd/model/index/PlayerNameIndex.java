@@ -0,0 +1,164 @@
+package jonas.elobooahrd.model.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Case-insensitive lookup index over player names and emails.
+ * Exact lookups are answered from hash maps keyed by the case-folded value.
+ * Prefix searches are answered from a sorted map, so an autocomplete query only
+ * touches the matching entries instead of every registered player. Names and emails
+ * shared by several players are also kept sorted, so when the player an exact lookup
+ * answers with is removed or renamed, another holder takes its place.
+ * The index stores player IDs only; callers resolve them through their container.
+ */
+public class PlayerNameIndex {
+    private static final char ID_SEPARATOR = '\0';
+    private static final char PREFIX_END = '\uffff';
+
+    private final Map<String, UUID> namesExact = new HashMap<>(); // Folded name -> first player with that name
+    private final Map<String, UUID> emailsExact = new HashMap<>(); // Folded email -> first player with that email
+    private final NavigableMap<String, UUID> namesSorted = new TreeMap<>(); // Folded name + separator + ID -> player
+    private final NavigableMap<String, UUID> emailsSorted = new TreeMap<>(); // Folded email + separator + ID -> player
+
+    /**
+     * Adds a player to the index
+     * @param playerId The ID of the player
+     * @param name The name of the player, may be null
+     * @param email The email of the player, may be null
+     */
+    public void add(UUID playerId, String name, String email) {
+        if (!isBlank(name)) {
+            String folded = fold(name);
+            namesSorted.put(sortKey(folded, playerId), playerId);
+            namesExact.putIfAbsent(folded, playerId);
+        }
+        if (!isBlank(email)) {
+            String folded = fold(email);
+            emailsSorted.put(sortKey(folded, playerId), playerId);
+            emailsExact.putIfAbsent(folded, playerId);
+        }
+    }
+
+    /**
+     * Removes a player from the index
+     * @param playerId The ID of the player
+     * @param name The name the player was indexed with, may be null
+     * @param email The email the player was indexed with, may be null
+     */
+    public void remove(UUID playerId, String name, String email) {
+        if (!isBlank(name)) {
+            String folded = fold(name);
+            namesSorted.remove(sortKey(folded, playerId));
+            promoteNext(namesExact, namesSorted, folded, playerId);
+        }
+        if (!isBlank(email)) {
+            String folded = fold(email);
+            emailsSorted.remove(sortKey(folded, playerId));
+            promoteNext(emailsExact, emailsSorted, folded, playerId);
+        }
+    }
+
+    /**
+     * Re-indexes a player after its name or email changed
+     * @param playerId The ID of the player
+     * @param oldName The previous name
+     * @param oldEmail The previous email
+     * @param newName The new name
+     * @param newEmail The new email
+     */
+    public void update(UUID playerId, String oldName, String oldEmail, String newName, String newEmail) {
+        remove(playerId, oldName, oldEmail);
+        add(playerId, newName, newEmail);
+    }
+
+    /**
+     * Finds a player by name, ignoring case
+     * @param name The name to look up
+     * @return The ID of the player, or null if not found
+     */
+    public UUID findByName(String name) {
+        return isBlank(name) ? null : namesExact.get(fold(name));
+    }
+
+    /**
+     * Finds a player by email, ignoring case
+     * @param email The email to look up
+     * @return The ID of the player, or null if not found
+     */
+    public UUID findByEmail(String email) {
+        return isBlank(email) ? null : emailsExact.get(fold(email));
+    }
+
+    /**
+     * Finds players whose name starts with the given prefix, ignoring case
+     * @param prefix The prefix to search for
+     * @param limit The maximum number of results
+     * @return The IDs of the matching players, ordered by name
+     */
+    public List<UUID> searchByPrefix(String prefix, int limit) {
+        List<UUID> result = new ArrayList<>(Math.min(limit, 64));
+        if (prefix == null || limit <= 0) {
+            return result;
+        }
+        String folded = fold(prefix);
+        for (UUID playerId : namesSorted.subMap(folded, true, folded + PREFIX_END, false).values()) {
+            result.add(playerId);
+            if (result.size() >= limit) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes all entries from the index
+     */
+    public void clear() {
+        namesExact.clear();
+        emailsExact.clear();
+        namesSorted.clear();
+        emailsSorted.clear();
+    }
+
+    /**
+     * Replaces a removed player in an exact index with another player with the same value, if any
+     */
+    private static void promoteNext(Map<String, UUID> exact, NavigableMap<String, UUID> sorted, String folded,
+            UUID removedId) {
+        if (removedId.equals(exact.get(folded))) {
+            UUID next = firstWith(sorted, folded);
+            if (next != null) {
+                exact.put(folded, next);
+            } else {
+                exact.remove(folded);
+            }
+        }
+    }
+
+    private static UUID firstWith(NavigableMap<String, UUID> sorted, String folded) {
+        Map.Entry<String, UUID> entry = sorted.ceilingEntry(folded + ID_SEPARATOR);
+        if (entry != null && entry.getKey().startsWith(folded + ID_SEPARATOR)) {
+            return entry.getValue();
+        }
+        return null;
+    }
+
+    private static String sortKey(String folded, UUID playerId) {
+        return folded + ID_SEPARATOR + playerId;
+    }
+
+    private static String fold(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,146 @@
+package jonas.elobooahrd.model.index;
+
+/**
+ * Fixed-width histogram of the ratings within one game.
+ * Rating changes move a single count between two buckets, so updates are O(1).
+ * Percentile queries walk the fixed number of buckets, so their cost does not
+ * depend on the number of players. Ratings outside the covered range are
+ * counted in the first or last bucket.
+ */
+public class RatingHistogram {
+    public static final int DEFAULT_MIN_RATING = 0;
+    public static final int DEFAULT_BUCKET_WIDTH = 25;
+    public static final int DEFAULT_BUCKET_COUNT = 160; // Covers ratings 0 - 3999
+
+    private final int minRating;
+    private final int bucketWidth;
+    private final int[] counts;
+    private int total;
+
+    /**
+     * Creates a histogram with the default range and bucket width
+     */
+    public RatingHistogram() {
+        this(DEFAULT_MIN_RATING, DEFAULT_BUCKET_WIDTH, DEFAULT_BUCKET_COUNT);
+    }
+
+    /**
+     * Creates a histogram with a custom range and bucket width
+     * @param minRating The lower bound of the first bucket
+     * @param bucketWidth The width of each bucket
+     * @param bucketCount The number of buckets
+     */
+    public RatingHistogram(int minRating, int bucketWidth, int bucketCount) {
+        if (bucketWidth <= 0 || bucketCount <= 0) {
+            throw new IllegalArgumentException("Bucket width and count must be positive");
+        }
+        this.minRating = minRating;
+        this.bucketWidth = bucketWidth;
+        this.counts = new int[bucketCount];
+    }
+
+    /**
+     * Counts a new rating
+     * @param rating The rating to add
+     */
+    public void add(int rating) {
+        counts[bucketOf(rating)]++;
+        total++;
+    }
+
+    /**
+     * Removes a previously counted rating
+     * @param rating The rating to remove
+     */
+    public void remove(int rating) {
+        int bucket = bucketOf(rating);
+        if (counts[bucket] > 0) {
+            counts[bucket]--;
+            total--;
+        }
+    }
+
+    /**
+     * Moves a counted rating to its new value
+     * @param oldRating The previous rating
+     * @param newRating The new rating
+     */
+    public void move(int oldRating, int newRating) {
+        int oldBucket = bucketOf(oldRating);
+        int newBucket = bucketOf(newRating);
+        if (oldBucket != newBucket && counts[oldBucket] > 0) {
+            counts[oldBucket]--;
+            counts[newBucket]++;
+        }
+    }
+
+    /**
+     * Gets the rating below which the given fraction of players lies
+     * @param percentile The percentile between 0 and 100
+     * @return The interpolated rating, or the lower bound of the range if the histogram is empty
+     */
+    public int percentile(double percentile) {
+        if (total == 0) {
+            return minRating;
+        }
+        double target = Math.max(0, Math.min(100, percentile)) / 100.0 * total;
+        int cumulative = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            int count = counts[bucket];
+            if (count > 0 && cumulative + count >= target) {
+                double fraction = (target - cumulative) / count;
+                return (int) Math.round(lowerBound(bucket) + fraction * bucketWidth);
+            }
+            cumulative += count;
+        }
+        return lowerBound(counts.length);
+    }
+
+    /**
+     * Gets the share of players rated below the given rating
+     * @param rating The rating
+     * @return The percentile rank between 0 and 100
+     */
+    public double percentileRank(int rating) {
+        if (total == 0) {
+            return 0;
+        }
+        int bucket = bucketOf(rating);
+        int below = 0;
+        for (int i = 0; i < bucket; i++) {
+            below += counts[i];
+        }
+        // Assume the ratings are spread evenly inside the bucket
+        double withinBucket = Math.max(0, Math.min(bucketWidth, rating - lowerBound(bucket))) / (double) bucketWidth;
+        return (below + withinBucket * counts[bucket]) * 100.0 / total;
+    }
+
+    /**
+     * Gets a copy of the bucket counts
+     * @return The count per bucket
+     */
+    public int[] getCounts() {
+        return counts.clone();
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getMinRating() {
+        return minRating;
+    }
+
+    public int getBucketWidth() {
+        return bucketWidth;
+    }
+
+    private int lowerBound(int bucket) {
+        return minRating + bucket * bucketWidth;
+    }
+
+    private int bucketOf(int rating) {
+        int bucket = Math.floorDiv(rating - minRating, bucketWidth);
+        return Math.max(0, Math.min(counts.length - 1, bucket));
+    }
+}
@@ -0,0 +1,178 @@
+package jonas.elobooahrd.model.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import jonas.elobooahrd.model.Player;
+
+/**
+ * Inverted index from a game to the players that have a rating in it, ordered by rating.
+ * Membership and rating range queries only visit the matching players, so their cost
+ * depends on the size of the result rather than on the total number of players.
+ * The index stores player IDs only; callers resolve them through their container.
+ */
+public class RatingIndex {
+    private static final UUID MIN_ID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+    private static final UUID MAX_ID = new UUID(Long.MAX_VALUE, Long.MAX_VALUE);
+
+    // Highest rating first, ties broken by player ID so that entries are unique
+    private static final Comparator<Entry> ORDER = Comparator.comparingInt(Entry::rating).reversed()
+            .thenComparing(Entry::playerId);
+
+    private final Map<UUID, NavigableSet<Entry>> byGame = new HashMap<>();
+
+    /**
+     * A player's rating within one game
+     */
+    public record Entry(int rating, UUID playerId) {
+    }
+
+    /**
+     * Adds all ratings of a player to the index
+     * @param player The player to add
+     */
+    public void add(Player player) {
+        player.getEloRatings().forEach((gameId, rating) -> update(gameId, player.getId(), null, rating));
+    }
+
+    /**
+     * Removes all ratings of a player from the index
+     * @param player The player to remove
+     */
+    public void remove(Player player) {
+        player.getEloRatings().forEach((gameId, rating) -> {
+            NavigableSet<Entry> entries = byGame.get(gameId);
+            if (entries != null) {
+                entries.remove(new Entry(rating, player.getId()));
+            }
+        });
+    }
+
+    /**
+     * Moves a player to a new rating within a game
+     * @param gameId The ID of the game
+     * @param playerId The ID of the player
+     * @param oldRating The previous rating, or null if the player was not rated in the game
+     * @param newRating The new rating
+     */
+    public void update(UUID gameId, UUID playerId, Integer oldRating, int newRating) {
+        NavigableSet<Entry> entries = byGame.computeIfAbsent(gameId, id -> new TreeSet<>(ORDER));
+        if (oldRating != null) {
+            entries.remove(new Entry(oldRating, playerId));
+        }
+        entries.add(new Entry(newRating, playerId));
+    }
+
+    /**
+     * Removes all entries of a game
+     * @param gameId The ID of the game
+     */
+    public void removeGame(UUID gameId) {
+        byGame.remove(gameId);
+    }
+
+    /**
+     * Gets the number of players rated in a game
+     * @param gameId The ID of the game
+     * @return The number of rated players
+     */
+    public int count(UUID gameId) {
+        NavigableSet<Entry> entries = byGame.get(gameId);
+        return entries != null ? entries.size() : 0;
+    }
+
+    /**
+     * Gets the players rated in a game, highest rating first
+     * @param gameId The ID of the game
+     * @return The IDs of the rated players
+     */
+    public List<UUID> playersInGame(UUID gameId) {
+        return playersInRange(gameId, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets the players whose rating in a game lies within the given bounds, highest rating first
+     * @param gameId The ID of the game
+     * @param minRating The minimum rating (inclusive)
+     * @param maxRating The maximum rating (inclusive)
+     * @return The IDs of the matching players
+     */
+    public List<UUID> playersInRange(UUID gameId, int minRating, int maxRating) {
+        List<UUID> result = new ArrayList<>();
+        NavigableSet<Entry> entries = byGame.get(gameId);
+        if (entries == null || minRating > maxRating) {
+            return result;
+        }
+        for (Entry entry : entries.subSet(new Entry(maxRating, MIN_ID), true, new Entry(minRating, MAX_ID), true)) {
+            result.add(entry.playerId());
+        }
+        return result;
+    }
+
+    /**
+     * Gets a page of the players whose rating in a game lies within the given bounds, highest rating first
+     * @param gameId The ID of the game
+     * @param minRating The minimum rating (inclusive)
+     * @param maxRating The maximum rating (inclusive)
+     * @param after The entry of the last player of the previous page, or null for the first page
+     * @param limit The maximum number of players
+     * @return The IDs of the matching players that follow the given entry
+     */
+    public List<UUID> playersInRange(UUID gameId, int minRating, int maxRating, Entry after, int limit) {
+        List<UUID> result = new ArrayList<>();
+        NavigableSet<Entry> entries = byGame.get(gameId);
+        if (entries == null || minRating > maxRating) {
+            return result;
+        }
+        Entry from = new Entry(maxRating, MIN_ID);
+        Entry to = new Entry(minRating, MAX_ID);
+        boolean fromInclusive = after == null || ORDER.compare(after, from) < 0;
+        if (!fromInclusive) {
+            from = after;
+            if (ORDER.compare(from, to) > 0) {
+                return result;
+            }
+        }
+        for (Entry entry : entries.subSet(from, fromInclusive, to, true)) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(entry.playerId());
+        }
+        return result;
+    }
+
+    /**
+     * Gets the highest rated players of a game
+     * @param gameId The ID of the game
+     * @param limit The maximum number of players
+     * @return The IDs of the top players, highest rating first
+     */
+    public List<UUID> topPlayers(UUID gameId, int limit) {
+        List<UUID> result = new ArrayList<>();
+        NavigableSet<Entry> entries = byGame.get(gameId);
+        if (entries == null) {
+            return result;
+        }
+        for (Entry entry : entries) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(entry.playerId());
+        }
+        return result;
+    }
+
+    /**
+     * Removes all entries from the index
+     */
+    public void clear() {
+        byGame.clear();
+    }
+}
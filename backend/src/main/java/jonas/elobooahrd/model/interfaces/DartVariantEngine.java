@@ -0,0 +1,33 @@
+package jonas.elobooahrd.model.interfaces;
+
+import jonas.elobooahrd.model.variant.DartLegState;
+
+/**
+ * Scoring rules of a dart variant.
+ * Engines are stateless; everything they need is kept in the leg's DartLegState,
+ * so one engine instance scores every live leg of its variant.
+ */
+public interface DartVariantEngine {
+
+    /**
+     * Sets up the state of a new leg
+     * @param state The state to initialize
+     */
+    void start(DartLegState state);
+
+    /**
+     * Scores a single dart. Sets the winner on the state if the dart decides the leg.
+     * @param state The state of the leg
+     * @param player The index of the throwing player (0 or 1)
+     * @param segment The segment hit: 0 for a miss, 1 - 20, or 25 for the bull
+     * @param multiplier 1 for a single, 2 for a double, 3 for a treble
+     */
+    void throwDart(DartLegState state, int player, int segment, int multiplier);
+
+    /**
+     * Closes a visit. Sets the winner on the state if the end of the visit decides the leg.
+     * @param state The state of the leg
+     * @param player The index of the player whose visit ended (0 or 1)
+     */
+    void endVisit(DartLegState state, int player);
+}
@@ -65,6 +65,12 @@ public interface GameInterface {
      */
     void recordMatch(List<Player> winners, List<Player> losers);
     
+    /**
+     * Records a free-for-all result between N players
+     * @param finishingOrder The players from first to last place
+     */
+    void recordFreeForAll(List<Player> finishingOrder);
+    
     /**
      * Records a match result between two teams
      * @param winnerTeam The winning team
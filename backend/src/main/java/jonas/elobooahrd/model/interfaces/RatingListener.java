@@ -0,0 +1,20 @@
+package jonas.elobooahrd.model.interfaces;
+
+import java.util.UUID;
+
+import jonas.elobooahrd.model.Player;
+
+/**
+ * Listener for Elo rating changes of a player.
+ * Used to keep indexes and caches in sync without rescanning all players.
+ */
+public interface RatingListener {
+    /**
+     * Called after a player's Elo rating for a game has changed
+     * @param player The player whose rating changed
+     * @param gameId The ID of the game
+     * @param oldRating The previous rating, or null if the player had no rating for the game
+     * @param newRating The new rating
+     */
+    void onRatingChanged(Player player, UUID gameId, Integer oldRating, int newRating);
+}
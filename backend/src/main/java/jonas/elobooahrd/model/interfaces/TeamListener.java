@@ -0,0 +1,19 @@
+package jonas.elobooahrd.model.interfaces;
+
+import java.util.List;
+
+import jonas.elobooahrd.model.Player;
+import jonas.elobooahrd.model.Team;
+
+/**
+ * Listener for changes to the members of a team.
+ * Used to keep indexes of teams by their members in sync.
+ */
+public interface TeamListener {
+    /**
+     * Called after the members of a team have changed
+     * @param team The team
+     * @param previousMembers The members before the change
+     */
+    void onMembersChanged(Team team, List<Player> previousMembers);
+}
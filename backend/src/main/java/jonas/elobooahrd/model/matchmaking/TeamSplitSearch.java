@@ -0,0 +1,192 @@
+package jonas.elobooahrd.model.matchmaking;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+
+/**
+ * Branch-and-bound search for the fairest splits of a lobby into two teams.
+ * <p>
+ * Team ratings are averages, so a split is scored by |sum1 * n - total * size1|, which is
+ * the difference of the two averages scaled by size1 * size2 and stays in exact integers.
+ * Players are visited by descending rating, so the smallest and largest sums the remaining
+ * picks can add are prefix sums; a branch is cut as soon as no completion can beat the
+ * k-th best split found so far. Larger lobbies split the first decisions into independent
+ * subtrees that are searched in parallel. The search stops at a deadline and then reports
+ * the best splits it has seen.
+ */
+public class TeamSplitSearch {
+    public static final int MAX_PLAYERS = 24; // Keeps team masks in an int and the worst case in milliseconds
+    private static final int PARALLEL_THRESHOLD = 14; // Below this the whole tree is searched in microseconds
+    private static final int PARALLEL_DEPTH = 5; // Decisions fixed per parallel subtree
+    private static final int DEADLINE_CHECK_INTERVAL = 1024;
+
+    private final int n;
+    private final long[] sorted; // Ratings by descending rating
+    private final int[] order; // Lobby index of each sorted position
+    private final long[] prefix; // prefix[i] = sum of sorted[0..i)
+    private final long total;
+
+    /**
+     * A split of the lobby
+     * @param team1Mask The lobby indexes of the first team as a bit mask
+     * @param score The scaled difference of the team averages, lower is fairer
+     */
+    public record Split(int team1Mask, long score) {
+    }
+
+    /**
+     * The result of a search
+     * @param splits The fairest splits, fairest first
+     * @param exhaustive false if the deadline stopped the search early
+     */
+    public record Result(List<Split> splits, boolean exhaustive) {
+    }
+
+    /**
+     * Creates a search over a lobby
+     * @param ratings The rating of each player in the lobby
+     * @throws IllegalArgumentException if the lobby has fewer than 2 or more than MAX_PLAYERS players
+     */
+    public TeamSplitSearch(int[] ratings) {
+        if (ratings.length < 2 || ratings.length > MAX_PLAYERS) {
+            throw new IllegalArgumentException("A lobby needs between 2 and " + MAX_PLAYERS + " players");
+        }
+        this.n = ratings.length;
+        this.order = IntStream.range(0, n).boxed()
+                .sorted(Comparator.comparingInt((Integer i) -> ratings[i]).reversed())
+                .mapToInt(Integer::intValue)
+                .toArray();
+        this.sorted = new long[n];
+        this.prefix = new long[n + 1];
+        for (int i = 0; i < n; i++) {
+            sorted[i] = ratings[order[i]];
+            prefix[i + 1] = prefix[i] + sorted[i];
+        }
+        this.total = prefix[n];
+    }
+
+    /**
+     * Finds the fairest splits with the first team of the given size
+     * @param team1Size The size of the first team
+     * @param limit The maximum number of splits
+     * @param deadlineNanos The System.nanoTime() after which the search stops
+     * @return The fairest splits found
+     */
+    public Result search(int team1Size, int limit, long deadlineNanos) {
+        if (team1Size < 1 || team1Size >= n) {
+            throw new IllegalArgumentException("Both teams need at least one player");
+        }
+        if (limit <= 0) {
+            return new Result(List.of(), true);
+        }
+        // With equal sizes every split appears twice; keeping the top player in team 1 halves the tree
+        boolean symmetric = team1Size * 2 == n;
+        List<Subtree> subtrees = new ArrayList<>();
+        // The first decision is always fixed here, as the workers do not repeat the symmetry cut
+        int depth = n >= PARALLEL_THRESHOLD ? Math.min(PARALLEL_DEPTH, n) : 1;
+        collect(subtrees, 0, 0, 0, 0, depth, team1Size, symmetric);
+
+        List<Worker> workers = (subtrees.size() > 1 ? subtrees.parallelStream() : subtrees.stream())
+                .map(subtree -> {
+                    Worker worker = new Worker(team1Size, limit, deadlineNanos);
+                    worker.descend(subtree.pos, subtree.count, subtree.sum, subtree.mask);
+                    return worker;
+                })
+                .toList();
+
+        PriorityQueue<Split> best = new PriorityQueue<>(Comparator.comparingLong(Split::score).reversed());
+        boolean exhaustive = true;
+        for (Worker worker : workers) {
+            exhaustive &= !worker.timedOut;
+            for (Split split : worker.best) {
+                offer(best, split, limit);
+            }
+        }
+        List<Split> splits = new ArrayList<>(best);
+        splits.sort(Comparator.comparingLong(Split::score).thenComparingInt(Split::team1Mask));
+        return new Result(splits, exhaustive);
+    }
+
+    private record Subtree(int pos, int count, long sum, int mask) {
+    }
+
+    private void collect(List<Subtree> subtrees, int pos, int count, long sum, int mask, int depth,
+            int team1Size, boolean symmetric) {
+        if (pos == depth || count == team1Size || n - pos == team1Size - count) {
+            subtrees.add(new Subtree(pos, count, sum, mask));
+            return;
+        }
+        collect(subtrees, pos + 1, count + 1, sum + sorted[pos], mask | (1 << order[pos]), depth, team1Size, symmetric);
+        if (!(symmetric && pos == 0)) {
+            collect(subtrees, pos + 1, count, sum, mask, depth, team1Size, symmetric);
+        }
+    }
+
+    private static void offer(PriorityQueue<Split> best, Split split, int limit) {
+        if (best.size() < limit) {
+            best.add(split);
+        } else if (split.score() < best.peek().score()) {
+            best.poll();
+            best.add(split);
+        }
+    }
+
+    /**
+     * Depth-first search of one subtree with its own top-k
+     */
+    private class Worker {
+        private final int team1Size;
+        private final int limit;
+        private final long deadlineNanos;
+        private final long target; // total * team1Size, the scaled sum of a perfectly fair team 1
+        private final PriorityQueue<Split> best = new PriorityQueue<>(Comparator.comparingLong(Split::score).reversed());
+        private int nodes;
+        private boolean timedOut;
+
+        Worker(int team1Size, int limit, long deadlineNanos) {
+            this.team1Size = team1Size;
+            this.limit = limit;
+            this.deadlineNanos = deadlineNanos;
+            this.target = total * team1Size;
+        }
+
+        void descend(int pos, int count, long sum, int mask) {
+            if (timedOut) {
+                return;
+            }
+            if (++nodes % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() - deadlineNanos > 0) {
+                timedOut = true;
+                return;
+            }
+            int need = team1Size - count;
+            if (need == 0) {
+                offer(best, new Split(mask, Math.abs(sum * n - target)), limit);
+                return;
+            }
+            if (n - pos < need) {
+                return;
+            }
+            if (best.size() == limit && bound(pos, need, sum) >= best.peek().score()) {
+                return;
+            }
+            descend(pos + 1, count + 1, sum + sorted[pos], mask | (1 << order[pos]));
+            descend(pos + 1, count, sum, mask);
+        }
+
+        private long bound(int pos, int need, long sum) {
+            // Highest and lowest sums reachable by picking need more players from pos onwards
+            long low = (sum + prefix[n] - prefix[n - need]) * n;
+            long high = (sum + prefix[pos + need] - prefix[pos]) * n;
+            if (target < low) {
+                return low - target;
+            }
+            if (target > high) {
+                return target - high;
+            }
+            return 0;
+        }
+    }
+}
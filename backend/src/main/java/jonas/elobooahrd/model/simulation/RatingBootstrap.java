@@ -0,0 +1,195 @@
+package jonas.elobooahrd.model.simulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import jonas.elobooahrd.model.Game;
+import jonas.elobooahrd.model.util.IntList;
+
+/**
+ * Bootstrap estimate of how uncertain each player's rating is.
+ * <p>
+ * The match history is flattened into primitive arrays of player ordinals. Each replicate
+ * draws as many matches as the history holds, with replacement, and replays them in their
+ * original order with the game's Elo update, writing straight into its row of the result
+ * matrix. Replicates run in parallel chunks that reuse one multiplicity array each, so the
+ * replay loop does not allocate. The spread of a player's replicate ratings around the
+ * replay of the unmodified history gives the interval, which is then applied to the
+ * player's current rating, so ratings that were seeded or edited by hand keep their level.
+ */
+public class RatingBootstrap {
+    private static final int REPLICATES_PER_CHUNK = 8;
+
+    private final UUID[] players;
+    private final int[] members; // Winners then losers of each match, as player ordinals
+    private final int[] loserStart; // Index into members of the first loser of each match
+    private final int[] matchEnd; // Index into members after the last loser of each match
+    private final int initialRating;
+    private final int kFactor;
+
+    /**
+     * The interval of one player, relative to the rating the full history produces
+     * @param lowOffset The lower bound minus the replayed rating
+     * @param highOffset The upper bound minus the replayed rating
+     */
+    public record Interval(int lowOffset, int highOffset) {
+    }
+
+    /**
+     * Collects matches in the order they were played
+     */
+    public static class Builder {
+        private final Map<UUID, Integer> ordinals = new HashMap<>();
+        private final List<UUID> players = new ArrayList<>();
+        private final IntList members = new IntList();
+        private final IntList loserStart = new IntList();
+        private final IntList matchEnd = new IntList();
+
+        /**
+         * Adds the next match of the history
+         * @param winnerIds The players on the winning side
+         * @param loserIds The players on the losing side
+         */
+        public Builder addMatch(List<UUID> winnerIds, List<UUID> loserIds) {
+            if (winnerIds.isEmpty() || loserIds.isEmpty()) {
+                return this;
+            }
+            winnerIds.forEach(id -> members.add(ordinal(id)));
+            loserStart.add(members.size());
+            loserIds.forEach(id -> members.add(ordinal(id)));
+            matchEnd.add(members.size());
+            return this;
+        }
+
+        /**
+         * Creates the bootstrap for the collected history
+         * @param initialRating The rating every player starts the replay with
+         * @param kFactor The K-factor of the game
+         * @return The bootstrap
+         */
+        public RatingBootstrap build(int initialRating, int kFactor) {
+            return new RatingBootstrap(players.toArray(new UUID[0]), members.toArray(), loserStart.toArray(),
+                    matchEnd.toArray(), initialRating, kFactor);
+        }
+
+        private int ordinal(UUID playerId) {
+            return ordinals.computeIfAbsent(playerId, id -> {
+                players.add(id);
+                return players.size() - 1;
+            });
+        }
+    }
+
+    private RatingBootstrap(UUID[] players, int[] members, int[] loserStart, int[] matchEnd,
+            int initialRating, int kFactor) {
+        this.players = players;
+        this.members = members;
+        this.loserStart = loserStart;
+        this.matchEnd = matchEnd;
+        this.initialRating = initialRating;
+        this.kFactor = kFactor;
+    }
+
+    public int getMatchCount() {
+        return matchEnd.length;
+    }
+
+    /**
+     * Computes the intervals of all players in the history
+     * @param replicates The number of resampled histories
+     * @param confidence The share of replicates inside the interval, e.g. 0.95
+     * @param seed The seed of the random generator
+     * @return The interval of each player
+     */
+    public Map<UUID, Interval> run(int replicates, double confidence, long seed) {
+        int playerCount = players.length;
+        int matchCount = matchEnd.length;
+        int[] baseline = new int[playerCount];
+        Arrays.fill(baseline, initialRating);
+        int[] once = new int[matchCount];
+        Arrays.fill(once, 1);
+        replay(once, baseline);
+
+        int[][] results = new int[replicates][playerCount];
+        int chunks = (replicates + REPLICATES_PER_CHUNK - 1) / REPLICATES_PER_CHUNK;
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] randoms = new SplittableRandom[chunks];
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            randoms[chunk] = root.split();
+        }
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            SplittableRandom random = randoms[chunk];
+            int[] multiplicity = new int[matchCount];
+            int end = Math.min(replicates, (chunk + 1) * REPLICATES_PER_CHUNK);
+            for (int replicate = chunk * REPLICATES_PER_CHUNK; replicate < end; replicate++) {
+                Arrays.fill(multiplicity, 0);
+                for (int draw = 0; draw < matchCount; draw++) {
+                    multiplicity[random.nextInt(matchCount)]++;
+                }
+                int[] ratings = results[replicate];
+                Arrays.fill(ratings, initialRating);
+                replay(multiplicity, ratings);
+            }
+        });
+
+        int lowIndex = (int) Math.floor((1 - confidence) / 2 * (replicates - 1));
+        int highIndex = (int) Math.ceil((1 + confidence) / 2 * (replicates - 1));
+        Map<UUID, Interval> intervals = new HashMap<>();
+        int[] column = new int[replicates];
+        for (int player = 0; player < playerCount; player++) {
+            for (int replicate = 0; replicate < replicates; replicate++) {
+                column[replicate] = results[replicate][player];
+            }
+            Arrays.sort(column);
+            intervals.put(players[player], new Interval(
+                    Math.min(0, column[lowIndex] - baseline[player]),
+                    Math.max(0, column[highIndex] - baseline[player])));
+        }
+        return intervals;
+    }
+
+    /**
+     * Replays the history, playing each match as often as its multiplicity.
+     * Team sides use the average rating of their members, like Tablefootball.recordTeamMatch.
+     */
+    private void replay(int[] multiplicity, int[] ratings) {
+        int start = 0;
+        for (int match = 0; match < multiplicity.length; match++) {
+            int losers = loserStart[match];
+            int end = matchEnd[match];
+            for (int repeat = multiplicity[match]; repeat > 0; repeat--) {
+                int winnerRating = average(ratings, start, losers);
+                int loserRating = average(ratings, losers, end);
+                for (int i = start; i < losers; i++) {
+                    ratings[members[i]] += change(ratings[members[i]], loserRating, 1.0);
+                }
+                for (int i = losers; i < end; i++) {
+                    ratings[members[i]] += change(ratings[members[i]], winnerRating, 0.0);
+                }
+            }
+            start = end;
+        }
+    }
+
+    private int average(int[] ratings, int from, int to) {
+        if (to - from == 1) {
+            return ratings[members[from]];
+        }
+        int total = 0;
+        for (int i = from; i < to; i++) {
+            total += ratings[members[i]];
+        }
+        return total / (to - from);
+    }
+
+    private int change(int rating, int opponentRating, double score) {
+        // Same rounding as Game.calculateEloChange
+        return (int) Math.round(kFactor * (score - Game.expectedScore(rating, opponentRating)));
+    }
+}
@@ -0,0 +1,165 @@
+package jonas.elobooahrd.model.simulation;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import jonas.elobooahrd.model.Game;
+
+/**
+ * Monte Carlo simulation of a tournament from the current ratings.
+ * <p>
+ * The probability of every pairing is computed once from the Elo expected score and
+ * kept in a flat matrix. Simulations are split into chunks on a fork-join pool; each
+ * chunk owns a SplittableRandom split off its parent, its scratch arrays and its counters,
+ * so the inner loop neither allocates nor shares state. Chunk counters are summed at the end.
+ */
+public class TournamentSimulator {
+    private static final int CHUNK_SIZE = 20_000; // Simulations per fork-join leaf
+
+    /**
+     * The tournament formats that can be simulated
+     */
+    public enum Format {
+        KNOCKOUT, // Single elimination, players paired in the given order
+        ROUND_ROBIN // Everyone plays everyone once, most wins first
+    }
+
+    private final Format format;
+    private final int n;
+    private final double[] winProbability; // winProbability[a * n + b] = chance that a beats b
+    private final int bracketSize;
+    private final int[] bracket; // Player index per bracket slot, -1 for a bye
+
+    /**
+     * Creates a simulator
+     * @param format The tournament format
+     * @param ratings The ratings of the players; for knockouts in bracket order, the first players
+     *        receive the byes if the field is not a power of two
+     */
+    public TournamentSimulator(Format format, int[] ratings) {
+        if (ratings.length < 2) {
+            throw new IllegalArgumentException("A tournament needs at least 2 players");
+        }
+        this.format = format;
+        this.n = ratings.length;
+        this.winProbability = new double[n * n];
+        for (int a = 0; a < n; a++) {
+            for (int b = 0; b < n; b++) {
+                winProbability[a * n + b] = Game.expectedScore(ratings[a], ratings[b]);
+            }
+        }
+
+        int size = Integer.highestOneBit(n);
+        this.bracketSize = size == n ? n : size << 1;
+        this.bracket = new int[bracketSize];
+        int byes = bracketSize - n;
+        int player = 0;
+        for (int pair = 0; pair < bracketSize / 2; pair++) {
+            bracket[2 * pair] = player++;
+            bracket[2 * pair + 1] = pair < byes ? -1 : player++;
+        }
+    }
+
+    /**
+     * Runs the simulation
+     * @param simulations The number of simulated tournaments
+     * @param seed The seed of the random generator
+     * @param pool The pool to run on
+     * @return placements[player][place], the number of simulations in which the player finished
+     *         in place + 1. Knockout losers share the best place of their round, so the two
+     *         semifinal losers are both counted in place 3.
+     */
+    public long[][] simulate(int simulations, long seed, ForkJoinPool pool) {
+        long[] counts = pool.invoke(new Chunk(0, simulations, new SplittableRandom(seed)));
+        long[][] placements = new long[n][n];
+        for (int player = 0; player < n; player++) {
+            System.arraycopy(counts, player * n, placements[player], 0, n);
+        }
+        return placements;
+    }
+
+    private class Chunk extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final SplittableRandom random;
+
+        Chunk(int from, int to, SplittableRandom random) {
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= CHUNK_SIZE) {
+                return run(to - from, random);
+            }
+            int middle = (from + to) >>> 1;
+            Chunk left = new Chunk(from, middle, random.split());
+            Chunk right = new Chunk(middle, to, random);
+            left.fork();
+            long[] counts = right.compute();
+            long[] other = left.join();
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other[i];
+            }
+            return counts;
+        }
+    }
+
+    private long[] run(int simulations, SplittableRandom random) {
+        long[] counts = new long[n * n];
+        if (format == Format.KNOCKOUT) {
+            int[] slots = new int[bracketSize];
+            for (int s = 0; s < simulations; s++) {
+                System.arraycopy(bracket, 0, slots, 0, bracketSize);
+                for (int width = bracketSize; width > 1; width >>= 1) {
+                    for (int pair = 0; pair < width / 2; pair++) {
+                        int a = slots[2 * pair];
+                        int b = slots[2 * pair + 1];
+                        int winner;
+                        if (a < 0 || b < 0) {
+                            winner = a < 0 ? b : a;
+                        } else {
+                            winner = random.nextDouble() < winProbability[a * n + b] ? a : b;
+                            // Losers of the round of width w finish in place w / 2 + 1
+                            counts[(winner == a ? b : a) * n + width / 2]++;
+                        }
+                        slots[pair] = winner;
+                    }
+                }
+                counts[slots[0] * n]++;
+            }
+        } else {
+            int[] wins = new int[n];
+            double[] keys = new double[n];
+            for (int s = 0; s < simulations; s++) {
+                for (int a = 0; a < n; a++) {
+                    wins[a] = 0;
+                }
+                for (int a = 0; a < n; a++) {
+                    for (int b = a + 1; b < n; b++) {
+                        wins[random.nextDouble() < winProbability[a * n + b] ? a : b]++;
+                    }
+                }
+                // Ties on wins are broken at random, like a deciding game between equals
+                for (int a = 0; a < n; a++) {
+                    keys[a] = wins[a] + random.nextDouble() * 0.5;
+                }
+                for (int a = 0; a < n; a++) {
+                    int place = 0;
+                    for (int b = 0; b < n; b++) {
+                        if (keys[b] > keys[a]) {
+                            place++;
+                        }
+                    }
+                    counts[a * n + place]++;
+                }
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,84 @@
+package jonas.elobooahrd.model.simulation;
+
+import java.util.function.ObjIntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Predicted outcome of every pairing in a field of players.
+ * <p>
+ * The Elo expected score 1 / (1 + 10^((rb - ra) / 400)) equals qa / (qa + qb) with
+ * q = 10^(r / 400), so the powers are computed once per player and each cell costs one
+ * addition and one division over primitive arrays, a loop the JIT vectorizes. Rows are
+ * computed in blocks; within a block the columns are walked in tiles so the tile of
+ * strengths stays in the L1 cache for all rows of the block. Blocks are computed in
+ * parallel and handed out in row order, so the matrix never has to exist as a whole.
+ */
+public class WinProbabilityMatrix {
+    private static final int COLUMN_TILE = 2048; // 16 KB of strengths
+    private static final int ROW_TILE = 16; // Rows computed per parallel task
+    private static final int BLOCK_CELLS = 1 << 20; // Cells buffered between computing and handing out rows
+
+    private final int n;
+    private final double[] strength; // 10^((r - max) / 400), scaled so large ratings cannot overflow
+
+    /**
+     * Creates the matrix for a field of players
+     * @param ratings The ratings, in the order of rows and columns
+     */
+    public WinProbabilityMatrix(int[] ratings) {
+        this.n = ratings.length;
+        this.strength = new double[n];
+        int max = IntStream.of(ratings).max().orElse(0);
+        for (int i = 0; i < n; i++) {
+            strength[i] = Math.pow(10, (ratings[i] - max) / 400.0);
+        }
+    }
+
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Computes a range of rows
+     * @param from The first row (inclusive)
+     * @param to The last row (exclusive)
+     * @param out The rows to fill; out[row - from] receives the row and must hold size() values
+     */
+    public void fillRows(int from, int to, double[][] out) {
+        fill(from, to, out, from);
+    }
+
+    /**
+     * Computes all rows in parallel blocks and passes them on in row order.
+     * The row array is reused, so the consumer must not keep it.
+     * @param consumer Receives the values of each row and its index
+     */
+    public void forEachRow(ObjIntConsumer<double[]> consumer) {
+        int blockRows = Math.max(ROW_TILE, BLOCK_CELLS / Math.max(1, n) / ROW_TILE * ROW_TILE);
+        double[][] block = new double[Math.min(blockRows, n)][n];
+        for (int start = 0; start < n; start += blockRows) {
+            int end = Math.min(n, start + blockRows);
+            int blockStart = start;
+            IntStream.range(0, (end - start + ROW_TILE - 1) / ROW_TILE).parallel().forEach(task -> {
+                int from = blockStart + task * ROW_TILE;
+                fill(from, Math.min(end, from + ROW_TILE), block, blockStart);
+            });
+            for (int row = start; row < end; row++) {
+                consumer.accept(block[row - start], row);
+            }
+        }
+    }
+
+    private void fill(int from, int to, double[][] out, int outStart) {
+        for (int tile = 0; tile < n; tile += COLUMN_TILE) {
+            int tileEnd = Math.min(n, tile + COLUMN_TILE);
+            for (int row = from; row < to; row++) {
+                double own = strength[row];
+                double[] values = out[row - outStart];
+                for (int column = tile; column < tileEnd; column++) {
+                    values[column] = own / (own + strength[column]);
+                }
+            }
+        }
+    }
+}
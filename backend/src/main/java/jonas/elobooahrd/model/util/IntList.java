@@ -0,0 +1,99 @@
+package jonas.elobooahrd.model.util;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints.
+ * Stores values in a plain int array, avoiding one boxed Integer object per element.
+ */
+public class IntList {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] values;
+    private int size;
+
+    /**
+     * Creates an empty list with the default capacity
+     */
+    public IntList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty list with the given initial capacity
+     * @param capacity The initial capacity
+     */
+    public IntList(int capacity) {
+        this.values = new int[Math.max(1, capacity)];
+    }
+
+    /**
+     * Appends a value, growing the backing array when needed
+     * @param value The value to append
+     */
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length + (values.length >> 1) + 1);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Gets the value at an index
+     * @param index The index
+     * @return The value
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return values[index];
+    }
+
+    /**
+     * Replaces the value at an index
+     * @param index The index
+     * @param value The new value
+     */
+    public void set(int index, int value) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        values[index] = value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes the first values and shifts the rest to the front
+     * @param count The number of values to remove
+     */
+    public void removeFirst(int count) {
+        if (count < 0 || count > size) {
+            throw new IndexOutOfBoundsException("Count " + count + " out of bounds for size " + size);
+        }
+        System.arraycopy(values, count, values, 0, size - count);
+        size -= count;
+    }
+
+    /**
+     * Removes all values while keeping the allocated capacity
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Copies the values into a new array
+     * @return The values
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
@@ -0,0 +1,73 @@
+package jonas.elobooahrd.model.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Assigns dense int ordinals to UUIDs.
+ * Packed records store a 4 byte ordinal instead of a reference to a 16 byte UUID
+ * object; the UUIDs themselves are kept once, as two primitive longs each.
+ */
+public class UuidTable {
+    public static final int NONE = -1;
+
+    private final Map<UUID, Integer> ordinals = new HashMap<>();
+    private long[] mostSignificant = new long[16];
+    private long[] leastSignificant = new long[16];
+    private int size;
+
+    /**
+     * Gets the ordinal of a UUID, assigning the next free one if it is new
+     * @param id The UUID, may be null
+     * @return The ordinal, or NONE for null
+     */
+    public int ordinal(UUID id) {
+        if (id == null) {
+            return NONE;
+        }
+        Integer existing = ordinals.get(id);
+        if (existing != null) {
+            return existing;
+        }
+        if (size == mostSignificant.length) {
+            int capacity = size + (size >> 1) + 1;
+            mostSignificant = Arrays.copyOf(mostSignificant, capacity);
+            leastSignificant = Arrays.copyOf(leastSignificant, capacity);
+        }
+        mostSignificant[size] = id.getMostSignificantBits();
+        leastSignificant[size] = id.getLeastSignificantBits();
+        ordinals.put(id, size);
+        return size++;
+    }
+
+    /**
+     * Gets the ordinal of a UUID without assigning one
+     * @param id The UUID
+     * @return The ordinal, or NONE if the UUID is unknown
+     */
+    public int find(UUID id) {
+        Integer existing = id != null ? ordinals.get(id) : null;
+        return existing != null ? existing : NONE;
+    }
+
+    /**
+     * Gets the UUID of an ordinal
+     * @param ordinal The ordinal
+     * @return The UUID, or null for NONE
+     */
+    public UUID get(int ordinal) {
+        if (ordinal == NONE) {
+            return null;
+        }
+        if (ordinal < 0 || ordinal >= size) {
+            throw new IndexOutOfBoundsException("Ordinal " + ordinal + " out of bounds for size " + size);
+        }
+        return new UUID(mostSignificant[ordinal], leastSignificant[ordinal]);
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,102 @@
+package jonas.elobooahrd.model.util;
+
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer of unsigned variable-length ints.
+ * Values below 128 take one byte and values below 16384 take two, which fits
+ * dart visit scores (0 - 180) and counts in one or two bytes each.
+ */
+public class VarIntBuffer {
+    private byte[] bytes;
+    private int size;
+
+    /**
+     * Creates an empty buffer
+     */
+    public VarIntBuffer() {
+        this(256);
+    }
+
+    /**
+     * Creates an empty buffer with the given initial capacity
+     * @param capacity The initial capacity in bytes
+     */
+    public VarIntBuffer(int capacity) {
+        this.bytes = new byte[Math.max(1, capacity)];
+    }
+
+    /**
+     * Appends a value
+     * @param value The value, must not be negative
+     * @return The position the value was written at
+     */
+    public int write(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative values cannot be encoded: " + value);
+        }
+        int position = size;
+        while (value >= 0x80) {
+            put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        put((byte) value);
+        return position;
+    }
+
+    /**
+     * Reads the value at a position
+     * @param position The position of the first byte of the value
+     * @return The value
+     */
+    public int read(int position) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = bytes[position++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    /**
+     * Gets the position after the value at a position
+     * @param position The position of the first byte of the value
+     * @return The position of the next value
+     */
+    public int skip(int position) {
+        while (bytes[position++] < 0) {
+            // Continuation bytes have the high bit set
+        }
+        return position;
+    }
+
+    /**
+     * Copies the bytes from a position on to a new buffer; this buffer stays unchanged.
+     * Positions returned earlier move down by the given position in the copy.
+     * @param position The first byte to copy
+     * @return The new buffer
+     */
+    public VarIntBuffer copyFrom(int position) {
+        if (position < 0 || position > size) {
+            throw new IndexOutOfBoundsException("Position " + position + " out of bounds for size " + size);
+        }
+        VarIntBuffer copy = new VarIntBuffer(Math.max(256, size - position));
+        System.arraycopy(bytes, position, copy.bytes, 0, size - position);
+        copy.size = size - position;
+        return copy;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void put(byte b) {
+        if (size == bytes.length) {
+            bytes = Arrays.copyOf(bytes, bytes.length + (bytes.length >> 1) + 1);
+        }
+        bytes[size++] = b;
+    }
+}
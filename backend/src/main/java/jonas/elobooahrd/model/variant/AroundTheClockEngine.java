@@ -0,0 +1,35 @@
+package jonas.elobooahrd.model.variant;
+
+import jonas.elobooahrd.model.interfaces.DartVariantEngine;
+
+/**
+ * Around the Clock: players hit 1 to 20 in order and finish on the bull.
+ * Any single, double or treble of the current target moves the player on by one.
+ */
+public class AroundTheClockEngine implements DartVariantEngine {
+    public static final int LAST_NUMBER = 20;
+
+    @Override
+    public void start(DartLegState state) {
+        state.setTarget(0, 1);
+        state.setTarget(1, 1);
+    }
+
+    @Override
+    public void throwDart(DartLegState state, int player, int segment, int multiplier) {
+        int target = state.getTarget(player);
+        if (segment != target) {
+            return;
+        }
+        if (target == DartLegState.BULL) {
+            state.setWinner(player);
+        } else {
+            state.setTarget(player, target == LAST_NUMBER ? DartLegState.BULL : target + 1);
+        }
+    }
+
+    @Override
+    public void endVisit(DartLegState state, int player) {
+        // Around the Clock is decided by single darts only
+    }
+}
@@ -0,0 +1,72 @@
+package jonas.elobooahrd.model.variant;
+
+import jonas.elobooahrd.model.interfaces.DartVariantEngine;
+
+/**
+ * Cricket: players close 15 - 20 and the bull with three marks each.
+ * Marks beyond the third score the target's value while the opponent has not closed it.
+ * The first player to close every target without trailing on points wins.
+ * Marks are kept as seven 2-bit counters in a single int per player.
+ */
+public class CricketEngine implements DartVariantEngine {
+    public static final int TARGETS = 7; // 20 down to 15, then the bull
+    private static final int ALL_CLOSED = (1 << (2 * TARGETS)) - 1; // Every 2-bit counter at 3
+
+    @Override
+    public void start(DartLegState state) {
+        state.setMarks(0, 0);
+        state.setMarks(1, 0);
+        state.setPoints(0, 0);
+        state.setPoints(1, 0);
+    }
+
+    @Override
+    public void throwDart(DartLegState state, int player, int segment, int multiplier) {
+        int target = targetIndex(segment);
+        if (target < 0) {
+            return;
+        }
+        int opponent = 1 - player;
+        int marks = state.getMarks(player);
+        int own = marksOn(marks, target);
+        int total = own + multiplier;
+        if (total > 3 && marksOn(state.getMarks(opponent), target) < 3) {
+            state.setPoints(player, state.getPoints(player) + (total - Math.max(own, 3)) * segment);
+        }
+        int closed = Math.min(total, 3);
+        state.setMarks(player, (marks & ~(3 << (2 * target))) | (closed << (2 * target)));
+
+        if (state.getMarks(player) == ALL_CLOSED && state.getPoints(player) >= state.getPoints(opponent)) {
+            state.setWinner(player);
+        }
+    }
+
+    @Override
+    public void endVisit(DartLegState state, int player) {
+        // Cricket is decided by single darts only
+    }
+
+    /**
+     * Unpacks the marks of a player into one count per target
+     * @param marks The packed marks
+     * @return The marks on 20, 19, 18, 17, 16, 15 and the bull
+     */
+    public static int[] unpackMarks(int marks) {
+        int[] result = new int[TARGETS];
+        for (int target = 0; target < TARGETS; target++) {
+            result[target] = marksOn(marks, target);
+        }
+        return result;
+    }
+
+    private static int marksOn(int marks, int target) {
+        return (marks >>> (2 * target)) & 3;
+    }
+
+    private static int targetIndex(int segment) {
+        if (segment == DartLegState.BULL) {
+            return TARGETS - 1;
+        }
+        return segment >= 15 && segment <= 20 ? 20 - segment : -1;
+    }
+}
@@ -0,0 +1,111 @@
+package jonas.elobooahrd.model.variant;
+
+/**
+ * Compact state of one leg of a dart variant between two players.
+ * Every field is a primitive of fixed size, so a leg costs the same few dozen bytes
+ * however long it runs, and scoring a dart never allocates. Players are addressed
+ * by index: 0 for player 1 and 1 for player 2.
+ */
+public final class DartLegState {
+    public static final int NO_WINNER = -1;
+    public static final int BULL = 25;
+
+    private int player1Marks; // Cricket: 2 bits of marks (0 - 3) per target
+    private int player2Marks;
+    private int player1Points; // Cricket and Shanghai points, Killer lives
+    private int player2Points;
+    private int player1Target; // Around the Clock: next target; Killer: own number
+    private int player2Target;
+    private int killers; // Killer: bit n is set once player n has become a killer
+    private int round = 1; // Shanghai: current round
+    private int visitHits; // Shanghai: bit m is set if the round's number was hit with multiplier m in this visit
+    private int winner = NO_WINNER;
+
+    /**
+     * Checks whether a dart is a valid board position
+     * @param segment The segment hit: 0 for a miss, 1 - 20, or 25 for the bull
+     * @param multiplier 1 for a single, 2 for a double, 3 for a treble
+     * @return true if the dart can be thrown
+     */
+    public static boolean isValidThrow(int segment, int multiplier) {
+        if (segment == 0) {
+            return true;
+        }
+        if (segment == BULL) {
+            return multiplier == 1 || multiplier == 2;
+        }
+        return segment >= 1 && segment <= 20 && multiplier >= 1 && multiplier <= 3;
+    }
+
+    public int getMarks(int player) {
+        return player == 0 ? player1Marks : player2Marks;
+    }
+
+    public void setMarks(int player, int marks) {
+        if (player == 0) {
+            player1Marks = marks;
+        } else {
+            player2Marks = marks;
+        }
+    }
+
+    public int getPoints(int player) {
+        return player == 0 ? player1Points : player2Points;
+    }
+
+    public void setPoints(int player, int points) {
+        if (player == 0) {
+            player1Points = points;
+        } else {
+            player2Points = points;
+        }
+    }
+
+    public int getTarget(int player) {
+        return player == 0 ? player1Target : player2Target;
+    }
+
+    public void setTarget(int player, int target) {
+        if (player == 0) {
+            player1Target = target;
+        } else {
+            player2Target = target;
+        }
+    }
+
+    public boolean isKiller(int player) {
+        return (killers & (1 << player)) != 0;
+    }
+
+    public void setKiller(int player) {
+        killers |= 1 << player;
+    }
+
+    public int getRound() {
+        return round;
+    }
+
+    public void setRound(int round) {
+        this.round = round;
+    }
+
+    public int getVisitHits() {
+        return visitHits;
+    }
+
+    public void setVisitHits(int visitHits) {
+        this.visitHits = visitHits;
+    }
+
+    public int getWinner() {
+        return winner;
+    }
+
+    public void setWinner(int winner) {
+        this.winner = winner;
+    }
+
+    public boolean isFinished() {
+        return winner != NO_WINNER;
+    }
+}
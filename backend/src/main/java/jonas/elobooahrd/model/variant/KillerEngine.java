@@ -0,0 +1,53 @@
+package jonas.elobooahrd.model.variant;
+
+import jonas.elobooahrd.model.interfaces.DartVariantEngine;
+
+/**
+ * Killer: each player owns a number and starts with three lives.
+ * Hitting the double of the own number makes a player a killer; a killer takes a life
+ * with every double on the opponent's number and loses one for hitting the own double again.
+ * The player left with lives wins.
+ */
+public class KillerEngine implements DartVariantEngine {
+    public static final int LIVES = 3;
+    public static final int PLAYER1_NUMBER = 20;
+    public static final int PLAYER2_NUMBER = 19;
+
+    @Override
+    public void start(DartLegState state) {
+        state.setTarget(0, PLAYER1_NUMBER);
+        state.setTarget(1, PLAYER2_NUMBER);
+        state.setPoints(0, LIVES);
+        state.setPoints(1, LIVES);
+    }
+
+    @Override
+    public void throwDart(DartLegState state, int player, int segment, int multiplier) {
+        if (multiplier != 2) {
+            return;
+        }
+        int opponent = 1 - player;
+        if (segment == state.getTarget(player)) {
+            if (state.isKiller(player)) {
+                loseLife(state, player);
+            } else {
+                state.setKiller(player);
+            }
+        } else if (segment == state.getTarget(opponent) && state.isKiller(player)) {
+            loseLife(state, opponent);
+        }
+    }
+
+    @Override
+    public void endVisit(DartLegState state, int player) {
+        // Killer is decided by single darts only
+    }
+
+    private void loseLife(DartLegState state, int player) {
+        int lives = state.getPoints(player) - 1;
+        state.setPoints(player, lives);
+        if (lives <= 0) {
+            state.setWinner(1 - player);
+        }
+    }
+}
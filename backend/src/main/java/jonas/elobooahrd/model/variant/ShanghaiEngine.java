@@ -0,0 +1,57 @@
+package jonas.elobooahrd.model.variant;
+
+import jonas.elobooahrd.model.interfaces.DartVariantEngine;
+
+/**
+ * Shanghai: in round n only the number n scores, worth the number times the multiplier.
+ * Hitting the single, double and treble of the round's number in one visit wins at once.
+ * Otherwise the higher score after the last round wins; a tie plays further rounds,
+ * continuing on the bull after 20.
+ */
+public class ShanghaiEngine implements DartVariantEngine {
+    public static final int ROUNDS = 7;
+    private static final int SHANGHAI = (1 << 1) | (1 << 2) | (1 << 3);
+
+    @Override
+    public void start(DartLegState state) {
+        state.setPoints(0, 0);
+        state.setPoints(1, 0);
+        state.setRound(1);
+        state.setVisitHits(0);
+    }
+
+    @Override
+    public void throwDart(DartLegState state, int player, int segment, int multiplier) {
+        if (segment == 0 || segment != roundNumber(state.getRound())) {
+            return;
+        }
+        state.setPoints(player, state.getPoints(player) + segment * multiplier);
+        state.setVisitHits(state.getVisitHits() | (1 << multiplier));
+        if (state.getVisitHits() == SHANGHAI) {
+            state.setWinner(player);
+        }
+    }
+
+    @Override
+    public void endVisit(DartLegState state, int player) {
+        state.setVisitHits(0);
+        if (player == 0) {
+            return;
+        }
+        // The round ends once the second player has thrown
+        if (state.getRound() >= ROUNDS && state.getPoints(0) != state.getPoints(1)) {
+            state.setWinner(state.getPoints(0) > state.getPoints(1) ? 0 : 1);
+        } else {
+            state.setRound(state.getRound() + 1);
+        }
+    }
+
+    /**
+     * Gets the number that scores in a round
+     * @param round The round, starting at 1
+     * @return The scoring segment
+     */
+    public static int roundNumber(int round) {
+        return round <= 20 ? round : DartLegState.BULL;
+    }
+}
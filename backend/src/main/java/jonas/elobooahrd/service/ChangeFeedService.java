@@ -0,0 +1,151 @@
+package jonas.elobooahrd.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jonas.elobooahrd.dto.ChangeBatchDTO;
+import jonas.elobooahrd.dto.ChangeEventDTO;
+import jonas.elobooahrd.dto.GameDTO;
+import jonas.elobooahrd.dto.LeagueDTO;
+import jonas.elobooahrd.dto.MatchDTO;
+import jonas.elobooahrd.dto.PlayerDTO;
+import jonas.elobooahrd.dto.TeamDTO;
+import jonas.elobooahrd.model.GameContainer;
+import jonas.elobooahrd.model.LeagueRegistry;
+
+/**
+ * Service for the change feed that read replicas follow.
+ * <p>
+ * Every write is appended with the next sequence number to a bounded ring buffer, so
+ * the feed costs a fixed amount of memory however long the node runs. Writers publish
+ * while they still hold the write lock of their league, which gives the changes of a
+ * league the same order in the feed as in the league itself; a snapshot taken under the
+ * read lock therefore contains exactly the changes up to the sequence it reports.
+ * Readers that fall behind the oldest retained change have to start over from a snapshot.
+ * Followers do not publish, since they are read-only.
+ */
+@Service
+public class ChangeFeedService {
+
+    private final LeagueRegistry leagueRegistry;
+    private final boolean enabled;
+    private final UUID feedId = UUID.randomUUID();
+    private final ChangeEventDTO[] events;
+    private long latestSequence;
+
+    @Autowired
+    public ChangeFeedService(LeagueRegistry leagueRegistry,
+            @Value("${elobooahrd.replication.primary-url:}") String primaryUrl,
+            @Value("${elobooahrd.replication.feed-capacity:50000}") int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The change feed needs a capacity of at least 1");
+        }
+        this.leagueRegistry = leagueRegistry;
+        this.enabled = primaryUrl.isBlank();
+        this.events = new ChangeEventDTO[capacity];
+    }
+
+    /**
+     * Publish a change of the league bound to the current request
+     *
+     * @param type The kind of change
+     * @param payload The changed entity as a DTO, or its ID for deletions
+     */
+    public void publish(ChangeEventDTO.Type type, Object payload) {
+        publish(leagueRegistry.current(), type, payload);
+    }
+
+    /**
+     * Publish a change of a league.
+     * The payload must not be changed afterwards, so DTOs that share state with the model are copied.
+     *
+     * @param container The league's container
+     * @param type The kind of change
+     * @param payload The changed entity as a DTO, or its ID for deletions
+     */
+    public void publish(GameContainer container, ChangeEventDTO.Type type, Object payload) {
+        if (!enabled) {
+            return;
+        }
+        ChangeEventDTO event = new ChangeEventDTO();
+        event.setLeagueId(container.getLeagueId());
+        event.setType(type);
+        event.setTimestamp(LocalDateTime.now());
+        if (payload instanceof UUID id) {
+            event.setEntityId(id);
+        } else if (payload instanceof LeagueDTO league) {
+            event.setLeague(league);
+        } else if (payload instanceof GameDTO game) {
+            event.setGame(game);
+        } else if (payload instanceof PlayerDTO player) {
+            event.setPlayer(new PlayerDTO(player.getId(), player.getName(),
+                    new HashMap<>(player.getEloRatings()), null, null));
+        } else if (payload instanceof TeamDTO team) {
+            event.setTeam(team);
+        } else if (payload instanceof MatchDTO match) {
+            event.setMatch(match);
+        } else {
+            throw new IllegalArgumentException("Unsupported change payload: " + payload);
+        }
+        synchronized (this) {
+            event.setSequence(++latestSequence);
+            events[(int) (event.getSequence() % events.length)] = event;
+        }
+    }
+
+    /**
+     * Get the changes after a sequence number
+     *
+     * @param after The last sequence number the reader has seen, 0 for none
+     * @param limit The maximum number of changes
+     * @return The changes, oldest first, together with the range the feed still holds
+     */
+    public synchronized ChangeBatchDTO getChanges(long after, int limit) {
+        long oldest = getOldestSequence();
+        long first = Math.max(after + 1, oldest);
+        long last = Math.min(latestSequence, first + Math.max(0, limit) - 1);
+        List<ChangeEventDTO> batch = new ArrayList<>((int) Math.max(0, last - first + 1));
+        for (long sequence = first; sequence <= last; sequence++) {
+            batch.add(events[(int) (sequence % events.length)]);
+        }
+        return new ChangeBatchDTO(feedId, oldest, latestSequence, batch);
+    }
+
+    /**
+     * Get the sequence number of the latest change
+     *
+     * @return The sequence number, 0 if nothing was published yet
+     */
+    public synchronized long getLatestSequence() {
+        return latestSequence;
+    }
+
+    /**
+     * Get the ID of this feed, which is new with every start of the node
+     *
+     * @return The feed ID
+     */
+    public UUID getFeedId() {
+        return feedId;
+    }
+
+    /**
+     * Check whether this node publishes changes
+     *
+     * @return true unless the node follows a primary
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private long getOldestSequence() {
+        return Math.max(1, latestSequence - events.length + 1);
+    }
+}
@@ -0,0 +1,499 @@
+package jonas.elobooahrd.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+import jonas.elobooahrd.dto.ClusterMembersDTO;
+import jonas.elobooahrd.dto.LeagueDTO;
+import jonas.elobooahrd.dto.LeagueSnapshotDTO;
+import jonas.elobooahrd.model.GameContainer;
+import jonas.elobooahrd.model.LeagueRegistry;
+import jonas.elobooahrd.model.cluster.HashRing;
+
+/**
+ * Service for running several backend nodes as one cluster.
+ * <p>
+ * Leagues are assigned to nodes with a consistent hash ring over the league IDs, so a
+ * league's games, players, ratings and histories always live together on one node.
+ * Requests reaching another node are forwarded by the ClusterForwardingFilter. A starting
+ * node joins through one of its seeds, which shares the new membership with every node;
+ * each node then hands the leagues it no longer owns to their new owners as snapshots.
+ * A node that shuts down hands off all of its leagues first, and a node that stops
+ * answering heartbeats is removed from the ring.
+ * <p>
+ * Every membership carries an epoch that each change raises. Heartbeats compare epochs,
+ * so a node that missed a change adopts the newer membership, and two changes made
+ * concurrently at different nodes are merged into a new epoch. The leagues a removed node
+ * held without handing them off are refused by their new owners until the node hands
+ * them over, e.g. once a node that was only slow learns that it was removed, instead of
+ * being started empty next to the original.
+ */
+@Service
+public class ClusterService {
+    public static final String FORWARDED_HEADER = "X-Cluster-Forwarded";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration SNAPSHOT_TIMEOUT = Duration.ofMinutes(5);
+    private static final int MAX_MISSED_HEARTBEATS = 3;
+
+    private final LeagueRegistry leagueRegistry;
+    private final LeagueService leagueService;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final String self;
+    private final List<String> seeds;
+    private final int virtualNodes;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+    private final Map<String, Integer> missedHeartbeats = new ConcurrentHashMap<>();
+    private final Set<String> pendingHandoffs = ConcurrentHashMap.newKeySet(); // Leagues whose transfer failed
+    private final Map<String, List<String>> leaguesByMember = new ConcurrentHashMap<>(); // As of the last heartbeat
+    private final Set<String> missingLeagues = ConcurrentHashMap.newKeySet(); // Owned here but held by a removed node
+    private volatile HashRing ring;
+    private long epoch; // Guarded by this service's monitor
+
+    @Autowired
+    public ClusterService(LeagueRegistry leagueRegistry, LeagueService leagueService, ObjectMapper objectMapper,
+            @Value("${elobooahrd.cluster.enabled:false}") boolean enabled,
+            @Value("${elobooahrd.cluster.node-url:http://localhost:${server.port:8080}}") String nodeUrl,
+            @Value("${elobooahrd.cluster.seeds:}") List<String> seeds,
+            @Value("${elobooahrd.cluster.virtual-nodes:128}") int virtualNodes) {
+        this.leagueRegistry = leagueRegistry;
+        this.leagueService = leagueService;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.self = normalizeUrl(nodeUrl);
+        this.seeds = seeds.stream().filter(seed -> !seed.isBlank()).map(ClusterService::normalizeUrl).toList();
+        this.virtualNodes = virtualNodes;
+        this.ring = new HashRing(List.of(self), virtualNodes);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getSelf() {
+        return self;
+    }
+
+    /**
+     * Get the node that owns a league
+     *
+     * @param leagueId The normalized league ID
+     * @return The base URL of the owning node
+     */
+    public String ownerOf(String leagueId) {
+        return enabled ? ring.ownerOf(leagueId) : self;
+    }
+
+    /**
+     * Check whether a league is served by this node
+     *
+     * @param leagueId The normalized league ID
+     * @return true if clustering is disabled or this node owns the league
+     */
+    public boolean isLocal(String leagueId) {
+        return self.equals(ownerOf(leagueId));
+    }
+
+    /**
+     * Get the membership as seen by this node
+     *
+     * @return The epoch, the members and the leagues this node owns
+     */
+    public ClusterMembersDTO getMembers() {
+        List<String> owned = leagueRegistry.getLeagueIds().stream()
+                .filter(this::isLocal)
+                .sorted()
+                .toList();
+        synchronized (this) {
+            return new ClusterMembersDTO(self, epoch, ring.getNodes(), owned);
+        }
+    }
+
+    /**
+     * Get all leagues of the cluster
+     *
+     * @param localOnly Whether to list only the leagues owned by this node
+     * @return The leagues, ordered by ID
+     */
+    public List<LeagueDTO> getAllLeagues(boolean localOnly) {
+        List<LeagueDTO> leagues = new ArrayList<>(leagueService.getAllLeagues().stream()
+                .filter(league -> isLocal(league.getId()))
+                .toList());
+        if (enabled && !localOnly) {
+            for (String member : ring.getNodes()) {
+                if (!member.equals(self)) {
+                    try {
+                        leagues.addAll(send("GET", member + "/api/leagues", null,
+                                objectMapper.getTypeFactory().constructType(new TypeReference<List<LeagueDTO>>() {
+                                }), REQUEST_TIMEOUT));
+                    } catch (UncheckedIOException e) {
+                        // An unreachable node is left out until the heartbeat removes it
+                    }
+                }
+            }
+            leagues.sort(Comparator.comparing(LeagueDTO::getId));
+        }
+        return leagues;
+    }
+
+    /**
+     * Create a league on the node that owns it
+     *
+     * @param leagueDTO The league with its ID and optional name
+     * @param forwarded Whether the request was already forwarded by another node
+     * @return The created league
+     * @throws IllegalArgumentException if the ID is invalid
+     * @throws IllegalStateException if the league already exists, or is still held by a removed node
+     */
+    public LeagueDTO createLeague(LeagueDTO leagueDTO, boolean forwarded) {
+        String id = LeagueRegistry.normalize(leagueDTO.getId());
+        if (forwarded || isLocal(id)) {
+            if (missingLeagues.contains(id)) {
+                throw new IllegalStateException("League is held by a node that left the cluster: " + id);
+            }
+            return leagueService.createLeague(leagueDTO);
+        }
+        return send("POST", ownerOf(id) + "/api/leagues", leagueDTO,
+                objectMapper.constructType(LeagueDTO.class), REQUEST_TIMEOUT);
+    }
+
+    /**
+     * Join the cluster through the first seed that answers
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void joinCluster() {
+        if (!enabled) {
+            return;
+        }
+        Map<String, GameContainer> before = leagueRegistry.getLeagues();
+        for (String seed : seeds) {
+            if (seed.equals(self)) {
+                continue;
+            }
+            try {
+                ClusterMembersDTO members = send("POST", seed + "/api/cluster/join",
+                        new ClusterMembersDTO(self, 0, List.of(self), List.of()),
+                        objectMapper.constructType(ClusterMembersDTO.class), REQUEST_TIMEOUT);
+                synchronized (this) {
+                    // The cluster's data is authoritative, so whatever this node set up on its own is
+                    // dropped; leagues that were already handed to this node are kept
+                    before.forEach(leagueRegistry::removeLeague);
+                    adopt(members.getMembers(), members.getEpoch());
+                }
+                return;
+            } catch (UncheckedIOException e) {
+                // Try the next seed; without any, this node starts a cluster of its own
+            }
+        }
+    }
+
+    /**
+     * Add a node to the cluster and share the new membership with all nodes
+     *
+     * @param node The base URL of the joining node
+     * @return The new membership
+     */
+    public synchronized ClusterMembersDTO join(String node) {
+        Set<String> members = new TreeSet<>(ring.getNodes());
+        members.add(normalizeUrl(node));
+        changeMembers(members);
+        return getMembers();
+    }
+
+    /**
+     * Remove a node from the cluster and share the new membership with all nodes
+     *
+     * @param node The base URL of the leaving node
+     */
+    public synchronized void leave(String node) {
+        Set<String> members = new TreeSet<>(ring.getNodes());
+        if (members.remove(normalizeUrl(node))) {
+            changeMembers(members);
+        }
+    }
+
+    /**
+     * Reconcile this node's membership with one shared by another node.
+     * The higher epoch wins. Two different memberships of the same epoch, e.g. from joins at
+     * different seeds, are merged into a new epoch that is shared with all nodes.
+     *
+     * @param members The base URLs of all nodes
+     * @param remoteEpoch The epoch of the membership
+     * @return true if this node's membership is newer, so the other node should be told
+     */
+    public synchronized boolean updateMembers(List<String> members, long remoteEpoch) {
+        if (remoteEpoch > epoch) {
+            adopt(members, remoteEpoch);
+            return false;
+        }
+        if (remoteEpoch == epoch && !new TreeSet<>(members).equals(new TreeSet<>(ring.getNodes()))) {
+            // A node dropped by one side is added back; the heartbeat removes it again if it is gone
+            Set<String> merged = new TreeSet<>(ring.getNodes());
+            merged.addAll(members);
+            changeMembers(merged);
+            return false;
+        }
+        return remoteEpoch < epoch;
+    }
+
+    /**
+     * Receive a league handed over by another node
+     *
+     * @param snapshot The snapshot of the league
+     * @return The restored league
+     */
+    public LeagueDTO receiveLeague(LeagueSnapshotDTO snapshot) {
+        LeagueDTO restored = leagueService.importLeague(snapshot);
+        missingLeagues.remove(restored.getId());
+        return restored;
+    }
+
+    /**
+     * Check the other nodes, reconcile the membership with theirs and remove those that missed
+     * too many heartbeats. A node that finds itself removed joins again; transfers that failed
+     * earlier are retried here as well.
+     */
+    @Scheduled(fixedDelayString = "${elobooahrd.cluster.heartbeat-interval:5s}")
+    public void heartbeat() {
+        if (!enabled) {
+            return;
+        }
+        if (!ring.getNodes().contains(self)) {
+            // The leagues were handed off when the membership without this node was adopted
+            rejoin();
+        }
+        for (String member : ring.getNodes()) {
+            if (member.equals(self)) {
+                continue;
+            }
+            try {
+                ClusterMembersDTO remote = send("GET", member + "/api/cluster/members", null,
+                        objectMapper.constructType(ClusterMembersDTO.class), REQUEST_TIMEOUT);
+                missedHeartbeats.remove(member);
+                leaguesByMember.put(member, remote.getLeagues());
+                if (updateMembers(remote.getMembers(), remote.getEpoch())) {
+                    shareMembers(member);
+                }
+            } catch (UncheckedIOException e) {
+                if (missedHeartbeats.merge(member, 1, Integer::sum) >= MAX_MISSED_HEARTBEATS) {
+                    missedHeartbeats.remove(member);
+                    leave(member);
+                }
+            }
+        }
+        for (String leagueId : pendingHandoffs) {
+            pendingHandoffs.remove(leagueId);
+            if (!isLocal(leagueId)) {
+                transfer(leagueId);
+            }
+        }
+    }
+
+    /**
+     * Hand all leagues to the remaining nodes before this node stops
+     */
+    @PreDestroy
+    public void leaveCluster() {
+        if (!enabled || ring.getNodes().size() < 2) {
+            return;
+        }
+        HashRing before;
+        synchronized (this) {
+            before = ring;
+            ring = new HashRing(before.getNodes().stream().filter(node -> !node.equals(self)).toList(), virtualNodes);
+        }
+        handOff(before, ring);
+        for (String member : ring.getNodes()) {
+            try {
+                send("POST", member + "/api/cluster/leave", new ClusterMembersDTO(self, 0, List.of(self), List.of()),
+                        objectMapper.constructType(Void.class), REQUEST_TIMEOUT);
+                return;
+            } catch (UncheckedIOException e) {
+                // Another member will notice through the heartbeat
+            }
+        }
+    }
+
+    /**
+     * Switch to a new membership in the next epoch and tell all other nodes.
+     * Nodes that miss the news catch up through the heartbeat. Call while holding the monitor.
+     */
+    private void changeMembers(Set<String> members) {
+        adopt(members, epoch + 1);
+        for (String member : members) {
+            if (!member.equals(self)) {
+                shareMembers(member);
+            }
+        }
+    }
+
+    /**
+     * Switch to a membership and hand off the leagues that moved.
+     * Leagues that a removed node held and that this node now owns are refused until they are
+     * handed over, as the removed node may still have them. Call while holding the monitor.
+     */
+    private void adopt(Collection<String> members, long newEpoch) {
+        HashRing before = ring;
+        HashRing after = new HashRing(members, virtualNodes);
+        ring = after;
+        epoch = newEpoch;
+        for (String node : before.getNodes()) {
+            List<String> held = after.getNodes().contains(node) ? null : leaguesByMember.remove(node);
+            if (held != null) {
+                held.stream()
+                        .filter(leagueId -> self.equals(after.ownerOf(leagueId)) && leagueRegistry.getLeague(leagueId) == null)
+                        .forEach(missingLeagues::add);
+            }
+        }
+        missingLeagues.removeIf(leagueId -> !self.equals(after.ownerOf(leagueId)));
+        CompletableFuture.runAsync(() -> handOff(before, after));
+    }
+
+    /**
+     * Send this node's membership to another node in the background
+     */
+    private void shareMembers(String member) {
+        ClusterMembersDTO members;
+        synchronized (this) {
+            members = new ClusterMembersDTO(self, epoch, ring.getNodes(), List.of());
+        }
+        CompletableFuture.runAsync(() -> send("PUT", member + "/api/cluster/members", members,
+                objectMapper.constructType(Void.class), REQUEST_TIMEOUT));
+    }
+
+    /**
+     * Join the cluster again through any known member after this node was removed
+     */
+    private void rejoin() {
+        for (String member : ring.getNodes()) {
+            try {
+                ClusterMembersDTO members = send("POST", member + "/api/cluster/join",
+                        new ClusterMembersDTO(self, 0, List.of(self), List.of()),
+                        objectMapper.constructType(ClusterMembersDTO.class), REQUEST_TIMEOUT);
+                updateMembers(members.getMembers(), members.getEpoch());
+                return;
+            } catch (UncheckedIOException e) {
+                // Try the next member
+            }
+        }
+    }
+
+    /**
+     * Transfer the leagues this node owned before a membership change and no longer owns
+     */
+    private void handOff(HashRing before, HashRing after) {
+        for (String leagueId : leagueRegistry.getLeagueIds()) {
+            if (self.equals(before.ownerOf(leagueId)) && !self.equals(after.ownerOf(leagueId))) {
+                transfer(leagueId);
+            }
+        }
+    }
+
+    /**
+     * Send a league to its owner and drop it here.
+     * Writers of the league wait while the snapshot is taken and sent, and are rejected afterwards.
+     */
+    private void transfer(String leagueId) {
+        GameContainer container = leagueRegistry.getLeague(leagueId);
+        if (container == null || isLocal(leagueId)) {
+            // The league may have moved back while the hand-off waited
+            return;
+        }
+        try {
+            container.withWriteLock(() -> {
+                LeagueSnapshotDTO snapshot = leagueService.exportLeague(leagueId);
+                send("PUT", ownerOf(leagueId) + "/api/cluster/leagues/" + leagueId, snapshot,
+                        objectMapper.constructType(LeagueDTO.class), SNAPSHOT_TIMEOUT);
+                container.retire();
+            });
+        } catch (UncheckedIOException | IllegalStateException e) {
+            if (!container.isRetired()) {
+                pendingHandoffs.add(leagueId);
+            }
+            return;
+        }
+        leagueRegistry.removeLeague(leagueId, container);
+        // Each node keeps its own history directory, so the segment files are not needed any more
+        container.getAllGames().forEach(game -> game.discardHistorySegments());
+    }
+
+    /**
+     * Send a JSON request to another node
+     *
+     * @param method The HTTP method
+     * @param url The URL
+     * @param body The request body, or null
+     * @param responseType The type of the response body
+     * @param timeout The request timeout
+     * @return The response body, or null if there is none
+     * @throws UncheckedIOException if the node cannot be reached or does not answer with 2xx
+     * @throws IllegalArgumentException if the node answers 400
+     * @throws IllegalStateException if the node answers 409
+     */
+    private <T> T send(String method, String url, Object body, JavaType responseType, Duration timeout) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(timeout)
+                    .header("Content-Type", "application/json")
+                    .header("Accept", "application/json")
+                    .header(FORWARDED_HEADER, self)
+                    .method(method, body != null
+                            ? HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body))
+                            : HttpRequest.BodyPublishers.noBody())
+                    .build();
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() == HttpStatus.BAD_REQUEST.value()) {
+                throw new IllegalArgumentException(method + " " + url + " was rejected");
+            }
+            if (response.statusCode() == HttpStatus.CONFLICT.value()) {
+                throw new IllegalStateException(method + " " + url + " conflicts with the current state");
+            }
+            if (response.statusCode() / 100 != 2) {
+                throw new IOException(method + " " + url + " answered " + response.statusCode());
+            }
+            if (response.body().length == 0 || responseType.getRawClass() == Void.class) {
+                return null;
+            }
+            return objectMapper.readValue(response.body(), responseType);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new IOException("Interrupted while calling " + url, e));
+        }
+    }
+
+    private static String normalizeUrl(String url) {
+        String trimmed = url.trim();
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+}
@@ -0,0 +1,366 @@
+package jonas.elobooahrd.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jonas.elobooahrd.dto.ChangeEventDTO;
+import jonas.elobooahrd.dto.DartSessionDTO;
+import jonas.elobooahrd.dto.DartThrowDTO;
+import jonas.elobooahrd.dto.DartVisitDTO;
+import jonas.elobooahrd.dto.MatchDTO;
+import jonas.elobooahrd.model.Dart;
+import jonas.elobooahrd.model.DartCheckouts;
+import jonas.elobooahrd.model.Game;
+import jonas.elobooahrd.model.GameContainer;
+import jonas.elobooahrd.model.LeagueRegistry;
+import jonas.elobooahrd.model.Player;
+import jonas.elobooahrd.model.variant.CricketEngine;
+import jonas.elobooahrd.model.variant.DartLegState;
+
+/**
+ * Service for live dart match sessions.
+ * Sessions are kept in an in-memory registry and scored visit by visit. Each session
+ * is locked on its own, so turns are taken in order, and a visit holds the write lock of
+ * the session's league only while it is applied to the game.
+ * Sessions that have not been touched for the configured time to live are evicted.
+ * Completing, abandoning and evicting a session all close it under its monitor, so a
+ * visit that raced with them is rejected instead of scoring an archived match.
+ */
+@Service
+public class DartSessionService {
+
+    private final LeagueRegistry leagueRegistry;
+    private final ChangeFeedService changeFeedService;
+    private final Duration timeToLive;
+    private final Map<UUID, Session> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * A live match together with the state needed to score it
+     */
+    private static class Session {
+        private final UUID id = UUID.randomUUID();
+        private final GameContainer container; // The league the match is played in
+        private final Dart game;
+        private final Dart.Match match;
+        // Guarded by the session's monitor
+        private boolean player1ToThrow = true;
+        private DartCheckouts.VisitOutcome lastOutcome;
+        private long lastAccess = System.nanoTime();
+        private boolean closed; // Completed, abandoned or evicted, and removed from the registry
+
+        private Session(GameContainer container, Dart game, Dart.Match match) {
+            this.container = container;
+            this.game = game;
+            this.match = match;
+        }
+    }
+
+    @Autowired
+    public DartSessionService(LeagueRegistry leagueRegistry, ChangeFeedService changeFeedService,
+            @Value("${elobooahrd.dart-sessions.ttl:30m}") Duration timeToLive) {
+        this.leagueRegistry = leagueRegistry;
+        this.changeFeedService = changeFeedService;
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Start a new live match
+     *
+     * @param request The session request with gameId, player1Id and player2Id
+     * @return The state of the new session
+     */
+    public DartSessionDTO createSession(DartSessionDTO request) {
+        GameContainer gameContainer = leagueRegistry.current();
+        Session session = gameContainer.withWriteLock(() -> {
+            Game game = gameContainer.getGame(request.getGameId());
+            if (!(game instanceof Dart dart)) {
+                throw new IllegalArgumentException("Dart game not found: " + request.getGameId());
+            }
+            Player player1 = requirePlayer(gameContainer, request.getPlayer1Id());
+            Player player2 = requirePlayer(gameContainer, request.getPlayer2Id());
+            if (player1.getId().equals(player2.getId())) {
+                throw new IllegalArgumentException("Players must be different");
+            }
+
+            Dart.DartVariant variant = request.getVariant() != null
+                    ? Dart.DartVariant.valueOf(request.getVariant().toUpperCase(Locale.ROOT))
+                    : dart.getVariant();
+            return new Session(gameContainer, dart, dart.createMatch(player1, player2, variant));
+        });
+        sessions.put(session.id, session);
+        return convertToDTO(session);
+    }
+
+    /**
+     * Get the state of a session
+     *
+     * @param sessionId The session ID
+     * @return The session state if found
+     */
+    public Optional<DartSessionDTO> getSession(UUID sessionId) {
+        Session session = sessions.get(sessionId);
+        if (session == null) {
+            return Optional.empty();
+        }
+        synchronized (session) {
+            session.lastAccess = System.nanoTime();
+            return Optional.of(convertToDTO(session));
+        }
+    }
+
+    /**
+     * Score a visit in a session. When the visit wins the leg, the result is
+     * recorded and the Elo ratings of both players are updated.
+     *
+     * @param sessionId The session ID
+     * @param visit The visit to score
+     * @return The session state after the visit, or empty if the session does not exist
+     * @throws IllegalStateException if it is not the player's turn or the session was closed meanwhile
+     */
+    public Optional<DartSessionDTO> recordVisit(UUID sessionId, DartVisitDTO visit) {
+        Session session = sessions.get(sessionId);
+        if (session == null) {
+            return Optional.empty();
+        }
+        if (session.match.getLegState() != null) {
+            return Optional.of(recordVariantVisit(session, visit));
+        }
+        if (!DartCheckouts.isPossibleVisit(visit.getScore(), visit.getDartsThrown())) {
+            throw new IllegalArgumentException("A score of " + visit.getScore() + " cannot be thrown with "
+                    + visit.getDartsThrown() + " darts");
+        }
+
+        synchronized (session) {
+            Dart.Match match = session.match;
+            requireOpen(session);
+            UUID expected = session.player1ToThrow ? match.getPlayer1Id() : match.getPlayer2Id();
+            if (!expected.equals(visit.getPlayerId())) {
+                throw new IllegalStateException("It is not this player's turn");
+            }
+
+            DartCheckouts.VisitOutcome outcome = match.evaluateVisit(remainingOf(session, expected),
+                    visit.getScore(), visit.getDartsThrown());
+            // Every visit updates the game's statistics and a finishing one ratings and shared indexes,
+            // so visits must not interleave with other writers or with readers of the league
+            session.container.withWriteLock(() -> {
+                Player player = requirePlayer(session.container, expected);
+                Player opponent = requirePlayer(session.container,
+                        session.player1ToThrow ? match.getPlayer2Id() : match.getPlayer1Id());
+                if (session.game.recordScore(match, player, opponent, visit.getScore(), visit.getDartsThrown())) {
+                    publishResult(session);
+                }
+            });
+
+            session.player1ToThrow = !session.player1ToThrow;
+            session.lastOutcome = outcome;
+            session.lastAccess = System.nanoTime();
+            if (match.isCompleted()) {
+                close(session);
+            }
+            return Optional.of(convertToDTO(session));
+        }
+    }
+
+    /**
+     * Score a visit in a variant that is played dart by dart
+     *
+     * @param session The session
+     * @param visit The visit with its individual darts
+     * @return The session state after the visit
+     */
+    private DartSessionDTO recordVariantVisit(Session session, DartVisitDTO visit) {
+        List<DartThrowDTO> darts = visit.getDarts();
+        if (darts == null || darts.isEmpty() || darts.size() > 3) {
+            throw new IllegalArgumentException("A visit has 1 - 3 darts");
+        }
+        int[] segments = new int[darts.size()];
+        int[] multipliers = new int[darts.size()];
+        for (int i = 0; i < darts.size(); i++) {
+            segments[i] = darts.get(i).getSegment();
+            multipliers[i] = darts.get(i).getMultiplier();
+        }
+
+        synchronized (session) {
+            Dart.Match match = session.match;
+            requireOpen(session);
+            UUID expected = session.player1ToThrow ? match.getPlayer1Id() : match.getPlayer2Id();
+            if (!expected.equals(visit.getPlayerId())) {
+                throw new IllegalStateException("It is not this player's turn");
+            }
+
+            // The leg state is part of the live match that readers of the league see, and a finishing
+            // visit updates ratings and shared indexes, so the whole visit is scored under the write lock
+            boolean finished = session.container.withWriteLock(() -> {
+                Player player1 = requirePlayer(session.container, match.getPlayer1Id());
+                Player player2 = requirePlayer(session.container, match.getPlayer2Id());
+                if (!match.recordVariantVisit(session.player1ToThrow, segments, multipliers)) {
+                    return false;
+                }
+                session.game.recordVariantResult(match, player1, player2);
+                publishResult(session);
+                return true;
+            });
+            if (finished) {
+                close(session);
+            }
+
+            session.player1ToThrow = !session.player1ToThrow;
+            session.lastOutcome = finished ? DartCheckouts.VisitOutcome.CHECKOUT : DartCheckouts.VisitOutcome.SCORED;
+            session.lastAccess = System.nanoTime();
+            return convertToDTO(session);
+        }
+    }
+
+    /**
+     * Abandon a session without recording a result
+     *
+     * @param sessionId The session ID
+     * @return true if the session existed
+     */
+    public boolean abandonSession(UUID sessionId) {
+        Session session = sessions.get(sessionId);
+        if (session == null) {
+            return false;
+        }
+        synchronized (session) {
+            if (session.closed) {
+                return false;
+            }
+            close(session);
+            session.container.withWriteLock(() -> session.game.archiveMatch(session.match));
+            return true;
+        }
+    }
+
+    /**
+     * Evict sessions that have not been used within the time to live
+     */
+    @Scheduled(fixedDelayString = "${elobooahrd.dart-sessions.eviction-interval:60s}")
+    public void evictExpiredSessions() {
+        long ttlNanos = timeToLive.toNanos();
+        for (Session session : sessions.values()) {
+            synchronized (session) {
+                // Checked under the monitor, so a visit being scored keeps its session alive
+                if (session.closed || System.nanoTime() - session.lastAccess <= ttlNanos) {
+                    continue;
+                }
+                close(session);
+                session.container.withWriteLock(() -> session.game.archiveMatch(session.match));
+            }
+        }
+    }
+
+    /**
+     * Reject visits to a session that has been closed meanwhile
+     *
+     * @param session The session, whose monitor the caller holds
+     * @throws IllegalStateException if the session is closed or its match completed
+     */
+    private void requireOpen(Session session) {
+        if (session.closed) {
+            throw new IllegalStateException("Session has been closed");
+        }
+        if (session.match.isCompleted()) {
+            throw new IllegalStateException("Match is already completed");
+        }
+    }
+
+    /**
+     * Close a session and remove it from the registry
+     *
+     * @param session The session, whose monitor the caller holds
+     */
+    private void close(Session session) {
+        session.closed = true;
+        sessions.remove(session.id, session);
+    }
+
+    /**
+     * Publish the result of a completed match to the change feed; the visits stay on this node
+     *
+     * @param session The session of the completed match
+     */
+    private void publishResult(Session session) {
+        Dart.Match match = session.match;
+        UUID loserId = match.getWinnerId().equals(match.getPlayer1Id()) ? match.getPlayer2Id() : match.getPlayer1Id();
+        MatchDTO result = new MatchDTO();
+        result.setId(match.getId());
+        result.setGameId(session.game.getId());
+        result.setTimestamp(match.getTimestamp());
+        result.setWinnerIds(List.of(match.getWinnerId()));
+        result.setLoserIds(List.of(loserId));
+        changeFeedService.publish(session.container, ChangeEventDTO.Type.DART_MATCH_COMPLETED, result);
+    }
+
+    private int remainingOf(Session session, UUID playerId) {
+        return playerId.equals(session.match.getPlayer1Id())
+                ? session.match.getPlayer1RemainingScore()
+                : session.match.getPlayer2RemainingScore();
+    }
+
+    private Player requirePlayer(GameContainer gameContainer, UUID playerId) {
+        Player player = playerId != null ? gameContainer.getPlayer(playerId) : null;
+        if (player == null) {
+            throw new IllegalArgumentException("Player not found: " + playerId);
+        }
+        return player;
+    }
+
+    /**
+     * Convert a session to a DartSessionDTO
+     *
+     * @param session The session
+     * @return The session DTO
+     */
+    private DartSessionDTO convertToDTO(Session session) {
+        Dart.Match match = session.match;
+        DartSessionDTO dto = new DartSessionDTO();
+        dto.setId(session.id);
+        dto.setGameId(session.game.getId());
+        dto.setMatchId(match.getId());
+        dto.setPlayer1Id(match.getPlayer1Id());
+        dto.setPlayer2Id(match.getPlayer2Id());
+        dto.setVariant(match.getVariant().name());
+        dto.setPlayer1RemainingScore(match.getPlayer1RemainingScore());
+        dto.setPlayer2RemainingScore(match.getPlayer2RemainingScore());
+        dto.setPlayer1Darts(match.getPlayer1Darts());
+        dto.setPlayer2Darts(match.getPlayer2Darts());
+        dto.setPlayer1Average(match.getPlayer1Average());
+        dto.setPlayer2Average(match.getPlayer2Average());
+        dto.setCompleted(match.isCompleted());
+        dto.setWinnerId(match.getWinnerId());
+        DartLegState legState = match.getLegState();
+        if (legState != null) {
+            dto.setPlayer1Points(legState.getPoints(0));
+            dto.setPlayer2Points(legState.getPoints(1));
+            dto.setPlayer1Target(legState.getTarget(0));
+            dto.setPlayer2Target(legState.getTarget(1));
+            dto.setRound(legState.getRound());
+            if (match.getVariant() == Dart.DartVariant.CRICKET) {
+                dto.setPlayer1Marks(CricketEngine.unpackMarks(legState.getMarks(0)));
+                dto.setPlayer2Marks(CricketEngine.unpackMarks(legState.getMarks(1)));
+            }
+        }
+        if (!match.isCompleted()) {
+            UUID next = session.player1ToThrow ? match.getPlayer1Id() : match.getPlayer2Id();
+            dto.setNextPlayerId(next);
+            if (legState == null) {
+                dto.setCheckoutSuggestions(DartCheckouts.suggestions(remainingOf(session, next), match.isDoubleOut()));
+            }
+        }
+        if (session.lastOutcome != null) {
+            dto.setLastVisitOutcome(session.lastOutcome.name());
+        }
+        return dto;
+    }
+}
@@ -1,30 +1,56 @@
 package jonas.elobooahrd.service;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import jonas.elobooahrd.dto.ChangeEventDTO;
+import jonas.elobooahrd.dto.DuoDTO;
 import jonas.elobooahrd.dto.GameDTO;
+import jonas.elobooahrd.dto.HeadToHeadDTO;
+import jonas.elobooahrd.dto.PercentileRankDTO;
+import jonas.elobooahrd.dto.RatingDistributionDTO;
+import jonas.elobooahrd.dto.TeamDTO;
+import jonas.elobooahrd.dto.WinProbabilityRowDTO;
 import jonas.elobooahrd.model.Dart;
 import jonas.elobooahrd.model.Game;
 import jonas.elobooahrd.model.GameContainer;
+import jonas.elobooahrd.model.LeagueRegistry;
+import jonas.elobooahrd.model.Player;
 import jonas.elobooahrd.model.Tablefootball;
+import jonas.elobooahrd.model.Team;
+import jonas.elobooahrd.model.index.DuoSynergyIndex;
+import jonas.elobooahrd.model.index.HeadToHeadIndex;
+import jonas.elobooahrd.model.index.RatingHistogram;
+import jonas.elobooahrd.model.simulation.WinProbabilityMatrix;
 
 /**
  * Service for managing games in the Eloboard system.
+ * Reads run under the read lock of the league and writes under its write lock, and every
+ * result is copied into DTOs before the lock is released.
  */
 @Service
 public class GameService {
     
-    private GameContainer gameContainer;
+    private static final int[] REPORTED_PERCENTILES = {10, 25, 50, 75, 90, 99};
+    
+    private final LeagueRegistry leagueRegistry;
+    private final ChangeFeedService changeFeedService;
     
     @Autowired
-    public GameService(GameContainer gameContainer) {
-        this.gameContainer = gameContainer;
+    public GameService(LeagueRegistry leagueRegistry, ChangeFeedService changeFeedService) {
+        this.leagueRegistry = leagueRegistry;
+        this.changeFeedService = changeFeedService;
     }
     
     /**
@@ -33,9 +59,10 @@ public class GameService {
      * @return List of all games
      */
     public List<GameDTO> getAllGames() {
-        return gameContainer.getAllGames().stream()
+        GameContainer gameContainer = getGameContainer();
+        return gameContainer.withReadLock(() -> gameContainer.getAllGames().stream()
                 .map(this::convertToDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
     
     /**
@@ -45,8 +72,8 @@ public class GameService {
      * @return The game if found
      */
     public Optional<GameDTO> getGame(UUID id) {
-        Game game = gameContainer.getGame(id);
-        return game != null ? Optional.of(convertToDTO(game)) : Optional.empty();
+        GameContainer gameContainer = getGameContainer();
+        return gameContainer.withReadLock(() -> Optional.ofNullable(gameContainer.getGame(id)).map(this::convertToDTO));
     }
     
     /**
@@ -56,6 +83,38 @@ public class GameService {
      * @return The created game
      */
     public GameDTO createGame(GameDTO gameDTO) {
+        Game game = newGame(gameDTO);
+        
+        // Add the game to the container
+        GameContainer gameContainer = getGameContainer();
+        GameDTO created = convertToDTO(game);
+        gameContainer.withWriteLock(() -> {
+            gameContainer.addGame(game);
+            changeFeedService.publish(ChangeEventDTO.Type.GAME_CREATED, created);
+        });
+        
+        return created;
+    }
+    
+    /**
+     * Restore a game from a league snapshot, keeping its ID
+     * 
+     * @param gameDTO The game as exported
+     */
+    public void restoreGame(GameDTO gameDTO) {
+        Game game = newGame(gameDTO);
+        game.setId(gameDTO.getId());
+        GameContainer gameContainer = getGameContainer();
+        gameContainer.withWriteLock(() -> gameContainer.addGame(game));
+    }
+    
+    /**
+     * Create a game entity of the type named in a GameDTO
+     * 
+     * @param gameDTO The game data
+     * @return The new game, not yet added to a container
+     */
+    private Game newGame(GameDTO gameDTO) {
         Game game;
         
         // Create the appropriate game type based on the type field
@@ -76,10 +135,7 @@ public class GameService {
             game.setKFactor(gameDTO.getKFactor());
         }
         
-        // Add the game to the container
-        gameContainer.addGame(game);
-        
-        return convertToDTO(game);
+        return game;
     }
     
     /**
@@ -89,13 +145,22 @@ public class GameService {
      * @return The updated game
      */
     public GameDTO updateGame(GameDTO gameDTO) {
-        Game game = gameContainer.getGame(gameDTO.getId());
-        if (game != null) {
+        GameContainer gameContainer = getGameContainer();
+        GameDTO updated = gameContainer.withWriteLock(() -> {
+            Game game = gameContainer.getGame(gameDTO.getId());
+            if (game == null) {
+                return null;
+            }
             game.setName(gameDTO.getName());
             game.setDescription(gameDTO.getDescription());
             game.setInitialEloRating(gameDTO.getInitialEloRating());
             game.setKFactor(gameDTO.getKFactor());
-            return convertToDTO(game);
+            GameDTO dto = convertToDTO(game);
+            changeFeedService.publish(ChangeEventDTO.Type.GAME_UPDATED, dto);
+            return dto;
+        });
+        if (updated != null) {
+            return updated;
         }
         throw new IllegalArgumentException("Game not found: " + gameDTO.getId());
     }
@@ -106,16 +171,271 @@ public class GameService {
      * @param id The game ID
      */
     public void deleteGame(UUID id) {
-        gameContainer.removeGame(id);
+        GameContainer gameContainer = getGameContainer();
+        gameContainer.withWriteLock(() -> {
+            if (gameContainer.removeGame(id) != null) {
+                changeFeedService.publish(ChangeEventDTO.Type.GAME_DELETED, id);
+            }
+        });
+    }
+    
+    /**
+     * Get the rating distribution of a game
+     * 
+     * @param gameId The game ID
+     * @return The bucketed rating counts and common percentiles, if the game exists
+     */
+    public Optional<RatingDistributionDTO> getRatingDistribution(UUID gameId) {
+        GameContainer gameContainer = getGameContainer();
+        return gameContainer.withReadLock(() -> {
+            RatingHistogram histogram = gameContainer.getRatingHistogram(gameId);
+            if (gameContainer.getGame(gameId) == null || histogram == null) {
+                return Optional.empty();
+            }
+            return Optional.of(convertToDTO(gameId, histogram));
+        });
+    }
+    
+    private RatingDistributionDTO convertToDTO(UUID gameId, RatingHistogram histogram) {
+        RatingDistributionDTO dto = new RatingDistributionDTO();
+        dto.setGameId(gameId);
+        dto.setTotalPlayers(histogram.getTotal());
+        dto.setMinRating(histogram.getMinRating());
+        dto.setBucketWidth(histogram.getBucketWidth());
+        dto.setCounts(Arrays.stream(histogram.getCounts()).boxed().collect(Collectors.toList()));
+        for (int percentile : REPORTED_PERCENTILES) {
+            dto.getPercentiles().put("p" + percentile, histogram.percentile(percentile));
+        }
+        return dto;
+    }
+    
+    /**
+     * Get a player's percentile rank within the rating distribution of a game
+     * 
+     * @param gameId The game ID
+     * @param playerId The player ID
+     * @return The player's rating and percentile rank, if the game and a rating for the player exist
+     */
+    public Optional<PercentileRankDTO> getPercentileRank(UUID gameId, UUID playerId) {
+        GameContainer gameContainer = getGameContainer();
+        return gameContainer.withReadLock(() -> {
+            Player player = gameContainer.getPlayer(playerId);
+            RatingHistogram histogram = gameContainer.getRatingHistogram(gameId);
+            if (gameContainer.getGame(gameId) == null || histogram == null || player == null
+                    || !player.getEloRatings().containsKey(gameId)) {
+                return Optional.empty();
+            }
+            int rating = player.getEloRating(gameId);
+            return Optional.of(new PercentileRankDTO(gameId, playerId, rating, histogram.percentileRank(rating)));
+        });
+    }
+    
+    /**
+     * Get the record of a player against an opponent in a table football game
+     * 
+     * @param gameId The game ID
+     * @param playerId The player ID
+     * @param opponentId The opponent ID
+     * @return The record from the player's point of view, if the game and both players exist
+     */
+    public Optional<HeadToHeadDTO> getHeadToHead(UUID gameId, UUID playerId, UUID opponentId) {
+        GameContainer gameContainer = getGameContainer();
+        return gameContainer.withReadLock(() -> {
+            if (!(gameContainer.getGame(gameId) instanceof Tablefootball tablefootball)
+                    || gameContainer.getPlayer(playerId) == null || gameContainer.getPlayer(opponentId) == null) {
+                return Optional.empty();
+            }
+            HeadToHeadIndex.Record record = tablefootball.getHeadToHead(playerId, opponentId);
+            if (record == null) {
+                HeadToHeadDTO dto = new HeadToHeadDTO();
+                dto.setGameId(gameId);
+                dto.setPlayerId(playerId);
+                dto.setOpponentId(opponentId);
+                return Optional.of(dto);
+            }
+            return Optional.of(convertToDTO(gameId, playerId, record));
+        });
+    }
+    
+    /**
+     * Get the opponents a player has played most often in a table football game
+     * 
+     * @param gameId The game ID
+     * @param playerId The player ID
+     * @param limit The maximum number of rivals
+     * @return The player's records against the rivals, if the game and the player exist
+     */
+    public Optional<List<HeadToHeadDTO>> getRivals(UUID gameId, UUID playerId, int limit) {
+        GameContainer gameContainer = getGameContainer();
+        return gameContainer.withReadLock(() -> {
+            if (!(gameContainer.getGame(gameId) instanceof Tablefootball tablefootball)
+                    || gameContainer.getPlayer(playerId) == null) {
+                return Optional.empty();
+            }
+            return Optional.of(tablefootball.getRivals(playerId, limit).stream()
+                    .map(record -> convertToDTO(gameId, playerId, record))
+                    .toList());
+        });
     }
     
     /**
-     * Get the game container
+     * Compute the expected score of every rated player of a game against every other one.
+     * Rows are produced one at a time, highest rated player first, and columns follow the same order.
+     * 
+     * @param gameId The game ID
+     * @param action The action to perform for each row; the row's probability array is reused afterwards
+     */
+    public void forEachWinProbabilityRow(UUID gameId, Consumer<WinProbabilityRowDTO> action) {
+        GameContainer gameContainer = getGameContainer();
+        // The ratings are copied under the lock; the rows are computed and written without holding it
+        List<UUID> playerIds = new ArrayList<>();
+        int[] ratings = gameContainer.withReadLock(() -> {
+            List<Player> players = gameContainer.getPlayersByGame(gameId);
+            int[] copy = new int[players.size()];
+            for (int i = 0; i < copy.length; i++) {
+                playerIds.add(players.get(i).getId());
+                copy[i] = players.get(i).getEloRating(gameId);
+            }
+            return copy;
+        });
+        new WinProbabilityMatrix(ratings).forEachRow((values, row) -> action.accept(
+                new WinProbabilityRowDTO(playerIds.get(row), ratings[row], values)));
+    }
+    
+    /**
+     * Get the partners a player performs best with in a table football game
+     * 
+     * @param gameId The game ID
+     * @param playerId The player ID
+     * @param minGames The minimum number of games together
+     * @param limit The maximum number of partners
+     * @return The player's duos, highest synergy first, if the game and the player exist
+     */
+    public Optional<List<DuoDTO>> getBestPartners(UUID gameId, UUID playerId, int minGames, int limit) {
+        GameContainer gameContainer = getGameContainer();
+        return gameContainer.withReadLock(() -> {
+            if (!(gameContainer.getGame(gameId) instanceof Tablefootball tablefootball)
+                    || gameContainer.getPlayer(playerId) == null) {
+                return Optional.empty();
+            }
+            return Optional.of(tablefootball.getBestPartners(playerId, minGames, limit).stream()
+                    .map(pair -> convertToDTO(gameId, playerId, pair))
+                    .toList());
+        });
+    }
+    
+    /**
+     * Get the pairs of players that perform best together in a table football game
+     * 
+     * @param gameId The game ID
+     * @param minGames The minimum number of games together
+     * @param limit The maximum number of pairs
+     * @return The duos, highest synergy first, if the game exists
+     */
+    public Optional<List<DuoDTO>> getStrongestDuos(UUID gameId, int minGames, int limit) {
+        GameContainer gameContainer = getGameContainer();
+        return gameContainer.withReadLock(() -> {
+            if (!(gameContainer.getGame(gameId) instanceof Tablefootball tablefootball)) {
+                return Optional.empty();
+            }
+            return Optional.of(tablefootball.getStrongestDuos(minGames, limit).stream()
+                    .map(pair -> convertToDTO(gameId, pair.getPlayer1Id(), pair))
+                    .toList());
+        });
+    }
+    
+    /**
+     * Get the teams of a table football game ordered by rating
+     * 
+     * @param gameId The game ID
+     * @param limit The maximum number of teams
+     * @return The teams, highest rating first, if the game exists
+     */
+    public Optional<List<TeamDTO>> getTeams(UUID gameId, int limit) {
+        GameContainer gameContainer = getGameContainer();
+        return gameContainer.withReadLock(() -> {
+            if (!(gameContainer.getGame(gameId) instanceof Tablefootball tablefootball)) {
+                return Optional.empty();
+            }
+            return Optional.of(tablefootball.getTeamLeaderboard(limit).stream()
+                    .map(this::convertToDTO)
+                    .toList());
+        });
+    }
+    
+    /**
+     * Create a team for a table football game
+     * 
+     * @param gameId The game ID
+     * @param teamDTO The team to create
+     * @return The created team, if the game exists
+     * @throws IllegalArgumentException if the team has no players or a player does not exist
+     */
+    public Optional<TeamDTO> createTeam(UUID gameId, TeamDTO teamDTO) {
+        GameContainer gameContainer = getGameContainer();
+        boolean named = teamDTO.getName() != null && !teamDTO.getName().isBlank();
+        return gameContainer.withWriteLock(() -> {
+            if (!(gameContainer.getGame(gameId) instanceof Tablefootball tablefootball)) {
+                return Optional.<TeamDTO>empty();
+            }
+            if (teamDTO.getPlayerIds() == null || teamDTO.getPlayerIds().isEmpty()) {
+                throw new IllegalArgumentException("A team needs at least one player");
+            }
+            // Resolved under the lock, so the team follows the instances the container holds
+            List<Player> players = new ArrayList<>(teamDTO.getPlayerIds().size());
+            for (UUID playerId : teamDTO.getPlayerIds()) {
+                Player player = gameContainer.getPlayer(playerId);
+                if (player == null) {
+                    throw new IllegalArgumentException("Player not found: " + playerId);
+                }
+                players.add(player);
+            }
+            Team existing = named ? null : tablefootball.findTeam(players);
+            if (existing != null) {
+                return Optional.of(convertToDTO(existing));
+            }
+            TeamDTO created = convertToDTO(named
+                    ? tablefootball.createTeam(teamDTO.getName(), players)
+                    : tablefootball.findOrCreateTeam(players));
+            changeFeedService.publish(ChangeEventDTO.Type.TEAM_CREATED, created);
+            return Optional.of(created);
+        });
+    }
+    
+    /**
+     * Restore a table football team from a league snapshot, keeping its ID
+     * 
+     * @param teamDTO The team as exported
+     * @return true if the game and all players exist
+     */
+    public boolean restoreTeam(TeamDTO teamDTO) {
+        GameContainer gameContainer = getGameContainer();
+        return gameContainer.withWriteLock(() -> {
+            if (!(gameContainer.getGame(teamDTO.getGameId()) instanceof Tablefootball tablefootball)) {
+                return false;
+            }
+            List<Player> players = new ArrayList<>(teamDTO.getPlayerIds().size());
+            for (UUID playerId : teamDTO.getPlayerIds()) {
+                Player player = gameContainer.getPlayer(playerId);
+                if (player == null) {
+                    return false;
+                }
+                players.add(player);
+            }
+            Team team = new Team(teamDTO.getName(), teamDTO.getGameId(), players);
+            team.setId(teamDTO.getId());
+            tablefootball.registerTeam(team);
+            return true;
+        });
+    }
+    
+    /**
+     * Get the game container of the league bound to the current request
      * 
      * @return The game container
      */
     public GameContainer getGameContainer() {
-        return this.gameContainer;
+        return leagueRegistry.current();
     }
     
     /**
@@ -134,4 +454,28 @@ public class GameService {
         dto.setType(game.getClass().getSimpleName());
         return dto;
     }
+    
+    /**
+     * Convert a head-to-head record to a HeadToHeadDTO
+     * 
+     * @param gameId The game ID
+     * @param playerId The player the record belongs to
+     * @param record The record
+     * @return The head-to-head DTO
+     */
+    private HeadToHeadDTO convertToDTO(UUID gameId, UUID playerId, HeadToHeadIndex.Record record) {
+        return new HeadToHeadDTO(gameId, playerId, record.getOpponentId(), record.getMatches(),
+                record.getWins(), record.getLosses(), record.getGoalsFor(), record.getGoalsAgainst(),
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(record.getLastPlayed()), ZoneOffset.UTC));
+    }
+    
+    private DuoDTO convertToDTO(UUID gameId, UUID playerId, DuoSynergyIndex.Pair pair) {
+        return new DuoDTO(gameId, playerId, pair.getPartnerOf(playerId), pair.getGames(),
+                pair.getWins(), pair.getLosses(), pair.getSynergy());
+    }
+    
+    private TeamDTO convertToDTO(Team team) {
+        return new TeamDTO(team.getId(), team.getName(), team.getGameId(),
+                team.getPlayers().stream().map(Player::getId).toList(), team.getTeamEloRating());
+    }
 }
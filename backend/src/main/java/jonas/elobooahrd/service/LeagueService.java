@@ -0,0 +1,152 @@
+package jonas.elobooahrd.service;
+
+import java.util.Comparator;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import jonas.elobooahrd.dto.ChangeEventDTO;
+import jonas.elobooahrd.dto.GameDTO;
+import jonas.elobooahrd.dto.LeagueDTO;
+import jonas.elobooahrd.dto.LeagueSnapshotDTO;
+import jonas.elobooahrd.dto.MatchDTO;
+import jonas.elobooahrd.dto.PlayerDTO;
+import jonas.elobooahrd.dto.TeamDTO;
+import jonas.elobooahrd.model.Game;
+import jonas.elobooahrd.model.GameContainer;
+import jonas.elobooahrd.model.LeagueRegistry;
+
+/**
+ * Service for managing the leagues in the Eloboard system.
+ */
+@Service
+public class LeagueService {
+
+    private final LeagueRegistry leagueRegistry;
+    private final GameService gameService;
+    private final PlayerService playerService;
+    private final MatchService matchService;
+    private final ChangeFeedService changeFeedService;
+
+    @Autowired
+    public LeagueService(LeagueRegistry leagueRegistry, GameService gameService,
+            PlayerService playerService, MatchService matchService, ChangeFeedService changeFeedService) {
+        this.leagueRegistry = leagueRegistry;
+        this.gameService = gameService;
+        this.playerService = playerService;
+        this.matchService = matchService;
+        this.changeFeedService = changeFeedService;
+    }
+
+    /**
+     * Get all leagues
+     *
+     * @return The leagues, ordered by ID
+     */
+    public List<LeagueDTO> getAllLeagues() {
+        return leagueRegistry.getLeagues().entrySet().stream()
+                .map(entry -> convertToDTO(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparing(LeagueDTO::getId))
+                .toList();
+    }
+
+    /**
+     * Create a new, empty league
+     *
+     * @param leagueDTO The league with its ID and optional name
+     * @return The created league
+     * @throws IllegalArgumentException if the ID is invalid
+     * @throws IllegalStateException if the league already exists
+     */
+    public LeagueDTO createLeague(LeagueDTO leagueDTO) {
+        String id = LeagueRegistry.normalize(leagueDTO.getId());
+        GameContainer container = leagueRegistry.createLeague(id, leagueDTO.getName());
+        LeagueDTO created = convertToDTO(id, container);
+        changeFeedService.publish(container, ChangeEventDTO.Type.LEAGUE_CREATED, created);
+        return created;
+    }
+
+    /**
+     * Export the complete state of a league
+     *
+     * @param leagueId The normalized league ID
+     * @return The snapshot, or null if the league does not exist
+     */
+    public LeagueSnapshotDTO exportLeague(String leagueId) {
+        GameContainer container = leagueRegistry.getLeague(leagueId);
+        if (container == null) {
+            return null;
+        }
+        GameContainer previous = leagueRegistry.bind(container);
+        try {
+            // No match is recorded while the snapshot is taken, so ratings and histories agree
+            return container.withReadLock(() -> {
+                LeagueSnapshotDTO snapshot = new LeagueSnapshotDTO();
+                snapshot.setId(leagueId);
+                snapshot.setName(container.getName());
+                snapshot.setSequence(changeFeedService.getLatestSequence());
+                snapshot.setGames(gameService.getAllGames());
+                snapshot.setPlayers(playerService.getAllPlayers());
+                for (GameDTO game : snapshot.getGames()) {
+                    gameService.getTeams(game.getId(), Integer.MAX_VALUE).ifPresent(snapshot.getTeams()::addAll);
+                    snapshot.getMatches().addAll(matchService.getMatchHistory(game.getId()));
+                }
+                return snapshot;
+            });
+        } finally {
+            leagueRegistry.bind(previous);
+        }
+    }
+
+    /**
+     * Restore a league from a snapshot into a new container, replacing the league if it exists.
+     * The match history is replayed so that every index is rebuilt, and the ratings are then
+     * set to the exported values, which also covers ratings that were edited by hand.
+     * Followers of the change feed are told to fetch the restored league as a whole.
+     *
+     * @param snapshot The snapshot
+     * @return The restored league
+     * @throws IllegalArgumentException if the league ID is invalid
+     */
+    public LeagueDTO importLeague(LeagueSnapshotDTO snapshot) {
+        String id = LeagueRegistry.normalize(snapshot.getId());
+        GameContainer container = leagueRegistry.newContainer(id, snapshot.getName());
+        GameContainer previous = leagueRegistry.bind(container);
+        try {
+            snapshot.getGames().forEach(gameService::restoreGame);
+            for (PlayerDTO player : snapshot.getPlayers()) {
+                playerService.restorePlayer(player);
+            }
+            for (TeamDTO team : snapshot.getTeams()) {
+                gameService.restoreTeam(team);
+            }
+            for (MatchDTO match : snapshot.getMatches()) {
+                matchService.replayMatch(match);
+            }
+            for (PlayerDTO player : snapshot.getPlayers()) {
+                playerService.restoreRatings(player);
+            }
+            // Segment files of an earlier run beyond the replayed history are no longer needed
+            container.getAllGames().forEach(Game::discardStoredHistorySegments);
+        } finally {
+            leagueRegistry.bind(previous);
+        }
+        LeagueDTO restored = convertToDTO(id, container);
+        leagueRegistry.putLeague(id, container);
+        container.withWriteLock(() -> changeFeedService.publish(container, ChangeEventDTO.Type.LEAGUE_REPLACED, restored));
+        return restored;
+    }
+
+    /**
+     * Convert a league container to a LeagueDTO
+     *
+     * @param id The league ID
+     * @param container The league's container
+     * @return The league DTO
+     */
+    private LeagueDTO convertToDTO(String id, GameContainer container) {
+        return container.withReadLock(() -> new LeagueDTO(id, container.getName(), container.getAllGames().size(),
+                container.getPlayers().size()));
+    }
+}
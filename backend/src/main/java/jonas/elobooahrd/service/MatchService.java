@@ -1,13 +1,21 @@
 package jonas.elobooahrd.service;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import jonas.elobooahrd.dto.ChangeEventDTO;
 import jonas.elobooahrd.dto.MatchDTO;
+import jonas.elobooahrd.dto.TeamDTO;
+import jonas.elobooahrd.model.Dart;
 import jonas.elobooahrd.model.Game;
 import jonas.elobooahrd.model.GameContainer;
 import jonas.elobooahrd.model.Player;
@@ -20,26 +28,66 @@ import jonas.elobooahrd.model.Team;
 @Service
 public class MatchService {
     
-    private GameContainer gameContainer;
+    private final GameService gameService;
+    private final ChangeFeedService changeFeedService;
     
     @Autowired
-    public MatchService(GameService gameService) {
-        this.gameContainer = gameService.getGameContainer();
+    public MatchService(GameService gameService, ChangeFeedService changeFeedService) {
+        this.gameService = gameService;
+        this.changeFeedService = changeFeedService;
     }
     
     /**
-     * Record a match result
+     * Record a match result.
+     * The match is given a new ID and timestamp, and for table football team matches the
+     * resolved teams are set, so the DTO describes the match exactly as it was recorded.
      * 
      * @param matchDTO The match data
      * @return True if the match was recorded successfully
      */
     public boolean recordMatch(MatchDTO matchDTO) {
-        Game game = gameContainer.getGame(matchDTO.getGameId());
-        if (game == null) {
-            return false;
-        }
-        
-        if (matchDTO.isTeamMatch()) {
+        GameContainer gameContainer = gameContainer();
+        // Rating updates touch shared indexes, so matches of a league are recorded one at a time
+        return gameContainer.withWriteLock(() -> {
+            Game game = gameContainer.getGame(matchDTO.getGameId());
+            if (game == null) {
+                return false;
+            }
+            matchDTO.setId(UUID.randomUUID());
+            matchDTO.setTimestamp(LocalDateTime.ofInstant(Instant.now(), ZoneOffset.UTC));
+            if (!recordMatch(matchDTO, game)) {
+                return false;
+            }
+            changeFeedService.publish(ChangeEventDTO.Type.MATCH_RECORDED, matchDTO);
+            return true;
+        });
+    }
+    
+    /**
+     * Apply a match that was recorded on the primary, keeping its ID, timestamp and teams
+     * 
+     * @param matchDTO The match as published in the change feed
+     * @return True if the match was recorded successfully
+     */
+    public boolean applyMatch(MatchDTO matchDTO) {
+        GameContainer gameContainer = gameContainer();
+        return gameContainer.withWriteLock(() -> {
+            Game game = gameContainer.getGame(matchDTO.getGameId());
+            return game != null && recordMatch(matchDTO, game);
+        });
+    }
+    
+    /**
+     * Record a match while holding the write lock of its league
+     * 
+     * @param matchDTO The match data with its ID and timestamp
+     * @param game The game
+     * @return True if the match was recorded successfully
+     */
+    private boolean recordMatch(MatchDTO matchDTO, Game game) {
+        if (matchDTO.getFinishingOrder() != null && !matchDTO.getFinishingOrder().isEmpty()) {
+            return recordFreeForAll(matchDTO, game);
+        } else if (matchDTO.isTeamMatch()) {
             return recordTeamMatch(matchDTO, game);
         } else {
             return recordPlayerMatch(matchDTO, game);
@@ -59,7 +107,7 @@ public class MatchService {
         
         // Get winner players
         for (UUID playerId : matchDTO.getWinnerIds()) {
-            Player player = gameContainer.getPlayer(playerId);
+            Player player = gameContainer().getPlayer(playerId);
             if (player == null) {
                 return false;
             }
@@ -68,7 +116,7 @@ public class MatchService {
         
         // Get loser players
         for (UUID playerId : matchDTO.getLoserIds()) {
-            Player player = gameContainer.getPlayer(playerId);
+            Player player = gameContainer().getPlayer(playerId);
             if (player == null) {
                 return false;
             }
@@ -78,12 +126,13 @@ public class MatchService {
         // Handle special case for Tablefootball with scores
         if (game instanceof Tablefootball && matchDTO.getWinnerScores() != null 
                 && matchDTO.getLoserScores() != null && winners.size() == 1 && losers.size() == 1) {
-            ((Tablefootball) game).recordMatch(
-                winners.get(0), 
-                losers.get(0), 
-                matchDTO.getWinnerScores().get(0), 
-                matchDTO.getLoserScores().get(0)
-            );
+            Tablefootball.Match match = new Tablefootball.Match(winners.get(0).getId(), losers.get(0).getId(),
+                    matchDTO.getWinnerScores().get(0), matchDTO.getLoserScores().get(0));
+            match.setId(matchDTO.getId());
+            match.setTimestamp(matchDTO.getTimestamp());
+            ((Tablefootball) game).recordMatch(match, winners.get(0), losers.get(0));
+            // The history keeps matches in time order and may have moved the timestamp up
+            matchDTO.setTimestamp(match.getTimestamp());
             return true;
         }
         
@@ -93,45 +142,334 @@ public class MatchService {
     }
     
     /**
-     * Record a match between teams
+     * Record a free-for-all match between N players
      * 
-     * @param matchDTO The match data
+     * @param matchDTO The match data with the finishing order
      * @param game The game
      * @return True if the match was recorded successfully
      */
-    private boolean recordTeamMatch(MatchDTO matchDTO, Game game) {
-        // This is a simplified implementation
-        // In a real application, you would need to retrieve teams from a repository
-        
-        // For now, we'll create temporary teams with the players
-        List<Player> winnerPlayers = new ArrayList<>();
-        List<Player> loserPlayers = new ArrayList<>();
+    private boolean recordFreeForAll(MatchDTO matchDTO, Game game) {
+        List<UUID> order = matchDTO.getFinishingOrder();
+        if (order.size() < 2 || new HashSet<>(order).size() != order.size()) {
+            return false;
+        }
         
-        // Get winner players
-        for (UUID playerId : matchDTO.getWinnerIds()) {
-            Player player = gameContainer.getPlayer(playerId);
+        List<Player> players = new ArrayList<>(order.size());
+        for (UUID playerId : order) {
+            Player player = gameContainer().getPlayer(playerId);
             if (player == null) {
                 return false;
             }
-            winnerPlayers.add(player);
+            players.add(player);
         }
         
-        // Get loser players
-        for (UUID playerId : matchDTO.getLoserIds()) {
-            Player player = gameContainer.getPlayer(playerId);
+        game.recordFreeForAll(players);
+        return true;
+    }
+    
+    /**
+     * Record a match between teams.
+     * For table football the stored teams are resolved by winnerTeamId and loserTeamId,
+     * or by their members if no team ID is given, so their cached ratings are reused.
+     * 
+     * @param matchDTO The match data
+     * @param game The game
+     * @return True if the match was recorded successfully
+     */
+    private boolean recordTeamMatch(MatchDTO matchDTO, Game game) {
+        if (game instanceof Tablefootball tablefootball) {
+            // Both sides are validated before a new team is created and published
+            TeamSide winnerSide = resolveSide(tablefootball, matchDTO.getWinnerTeamId(), matchDTO.getWinnerIds());
+            TeamSide loserSide = resolveSide(tablefootball, matchDTO.getLoserTeamId(), matchDTO.getLoserIds());
+            if (winnerSide == null || loserSide == null || winnerSide.isSameTeam(loserSide)) {
+                return false;
+            }
+            Team winnerTeam = createIfMissing(tablefootball, winnerSide);
+            Team loserTeam = createIfMissing(tablefootball, loserSide);
+            matchDTO.setWinnerTeamId(winnerTeam.getId());
+            matchDTO.setLoserTeamId(loserTeam.getId());
+            if (matchDTO.getWinnerScores() != null && !matchDTO.getWinnerScores().isEmpty()
+                    && matchDTO.getLoserScores() != null && !matchDTO.getLoserScores().isEmpty()) {
+                Tablefootball.Match match = new Tablefootball.Match(winnerTeam.getId(), loserTeam.getId(),
+                        matchDTO.getWinnerScores().get(0), matchDTO.getLoserScores().get(0), true);
+                match.setId(matchDTO.getId());
+                match.setTimestamp(matchDTO.getTimestamp());
+                tablefootball.recordTeamMatch(match, winnerTeam, loserTeam);
+                matchDTO.setTimestamp(match.getTimestamp());
+            } else {
+                tablefootball.recordTeamMatch(winnerTeam, loserTeam);
+            }
+            return true;
+        }
+        
+        // Other games have no team registry, so their teams only live for this match
+        List<Player> winnerPlayers = resolvePlayers(matchDTO.getWinnerIds());
+        List<Player> loserPlayers = resolvePlayers(matchDTO.getLoserIds());
+        if (winnerPlayers == null || loserPlayers == null) {
+            return false;
+        }
+        
+        game.recordTeamMatch(new Team("Winner Team", game.getId(), winnerPlayers),
+                new Team("Loser Team", game.getId(), loserPlayers));
+        return true;
+    }
+    
+    /**
+     * A side of a table football team match: a stored team, or the players of a team that is yet to be created
+     */
+    private record TeamSide(Team team, List<Player> players) {
+        boolean isSameTeam(TeamSide other) {
+            if (team != null || other.team != null) {
+                return team == other.team;
+            }
+            return new HashSet<>(players).equals(new HashSet<>(other.players));
+        }
+    }
+    
+    /**
+     * Resolve a side of a table football team match by its team ID, or by its members.
+     * Nothing is created here, so a match that is rejected leaves no team behind.
+     * 
+     * @param game The game
+     * @param teamId The team ID, or null to resolve the side by its members
+     * @param playerIds The IDs of the members
+     * @return The side, or null if the team or one of the players does not exist
+     */
+    private TeamSide resolveSide(Tablefootball game, UUID teamId, List<UUID> playerIds) {
+        if (teamId != null) {
+            Team team = game.getTeam(teamId);
+            return team != null ? new TeamSide(team, team.getPlayers()) : null;
+        }
+        List<Player> players = resolvePlayers(playerIds);
+        if (players == null || players.isEmpty()) {
+            return null;
+        }
+        return new TeamSide(game.findTeam(players), players);
+    }
+    
+    /**
+     * Get the stored team of a resolved side, creating it on first use.
+     * A team that is created is published to the change feed.
+     * 
+     * @param game The game
+     * @param side The resolved side
+     * @return The stored team
+     */
+    private Team createIfMissing(Tablefootball game, TeamSide side) {
+        if (side.team() != null) {
+            return side.team();
+        }
+        Team team = game.findOrCreateTeam(side.players());
+        changeFeedService.publish(ChangeEventDTO.Type.TEAM_CREATED, new TeamDTO(team.getId(), team.getName(),
+                team.getGameId(), memberIds(team), team.getTeamEloRating()));
+        return team;
+    }
+    
+    /**
+     * Resolve players by their IDs
+     * 
+     * @param playerIds The player IDs
+     * @return The players, or null if the list is missing or a player does not exist
+     */
+    private List<Player> resolvePlayers(List<UUID> playerIds) {
+        if (playerIds == null) {
+            return null;
+        }
+        List<Player> players = new ArrayList<>(playerIds.size());
+        for (UUID playerId : playerIds) {
+            Player player = gameContainer().getPlayer(playerId);
             if (player == null) {
+                return null;
+            }
+            players.add(player);
+        }
+        return players;
+    }
+
+    /**
+     * Get the complete match history of a game, e.g. to hand it to another node.
+     * Dart matches that were abandoned or are still being scored are left out.
+     * 
+     * @param gameId The game ID
+     * @return The matches, oldest first
+     */
+    public List<MatchDTO> getMatchHistory(UUID gameId) {
+        GameContainer gameContainer = gameContainer();
+        return gameContainer.withReadLock(() -> getMatchHistory(gameContainer.getGame(gameId)));
+    }
+    
+    private List<MatchDTO> getMatchHistory(Game game) {
+        List<MatchDTO> matches = new ArrayList<>();
+        if (game instanceof Tablefootball tablefootball) {
+            for (Tablefootball.Match match : tablefootball.getMatchHistory()) {
+                matches.add(convertToDTO(tablefootball, match));
+            }
+        } else if (game instanceof Dart dart) {
+            for (Dart.Match match : dart.getMatchHistory()) {
+                if (match.isCompleted() && match.getWinnerId() != null) {
+                    matches.add(convertToDTO(dart, match));
+                }
+            }
+        }
+        return matches;
+    }
+    
+    /**
+     * Replay a match of an exported history, keeping its ID and timestamp.
+     * Matches whose teams or players no longer exist are skipped.
+     * 
+     * @param matchDTO The match as returned by getMatchHistory
+     * @return True if the match was replayed
+     */
+    public boolean replayMatch(MatchDTO matchDTO) {
+        GameContainer gameContainer = gameContainer();
+        return gameContainer.withWriteLock(() -> replayMatch(matchDTO, gameContainer.getGame(matchDTO.getGameId())));
+    }
+    
+    private boolean replayMatch(MatchDTO matchDTO, Game game) {
+        if (game instanceof Tablefootball tablefootball && matchDTO.isTeamMatch()) {
+            Team winnerTeam = tablefootball.getTeam(matchDTO.getWinnerTeamId());
+            Team loserTeam = tablefootball.getTeam(matchDTO.getLoserTeamId());
+            if (winnerTeam == null || loserTeam == null) {
                 return false;
             }
-            loserPlayers.add(player);
+            Tablefootball.Match match = new Tablefootball.Match(winnerTeam.getId(), loserTeam.getId(),
+                    matchDTO.getWinnerScores().get(0), matchDTO.getLoserScores().get(0), true);
+            match.setId(matchDTO.getId());
+            match.setTimestamp(matchDTO.getTimestamp());
+            tablefootball.recordTeamMatch(match, winnerTeam, loserTeam);
+            return true;
         }
         
-        Team winnerTeam = new Team("Winner Team", matchDTO.getGameId());
-        Team loserTeam = new Team("Loser Team", matchDTO.getGameId());
+        List<Player> winners = resolvePlayers(matchDTO.getWinnerIds());
+        List<Player> losers = resolvePlayers(matchDTO.getLoserIds());
+        if (winners == null || losers == null || winners.size() != 1 || losers.size() != 1) {
+            return false;
+        }
+        Player winner = winners.get(0);
+        Player loser = losers.get(0);
+        if (game instanceof Tablefootball tablefootball) {
+            Tablefootball.Match match = new Tablefootball.Match(winner.getId(), loser.getId(),
+                    matchDTO.getWinnerScores().get(0), matchDTO.getLoserScores().get(0));
+            match.setId(matchDTO.getId());
+            match.setTimestamp(matchDTO.getTimestamp());
+            tablefootball.recordMatch(match, winner, loser);
+            return true;
+        }
+        if (game instanceof Dart dart) {
+            Dart.Match match = new Dart.Match(winner.getId(), loser.getId(), dart.getStartingScore(),
+                    dart.getVariant(), dart.isDoubleOut());
+            match.setId(matchDTO.getId());
+            match.setTimestamp(matchDTO.getTimestamp());
+            match.setCompleted(true);
+            match.setWinnerId(winner.getId());
+            dart.importMatch(match, winner, loser);
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Get the most recent matches of a player across all games
+     * 
+     * @param playerId The player ID
+     * @param limit The maximum number of matches
+     * @return List of matches, most recent first
+     */
+    public List<MatchDTO> getPlayerMatches(UUID playerId, int limit) {
+        GameContainer gameContainer = gameContainer();
+        List<MatchDTO> matches = gameContainer.withReadLock(() -> collectPlayerMatches(gameContainer, playerId, limit));
+        return matches.stream()
+                .sorted(Comparator.comparing(MatchDTO::getTimestamp).reversed())
+                .limit(limit)
+                .toList();
+    }
+    
+    private List<MatchDTO> collectPlayerMatches(GameContainer gameContainer, UUID playerId, int limit) {
+        List<MatchDTO> matches = new ArrayList<>();
         
-        winnerPlayers.forEach(winnerTeam::addPlayer);
-        loserPlayers.forEach(loserTeam::addPlayer);
+        // Each game contributes at most limit matches from its per-player index
+        for (Game game : gameContainer.getAllGames()) {
+            if (game instanceof Tablefootball tablefootball) {
+                for (Tablefootball.Match match : tablefootball.getRecentMatches(playerId, limit)) {
+                    matches.add(convertToDTO(tablefootball, match));
+                }
+            } else if (game instanceof Dart dart) {
+                for (Dart.Match match : dart.getRecentMatches(playerId, limit)) {
+                    if (match.isCompleted()) {
+                        matches.add(convertToDTO(dart, match));
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+    
+    /**
+     * Convert a table football match to a MatchDTO
+     * 
+     * @param game The game the match belongs to
+     * @param match The match
+     * @return The match DTO
+     */
+    private MatchDTO convertToDTO(Tablefootball game, Tablefootball.Match match) {
+        boolean team1Won = match.getWinnerId().equals(match.getTeam1Id());
+        UUID winnerId = team1Won ? match.getTeam1Id() : match.getTeam2Id();
+        UUID loserId = team1Won ? match.getTeam2Id() : match.getTeam1Id();
         
-        game.recordTeamMatch(winnerTeam, loserTeam);
-        return true;
+        MatchDTO dto = new MatchDTO();
+        dto.setId(match.getId());
+        dto.setGameId(game.getId());
+        dto.setTimestamp(match.getTimestamp());
+        dto.setWinnerScores(List.of(team1Won ? match.getTeam1Score() : match.getTeam2Score()));
+        dto.setLoserScores(List.of(team1Won ? match.getTeam2Score() : match.getTeam1Score()));
+        dto.setTeamMatch(match.isTeamMatch());
+        if (match.isTeamMatch()) {
+            dto.setWinnerTeamId(winnerId);
+            dto.setLoserTeamId(loserId);
+            dto.setWinnerIds(memberIds(game.getTeam(winnerId)));
+            dto.setLoserIds(memberIds(game.getTeam(loserId)));
+        } else {
+            dto.setWinnerIds(List.of(winnerId));
+            dto.setLoserIds(List.of(loserId));
+        }
+        return dto;
+    }
+    
+    /**
+     * Convert a completed dart match to a MatchDTO
+     * 
+     * @param game The game the match belongs to
+     * @param match The match
+     * @return The match DTO
+     */
+    private MatchDTO convertToDTO(Dart game, Dart.Match match) {
+        boolean player1Won = match.getWinnerId().equals(match.getPlayer1Id());
+        
+        MatchDTO dto = new MatchDTO();
+        dto.setId(match.getId());
+        dto.setGameId(game.getId());
+        dto.setTimestamp(match.getTimestamp());
+        dto.setWinnerIds(List.of(player1Won ? match.getPlayer1Id() : match.getPlayer2Id()));
+        dto.setLoserIds(List.of(player1Won ? match.getPlayer2Id() : match.getPlayer1Id()));
+        return dto;
+    }
+    
+    private List<UUID> memberIds(Team team) {
+        if (team == null) {
+            return List.of();
+        }
+        return team.getPlayers().stream()
+                .map(Player::getId)
+                .toList();
+    }
+
+    /**
+     * Get the game container of the league bound to the current request
+     * 
+     * @return The game container
+     */
+    private GameContainer gameContainer() {
+        return gameService.getGameContainer();
     }
 }
@@ -0,0 +1,173 @@
+package jonas.elobooahrd.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jonas.elobooahrd.dto.MatchmakingRequestDTO;
+import jonas.elobooahrd.dto.MatchmakingResultDTO;
+import jonas.elobooahrd.dto.TeamSplitDTO;
+import jonas.elobooahrd.model.Game;
+import jonas.elobooahrd.model.GameContainer;
+import jonas.elobooahrd.model.Player;
+import jonas.elobooahrd.model.Team;
+import jonas.elobooahrd.model.matchmaking.TeamSplitSearch;
+
+/**
+ * Service for suggesting fair pairings from the players present in a lobby.
+ */
+@Service
+public class MatchmakingService {
+
+    private final GameService gameService;
+    private Duration timeBudget;
+
+    @Autowired
+    public MatchmakingService(GameService gameService,
+            @Value("${elobooahrd.matchmaking.time-budget:250ms}") Duration timeBudget) {
+        this.gameService = gameService;
+        this.timeBudget = timeBudget;
+    }
+
+    /**
+     * Suggest the fairest splits of a lobby into two teams.
+     * For an odd number of players the first team is the smaller one.
+     *
+     * @param request The game, the lobby and the number of suggestions
+     * @return The splits, fairest first, if the game exists
+     * @throws IllegalArgumentException if the lobby is invalid
+     */
+    public Optional<MatchmakingResultDTO> suggestTeams(MatchmakingRequestDTO request) {
+        GameContainer gameContainer = gameContainer();
+        // The lobby is resolved under the lock, while the search runs without holding it
+        List<Player> lobby = new ArrayList<>();
+        Game game = gameContainer.withReadLock(() -> {
+            Game found = gameContainer.getGame(request.getGameId());
+            if (found != null) {
+                lobby.addAll(resolveLobby(gameContainer, request.getPlayerIds()));
+            }
+            return found;
+        });
+        if (game == null) {
+            return Optional.empty();
+        }
+        if (lobby.size() > TeamSplitSearch.MAX_PLAYERS) {
+            throw new IllegalArgumentException("A lobby can have at most " + TeamSplitSearch.MAX_PLAYERS + " players");
+        }
+
+        int[] ratings = gameContainer.withReadLock(() -> {
+            int[] copy = new int[lobby.size()];
+            for (int i = 0; i < copy.length; i++) {
+                copy[i] = lobby.get(i).getEloRating(game.getId());
+            }
+            return copy;
+        });
+        TeamSplitSearch.Result result = new TeamSplitSearch(ratings)
+                .search(lobby.size() / 2, request.getLimit(), System.nanoTime() + timeBudget.toNanos());
+
+        List<TeamSplitDTO> suggestions = gameContainer.withReadLock(() -> {
+            List<TeamSplitDTO> splits = new ArrayList<>(result.splits().size());
+            for (TeamSplitSearch.Split split : result.splits()) {
+                List<Player> team1 = new ArrayList<>();
+                List<Player> team2 = new ArrayList<>();
+                for (int i = 0; i < lobby.size(); i++) {
+                    ((split.team1Mask() & (1 << i)) != 0 ? team1 : team2).add(lobby.get(i));
+                }
+                splits.add(convertToDTO(game, team1, team2));
+            }
+            return splits;
+        });
+        return Optional.of(new MatchmakingResultDTO(game.getId(), suggestions, result.exhaustive()));
+    }
+
+    /**
+     * Suggest the fairest 1v1 opponents for a player from a lobby
+     *
+     * @param request The game, the player, the lobby and the number of suggestions
+     * @return The pairings, closest rating first, if the game exists
+     * @throws IllegalArgumentException if the player or the lobby is invalid
+     */
+    public Optional<MatchmakingResultDTO> suggestOpponents(MatchmakingRequestDTO request) {
+        GameContainer gameContainer = gameContainer();
+        return gameContainer.withReadLock(() -> {
+            Game game = gameContainer.getGame(request.getGameId());
+            if (game == null) {
+                return Optional.empty();
+            }
+            Player player = request.getPlayerId() != null ? gameContainer.getPlayer(request.getPlayerId()) : null;
+            if (player == null) {
+                throw new IllegalArgumentException("Player not found: " + request.getPlayerId());
+            }
+            int rating = player.getEloRating(game.getId());
+
+            List<TeamSplitDTO> suggestions = resolveLobby(gameContainer, request.getPlayerIds()).stream()
+                    .filter(opponent -> opponent != player)
+                    .sorted(Comparator.comparingInt((Player opponent) -> Math.abs(opponent.getEloRating(game.getId()) - rating)))
+                    .limit(Math.max(0, request.getLimit()))
+                    .map(opponent -> convertToDTO(game, List.of(player), List.of(opponent)))
+                    .toList();
+            return Optional.of(new MatchmakingResultDTO(game.getId(), suggestions, true));
+        });
+    }
+
+    /**
+     * Resolve the players of a lobby
+     *
+     * @param gameContainer The container of the league
+     * @param playerIds The player IDs
+     * @return The players
+     * @throws IllegalArgumentException if the lobby is empty, has duplicates or a player does not exist
+     */
+    private List<Player> resolveLobby(GameContainer gameContainer, List<UUID> playerIds) {
+        if (playerIds == null || playerIds.size() < 2 || new HashSet<>(playerIds).size() != playerIds.size()) {
+            throw new IllegalArgumentException("A lobby needs at least 2 distinct players");
+        }
+        List<Player> players = new ArrayList<>(playerIds.size());
+        for (UUID playerId : playerIds) {
+            Player player = gameContainer.getPlayer(playerId);
+            if (player == null) {
+                throw new IllegalArgumentException("Player not found: " + playerId);
+            }
+            players.add(player);
+        }
+        return players;
+    }
+
+    /**
+     * Convert a pairing to a TeamSplitDTO
+     *
+     * @param game The game
+     * @param team1 The players of the first team
+     * @param team2 The players of the second team
+     * @return The pairing DTO
+     */
+    private TeamSplitDTO convertToDTO(Game game, List<Player> team1, List<Player> team2) {
+        // Suggestions are never stored, so the teams do not track their ratings
+        int team1Rating = new Team("Team 1", game.getId(), team1).getTeamEloRating();
+        int team2Rating = new Team("Team 2", game.getId(), team2).getTeamEloRating();
+        return new TeamSplitDTO(
+                team1.stream().map(Player::getId).toList(),
+                team2.stream().map(Player::getId).toList(),
+                team1Rating,
+                team2Rating,
+                Math.abs(team1Rating - team2Rating),
+                Game.expectedScore(team1Rating, team2Rating));
+    }
+
+    /**
+     * Get the game container of the league bound to the current request
+     *
+     * @return The game container
+     */
+    private GameContainer gameContainer() {
+        return gameService.getGameContainer();
+    }
+}
@@ -0,0 +1,693 @@
+package jonas.elobooahrd.service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jonas.elobooahrd.dto.ChangeBatchDTO;
+import jonas.elobooahrd.dto.ChangeEventDTO;
+import jonas.elobooahrd.dto.GameDTO;
+import jonas.elobooahrd.dto.LeagueSnapshotDTO;
+import jonas.elobooahrd.dto.MatchDTO;
+import jonas.elobooahrd.dto.PersistenceStatusDTO;
+import jonas.elobooahrd.dto.PlayerDTO;
+import jonas.elobooahrd.dto.TeamDTO;
+import jonas.elobooahrd.model.Game;
+import jonas.elobooahrd.model.GameContainer;
+import jonas.elobooahrd.model.LeagueRegistry;
+import jonas.elobooahrd.model.Player;
+import jonas.elobooahrd.model.Tablefootball;
+
+/**
+ * Service for mirroring all leagues into an embedded database.
+ * <p>
+ * Nothing is written on the request path: writers only append to the change feed, and a
+ * background flush reads the feed at a fixed interval and writes what changed since the
+ * last flush in one transaction. Changes are coalesced first, so a player who played ten
+ * matches since the last flush gets their ratings written once, and statements are sent
+ * in JDBC batches. Data reaches the database at most one flush interval plus the time of
+ * the flush after it was written in memory. A flush that falls behind the oldest change the
+ * feed still holds rewrites all leagues instead, so a slow database never holds on to
+ * memory. A failed flush is logged with the leagues and changes it was writing and retried
+ * with the next one; the status reports how far the database lags and how many flushes
+ * failed in a row. On startup the leagues are restored from the database, replaying the match
+ * history like a snapshot; with an empty database the current state is written first.
+ * <p>
+ * The tables are plain relational tables for ad-hoc SQL. With an H2 file URL and
+ * AUTO_SERVER=TRUE other clients can query them while the application runs, but H2 then
+ * closes the database on shutdown before the last flush, losing up to one flush interval.
+ */
+@Service
+public class PersistenceService {
+
+    private static final Logger log = LoggerFactory.getLogger(PersistenceService.class);
+
+    private static final String[] SCHEMA = {
+        "CREATE TABLE IF NOT EXISTS leagues (id VARCHAR PRIMARY KEY, name VARCHAR)",
+        "CREATE TABLE IF NOT EXISTS games (league_id VARCHAR, id UUID, name VARCHAR, description VARCHAR, "
+                + "type VARCHAR, initial_elo_rating INT, k_factor INT, PRIMARY KEY (league_id, id))",
+        "CREATE TABLE IF NOT EXISTS players (league_id VARCHAR, id UUID, name VARCHAR, PRIMARY KEY (league_id, id))",
+        "CREATE TABLE IF NOT EXISTS ratings (league_id VARCHAR, player_id UUID, game_id UUID, rating INT, "
+                + "PRIMARY KEY (league_id, player_id, game_id))",
+        "CREATE TABLE IF NOT EXISTS teams (league_id VARCHAR, id UUID, game_id UUID, name VARCHAR, "
+                + "PRIMARY KEY (league_id, id))",
+        "CREATE TABLE IF NOT EXISTS team_members (league_id VARCHAR, team_id UUID, position INT, player_id UUID, "
+                + "PRIMARY KEY (league_id, team_id, position))",
+        // Row IDs keep the order matches were recorded in, which the rating replay depends on
+        "CREATE TABLE IF NOT EXISTS matches (row_id BIGINT AUTO_INCREMENT PRIMARY KEY, league_id VARCHAR, id UUID, "
+                + "game_id UUID, played_at TIMESTAMP, team_match BOOLEAN, winner_team_id UUID, loser_team_id UUID, "
+                + "winner_score INT, loser_score INT, in_history BOOLEAN, UNIQUE (league_id, id))",
+        // Side W and L for winners and losers, O for the finishing order of free-for-all matches
+        "CREATE TABLE IF NOT EXISTS match_players (league_id VARCHAR, match_id UUID, side CHAR(1), position INT, "
+                + "player_id UUID, PRIMARY KEY (league_id, match_id, side, position))",
+        "CREATE INDEX IF NOT EXISTS matches_by_game ON matches (league_id, game_id)",
+        "CREATE INDEX IF NOT EXISTS match_players_by_player ON match_players (league_id, player_id)"
+    };
+    private static final String[] LEAGUE_TABLES = {"match_players", "matches", "team_members", "teams", "ratings",
+        "players", "games"};
+
+    private final LeagueRegistry leagueRegistry;
+    private final LeagueService leagueService;
+    private final ChangeFeedService changeFeedService;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int batchSize;
+    private Connection connection;
+    private volatile long flushedSequence; // Latest change of the feed that is in the database
+    private volatile long caughtUpAt = System.nanoTime(); // Last time the database had every change
+    private volatile LocalDateTime lastFlush;
+    private volatile int consecutiveFailures;
+
+    /**
+     * The changes of one league since the last flush, with later changes of an entity replacing earlier ones
+     */
+    private static class LeagueChanges {
+        private boolean rewrite; // The league was replaced as a whole
+        private String createdName;
+        private final Map<UUID, GameDTO> games = new LinkedHashMap<>();
+        private final Set<UUID> deletedGames = new HashSet<>();
+        private final Map<UUID, PlayerDTO> players = new LinkedHashMap<>();
+        private final Set<UUID> deletedPlayers = new HashSet<>();
+        private final Map<UUID, TeamDTO> teams = new LinkedHashMap<>();
+        private final List<MatchDTO> matches = new ArrayList<>();
+        private final Set<UUID> historyMatches = new HashSet<>(); // Matches the game keeps in its history
+        private final Set<UUID> dirtyRatings = new HashSet<>();
+    }
+
+    @Autowired
+    public PersistenceService(LeagueRegistry leagueRegistry, LeagueService leagueService,
+            ChangeFeedService changeFeedService,
+            @Value("${elobooahrd.persistence.url:}") String url,
+            @Value("${elobooahrd.persistence.username:sa}") String username,
+            @Value("${elobooahrd.persistence.password:}") String password,
+            @Value("${elobooahrd.persistence.batch-size:5000}") int batchSize,
+            @Value("${elobooahrd.cluster.enabled:false}") boolean clustered) {
+        if (!url.isBlank() && (clustered || !changeFeedService.isEnabled())) {
+            throw new IllegalStateException("Persistence is only supported on a single primary node");
+        }
+        this.leagueRegistry = leagueRegistry;
+        this.leagueService = leagueService;
+        this.changeFeedService = changeFeedService;
+        // H2 closes its databases in a shutdown hook of its own, which would run before the last flush;
+        // it cannot be turned off for AUTO_SERVER databases
+        String options = url.toUpperCase(Locale.ROOT);
+        this.url = url.startsWith("jdbc:h2:") && !options.contains("DB_CLOSE_ON_EXIT") && !options.contains("AUTO_SERVER")
+                ? url + ";DB_CLOSE_ON_EXIT=FALSE"
+                : url;
+        this.username = username;
+        this.password = password;
+        this.batchSize = batchSize;
+    }
+
+    public boolean isEnabled() {
+        return !url.isBlank();
+    }
+
+    /**
+     * Open the database and restore the leagues from it, before any request is served
+     *
+     * @throws SQLException if the database cannot be opened or read
+     */
+    @PostConstruct
+    public synchronized void open() throws SQLException {
+        if (!isEnabled()) {
+            return;
+        }
+        connection = DriverManager.getConnection(url, username, password);
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : SCHEMA) {
+                statement.execute(sql);
+            }
+        }
+        connection.setAutoCommit(false);
+
+        List<LeagueSnapshotDTO> leagues = readLeagues();
+        if (leagues.isEmpty()) {
+            writeAll();
+            return;
+        }
+        for (LeagueSnapshotDTO league : leagues) {
+            leagueService.importLeague(league);
+        }
+        // The restore itself is already in the database
+        flushedSequence = changeFeedService.getLatestSequence();
+    }
+
+    /**
+     * Get the state of the write-behind persistence
+     *
+     * @return How far the database lags behind memory, and how many flushes failed in a row
+     */
+    public PersistenceStatusDTO getStatus() {
+        long flushed = flushedSequence;
+        long latest = changeFeedService.getLatestSequence();
+        long lagMillis = latest > flushed ? Duration.ofNanos(System.nanoTime() - caughtUpAt).toMillis() : 0;
+        return new PersistenceStatusDTO(isEnabled(), flushed, latest, Math.max(0, latest - flushed), lagMillis,
+                consecutiveFailures, lastFlush);
+    }
+
+    /**
+     * Write the changes since the last flush.
+     * A failed flush is rolled back, logged and retried with the next one.
+     */
+    @Scheduled(initialDelayString = "${elobooahrd.persistence.flush-interval:1s}",
+            fixedDelayString = "${elobooahrd.persistence.flush-interval:1s}")
+    public synchronized void flush() {
+        if (connection == null) {
+            return;
+        }
+        String writing = null; // What the current transaction writes, for the log
+        try {
+            while (true) {
+                long readAt = System.nanoTime();
+                ChangeBatchDTO batch = changeFeedService.getChanges(flushedSequence, batchSize);
+                if (flushedSequence + 1 < batch.getOldestSequence()) {
+                    writing = "all leagues, as changes " + (flushedSequence + 1) + " to "
+                            + (batch.getOldestSequence() - 1) + " are no longer in the feed";
+                    writeAll();
+                    continue;
+                }
+                List<ChangeEventDTO> events = batch.getEvents();
+                if (events.isEmpty()) {
+                    flushed(readAt);
+                    return;
+                }
+                long last = events.get(events.size() - 1).getSequence();
+                writing = "changes " + (flushedSequence + 1) + " to " + last + " of leagues "
+                        + events.stream().map(ChangeEventDTO::getLeagueId).distinct().toList();
+                write(events);
+                flushedSequence = last;
+                if (events.size() < batchSize) {
+                    flushed(readAt);
+                    return;
+                }
+            }
+        } catch (SQLException e) {
+            consecutiveFailures++;
+            log.error("Flush failed while writing {} ({} consecutive failures); it is retried with the next flush",
+                    writing, consecutiveFailures, e);
+            try {
+                connection.rollback();
+            } catch (SQLException ignored) {
+                // The connection is broken; the next flush fails the same way until it is back
+            }
+        }
+    }
+
+    /**
+     * Record that the database holds every change that was in the feed at the given time
+     *
+     * @param readAt The time the last batch was read, from System.nanoTime()
+     */
+    private void flushed(long readAt) {
+        if (consecutiveFailures > 0) {
+            log.info("Flush succeeded after {} failed attempts", consecutiveFailures);
+        }
+        consecutiveFailures = 0;
+        caughtUpAt = readAt;
+        lastFlush = LocalDateTime.now();
+    }
+
+    /**
+     * Write what is still pending and close the database
+     */
+    @PreDestroy
+    public synchronized void close() throws SQLException {
+        if (connection == null) {
+            return;
+        }
+        flush();
+        connection.close();
+        connection = null;
+    }
+
+    /**
+     * Coalesce a batch of changes per league and write them in one transaction
+     *
+     * @param events The changes, oldest first
+     */
+    private void write(List<ChangeEventDTO> events) throws SQLException {
+        Map<String, LeagueChanges> changesByLeague = new LinkedHashMap<>();
+        for (ChangeEventDTO event : events) {
+            LeagueChanges changes = changesByLeague.computeIfAbsent(event.getLeagueId(), id -> new LeagueChanges());
+            switch (event.getType()) {
+                case LEAGUE_CREATED -> changes.createdName = event.getLeague().getName();
+                case LEAGUE_REPLACED -> {
+                    // The whole league is written again, which covers everything before
+                    changes = new LeagueChanges();
+                    changes.rewrite = true;
+                    changesByLeague.put(event.getLeagueId(), changes);
+                }
+                case GAME_CREATED, GAME_UPDATED -> changes.games.put(event.getGame().getId(), event.getGame());
+                case GAME_DELETED -> {
+                    changes.games.remove(event.getEntityId());
+                    changes.deletedGames.add(event.getEntityId());
+                }
+                case PLAYER_CREATED, PLAYER_UPDATED -> {
+                    changes.players.put(event.getPlayer().getId(), event.getPlayer());
+                    changes.dirtyRatings.add(event.getPlayer().getId());
+                }
+                case PLAYER_DELETED -> {
+                    changes.players.remove(event.getEntityId());
+                    changes.dirtyRatings.remove(event.getEntityId());
+                    changes.deletedPlayers.add(event.getEntityId());
+                }
+                case TEAM_CREATED -> changes.teams.put(event.getTeam().getId(), event.getTeam());
+                case MATCH_RECORDED, DART_MATCH_COMPLETED -> {
+                    MatchDTO match = event.getMatch();
+                    changes.matches.add(match);
+                    if (event.getType() == ChangeEventDTO.Type.DART_MATCH_COMPLETED
+                            || isKeptInHistory(event.getLeagueId(), match)) {
+                        changes.historyMatches.add(match.getId());
+                    }
+                    addAll(changes.dirtyRatings, match.getWinnerIds());
+                    addAll(changes.dirtyRatings, match.getLoserIds());
+                    addAll(changes.dirtyRatings, match.getFinishingOrder());
+                    changes.dirtyRatings.removeAll(changes.deletedPlayers);
+                }
+            }
+        }
+
+        for (Map.Entry<String, LeagueChanges> entry : changesByLeague.entrySet()) {
+            write(entry.getKey(), entry.getValue());
+        }
+        connection.commit();
+    }
+
+    /**
+     * Write the coalesced changes of one league
+     *
+     * @param leagueId The league ID
+     * @param changes The changes
+     */
+    private void write(String leagueId, LeagueChanges changes) throws SQLException {
+        if (changes.rewrite) {
+            LeagueSnapshotDTO snapshot = leagueService.exportLeague(leagueId);
+            deleteLeague(leagueId);
+            if (snapshot != null) {
+                writeSnapshot(snapshot);
+            }
+        }
+        if (changes.createdName != null) {
+            execute("MERGE INTO leagues KEY (id) VALUES (?, ?)", leagueId, changes.createdName);
+        }
+        try (PreparedStatement statement = connection.prepareStatement(
+                "MERGE INTO games KEY (league_id, id) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            for (GameDTO game : changes.games.values()) {
+                addGame(statement, leagueId, game);
+            }
+            statement.executeBatch();
+        }
+        try (PreparedStatement statement = connection.prepareStatement(
+                "MERGE INTO players KEY (league_id, id) VALUES (?, ?, ?)")) {
+            for (PlayerDTO player : changes.players.values()) {
+                bind(statement, leagueId, player.getId(), player.getName());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+        writeTeams(leagueId, changes.teams.values());
+        List<MatchDTO> matches = changes.matches.stream()
+                .filter(match -> !changes.deletedGames.contains(match.getGameId()))
+                .toList();
+        writeMatches(leagueId, matches, changes.historyMatches);
+
+        for (UUID gameId : changes.deletedGames) {
+            execute("DELETE FROM match_players WHERE league_id = ? AND match_id IN "
+                    + "(SELECT id FROM matches WHERE league_id = ? AND game_id = ?)", leagueId, leagueId, gameId);
+            execute("DELETE FROM matches WHERE league_id = ? AND game_id = ?", leagueId, gameId);
+            execute("DELETE FROM team_members WHERE league_id = ? AND team_id IN "
+                    + "(SELECT id FROM teams WHERE league_id = ? AND game_id = ?)", leagueId, leagueId, gameId);
+            execute("DELETE FROM teams WHERE league_id = ? AND game_id = ?", leagueId, gameId);
+            execute("DELETE FROM ratings WHERE league_id = ? AND game_id = ?", leagueId, gameId);
+            execute("DELETE FROM games WHERE league_id = ? AND id = ?", leagueId, gameId);
+        }
+        for (UUID playerId : changes.deletedPlayers) {
+            execute("DELETE FROM ratings WHERE league_id = ? AND player_id = ?", leagueId, playerId);
+            execute("DELETE FROM players WHERE league_id = ? AND id = ?", leagueId, playerId);
+        }
+        writeRatings(leagueId, changes.dirtyRatings);
+    }
+
+    /**
+     * Write the current ratings of players, as one write per rating however many matches changed it
+     *
+     * @param leagueId The league ID
+     * @param playerIds The players whose ratings changed
+     */
+    private void writeRatings(String leagueId, Set<UUID> playerIds) throws SQLException {
+        GameContainer container = leagueRegistry.getLeague(leagueId);
+        if (container == null || playerIds.isEmpty()) {
+            return;
+        }
+        // Copied under the read lock, as the rating maps are changed by concurrent matches
+        Map<UUID, Map<UUID, Integer>> ratings = container.withReadLock(() -> {
+            Map<UUID, Map<UUID, Integer>> copies = new HashMap<>();
+            for (UUID playerId : playerIds) {
+                Player player = container.getPlayer(playerId);
+                if (player != null) {
+                    copies.put(playerId, new HashMap<>(player.getEloRatings()));
+                }
+            }
+            return copies;
+        });
+        try (PreparedStatement statement = connection.prepareStatement(
+                "MERGE INTO ratings KEY (league_id, player_id, game_id) VALUES (?, ?, ?, ?)")) {
+            for (Map.Entry<UUID, Map<UUID, Integer>> player : ratings.entrySet()) {
+                for (Map.Entry<UUID, Integer> rating : player.getValue().entrySet()) {
+                    bind(statement, leagueId, player.getKey(), rating.getKey(), rating.getValue());
+                    statement.addBatch();
+                }
+            }
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * Write teams with their members
+     *
+     * @param leagueId The league ID
+     * @param teams The teams
+     */
+    private void writeTeams(String leagueId, Iterable<TeamDTO> teams) throws SQLException {
+        try (PreparedStatement team = connection.prepareStatement(
+                "MERGE INTO teams KEY (league_id, id) VALUES (?, ?, ?, ?)");
+                PreparedStatement member = connection.prepareStatement(
+                        "MERGE INTO team_members KEY (league_id, team_id, position) VALUES (?, ?, ?, ?)")) {
+            for (TeamDTO dto : teams) {
+                bind(team, leagueId, dto.getId(), dto.getGameId(), dto.getName());
+                team.addBatch();
+                for (int i = 0; i < dto.getPlayerIds().size(); i++) {
+                    bind(member, leagueId, dto.getId(), i, dto.getPlayerIds().get(i));
+                    member.addBatch();
+                }
+            }
+            team.executeBatch();
+            member.executeBatch();
+        }
+    }
+
+    /**
+     * Write matches with their players; matches written before are left as they are
+     *
+     * @param leagueId The league ID
+     * @param matches The matches, oldest first
+     * @param historyMatches The IDs of the matches that are replayed on startup
+     */
+    private void writeMatches(String leagueId, List<MatchDTO> matches, Set<UUID> historyMatches) throws SQLException {
+        try (PreparedStatement match = connection.prepareStatement(
+                "MERGE INTO matches (league_id, id, game_id, played_at, team_match, winner_team_id, loser_team_id, "
+                        + "winner_score, loser_score, in_history) KEY (league_id, id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+                PreparedStatement player = connection.prepareStatement(
+                        "MERGE INTO match_players KEY (league_id, match_id, side, position) VALUES (?, ?, ?, ?, ?)")) {
+            for (MatchDTO dto : matches) {
+                bind(match, leagueId, dto.getId(), dto.getGameId(), dto.getTimestamp(), dto.isTeamMatch(),
+                        dto.getWinnerTeamId(), dto.getLoserTeamId(), firstOf(dto.getWinnerScores()),
+                        firstOf(dto.getLoserScores()), historyMatches.contains(dto.getId()));
+                match.addBatch();
+                addMatchPlayers(player, leagueId, dto.getId(), "W", dto.getWinnerIds());
+                addMatchPlayers(player, leagueId, dto.getId(), "L", dto.getLoserIds());
+                addMatchPlayers(player, leagueId, dto.getId(), "O", dto.getFinishingOrder());
+            }
+            match.executeBatch();
+            player.executeBatch();
+        }
+    }
+
+    /**
+     * Rewrite every league from its current state, and drop the leagues that no longer exist
+     */
+    private void writeAll() throws SQLException {
+        // Read first: every league written below contains at least the changes up to here
+        long sequence = changeFeedService.getLatestSequence();
+        execute("DELETE FROM leagues");
+        for (String table : LEAGUE_TABLES) {
+            execute("DELETE FROM " + table);
+        }
+        for (String leagueId : leagueRegistry.getLeagueIds()) {
+            LeagueSnapshotDTO snapshot = leagueService.exportLeague(leagueId);
+            if (snapshot != null) {
+                writeSnapshot(snapshot);
+            }
+        }
+        connection.commit();
+        flushedSequence = sequence;
+    }
+
+    private void deleteLeague(String leagueId) throws SQLException {
+        for (String table : LEAGUE_TABLES) {
+            execute("DELETE FROM " + table + " WHERE league_id = ?", leagueId);
+        }
+        execute("DELETE FROM leagues WHERE id = ?", leagueId);
+    }
+
+    private void writeSnapshot(LeagueSnapshotDTO snapshot) throws SQLException {
+        String leagueId = snapshot.getId();
+        execute("MERGE INTO leagues KEY (id) VALUES (?, ?)", leagueId, snapshot.getName());
+        try (PreparedStatement games = connection.prepareStatement(
+                "MERGE INTO games KEY (league_id, id) VALUES (?, ?, ?, ?, ?, ?, ?)");
+                PreparedStatement players = connection.prepareStatement(
+                        "MERGE INTO players KEY (league_id, id) VALUES (?, ?, ?)");
+                PreparedStatement ratings = connection.prepareStatement(
+                        "MERGE INTO ratings KEY (league_id, player_id, game_id) VALUES (?, ?, ?, ?)")) {
+            for (GameDTO game : snapshot.getGames()) {
+                addGame(games, leagueId, game);
+            }
+            for (PlayerDTO player : snapshot.getPlayers()) {
+                bind(players, leagueId, player.getId(), player.getName());
+                players.addBatch();
+                for (Map.Entry<UUID, Integer> rating : player.getEloRatings().entrySet()) {
+                    bind(ratings, leagueId, player.getId(), rating.getKey(), rating.getValue());
+                    ratings.addBatch();
+                }
+            }
+            games.executeBatch();
+            players.executeBatch();
+            ratings.executeBatch();
+        }
+        writeTeams(leagueId, snapshot.getTeams());
+        Set<UUID> history = new HashSet<>();
+        snapshot.getMatches().forEach(match -> history.add(match.getId()));
+        writeMatches(leagueId, snapshot.getMatches(), history);
+    }
+
+    /**
+     * Read all leagues from the database
+     *
+     * @return The leagues as snapshots, with the matches to replay in the order they were recorded
+     */
+    private List<LeagueSnapshotDTO> readLeagues() throws SQLException {
+        Map<String, LeagueSnapshotDTO> leagues = new LinkedHashMap<>();
+        try (Statement statement = connection.createStatement()) {
+            try (ResultSet rows = statement.executeQuery("SELECT id, name FROM leagues ORDER BY id")) {
+                while (rows.next()) {
+                    LeagueSnapshotDTO league = new LeagueSnapshotDTO();
+                    league.setId(rows.getString("id"));
+                    league.setName(rows.getString("name"));
+                    leagues.put(league.getId(), league);
+                }
+            }
+            try (ResultSet rows = statement.executeQuery("SELECT * FROM games")) {
+                while (rows.next()) {
+                    GameDTO game = new GameDTO();
+                    game.setId(rows.getObject("id", UUID.class));
+                    game.setName(rows.getString("name"));
+                    game.setDescription(rows.getString("description"));
+                    game.setType(rows.getString("type"));
+                    game.setInitialEloRating(rows.getInt("initial_elo_rating"));
+                    game.setKFactor(rows.getInt("k_factor"));
+                    leagueOf(leagues, rows).ifPresent(league -> league.getGames().add(game));
+                }
+            }
+            Map<String, Map<UUID, PlayerDTO>> players = new HashMap<>();
+            try (ResultSet rows = statement.executeQuery("SELECT * FROM players")) {
+                while (rows.next()) {
+                    PlayerDTO player = new PlayerDTO();
+                    player.setId(rows.getObject("id", UUID.class));
+                    player.setName(rows.getString("name"));
+                    leagueOf(leagues, rows).ifPresent(league -> {
+                        league.getPlayers().add(player);
+                        players.computeIfAbsent(league.getId(), id -> new HashMap<>()).put(player.getId(), player);
+                    });
+                }
+            }
+            try (ResultSet rows = statement.executeQuery("SELECT * FROM ratings")) {
+                while (rows.next()) {
+                    PlayerDTO player = players.getOrDefault(rows.getString("league_id"), Map.of())
+                            .get(rows.getObject("player_id", UUID.class));
+                    if (player != null) {
+                        player.getEloRatings().put(rows.getObject("game_id", UUID.class), rows.getInt("rating"));
+                    }
+                }
+            }
+            Map<String, Map<UUID, TeamDTO>> teams = new HashMap<>();
+            try (ResultSet rows = statement.executeQuery("SELECT * FROM teams")) {
+                while (rows.next()) {
+                    TeamDTO team = new TeamDTO(rows.getObject("id", UUID.class), rows.getString("name"),
+                            rows.getObject("game_id", UUID.class), new ArrayList<>(), 0);
+                    leagueOf(leagues, rows).ifPresent(league -> {
+                        league.getTeams().add(team);
+                        teams.computeIfAbsent(league.getId(), id -> new HashMap<>()).put(team.getId(), team);
+                    });
+                }
+            }
+            try (ResultSet rows = statement.executeQuery("SELECT * FROM team_members ORDER BY position")) {
+                while (rows.next()) {
+                    TeamDTO team = teams.getOrDefault(rows.getString("league_id"), Map.of())
+                            .get(rows.getObject("team_id", UUID.class));
+                    if (team != null) {
+                        team.getPlayerIds().add(rows.getObject("player_id", UUID.class));
+                    }
+                }
+            }
+            Map<String, Map<UUID, MatchDTO>> matches = new HashMap<>();
+            try (ResultSet rows = statement.executeQuery("SELECT * FROM matches WHERE in_history ORDER BY row_id")) {
+                while (rows.next()) {
+                    MatchDTO match = new MatchDTO();
+                    match.setId(rows.getObject("id", UUID.class));
+                    match.setGameId(rows.getObject("game_id", UUID.class));
+                    match.setTimestamp(rows.getObject("played_at", LocalDateTime.class));
+                    match.setTeamMatch(rows.getBoolean("team_match"));
+                    match.setWinnerTeamId(rows.getObject("winner_team_id", UUID.class));
+                    match.setLoserTeamId(rows.getObject("loser_team_id", UUID.class));
+                    match.setWinnerIds(new ArrayList<>());
+                    match.setLoserIds(new ArrayList<>());
+                    Integer winnerScore = rows.getObject("winner_score", Integer.class);
+                    Integer loserScore = rows.getObject("loser_score", Integer.class);
+                    if (winnerScore != null && loserScore != null) {
+                        match.setWinnerScores(List.of(winnerScore));
+                        match.setLoserScores(List.of(loserScore));
+                    }
+                    leagueOf(leagues, rows).ifPresent(league -> {
+                        league.getMatches().add(match);
+                        matches.computeIfAbsent(league.getId(), id -> new HashMap<>()).put(match.getId(), match);
+                    });
+                }
+            }
+            try (ResultSet rows = statement.executeQuery("SELECT * FROM match_players ORDER BY position")) {
+                while (rows.next()) {
+                    MatchDTO match = matches.getOrDefault(rows.getString("league_id"), Map.of())
+                            .get(rows.getObject("match_id", UUID.class));
+                    if (match != null) {
+                        UUID playerId = rows.getObject("player_id", UUID.class);
+                        switch (rows.getString("side")) {
+                            case "W" -> match.getWinnerIds().add(playerId);
+                            case "L" -> match.getLoserIds().add(playerId);
+                            default -> {
+                                // Free-for-all matches are not part of a game's history
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        connection.commit();
+        return new ArrayList<>(leagues.values());
+    }
+
+    /**
+     * Check whether the game of a recorded match keeps it in its history, so it is replayed on startup
+     *
+     * @param leagueId The league ID
+     * @param match The match as recorded
+     * @return true for scored table football matches between two players or two teams
+     */
+    private boolean isKeptInHistory(String leagueId, MatchDTO match) {
+        GameContainer container = leagueRegistry.getLeague(leagueId);
+        Game game = container != null ? container.withReadLock(() -> container.getGame(match.getGameId())) : null;
+        return game instanceof Tablefootball
+                && (match.getFinishingOrder() == null || match.getFinishingOrder().isEmpty())
+                && firstOf(match.getWinnerScores()) != null && firstOf(match.getLoserScores()) != null
+                && (match.isTeamMatch() || match.getWinnerIds().size() == 1 && match.getLoserIds().size() == 1);
+    }
+
+    private Optional<LeagueSnapshotDTO> leagueOf(Map<String, LeagueSnapshotDTO> leagues, ResultSet row)
+            throws SQLException {
+        return Optional.ofNullable(leagues.get(row.getString("league_id")));
+    }
+
+    private void addGame(PreparedStatement statement, String leagueId, GameDTO game) throws SQLException {
+        bind(statement, leagueId, game.getId(), game.getName(), game.getDescription(), game.getType(),
+                game.getInitialEloRating(), game.getKFactor());
+        statement.addBatch();
+    }
+
+    private void addMatchPlayers(PreparedStatement statement, String leagueId, UUID matchId, String side,
+            List<UUID> playerIds) throws SQLException {
+        if (playerIds == null) {
+            return;
+        }
+        for (int i = 0; i < playerIds.size(); i++) {
+            bind(statement, leagueId, matchId, side, i, playerIds.get(i));
+            statement.addBatch();
+        }
+    }
+
+    private void execute(String sql, Object... parameters) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            bind(statement, parameters);
+            statement.executeUpdate();
+        }
+    }
+
+    private static void bind(PreparedStatement statement, Object... parameters) throws SQLException {
+        for (int i = 0; i < parameters.length; i++) {
+            statement.setObject(i + 1, parameters[i]);
+        }
+    }
+
+    private static void addAll(Set<UUID> target, List<UUID> ids) {
+        if (ids != null) {
+            target.addAll(ids);
+        }
+    }
+
+    private static Integer firstOf(List<Integer> values) {
+        return values != null && !values.isEmpty() ? values.get(0) : null;
+    }
+}
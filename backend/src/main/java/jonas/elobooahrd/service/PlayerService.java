@@ -1,16 +1,24 @@
 package jonas.elobooahrd.service;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import jonas.elobooahrd.dto.ChangeEventDTO;
+import jonas.elobooahrd.dto.PlayerCacheStatsDTO;
 import jonas.elobooahrd.dto.PlayerDTO;
 import jonas.elobooahrd.model.GameContainer;
+import jonas.elobooahrd.model.LeagueRegistry;
 import jonas.elobooahrd.model.Player;
+import jonas.elobooahrd.model.cache.PlayerCache;
+import jonas.elobooahrd.model.index.RatingIndex;
 
 /**
  * Service for managing players in the Eloboard system.
@@ -18,11 +26,18 @@ import jonas.elobooahrd.model.Player;
 @Service
 public class PlayerService {
     
-    private GameContainer gameContainer;
+    private static final int STREAM_CHUNK_SIZE = 256; // Players converted per read lock while streaming
+    
+    private final LeagueRegistry leagueRegistry;
+    private RatingConfidenceService ratingConfidenceService;
+    private final ChangeFeedService changeFeedService;
     
     @Autowired
-    public PlayerService(GameContainer gameContainer) {
-        this.gameContainer = gameContainer;
+    public PlayerService(LeagueRegistry leagueRegistry, RatingConfidenceService ratingConfidenceService,
+            ChangeFeedService changeFeedService) {
+        this.leagueRegistry = leagueRegistry;
+        this.ratingConfidenceService = ratingConfidenceService;
+        this.changeFeedService = changeFeedService;
     }
     
     /**
@@ -31,22 +46,67 @@ public class PlayerService {
      * @return List of all players
      */
     public List<PlayerDTO> getAllPlayers() {
-        return gameContainer.getAllPlayers().stream()
+        GameContainer gameContainer = gameContainer();
+        return gameContainer.withReadLock(() -> gameContainer.getAllPlayers().stream()
                 .map(this::convertToDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
+    }
+    
+    /**
+     * Streams players one at a time, optionally filtered by game and rating, without building a list.
+     * Players are converted in chunks under the read lock of the league and passed on without holding
+     * it, so a slow client never holds up writers. Without a game the chunks follow a copy of the player
+     * IDs; with a game they are paged from the rating index. The stream is not a snapshot: players added
+     * meanwhile may be missed, and a player whose rating moves past the current page may be missed or
+     * appear twice.
+     * 
+     * @param gameId Optional game ID to filter players by game
+     * @param minRating Optional minimum rating in the game (inclusive)
+     * @param maxRating Optional maximum rating in the game (inclusive)
+     * @param action The action receiving each player
+     */
+    public void forEachPlayer(UUID gameId, Integer minRating, Integer maxRating, Consumer<PlayerDTO> action) {
+        GameContainer gameContainer = gameContainer();
+        if (gameId == null) {
+            List<UUID> playerIds = gameContainer.withReadLock(gameContainer::getPlayerIds);
+            for (int start = 0; start < playerIds.size(); start += STREAM_CHUNK_SIZE) {
+                List<UUID> chunk = playerIds.subList(start, Math.min(start + STREAM_CHUNK_SIZE, playerIds.size()));
+                gameContainer.withReadLock(() -> gameContainer.peekPlayers(chunk).stream()
+                        .map(this::convertToDTO)
+                        .toList())
+                        .forEach(action);
+            }
+            return;
+        }
+        int min = minRating != null ? minRating : Integer.MIN_VALUE;
+        int max = maxRating != null ? maxRating : Integer.MAX_VALUE;
+        RatingIndex.Entry after = null;
+        List<PlayerDTO> chunk;
+        do {
+            RatingIndex.Entry cursor = after;
+            chunk = gameContainer.withReadLock(() -> gameContainer
+                    .getPlayersInRatingRange(gameId, min, max, cursor, STREAM_CHUNK_SIZE).stream()
+                    .map(this::convertToDTO)
+                    .toList());
+            chunk.forEach(action);
+            if (!chunk.isEmpty()) {
+                PlayerDTO last = chunk.get(chunk.size() - 1);
+                after = new RatingIndex.Entry(last.getEloRatings().get(gameId), last.getId());
+            }
+        } while (chunk.size() == STREAM_CHUNK_SIZE);
     }
     
     /**
      * Get players by game
      * 
      * @param gameId The game ID
-     * @return List of players for the specified game
+     * @return List of players for the specified game, highest rating first
      */
     public List<PlayerDTO> getPlayersByGame(UUID gameId) {
-        return gameContainer.getAllPlayers().stream()
-                .filter(player -> player.getEloRatings().containsKey(gameId))
+        GameContainer gameContainer = gameContainer();
+        return gameContainer.withReadLock(() -> gameContainer.getPlayersByGame(gameId).stream()
                 .map(this::convertToDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
     
     /**
@@ -56,8 +116,8 @@ public class PlayerService {
      * @return The player if found
      */
     public Optional<PlayerDTO> getPlayer(UUID id) {
-        Player player = gameContainer.getPlayer(id);
-        return player != null ? Optional.of(convertToDTO(player)) : Optional.empty();
+        GameContainer gameContainer = gameContainer();
+        return gameContainer.withReadLock(() -> Optional.ofNullable(gameContainer.getPlayer(id)).map(this::convertToDTO));
     }
     
     /**
@@ -69,8 +129,46 @@ public class PlayerService {
     public PlayerDTO createPlayer(PlayerDTO playerDTO) {
         Player player = new Player(playerDTO.getName(), ""); // Providing empty email as it's required
         player.setId(UUID.randomUUID());
-        gameContainer.addPlayer(player);
-        return convertToDTO(player);
+        if (playerDTO.getEloRatings() != null) {
+            playerDTO.getEloRatings().forEach(player::setEloRating);
+        }
+        GameContainer gameContainer = gameContainer();
+        PlayerDTO created = convertToDTO(player);
+        gameContainer.withWriteLock(() -> {
+            gameContainer.addPlayer(player);
+            changeFeedService.publish(ChangeEventDTO.Type.PLAYER_CREATED, created);
+        });
+        return created;
+    }
+    
+    /**
+     * Restore a player from a league snapshot, keeping its ID.
+     * Ratings are restored separately, after the match history has been replayed.
+     * 
+     * @param playerDTO The player as exported
+     */
+    public void restorePlayer(PlayerDTO playerDTO) {
+        Player player = new Player(playerDTO.getName(), "");
+        player.setId(playerDTO.getId());
+        GameContainer gameContainer = gameContainer();
+        gameContainer.withWriteLock(() -> gameContainer.addPlayer(player));
+    }
+    
+    /**
+     * Overwrite a player's ratings with those of a league snapshot
+     * 
+     * @param playerDTO The player as exported
+     */
+    public void restoreRatings(PlayerDTO playerDTO) {
+        GameContainer gameContainer = gameContainer();
+        if (playerDTO.getEloRatings() != null) {
+            gameContainer.withWriteLock(() -> {
+                Player player = gameContainer.getPlayer(playerDTO.getId());
+                if (player != null) {
+                    playerDTO.getEloRatings().forEach(player::setEloRating);
+                }
+            });
+        }
     }
     
     /**
@@ -80,10 +178,18 @@ public class PlayerService {
      * @return The updated player
      */
     public PlayerDTO updatePlayer(PlayerDTO playerDTO) {
-        Player player = gameContainer.getPlayer(playerDTO.getId());
-        if (player != null) {
-            player.setName(playerDTO.getName());
+        GameContainer gameContainer = gameContainer();
+        PlayerDTO updated = gameContainer.withWriteLock(() -> {
+            Player player = gameContainer.getPlayer(playerDTO.getId());
+            if (player == null) {
+                return null;
+            }
+            gameContainer.updatePlayer(player.getId(), playerDTO.getName(), player.getEmail());
+            changeFeedService.publish(ChangeEventDTO.Type.PLAYER_UPDATED, convertToDTO(player));
             return convertToDTO(player);
+        });
+        if (updated != null) {
+            return updated;
         }
         throw new IllegalArgumentException("Player not found: " + playerDTO.getId());
     }
@@ -94,19 +200,95 @@ public class PlayerService {
      * @param id The player ID
      */
     public void deletePlayer(UUID id) {
-        gameContainer.removePlayer(id);
+        GameContainer gameContainer = gameContainer();
+        gameContainer.withWriteLock(() -> {
+            if (gameContainer.removePlayer(id)) {
+                changeFeedService.publish(ChangeEventDTO.Type.PLAYER_DELETED, id);
+            }
+        });
+    }
+    
+    /**
+     * Search players by name prefix
+     * 
+     * @param query The name prefix to search for
+     * @param limit The maximum number of results
+     * @return List of matching players, ordered by name
+     */
+    public List<PlayerDTO> searchPlayers(String query, int limit) {
+        GameContainer gameContainer = gameContainer();
+        return gameContainer.withReadLock(() -> gameContainer.searchPlayers(query, limit).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList()));
     }
     
     /**
-     * Get player leaderboard for a game
+     * Get player leaderboard for a game, with the confidence interval of each rating
      * 
      * @param gameId The game ID
      * @return List of players sorted by Elo rating
      */
     public List<PlayerDTO> getLeaderboard(UUID gameId) {
-        return gameContainer.getLeaderboard(gameId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        GameContainer gameContainer = gameContainer();
+        RatingConfidenceService.GameIntervals intervals = ratingConfidenceService.getIntervals(gameId);
+        return gameContainer.withReadLock(() -> gameContainer.getLeaderboard(gameId).stream()
+                .map(player -> {
+                    PlayerDTO dto = convertToDTO(player);
+                    RatingConfidenceService.RatingInterval interval = intervals.of(player);
+                    if (interval != null) {
+                        dto.setRatingLow(interval.low());
+                        dto.setRatingHigh(interval.high());
+                    }
+                    return dto;
+                })
+                .collect(Collectors.toList()));
+    }
+    
+    /**
+     * Get the hit and miss counts and the size of the player cache of the current league
+     * 
+     * @return The cache statistics; disabled if all players are kept in memory
+     */
+    public PlayerCacheStatsDTO getCacheStats() {
+        GameContainer gameContainer = gameContainer();
+        PlayerCache cache = gameContainer.getPlayerCache();
+        if (cache == null) {
+            PlayerCacheStatsDTO stats = new PlayerCacheStatsDTO();
+            stats.setResidentPlayers(gameContainer.withReadLock(() -> gameContainer.getPlayers().size()));
+            return stats;
+        }
+        long hits = cache.getHits();
+        long misses = cache.getMisses();
+        return new PlayerCacheStatsDTO(true, hits, misses, hits + misses > 0 ? (double) hits / (hits + misses) : 0,
+                cache.getEvictions(), cache.getResidentPlayers(), cache.getEvictedPlayers(), cache.getResidentBytes(),
+                cache.getMemoryBudget(), cache.getStoreBytes());
+    }
+    
+    /**
+     * Evict the least recently used players of every league whose resident players exceed the memory budget
+     */
+    @Scheduled(fixedDelayString = "${elobooahrd.player-cache.eviction-interval:1s}")
+    public void evictInactivePlayers() {
+        for (String leagueId : leagueRegistry.getLeagueIds()) {
+            GameContainer container = leagueRegistry.getLeague(leagueId);
+            if (container == null || container.getPlayerCache() == null || !container.getPlayerCache().isOverBudget()) {
+                continue;
+            }
+            try {
+                container.withWriteLock(container::evictPlayers);
+            } catch (IllegalStateException e) {
+                // The league moved to another node meanwhile
+            }
+        }
+    }
+    
+    /**
+     * Get the game container of the league bound to the current request
+     * 
+     * @return The game container
+     */
+    private GameContainer gameContainer() {
+        return leagueRegistry.current();
     }
     
     /**
@@ -119,7 +301,8 @@ public class PlayerService {
         PlayerDTO dto = new PlayerDTO();
         dto.setId(player.getId());
         dto.setName(player.getName());
-        dto.setEloRatings(player.getEloRatings());
+        // Copied, as the DTO is serialized after the lock is released
+        dto.setEloRatings(new HashMap<>(player.getEloRatings()));
         return dto;
     }
 }
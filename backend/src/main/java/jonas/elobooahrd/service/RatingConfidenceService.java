@@ -0,0 +1,181 @@
+package jonas.elobooahrd.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jonas.elobooahrd.model.Dart;
+import jonas.elobooahrd.model.Game;
+import jonas.elobooahrd.model.GameContainer;
+import jonas.elobooahrd.model.LeagueRegistry;
+import jonas.elobooahrd.model.Player;
+import jonas.elobooahrd.model.Tablefootball;
+import jonas.elobooahrd.model.Team;
+import jonas.elobooahrd.model.simulation.RatingBootstrap;
+
+/**
+ * Service for the confidence intervals of player ratings.
+ * Intervals are computed per game by bootstrapping the match history and cached until
+ * the configured number of new matches has been played. Computations always run in the
+ * background: until the first one finishes a game has no intervals, and afterwards the
+ * stale cache is served while a refresh runs, so leaderboards never wait for a bootstrap.
+ */
+@Service
+public class RatingConfidenceService {
+
+    private LeagueRegistry leagueRegistry;
+    private int replicates;
+    private double level;
+    private int refreshAfter;
+    private final Map<UUID, CachedIntervals> cache = new ConcurrentHashMap<>();
+    private final Set<UUID> refreshing = ConcurrentHashMap.newKeySet();
+
+    private record CachedIntervals(int matchCount, Map<UUID, RatingBootstrap.Interval> intervals) {
+    }
+
+    /**
+     * The confidence interval of a player's current rating
+     * @param low The lower bound
+     * @param high The upper bound
+     */
+    public record RatingInterval(int low, int high) {
+    }
+
+    /**
+     * The confidence intervals of the players of a game, looked up once per leaderboard
+     * @param gameId The game ID
+     * @param offsets The interval bounds relative to the rating, by player ID
+     */
+    public record GameIntervals(UUID gameId, Map<UUID, RatingBootstrap.Interval> offsets) {
+        /**
+         * Get the confidence interval of a player's current rating
+         *
+         * @param player The player
+         * @return The interval, or null if the player has none yet
+         */
+        public RatingInterval of(Player player) {
+            RatingBootstrap.Interval interval = offsets.get(player.getId());
+            if (interval == null) {
+                return null;
+            }
+            int rating = player.getEloRating(gameId);
+            return new RatingInterval(rating + interval.lowOffset(), rating + interval.highOffset());
+        }
+    }
+
+    @Autowired
+    public RatingConfidenceService(LeagueRegistry leagueRegistry,
+            @Value("${elobooahrd.confidence.replicates:200}") int replicates,
+            @Value("${elobooahrd.confidence.level:0.95}") double level,
+            @Value("${elobooahrd.confidence.refresh-after:25}") int refreshAfter) {
+        if (replicates < 1) {
+            throw new IllegalArgumentException("The number of bootstrap replicates must be positive");
+        }
+        this.leagueRegistry = leagueRegistry;
+        this.replicates = replicates;
+        this.level = level;
+        this.refreshAfter = refreshAfter;
+    }
+
+    /**
+     * Get the confidence intervals of the players of a game.
+     * The first call for a game starts the bootstrap in the background and returns no intervals;
+     * later calls return the cached intervals and refresh them once enough new matches were played.
+     *
+     * @param gameId The game ID
+     * @return The intervals; empty if the game does not exist or has not been analysed yet
+     */
+    public GameIntervals getIntervals(UUID gameId) {
+        GameContainer gameContainer = leagueRegistry.current();
+        return gameContainer.withReadLock(() -> {
+            Game game = gameContainer.getGame(gameId);
+            if (game == null) {
+                cache.remove(gameId);
+                return new GameIntervals(gameId, Map.of());
+            }
+            CachedIntervals cached = cache.get(gameId);
+            if (cached == null || historySize(game) - cached.matchCount() >= refreshAfter) {
+                refresh(gameContainer, game);
+            }
+            return new GameIntervals(gameId, cached != null ? cached.intervals() : Map.of());
+        });
+    }
+
+    /**
+     * Bootstrap a game in the background unless that is already running
+     *
+     * @param gameContainer The container of the game's league
+     * @param game The game
+     */
+    private void refresh(GameContainer gameContainer, Game game) {
+        UUID gameId = game.getId();
+        if (refreshing.add(gameId)) {
+            // A failed computation keeps the previous intervals, if any, and is retried on the next request
+            CompletableFuture.runAsync(() -> cache.put(gameId, compute(gameContainer, game)))
+                    .whenComplete((result, error) -> refreshing.remove(gameId));
+        }
+    }
+
+    /**
+     * Bootstrap the match history of a game
+     *
+     * @param gameContainer The container of the game's league
+     * @param game The game
+     * @return The intervals and the history size they were computed from
+     */
+    private CachedIntervals compute(GameContainer gameContainer, Game game) {
+        RatingBootstrap.Builder builder = new RatingBootstrap.Builder();
+        // The history is copied into primitive arrays while no match is being recorded
+        int matchCount = gameContainer.withReadLock(() -> {
+            if (game instanceof Tablefootball tablefootball) {
+                for (Tablefootball.Match match : tablefootball.getMatchHistory()) {
+                    addMatch(builder, tablefootball, match);
+                }
+            } else if (game instanceof Dart dart) {
+                for (Dart.Match match : dart.getMatchHistory()) {
+                    if (match.isCompleted() && match.getWinnerId() != null) {
+                        boolean player1Won = match.getWinnerId().equals(match.getPlayer1Id());
+                        builder.addMatch(List.of(match.getWinnerId()),
+                                List.of(player1Won ? match.getPlayer2Id() : match.getPlayer1Id()));
+                    }
+                }
+            }
+            return historySize(game);
+        });
+        RatingBootstrap bootstrap = builder.build(game.getInitialEloRating(), game.getKFactor());
+        return new CachedIntervals(matchCount,
+                bootstrap.run(replicates, level, ThreadLocalRandom.current().nextLong()));
+    }
+
+    private void addMatch(RatingBootstrap.Builder builder, Tablefootball game, Tablefootball.Match match) {
+        UUID loserId = match.getWinnerId().equals(match.getTeam1Id()) ? match.getTeam2Id() : match.getTeam1Id();
+        if (!match.isTeamMatch()) {
+            builder.addMatch(List.of(match.getWinnerId()), List.of(loserId));
+            return;
+        }
+        Team winnerTeam = game.getTeam(match.getWinnerId());
+        Team loserTeam = game.getTeam(loserId);
+        if (winnerTeam != null && loserTeam != null) {
+            builder.addMatch(winnerTeam.getPlayers().stream().map(Player::getId).toList(),
+                    loserTeam.getPlayers().stream().map(Player::getId).toList());
+        }
+    }
+
+    private static int historySize(Game game) {
+        if (game instanceof Tablefootball tablefootball) {
+            return tablefootball.getMatchHistory().size();
+        }
+        if (game instanceof Dart dart) {
+            return dart.getMatchHistory().size();
+        }
+        return 0;
+    }
+}
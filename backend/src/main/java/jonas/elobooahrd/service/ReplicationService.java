@@ -0,0 +1,349 @@
+package jonas.elobooahrd.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jonas.elobooahrd.dto.ChangeBatchDTO;
+import jonas.elobooahrd.dto.ChangeEventDTO;
+import jonas.elobooahrd.dto.LeagueSnapshotDTO;
+import jonas.elobooahrd.dto.ReplicationSnapshotDTO;
+import jonas.elobooahrd.dto.ReplicationStatusDTO;
+import jonas.elobooahrd.model.GameContainer;
+import jonas.elobooahrd.model.LeagueRegistry;
+
+/**
+ * Service for running a node as a read replica of a primary.
+ * <p>
+ * A follower starts from a snapshot of all leagues of the primary and then polls the
+ * primary's change feed, applying each change in sequence order through the same code
+ * paths the primary used, so ratings, histories and indexes come out identical. Changes
+ * of a league that are already contained in its snapshot are skipped. A follower that
+ * falls behind the oldest change the primary still holds, notices that the primary
+ * restarted, or fails to apply a change starts over from a new snapshot. Failures are
+ * logged, and a follower that keeps failing waits longer before each new snapshot, up to
+ * the maximum backoff. Replication is asynchronous: reads on a follower may lag the
+ * primary by up to the reported lag.
+ */
+@Service
+public class ReplicationService {
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration SNAPSHOT_TIMEOUT = Duration.ofMinutes(5);
+    private static final Logger log = LoggerFactory.getLogger(ReplicationService.class);
+
+    private final LeagueRegistry leagueRegistry;
+    private final LeagueService leagueService;
+    private final GameService gameService;
+    private final PlayerService playerService;
+    private final MatchService matchService;
+    private final ChangeFeedService changeFeedService;
+    private final ObjectMapper objectMapper;
+    private final String primaryUrl;
+    private final int batchSize;
+    private final Duration resyncBackoff;
+    private final Duration maxResyncBackoff;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+    private final Map<String, Long> snapshotSequences = new ConcurrentHashMap<>(); // Per league
+    private volatile boolean resyncNeeded = true;
+    private volatile UUID feedId;
+    private volatile long appliedSequence;
+    private volatile long primarySequence;
+    private volatile LocalDateTime lastContact;
+    private volatile long caughtUpAt = System.nanoTime(); // Last time every change of the primary was applied
+    private int failures; // Consecutive polls that ended in a resync
+    private long nextResyncAt = System.nanoTime();
+
+    @Autowired
+    public ReplicationService(LeagueRegistry leagueRegistry, LeagueService leagueService, GameService gameService,
+            PlayerService playerService, MatchService matchService, ChangeFeedService changeFeedService,
+            ObjectMapper objectMapper,
+            @Value("${elobooahrd.replication.primary-url:}") String primaryUrl,
+            @Value("${elobooahrd.replication.batch-size:1000}") int batchSize,
+            @Value("${elobooahrd.replication.resync-backoff:1s}") Duration resyncBackoff,
+            @Value("${elobooahrd.replication.max-resync-backoff:5m}") Duration maxResyncBackoff) {
+        this.leagueRegistry = leagueRegistry;
+        this.leagueService = leagueService;
+        this.gameService = gameService;
+        this.playerService = playerService;
+        this.matchService = matchService;
+        this.changeFeedService = changeFeedService;
+        this.objectMapper = objectMapper;
+        String trimmed = primaryUrl.trim();
+        this.primaryUrl = trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+        this.batchSize = batchSize;
+        this.resyncBackoff = resyncBackoff;
+        this.maxResyncBackoff = maxResyncBackoff;
+    }
+
+    /**
+     * Check whether this node is a read replica
+     *
+     * @return true if a primary is configured
+     */
+    public boolean isFollower() {
+        return !primaryUrl.isEmpty();
+    }
+
+    public String getPrimaryUrl() {
+        return primaryUrl;
+    }
+
+    /**
+     * Take a snapshot of all leagues for a starting follower
+     *
+     * @return The leagues, and a sequence number that none of them is older than
+     */
+    public ReplicationSnapshotDTO exportAll() {
+        ReplicationSnapshotDTO snapshot = new ReplicationSnapshotDTO();
+        snapshot.setFeedId(changeFeedService.getFeedId());
+        // Read first: each league's snapshot contains at least every change up to here
+        snapshot.setSequence(changeFeedService.getLatestSequence());
+        for (String leagueId : leagueRegistry.getLeagueIds()) {
+            LeagueSnapshotDTO league = leagueService.exportLeague(leagueId);
+            if (league != null) {
+                snapshot.getLeagues().add(league);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Get the replication state of this node
+     *
+     * @return The sequence numbers and lag
+     */
+    public ReplicationStatusDTO getStatus() {
+        if (!isFollower()) {
+            long latest = changeFeedService.getLatestSequence();
+            return new ReplicationStatusDTO("primary", null, latest, latest, 0, 0, null);
+        }
+        long applied = appliedSequence;
+        long primary = Math.max(primarySequence, applied);
+        return new ReplicationStatusDTO("follower", primaryUrl, applied, primary, primary - applied,
+                Duration.ofNanos(System.nanoTime() - caughtUpAt).toMillis(), lastContact);
+    }
+
+    /**
+     * Catch up with the primary.
+     * An unreachable primary is retried on the next poll; everything else leads to a resync,
+     * which is delayed twice as long after each consecutive failure.
+     */
+    @Scheduled(fixedDelayString = "${elobooahrd.replication.poll-interval:200ms}")
+    public synchronized void poll() {
+        if (!isFollower() || (resyncNeeded && System.nanoTime() - nextResyncAt < 0)) {
+            return;
+        }
+        try {
+            if (resyncNeeded) {
+                resync();
+            }
+            pullChanges();
+            failures = 0;
+        } catch (UncheckedIOException e) {
+            // The primary is not reachable; reads keep being served from the data applied so far
+            log.debug("Primary {} is not reachable", primaryUrl, e);
+        } catch (RuntimeException e) {
+            failures++;
+            Duration delay = resyncDelay(failures);
+            nextResyncAt = System.nanoTime() + delay.toNanos();
+            resyncNeeded = true;
+            log.error("Replication from {} failed after change {} ({} consecutive failures), resynchronizing in {} ms",
+                    primaryUrl, appliedSequence, failures, delay.toMillis(), e);
+        }
+    }
+
+    /**
+     * Get the time to wait before the next snapshot
+     *
+     * @param failures The number of consecutive failures, at least 1
+     * @return The backoff, doubling with each failure up to the maximum
+     */
+    private Duration resyncDelay(int failures) {
+        Duration delay = resyncBackoff.multipliedBy(1L << Math.min(failures - 1, 20));
+        return delay.compareTo(maxResyncBackoff) > 0 ? maxResyncBackoff : delay;
+    }
+
+    /**
+     * Replace all leagues with a snapshot of the primary
+     */
+    private void resync() {
+        ReplicationSnapshotDTO snapshot = fetch("/api/replication/snapshot", ReplicationSnapshotDTO.class,
+                SNAPSHOT_TIMEOUT);
+        snapshotSequences.clear();
+        for (LeagueSnapshotDTO league : snapshot.getLeagues()) {
+            leagueService.importLeague(league);
+            snapshotSequences.put(LeagueRegistry.normalize(league.getId()), league.getSequence());
+        }
+        Set<String> leagueIds = snapshot.getLeagues().stream()
+                .map(league -> LeagueRegistry.normalize(league.getId()))
+                .collect(Collectors.toSet());
+        for (String leagueId : leagueRegistry.getLeagueIds()) {
+            if (!leagueIds.contains(leagueId)) {
+                leagueRegistry.removeLeague(leagueId);
+            }
+        }
+        feedId = snapshot.getFeedId();
+        appliedSequence = snapshot.getSequence();
+        primarySequence = snapshot.getSequence();
+        lastContact = LocalDateTime.now();
+        resyncNeeded = false;
+    }
+
+    /**
+     * Apply changes from the feed until this node has everything the primary reported
+     */
+    private void pullChanges() {
+        while (true) {
+            ChangeBatchDTO batch = fetch("/api/replication/changes?after=" + appliedSequence + "&limit=" + batchSize,
+                    ChangeBatchDTO.class, REQUEST_TIMEOUT);
+            lastContact = LocalDateTime.now();
+            primarySequence = batch.getLatestSequence();
+            if (!batch.getFeedId().equals(feedId) || appliedSequence + 1 < batch.getOldestSequence()) {
+                // The primary restarted, or dropped changes this node has not seen yet
+                throw new IllegalStateException("The change feed does not continue at " + appliedSequence);
+            }
+            for (ChangeEventDTO event : batch.getEvents()) {
+                try {
+                    apply(event);
+                } catch (RuntimeException e) {
+                    throw new IllegalStateException("Could not apply change " + event.getSequence() + " ("
+                            + event.getType() + " in league " + event.getLeagueId() + ")", e);
+                }
+                appliedSequence = event.getSequence();
+            }
+            if (appliedSequence >= batch.getLatestSequence()) {
+                caughtUpAt = System.nanoTime();
+                return;
+            }
+            if (batch.getEvents().isEmpty()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Apply a change to the league it belongs to
+     *
+     * @param event The change
+     * @throws IllegalStateException if the change cannot be applied
+     */
+    private void apply(ChangeEventDTO event) {
+        String leagueId = event.getLeagueId();
+        if (event.getSequence() <= snapshotSequences.getOrDefault(leagueId, 0L)) {
+            return;
+        }
+        switch (event.getType()) {
+            case LEAGUE_CREATED -> {
+                if (leagueRegistry.getLeague(leagueId) == null) {
+                    leagueRegistry.createLeague(leagueId, event.getLeague().getName());
+                }
+                return;
+            }
+            case LEAGUE_REPLACED -> {
+                LeagueSnapshotDTO league = fetch("/api/replication/leagues/" + leagueId, LeagueSnapshotDTO.class,
+                        SNAPSHOT_TIMEOUT);
+                leagueService.importLeague(league);
+                snapshotSequences.put(leagueId, league.getSequence());
+                return;
+            }
+            default -> {
+                // Changes within a league follow below
+            }
+        }
+
+        GameContainer container = leagueRegistry.getLeague(leagueId);
+        if (container == null) {
+            throw new IllegalStateException("League not found: " + leagueId);
+        }
+        GameContainer previous = leagueRegistry.bind(container);
+        try {
+            boolean applied = switch (event.getType()) {
+                case GAME_CREATED -> {
+                    gameService.restoreGame(event.getGame());
+                    yield true;
+                }
+                case GAME_UPDATED -> {
+                    gameService.updateGame(event.getGame());
+                    yield true;
+                }
+                case GAME_DELETED -> {
+                    gameService.deleteGame(event.getEntityId());
+                    yield true;
+                }
+                case PLAYER_CREATED -> {
+                    playerService.restorePlayer(event.getPlayer());
+                    playerService.restoreRatings(event.getPlayer());
+                    yield true;
+                }
+                case PLAYER_UPDATED -> {
+                    playerService.updatePlayer(event.getPlayer());
+                    yield true;
+                }
+                case PLAYER_DELETED -> {
+                    playerService.deletePlayer(event.getEntityId());
+                    yield true;
+                }
+                case TEAM_CREATED -> gameService.restoreTeam(event.getTeam());
+                case MATCH_RECORDED -> matchService.applyMatch(event.getMatch());
+                case DART_MATCH_COMPLETED -> matchService.replayMatch(event.getMatch());
+                default -> false;
+            };
+            if (!applied) {
+                throw new IllegalStateException("Change " + event.getSequence() + " could not be applied");
+            }
+        } finally {
+            leagueRegistry.bind(previous);
+        }
+    }
+
+    /**
+     * Get a JSON resource from the primary
+     *
+     * @param path The path, starting with a slash
+     * @param type The type of the response body
+     * @param timeout The request timeout
+     * @return The response body
+     * @throws UncheckedIOException if the primary cannot be reached
+     * @throws IllegalStateException if the primary does not answer with 200
+     */
+    private <T> T fetch(String path, Class<T> type, Duration timeout) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(primaryUrl + path))
+                    .timeout(timeout)
+                    .header("Accept", "application/json")
+                    .GET()
+                    .build();
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("GET " + path + " answered " + response.statusCode());
+            }
+            return objectMapper.readValue(response.body(), type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new IOException("Interrupted while calling " + path, e));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package jonas.elobooahrd.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import jonas.elobooahrd.dto.TournamentOddsDTO;
+import jonas.elobooahrd.dto.TournamentRequestDTO;
+import jonas.elobooahrd.dto.TournamentSimulationDTO;
+import jonas.elobooahrd.model.Game;
+import jonas.elobooahrd.model.GameContainer;
+import jonas.elobooahrd.model.Player;
+import jonas.elobooahrd.model.simulation.TournamentSimulator;
+
+/**
+ * Service for simulating tournament outcomes in the Eloboard system.
+ */
+@Service
+public class TournamentService {
+
+    private static final int MAX_SIMULATIONS = 10_000_000;
+    private static final int MAX_KNOCKOUT_PLAYERS = 256;
+    private static final int MAX_ROUND_ROBIN_PLAYERS = 64; // Each simulation plays n * (n - 1) / 2 games
+    private static final long MAX_SIMULATED_GAMES = 1_000_000_000L; // Games over all simulations of one request
+
+    private final GameService gameService;
+
+    @Autowired
+    public TournamentService(GameService gameService) {
+        this.gameService = gameService;
+    }
+
+    /**
+     * Simulate a tournament from the current ratings of a game
+     *
+     * @param request The game, format, players and number of simulations
+     * @return The win and placement probabilities of each player, if the game exists
+     * @throws IllegalArgumentException if the format, the players or the number of simulations are invalid,
+     *         or the simulations would play more games than allowed in total
+     */
+    public Optional<TournamentSimulationDTO> simulate(TournamentRequestDTO request) {
+        GameContainer gameContainer = gameContainer();
+        Game game = gameContainer.withReadLock(() -> gameContainer.getGame(request.getGameId()));
+        if (game == null) {
+            return Optional.empty();
+        }
+        TournamentSimulator.Format format = TournamentSimulator.Format.valueOf(
+                String.valueOf(request.getFormat()).toUpperCase(Locale.ROOT).replace('-', '_'));
+        List<UUID> playerIds = request.getPlayerIds();
+        int maxPlayers = format == TournamentSimulator.Format.KNOCKOUT ? MAX_KNOCKOUT_PLAYERS : MAX_ROUND_ROBIN_PLAYERS;
+        if (playerIds == null || playerIds.size() < 2 || playerIds.size() > maxPlayers
+                || new HashSet<>(playerIds).size() != playerIds.size()) {
+            throw new IllegalArgumentException("A " + format + " tournament needs between 2 and "
+                    + maxPlayers + " distinct players");
+        }
+        if (request.getSimulations() < 1 || request.getSimulations() > MAX_SIMULATIONS) {
+            throw new IllegalArgumentException("Simulations must be between 1 and " + MAX_SIMULATIONS);
+        }
+        int n = playerIds.size();
+        long gamesPerSimulation = format == TournamentSimulator.Format.KNOCKOUT ? n - 1 : (long) n * (n - 1) / 2;
+        if (gamesPerSimulation * request.getSimulations() > MAX_SIMULATED_GAMES) {
+            throw new IllegalArgumentException("A " + format + " tournament of " + n + " players allows at most "
+                    + MAX_SIMULATED_GAMES / gamesPerSimulation + " simulations");
+        }
+
+        // The ratings are copied under the lock; the simulation runs without holding it
+        int[] ratings = gameContainer.withReadLock(() -> {
+            int[] copy = new int[playerIds.size()];
+            for (int i = 0; i < copy.length; i++) {
+                Player player = gameContainer.getPlayer(playerIds.get(i));
+                if (player == null) {
+                    throw new IllegalArgumentException("Player not found: " + playerIds.get(i));
+                }
+                copy[i] = player.getEloRating(game.getId());
+            }
+            return copy;
+        });
+
+        long seed = request.getSeed() != null ? request.getSeed() : ThreadLocalRandom.current().nextLong();
+        long[][] placements = new TournamentSimulator(format, ratings)
+                .simulate(request.getSimulations(), seed, ForkJoinPool.commonPool());
+
+        List<TournamentOddsDTO> players = new ArrayList<>(ratings.length);
+        for (int i = 0; i < ratings.length; i++) {
+            double[] probabilities = new double[placements[i].length];
+            for (int place = 0; place < probabilities.length; place++) {
+                probabilities[place] = (double) placements[i][place] / request.getSimulations();
+            }
+            players.add(new TournamentOddsDTO(playerIds.get(i), ratings[i], probabilities[0], probabilities));
+        }
+        players.sort(Comparator.comparingDouble(TournamentOddsDTO::getWinProbability).reversed());
+        return Optional.of(new TournamentSimulationDTO(game.getId(), format.name(), request.getSimulations(), players));
+    }
+
+    /**
+     * Get the game container of the league bound to the current request
+     *
+     * @return The game container
+     */
+    private GameContainer gameContainer() {
+        return gameService.getGameContainer();
+    }
+}
@@ -0,0 +1,168 @@
+package jonas.elobooahrd.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import jonas.elobooahrd.dto.GameDTO;
+import jonas.elobooahrd.dto.LeagueSnapshotDTO;
+import jonas.elobooahrd.dto.MatchDTO;
+import jonas.elobooahrd.dto.PlayerDTO;
+import jonas.elobooahrd.dto.TeamDTO;
+
+/**
+ * Compares payload size and encode/decode time of the formats SerializationConfig registers,
+ * on a league snapshot as replicas and the persistence restore read it. Sizes are asserted;
+ * times depend on the machine and are only reported.
+ */
+class SerializationComparisonTest {
+	private static final int PLAYERS = 300;
+	private static final int MATCHES = 5_000;
+	private static final int WARMUP_ROUNDS = 20;
+	private static final int MEASURED_ROUNDS = 20;
+
+	private static LeagueSnapshotDTO snapshot;
+	private static Map<String, ObjectMapper> mappers;
+
+	@BeforeAll
+	static void setUp() {
+		snapshot = snapshot(new Random(42));
+		// Built through the same converter factories the application uses
+		SerializationConfig config = new SerializationConfig();
+		mappers = new LinkedHashMap<>();
+		mappers.put("JSON", builder().build());
+		mappers.put("CBOR", config.cborHttpMessageConverter(builder()).getObjectMapper());
+		mappers.put("Smile", config.smileHttpMessageConverter(builder()).getObjectMapper());
+	}
+
+	@Test
+	void everyFormatRoundTripsTheSnapshot() throws IOException {
+		for (Map.Entry<String, ObjectMapper> entry : mappers.entrySet()) {
+			ObjectMapper mapper = entry.getValue();
+			byte[] encoded = mapper.writeValueAsBytes(snapshot);
+			assertEquals(snapshot, mapper.readValue(encoded, LeagueSnapshotDTO.class), entry.getKey());
+		}
+	}
+
+	@Test
+	void binaryFormatsAreSmallerThanJson() throws IOException {
+		Map<String, Integer> sizes = new LinkedHashMap<>();
+		Map<String, double[]> times = new LinkedHashMap<>();
+		for (Map.Entry<String, ObjectMapper> entry : mappers.entrySet()) {
+			sizes.put(entry.getKey(), entry.getValue().writeValueAsBytes(snapshot).length);
+			times.put(entry.getKey(), measure(entry.getValue()));
+		}
+
+		int json = sizes.get("JSON");
+		System.out.printf("League snapshot with %d players and %d matches%n", PLAYERS, MATCHES);
+		System.out.printf("%-6s %10s %8s %12s %12s%n", "Format", "Bytes", "vs JSON", "Encode ms", "Decode ms");
+		for (String format : mappers.keySet()) {
+			System.out.printf("%-6s %10d %7.0f%% %12.2f %12.2f%n", format, sizes.get(format),
+					100.0 * sizes.get(format) / json, times.get(format)[0], times.get(format)[1]);
+		}
+		// UUIDs dominate the payload and take 16 bytes in the binary formats instead of 38
+		assertTrue(sizes.get("CBOR") < json * 0.8, "CBOR " + sizes.get("CBOR") + " of " + json);
+		assertTrue(sizes.get("Smile") < json * 0.8, "Smile " + sizes.get("Smile") + " of " + json);
+	}
+
+	/**
+	 * Measures the median time of encoding and decoding the snapshot
+	 * @return The encode and decode time in milliseconds
+	 */
+	private static double[] measure(ObjectMapper mapper) throws IOException {
+		byte[] encoded = mapper.writeValueAsBytes(snapshot);
+		for (int round = 0; round < WARMUP_ROUNDS; round++) {
+			mapper.readValue(mapper.writeValueAsBytes(snapshot), LeagueSnapshotDTO.class);
+		}
+		long[] encode = new long[MEASURED_ROUNDS];
+		long[] decode = new long[MEASURED_ROUNDS];
+		for (int round = 0; round < MEASURED_ROUNDS; round++) {
+			long start = System.nanoTime();
+			mapper.writeValueAsBytes(snapshot);
+			encode[round] = System.nanoTime() - start;
+			start = System.nanoTime();
+			mapper.readValue(encoded, LeagueSnapshotDTO.class);
+			decode[round] = System.nanoTime() - start;
+		}
+		return new double[] {median(encode) / 1e6, median(decode) / 1e6};
+	}
+
+	private static long median(long[] values) {
+		long[] sorted = values.clone();
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2];
+	}
+
+	// Mirrors the defaults Spring Boot applies to the builder it hands to the converters
+	private static Jackson2ObjectMapperBuilder builder() {
+		return Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+	}
+
+	private static LeagueSnapshotDTO snapshot(Random random) {
+		LeagueSnapshotDTO snapshot = new LeagueSnapshotDTO();
+		snapshot.setId("main");
+		snapshot.setName("Office league");
+		snapshot.setSequence(MATCHES + PLAYERS);
+		List<GameDTO> games = List.of(
+				new GameDTO(UUID.randomUUID(), "Kicker", "Table football at the coffee machine", 1000, 32, "Tablefootball"),
+				new GameDTO(UUID.randomUUID(), "Darts", "501, double out", 1000, 24, "Dart"));
+		snapshot.setGames(new ArrayList<>(games));
+
+		for (int i = 0; i < PLAYERS; i++) {
+			Map<UUID, Integer> ratings = new HashMap<>();
+			for (GameDTO game : games) {
+				ratings.put(game.getId(), 800 + random.nextInt(600));
+			}
+			snapshot.getPlayers().add(new PlayerDTO(UUID.randomUUID(), "Player " + i, ratings, null, null));
+		}
+		List<PlayerDTO> players = snapshot.getPlayers();
+		for (int i = 0; i < PLAYERS / 4; i++) {
+			List<UUID> members = List.of(players.get(2 * i).getId(), players.get(2 * i + 1).getId());
+			snapshot.getTeams().add(new TeamDTO(UUID.randomUUID(), players.get(2 * i).getName() + " & "
+					+ players.get(2 * i + 1).getName(), games.get(0).getId(), members, 1000 + random.nextInt(200)));
+		}
+
+		LocalDateTime playedAt = LocalDateTime.of(2024, 1, 8, 12, 0);
+		for (int i = 0; i < MATCHES; i++) {
+			MatchDTO match = new MatchDTO();
+			match.setId(UUID.randomUUID());
+			match.setGameId(games.get(i % 2).getId());
+			match.setTimestamp(playedAt.plusMinutes(7L * i));
+			if (i % 4 == 0) {
+				// Every fourth kicker match is played in teams
+				TeamDTO winner = snapshot.getTeams().get(random.nextInt(snapshot.getTeams().size()));
+				TeamDTO loser = snapshot.getTeams().get(random.nextInt(snapshot.getTeams().size()));
+				match.setGameId(games.get(0).getId());
+				match.setTeamMatch(true);
+				match.setWinnerTeamId(winner.getId());
+				match.setLoserTeamId(loser.getId());
+				match.setWinnerIds(winner.getPlayerIds());
+				match.setLoserIds(loser.getPlayerIds());
+			} else {
+				match.setWinnerIds(List.of(players.get(random.nextInt(PLAYERS)).getId()));
+				match.setLoserIds(List.of(players.get(random.nextInt(PLAYERS)).getId()));
+			}
+			match.setWinnerScores(List.of(10));
+			match.setLoserScores(List.of(random.nextInt(10)));
+			snapshot.getMatches().add(match);
+		}
+		return snapshot;
+	}
+}
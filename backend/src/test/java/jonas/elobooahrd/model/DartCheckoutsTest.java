@@ -0,0 +1,205 @@
+package jonas.elobooahrd.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import jonas.elobooahrd.model.DartCheckouts.VisitOutcome;
+
+class DartCheckoutsTest {
+
+	@Test
+	void visitBelowZeroIsBust() {
+		assertEquals(VisitOutcome.BUST, DartCheckouts.evaluate(40, 41, 3, true));
+		assertEquals(VisitOutcome.BUST, DartCheckouts.evaluate(40, 41, 3, false));
+	}
+
+	@Test
+	void leavingOneIsBustOnlyWithDoubleOut() {
+		assertEquals(VisitOutcome.BUST, DartCheckouts.evaluate(41, 40, 1, true));
+		assertEquals(VisitOutcome.SCORED, DartCheckouts.evaluate(41, 40, 1, false));
+	}
+
+	@Test
+	void finishMustEndOnADoubleWithDoubleOut() {
+		// 3 needs a single and a double, so one dart cannot finish it
+		assertEquals(VisitOutcome.BUST, DartCheckouts.evaluate(3, 3, 1, true));
+		assertEquals(VisitOutcome.CHECKOUT, DartCheckouts.evaluate(3, 3, 2, true));
+		assertEquals(VisitOutcome.CHECKOUT, DartCheckouts.evaluate(3, 3, 1, false));
+		assertEquals(VisitOutcome.BUST, DartCheckouts.evaluate(60, 60, 1, true));
+		assertEquals(VisitOutcome.CHECKOUT, DartCheckouts.evaluate(60, 60, 1, false));
+	}
+
+	@Test
+	void bullAndHighestCheckoutFinish() {
+		assertEquals(VisitOutcome.CHECKOUT, DartCheckouts.evaluate(50, 50, 1, true));
+		assertEquals(VisitOutcome.CHECKOUT, DartCheckouts.evaluate(170, 170, 3, true));
+		assertEquals(VisitOutcome.SCORED, DartCheckouts.evaluate(501, 180, 3, true));
+	}
+
+	@Test
+	void impossibleVisitsAreRejected() {
+		for (int score : new int[] {163, 166, 169, 172, 173, 175, 176, 178, 179}) {
+			assertFalse(DartCheckouts.isPossibleVisit(score, 3), "score " + score);
+		}
+		assertFalse(DartCheckouts.isPossibleVisit(181, 3));
+		assertFalse(DartCheckouts.isPossibleVisit(-1, 3));
+		assertFalse(DartCheckouts.isPossibleVisit(20, 0));
+		assertFalse(DartCheckouts.isPossibleVisit(20, 4));
+		assertFalse(DartCheckouts.isPossibleVisit(59, 1));
+		assertFalse(DartCheckouts.isPossibleVisit(121, 2));
+		assertThrows(IllegalArgumentException.class, () -> DartCheckouts.evaluate(170, 170, 2, true));
+		assertThrows(IllegalArgumentException.class, () -> DartCheckouts.evaluate(501, 179, 3, true));
+	}
+
+	@Test
+	void possibleVisitsAreAccepted() {
+		assertTrue(DartCheckouts.isPossibleVisit(0, 1));
+		assertTrue(DartCheckouts.isPossibleVisit(50, 1));
+		assertTrue(DartCheckouts.isPossibleVisit(60, 1));
+		assertTrue(DartCheckouts.isPossibleVisit(120, 2));
+		assertTrue(DartCheckouts.isPossibleVisit(180, 3));
+		// Fewer scoring darts than thrown, e.g. one miss
+		assertTrue(DartCheckouts.isPossibleVisit(60, 3));
+	}
+
+	@Test
+	void possibleVisitsMatchBruteForce() {
+		List<Integer> values = dartValues(false);
+		for (int darts = 1; darts <= 3; darts++) {
+			boolean[] reachable = new boolean[DartCheckouts.MAX_VISIT_SCORE + 1];
+			markReachable(values, darts, 0, reachable);
+			for (int score = 0; score <= DartCheckouts.MAX_VISIT_SCORE; score++) {
+				assertEquals(reachable[score], DartCheckouts.isPossibleVisit(score, darts),
+						"score " + score + " with " + darts + " darts");
+			}
+		}
+	}
+
+	@Test
+	void minimumDartsMatchBruteForce() {
+		for (boolean doubleOut : new boolean[] {true, false}) {
+			for (int remaining = 1; remaining <= DartCheckouts.MAX_VISIT_SCORE; remaining++) {
+				assertEquals(bruteForceMinDarts(remaining, doubleOut), DartCheckouts.minDarts(remaining, doubleOut),
+						"remaining " + remaining + (doubleOut ? " double out" : " single out"));
+			}
+		}
+	}
+
+	@Test
+	void minimumDartsOfKnownCheckouts() {
+		assertEquals(1, DartCheckouts.minDarts(40, true));
+		assertEquals(1, DartCheckouts.minDarts(50, true));
+		assertEquals(2, DartCheckouts.minDarts(100, true));
+		assertEquals(3, DartCheckouts.minDarts(170, true));
+		assertEquals(0, DartCheckouts.minDarts(1, true));
+		assertEquals(1, DartCheckouts.minDarts(1, false));
+		assertEquals(3, DartCheckouts.minDarts(180, false));
+		for (int bogey : new int[] {159, 162, 163, 165, 166, 168, 169, 171}) {
+			assertFalse(DartCheckouts.isCheckout(bogey, true), "remaining " + bogey);
+		}
+	}
+
+	@Test
+	void suggestionsFinishTheScoreWithTheFewestDarts() {
+		assertEquals("T20 T20 BULL", DartCheckouts.suggestions(170, true).get(0));
+		for (boolean doubleOut : new boolean[] {true, false}) {
+			for (int remaining = 1; remaining <= DartCheckouts.MAX_VISIT_SCORE; remaining++) {
+				List<String> routes = DartCheckouts.suggestions(remaining, doubleOut);
+				assertEquals(DartCheckouts.isCheckout(remaining, doubleOut), !routes.isEmpty());
+				assertTrue(routes.size() <= DartCheckouts.MAX_SUGGESTIONS);
+				for (String route : routes) {
+					String[] darts = route.split(" ");
+					int total = 0;
+					for (String dart : darts) {
+						total += valueOf(dart);
+					}
+					assertEquals(remaining, total, route);
+					if (doubleOut) {
+						String last = darts[darts.length - 1];
+						assertTrue(last.startsWith("D") || last.equals("BULL"), route);
+					}
+				}
+				if (!routes.isEmpty()) {
+					assertEquals(DartCheckouts.minDarts(remaining, doubleOut), routes.get(0).split(" ").length);
+				}
+			}
+		}
+	}
+
+	private static List<Integer> dartValues(boolean doublesOnly) {
+		List<Integer> values = new ArrayList<>();
+		for (int segment = 1; segment <= 20; segment++) {
+			values.add(segment * 2);
+			if (!doublesOnly) {
+				values.add(segment);
+				values.add(segment * 3);
+			}
+		}
+		values.add(50);
+		if (!doublesOnly) {
+			values.add(25);
+		}
+		return values;
+	}
+
+	private static void markReachable(List<Integer> values, int dartsLeft, int total, boolean[] reachable) {
+		if (total > DartCheckouts.MAX_VISIT_SCORE) {
+			return;
+		}
+		// A dart may also miss the board
+		reachable[total] = true;
+		if (dartsLeft > 0) {
+			for (int value : values) {
+				markReachable(values, dartsLeft - 1, total + value, reachable);
+			}
+		}
+	}
+
+	private static int bruteForceMinDarts(int remaining, boolean doubleOut) {
+		List<Integer> any = dartValues(false);
+		List<Integer> finishing = dartValues(doubleOut);
+		for (int darts = 1; darts <= 3; darts++) {
+			boolean[] setup = new boolean[DartCheckouts.MAX_VISIT_SCORE + 1];
+			markExactly(any, darts - 1, 0, setup);
+			for (int last : finishing) {
+				if (last <= remaining && setup[remaining - last]) {
+					return darts;
+				}
+			}
+		}
+		return 0;
+	}
+
+	private static void markExactly(List<Integer> values, int darts, int total, boolean[] reachable) {
+		if (total > DartCheckouts.MAX_VISIT_SCORE) {
+			return;
+		}
+		if (darts == 0) {
+			reachable[total] = true;
+			return;
+		}
+		for (int value : values) {
+			markExactly(values, darts - 1, total + value, reachable);
+		}
+	}
+
+	private static int valueOf(String dart) {
+		if (dart.equals("BULL")) {
+			return 50;
+		}
+		if (dart.startsWith("T")) {
+			return 3 * Integer.parseInt(dart.substring(1));
+		}
+		if (dart.startsWith("D")) {
+			return 2 * Integer.parseInt(dart.substring(1));
+		}
+		return Integer.parseInt(dart);
+	}
+}
@@ -0,0 +1,143 @@
+package jonas.elobooahrd.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class FreeForAllTest {
+
+	@Test
+	void equallyRatedPlayersAreRankedByFinishingOrder() {
+		for (int count = 3; count <= 8; count++) {
+			Dart game = new Dart("Darts", "Free-for-all");
+			List<Player> order = players(game, new int[count]);
+			game.recordFreeForAll(order);
+
+			int[] changes = changes(game, order, new int[count]);
+			assertEquals(0, Arrays.stream(changes).sum(), "N = " + count);
+			assertTrue(changes[0] > 0 && changes[count - 1] < 0, "N = " + count);
+			for (int i = 1; i < count; i++) {
+				assertTrue(changes[i] < changes[i - 1], "N = " + count + ": " + Arrays.toString(changes));
+			}
+			// The winner gains what winning every pair at K / (N - 1) each brings
+			assertEquals(Math.round(game.getKFactor() / 2.0), changes[0], 1, "N = " + count);
+		}
+	}
+
+	@Test
+	void changesSumToZeroAndFollowThePairwiseFormula() {
+		Random random = new Random(36);
+		for (int count = 3; count <= 8; count++) {
+			for (int round = 0; round < 500; round++) {
+				Dart game = new Dart("Darts", "Free-for-all");
+				int[] ratings = new int[count];
+				for (int i = 0; i < count; i++) {
+					ratings[i] = 600 + random.nextInt(1200);
+				}
+				List<Player> order = players(game, ratings);
+				game.recordFreeForAll(order);
+
+				int[] changes = changes(game, order, ratings);
+				assertEquals(0, Arrays.stream(changes).sum(), "N = " + count + ": " + Arrays.toString(ratings));
+				double pairFactor = (double) game.getKFactor() / (count - 1);
+				for (int i = 0; i < count; i++) {
+					double expected = 0;
+					for (int j = 0; j < count; j++) {
+						if (j != i) {
+							expected += pairFactor * ((i < j ? 1.0 : 0.0) - Game.expectedScore(ratings[i], ratings[j]));
+						}
+					}
+					assertEquals(expected, changes[i], 1.0, "N = " + count + ", place " + (i + 1));
+				}
+			}
+		}
+	}
+
+	@Test
+	void aPlayerAheadOfAnEquallyRatedOneGainsMore() {
+		Random random = new Random(37);
+		for (int count = 3; count <= 8; count++) {
+			int[] ratings = new int[count];
+			for (int i = 0; i < count; i++) {
+				ratings[i] = 900 + random.nextInt(400);
+			}
+			int ahead = random.nextInt(count - 1);
+			int behind = ahead + 1 + random.nextInt(count - ahead - 1);
+			ratings[behind] = ratings[ahead];
+			Dart game = new Dart("Darts", "Free-for-all");
+			List<Player> order = players(game, ratings);
+			game.recordFreeForAll(order);
+
+			int[] changes = changes(game, order, ratings);
+			assertTrue(changes[ahead] > changes[behind], "N = " + count + ": " + Arrays.toString(changes));
+		}
+	}
+
+	@Test
+	void roundingKeepsTheSumAtZero() {
+		// Rounding each of these on its own would add two points
+		double[] changes = {0.5, 0.5, 0.5, -1.5};
+		int[] rounded = Game.roundZeroSum(changes);
+		assertEquals(0, Arrays.stream(rounded).sum());
+		for (int i = 0; i < changes.length; i++) {
+			assertTrue(Math.abs(rounded[i] - changes[i]) < 1, Arrays.toString(rounded));
+		}
+	}
+
+	@Test
+	void aSinglePlayerIsRejected() {
+		Dart game = new Dart("Darts", "Free-for-all");
+		assertThrows(IllegalArgumentException.class, () -> game.recordFreeForAll(players(game, new int[1])));
+	}
+
+	@Test
+	void updateTimeByPlayerCount() {
+		Random random = new Random(38);
+		System.out.printf("%8s %14s%n", "Players", "ns per match");
+		for (int count : new int[] {2, 3, 4, 6, 8, 16, 32}) {
+			Dart game = new Dart("Darts", "Free-for-all");
+			int[] ratings = new int[count];
+			Arrays.fill(ratings, 1000);
+			List<Player> order = new ArrayList<>(players(game, ratings));
+			int rounds = 200_000 / count;
+			long elapsed = 0;
+			for (int pass = 0; pass < 2; pass++) {
+				long start = System.nanoTime();
+				for (int round = 0; round < rounds; round++) {
+					// Rotating the order keeps the ratings near 1000
+					order.add(order.remove(random.nextInt(count)));
+					game.recordFreeForAll(order);
+				}
+				// The first pass warms up
+				elapsed = System.nanoTime() - start;
+			}
+			System.out.printf("%8d %14d%n", count, elapsed / rounds);
+		}
+	}
+
+	private static List<Player> players(Game game, int[] ratings) {
+		List<Player> players = new ArrayList<>();
+		for (int i = 0; i < ratings.length; i++) {
+			Player player = new Player("Player " + i, null);
+			player.setEloRating(game.getId(), ratings[i] == 0 ? game.getInitialEloRating() : ratings[i]);
+			players.add(player);
+		}
+		return players;
+	}
+
+	private static int[] changes(Game game, List<Player> order, int[] ratings) {
+		int[] changes = new int[order.size()];
+		for (int i = 0; i < changes.length; i++) {
+			int before = ratings[i] == 0 ? game.getInitialEloRating() : ratings[i];
+			changes[i] = order.get(i).getEloRating(game.getId()) - before;
+		}
+		return changes;
+	}
+}
@@ -0,0 +1,144 @@
+package jonas.elobooahrd.model.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jonas.elobooahrd.model.Player;
+import jonas.elobooahrd.model.interfaces.RatingListener;
+
+class PlayerCacheTest {
+	// About two players of the test fit, each taking an estimated 440 bytes
+	private static final long BUDGET = 1000;
+	private static final UUID GAME = UUID.randomUUID();
+
+	@TempDir
+	Path directory;
+
+	private final Map<UUID, Player> players = new HashMap<>();
+	private PlayerCache cache;
+	private final RatingListener owner = (player, gameId, oldRating, newRating) ->
+			cache.onRatingChanged(player, gameId, oldRating, newRating);
+
+	@BeforeEach
+	void setUp() {
+		cache = new PlayerCache(players, owner, new PlayerTiering(directory, BUDGET));
+	}
+
+	@AfterEach
+	void tearDown() {
+		cache.close();
+	}
+
+	@Test
+	void leastRecentlyUsedPlayersAreEvicted() {
+		List<Player> added = addPlayers(6);
+		// Using the first player makes the second the least recently used one
+		cache.get(added.get(0).getId());
+
+		assertTrue(cache.isOverBudget());
+		assertEquals(4, cache.evict());
+		assertEquals(2, cache.getResidentPlayers());
+		assertEquals(4, cache.getEvictedPlayers());
+		assertTrue(cache.getResidentBytes() <= BUDGET);
+		assertSame(added.get(0), players.get(added.get(0).getId()));
+		assertSame(added.get(5), players.get(added.get(5).getId()));
+		for (int i = 1; i < 5; i++) {
+			assertNull(players.get(added.get(i).getId()));
+		}
+	}
+
+	@Test
+	void evictedPlayerIsLoadedBackOnLookup() {
+		List<Player> added = addPlayers(4);
+		cache.evict();
+		Player evicted = added.get(0);
+
+		Player loaded = cache.get(evicted.getId());
+		assertNotSame(evicted, loaded);
+		assertEquals(evicted, loaded);
+		assertSame(loaded, players.get(evicted.getId()));
+		assertEquals(1, cache.getMisses());
+		assertSame(loaded, cache.get(evicted.getId()));
+		assertEquals(1, cache.getHits());
+	}
+
+	@Test
+	void peekReadsEvictedPlayersWithoutLoadingThem() {
+		List<Player> added = addPlayers(4);
+		cache.evict();
+		Player evicted = added.get(0);
+
+		assertEquals(evicted, cache.peek(evicted.getId()));
+		assertNull(players.get(evicted.getId()));
+		assertEquals(2, cache.getEvictedPlayers());
+		assertEquals(0, cache.getMisses());
+	}
+
+	@Test
+	void playersFollowedByOtherListenersStayResident() {
+		List<Player> added = addPlayers(4);
+		RatingListener team = (player, gameId, oldRating, newRating) -> { };
+		added.get(0).addRatingListener(team);
+		added.get(1).addRatingListener(team);
+
+		cache.evict();
+		assertSame(added.get(0), players.get(added.get(0).getId()));
+		assertSame(added.get(1), players.get(added.get(1).getId()));
+		assertNull(players.get(added.get(2).getId()));
+	}
+
+	@Test
+	void ratingChangeOfAnOutdatedReferenceReachesTheLoadedPlayer() {
+		List<Player> added = addPlayers(4);
+		cache.evict();
+		Player outdated = added.get(0);
+
+		outdated.setEloRating(GAME, 1234);
+		Player current = players.get(outdated.getId());
+		assertNotSame(outdated, current);
+		assertEquals(1234, current.getEloRating(GAME));
+		// The stored record is outdated as well, so the player is written again when evicted
+		cache.evict();
+		assertEquals(1234, cache.get(outdated.getId()).getEloRating(GAME));
+	}
+
+	@Test
+	void removedPlayerLeavesTheStore() {
+		List<Player> added = addPlayers(4);
+		cache.evict();
+		Player evicted = added.get(0);
+
+		assertEquals(evicted, cache.remove(evicted.getId()));
+		players.remove(evicted.getId());
+		assertNull(cache.get(evicted.getId()));
+		assertNull(cache.peek(evicted.getId()));
+	}
+
+	private List<Player> addPlayers(int count) {
+		List<Player> added = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Player player = new Player("Player " + i, null);
+			player.setEloRatings(new HashMap<>(Map.of(GAME, 1000 + i)));
+			player.addRatingListener(owner);
+			players.put(player.getId(), player);
+			cache.admit(player);
+			added.add(player);
+		}
+		return added;
+	}
+}
@@ -0,0 +1,134 @@
+package jonas.elobooahrd.model.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jonas.elobooahrd.model.Player;
+
+class PlayerStoreTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void playersRoundTrip() {
+		PlayerStore store = new PlayerStore(directory);
+		Player player = player("Jürgen Müller", "jm@example.com", 3);
+		Player anonymous = player(null, null, 0);
+		store.write(player);
+		store.write(anonymous);
+
+		assertEquals(player, store.read(player.getId()));
+		assertEquals(anonymous, store.read(anonymous.getId()));
+		assertNull(store.read(UUID.randomUUID()));
+		assertEquals(2, store.size());
+		store.close();
+	}
+
+	@Test
+	void writeReplacesAndRemoveDropsTheRecord() {
+		PlayerStore store = new PlayerStore(directory);
+		Player player = player("Ada", "ada@example.com", 2);
+		store.write(player);
+		player.setName("Ada Lovelace");
+		player.setEloRating(UUID.randomUUID(), 1234);
+		store.write(player);
+
+		assertEquals(player, store.read(player.getId()));
+		assertEquals(1, store.size());
+		assertTrue(store.remove(player.getId()));
+		assertFalse(store.contains(player.getId()));
+		assertNull(store.read(player.getId()));
+		assertFalse(store.remove(player.getId()));
+		store.close();
+	}
+
+	@Test
+	void readReturnsADetachedCopy() {
+		PlayerStore store = new PlayerStore(directory);
+		Player player = player("Linus", "linus@example.com", 1);
+		store.write(player);
+
+		Player first = store.read(player.getId());
+		Player second = store.read(player.getId());
+		assertNotSame(first, second);
+		first.setEloRating(UUID.randomUUID(), 1500);
+		assertEquals(player, store.read(player.getId()));
+		store.close();
+	}
+
+	@Test
+	void compactionKeepsTheLatestRecords() {
+		PlayerStore store = new PlayerStore(directory);
+		List<Player> players = new ArrayList<>();
+		for (int i = 0; i < 4000; i++) {
+			Player player = player("Player " + i + " " + "x".repeat(200), "player" + i + "@example.com", 4);
+			players.add(player);
+			store.write(player);
+		}
+		long firstPass = store.getFileSize();
+		assertTrue(firstPass > 1 << 20, "The store must exceed the compaction threshold");
+
+		// Rewriting every player twice leaves two thirds of the file dead without compaction
+		for (int pass = 0; pass < 2; pass++) {
+			for (Player player : players) {
+				player.setEloRating(player.getEloRatings().keySet().iterator().next(), 1000 + pass);
+				store.write(player);
+			}
+		}
+		assertTrue(store.getFileSize() < 2 * firstPass + 1024, "size " + store.getFileSize());
+		for (Player player : players) {
+			assertEquals(player, store.read(player.getId()));
+		}
+
+		for (int i = 0; i < players.size(); i += 2) {
+			store.remove(players.get(i).getId());
+		}
+		assertEquals(players.size() / 2, store.size());
+		for (int i = 0; i < players.size(); i++) {
+			Player player = players.get(i);
+			assertEquals(i % 2 == 0 ? null : player, store.read(player.getId()));
+		}
+		store.close();
+	}
+
+	@Test
+	void closeLeavesNoFileBehind() throws IOException {
+		PlayerStore store = new PlayerStore(directory);
+		store.write(player("Grace", null, 1));
+		store.close();
+		assertEquals(0, countFiles());
+	}
+
+	private long countFiles() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.count();
+		}
+	}
+
+	private static Player player(String name, String email, int games) {
+		Player player = new Player(name, email);
+		Map<UUID, Integer> ratings = new HashMap<>();
+		for (int i = 0; i < games; i++) {
+			ratings.put(UUID.randomUUID(), 900 + 50 * i);
+		}
+		player.setEloRatings(ratings);
+		return player;
+	}
+}
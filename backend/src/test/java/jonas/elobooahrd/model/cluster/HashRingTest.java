@@ -0,0 +1,174 @@
+package jonas.elobooahrd.model.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+class HashRingTest {
+	// The default of elobooahrd.cluster.virtual-nodes
+	private static final int VIRTUAL_NODES = 128;
+	private static final int KEYS = 20_000;
+
+	private final List<String> keys = leagueIds(new Random(47));
+
+	@Test
+	void keysAreSpreadEvenlyOverTheNodes() {
+		for (int count = 2; count <= 8; count++) {
+			HashRing ring = new HashRing(nodes(count), VIRTUAL_NODES);
+			Map<String, Integer> load = load(ring);
+			double fair = (double) KEYS / count;
+
+			assertEquals(count, load.size());
+			for (Map.Entry<String, Integer> entry : load.entrySet()) {
+				assertTrue(entry.getValue() > fair * 0.7 && entry.getValue() < fair * 1.3,
+						count + " nodes, " + entry.getKey() + " owns " + entry.getValue() + " keys");
+			}
+		}
+	}
+
+	@Test
+	void addingANodeOnlyMovesKeysToIt() {
+		for (int count = 1; count <= 7; count++) {
+			HashRing before = new HashRing(nodes(count), VIRTUAL_NODES);
+			HashRing after = new HashRing(nodes(count + 1), VIRTUAL_NODES);
+			String added = node(count);
+
+			int moved = 0;
+			for (String key : keys) {
+				String owner = after.ownerOf(key);
+				if (!owner.equals(before.ownerOf(key))) {
+					assertEquals(added, owner, key);
+					moved++;
+				}
+			}
+			// The new node takes about its fair share, and only that
+			double fair = (double) KEYS / (count + 1);
+			assertTrue(moved > fair * 0.7 && moved < fair * 1.3, count + 1 + " nodes, " + moved + " moved");
+		}
+	}
+
+	@Test
+	void removingANodeOnlyMovesItsKeys() {
+		for (int count = 2; count <= 8; count++) {
+			List<String> nodes = nodes(count);
+			HashRing before = new HashRing(nodes, VIRTUAL_NODES);
+			String removed = nodes.get(count / 2);
+			List<String> remaining = new ArrayList<>(nodes);
+			remaining.remove(removed);
+			HashRing after = new HashRing(remaining, VIRTUAL_NODES);
+
+			Map<String, Integer> received = new HashMap<>();
+			for (String key : keys) {
+				String owner = before.ownerOf(key);
+				if (owner.equals(removed)) {
+					received.merge(after.ownerOf(key), 1, Integer::sum);
+				} else {
+					assertEquals(owner, after.ownerOf(key), key);
+				}
+			}
+			// The virtual positions hand the keys of the removed node to all others
+			assertEquals(count - 1, received.size(), count + " nodes: " + received);
+		}
+	}
+
+	@Test
+	void ownersDoNotDependOnTheOrderOfTheNodes() {
+		List<String> nodes = nodes(5);
+		List<String> shuffled = new ArrayList<>(nodes);
+		Collections.shuffle(shuffled, new Random(48));
+		HashRing ring = new HashRing(nodes, VIRTUAL_NODES);
+		HashRing other = new HashRing(shuffled, VIRTUAL_NODES);
+
+		assertEquals(nodes, other.getNodes());
+		for (String key : keys) {
+			assertEquals(ring.ownerOf(key), other.ownerOf(key), key);
+		}
+	}
+
+	@Test
+	void emptyRingHasNoOwner() {
+		assertNull(new HashRing(List.of(), VIRTUAL_NODES).ownerOf(keys.get(0)));
+	}
+
+	@Test
+	void rebalancingByVirtualNodes() {
+		// Hand-offs send a league snapshot over HTTP, so the ring is measured by how many leagues
+		// change owner when a fifth node joins, and by the time to build it and look up owners
+		System.out.printf("%8s %10s %10s %10s %12s %12s%n",
+				"Virtual", "Max load", "Min load", "Moved", "Build us", "Lookup ns");
+		for (int virtualNodes : new int[] {1, 8, 32, 128, 512}) {
+			HashRing before = new HashRing(nodes(4), virtualNodes);
+			HashRing after = null;
+			long build = 0;
+			for (int pass = 0; pass < 2; pass++) {
+				long start = System.nanoTime();
+				for (int round = 0; round < 100; round++) {
+					after = new HashRing(nodes(5), virtualNodes);
+				}
+				// The first pass warms up
+				build = (System.nanoTime() - start) / 100;
+			}
+
+			int moved = 0;
+			for (String key : keys) {
+				if (!after.ownerOf(key).equals(before.ownerOf(key))) {
+					moved++;
+				}
+			}
+			long lookup = 0;
+			for (int pass = 0; pass < 2; pass++) {
+				long start = System.nanoTime();
+				for (String key : keys) {
+					after.ownerOf(key);
+				}
+				lookup = (System.nanoTime() - start) / KEYS;
+			}
+
+			Map<String, Integer> load = load(after);
+			double fair = KEYS / 5.0;
+			System.out.printf("%8d %9.0f%% %9.0f%% %9.1f%% %12d %12d%n", virtualNodes,
+					100 * Collections.max(load.values()) / fair, 100 * Collections.min(load.values()) / fair,
+					100.0 * moved / KEYS, build / 1000, lookup);
+			// Whatever the spread, the keys that move all go to the new node
+			assertEquals(load.get(node(4)).intValue(), moved);
+		}
+	}
+
+	private Map<String, Integer> load(HashRing ring) {
+		Map<String, Integer> load = new HashMap<>();
+		for (String key : keys) {
+			load.merge(ring.ownerOf(key), 1, Integer::sum);
+		}
+		return load;
+	}
+
+	private static List<String> nodes(int count) {
+		List<String> nodes = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			nodes.add(node(i));
+		}
+		return nodes;
+	}
+
+	private static String node(int index) {
+		return "http://node-" + index + ":8080";
+	}
+
+	private static List<String> leagueIds(Random random) {
+		List<String> ids = new ArrayList<>();
+		for (int i = 0; i < KEYS; i++) {
+			ids.add(new UUID(random.nextLong(), random.nextLong()).toString());
+		}
+		return ids;
+	}
+}
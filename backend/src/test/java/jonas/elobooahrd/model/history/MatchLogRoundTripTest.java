@@ -0,0 +1,365 @@
+package jonas.elobooahrd.model.history;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jonas.elobooahrd.model.Dart;
+import jonas.elobooahrd.model.Tablefootball;
+import jonas.elobooahrd.model.index.MatchIndex;
+
+class MatchLogRoundTripTest {
+	private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 18, 30);
+	private static final int MATCHES = 250;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void tablefootballRowsRoundTripInMemory() {
+		TablefootballMatchLog log = new TablefootballMatchLog();
+		List<Tablefootball.Match> matches = tablefootballMatches(new Random(1), players(6));
+		for (Tablefootball.Match match : matches) {
+			log.append(match);
+		}
+		assertEquals(matches.size(), log.size());
+		assertEquals(matches, log.asList());
+	}
+
+	@Test
+	void tablefootballRowsRoundTripThroughSegments() throws Exception {
+		TablefootballMatchLog log = new TablefootballMatchLog();
+		log.enableTiering(new HistoryTiering(directory, 20, 10), directory);
+		MatchIndex index = new MatchIndex();
+		List<UUID> players = players(6);
+		List<Tablefootball.Match> matches = tablefootballMatches(new Random(2), players);
+		for (Tablefootball.Match match : matches) {
+			int row = log.append(match);
+			index.add(match.getTeam1Id(), row);
+			index.add(match.getTeam2Id(), row);
+			log.spillIfNeeded(index, Integer.MAX_VALUE);
+		}
+		assertTrue(log.getHotRowCount() <= 20);
+		assertTrue(log.getSegmentCount() > 0);
+
+		// Sealed segments are read from memory first, then from their files once written
+		assertTablefootballLog(log, index, matches, players);
+		awaitSegmentFiles(log, directory);
+		assertTablefootballLog(log, index, matches, players);
+	}
+
+	@Test
+	void dartRowsRoundTripWithVisits() {
+		DartMatchLog log = new DartMatchLog();
+		List<Dart.Match> matches = dartMatches(new Random(3), players(4));
+		for (Dart.Match match : matches) {
+			log.append(match);
+		}
+		assertEquals(matches, log.asList());
+	}
+
+	@Test
+	void dartRowsRoundTripThroughSegments() throws Exception {
+		DartMatchLog log = new DartMatchLog();
+		log.enableTiering(new HistoryTiering(directory, 20, 10), directory);
+		MatchIndex index = new MatchIndex();
+		List<Dart.Match> matches = dartMatches(new Random(4), players(4));
+		for (Dart.Match match : matches) {
+			int row = log.append(match);
+			index.add(match.getPlayer1Id(), row);
+			index.add(match.getPlayer2Id(), row);
+			log.spillIfNeeded(index, Integer.MAX_VALUE);
+		}
+		assertEquals(matches, log.asList());
+		awaitSegmentFiles(log, directory);
+		assertEquals(matches, log.asList());
+	}
+
+	@Test
+	void replayReusesTheSegmentFilesOfAnEarlierRun() throws Exception {
+		List<UUID> players = players(6);
+		List<Tablefootball.Match> matches = tablefootballMatches(new Random(5), players);
+		TablefootballMatchLog earlier = tieredTablefootballLog(directory, matches);
+		awaitSegmentFiles(earlier, directory);
+		Map<Path, Object> files = fileKeys(directory);
+
+		TablefootballMatchLog restarted = new TablefootballMatchLog();
+		restarted.enableTiering(new HistoryTiering(directory, 20, 10), directory);
+		assertEquals(earlier.getSegmentCount(), restarted.getStoredSegmentCount());
+		MatchIndex index = replay(restarted, matches);
+
+		// Every block matched a stored file, so nothing was written again
+		assertEquals(0, restarted.getStoredSegmentCount());
+		assertEquals(files, fileKeys(directory));
+		assertTablefootballLog(restarted, index, matches, players);
+	}
+
+	@Test
+	void storedSegmentsBeyondTheReplayedHistoryAreDiscarded() throws Exception {
+		List<Tablefootball.Match> matches = tablefootballMatches(new Random(6), players(6));
+		awaitSegmentFiles(tieredTablefootballLog(directory, matches), directory);
+
+		TablefootballMatchLog restarted = new TablefootballMatchLog();
+		restarted.enableTiering(new HistoryTiering(directory, 20, 10), directory);
+		replay(restarted, matches.subList(0, 100));
+		assertTrue(restarted.getStoredSegmentCount() > 0);
+		restarted.discardStoredSegments();
+
+		assertEquals(0, restarted.getStoredSegmentCount());
+		assertEquals(restarted.getSegmentCount(), fileKeys(directory).size());
+		assertEquals(matches.subList(0, 100), restarted.asList());
+	}
+
+	@Test
+	void divergingReplayRewritesTheStoredSegment() throws Exception {
+		List<UUID> players = players(6);
+		List<Tablefootball.Match> matches = tablefootballMatches(new Random(7), players);
+		awaitSegmentFiles(tieredTablefootballLog(directory, matches), directory);
+
+		// The database holds a different score for one match of the first segment
+		List<Tablefootball.Match> replayed = tablefootballMatches(new Random(7), players);
+		for (int i = 0; i < replayed.size(); i++) {
+			replayed.get(i).setId(matches.get(i).getId());
+		}
+		replayed.get(3).setTeam1Score(replayed.get(3).getTeam1Score() + 1);
+		TablefootballMatchLog restarted = new TablefootballMatchLog();
+		restarted.enableTiering(new HistoryTiering(directory, 20, 10), directory);
+		MatchIndex index = replay(restarted, replayed);
+
+		assertTablefootballLog(restarted, index, replayed, players);
+		awaitSegmentFiles(restarted, directory);
+		TablefootballMatchLog reopened = new TablefootballMatchLog();
+		reopened.enableTiering(new HistoryTiering(directory, 20, 10), directory);
+		replay(reopened, replayed);
+		assertEquals(0, reopened.getStoredSegmentCount());
+		assertEquals(replayed, reopened.asList());
+	}
+
+	@Test
+	void failedSegmentWriteIsRetried() throws Exception {
+		// A file in place of the segment directory makes the first writes fail
+		Path blocked = directory.resolve("blocked");
+		Files.writeString(blocked, "not a directory");
+		Path segmentDirectory = blocked.resolve("log");
+		List<Tablefootball.Match> matches = tablefootballMatches(new Random(8), players(6));
+		TablefootballMatchLog log = tieredTablefootballLog(segmentDirectory, matches);
+		Thread.sleep(200);
+		assertEquals(matches, log.asList());
+
+		Files.delete(blocked);
+		awaitSegmentFiles(log, segmentDirectory);
+		assertEquals(matches, log.asList());
+	}
+
+	@Test
+	void rewrittenDartRowKeepsOnlyTheNewestVisits() {
+		DartMatchLog log = new DartMatchLog();
+		List<UUID> players = players(2);
+		Dart.Match match = new Dart.Match(players.get(0), players.get(1), 501, Dart.DartVariant.X01);
+		match.setTimestamp(START);
+		int row = log.append(match);
+		for (int visit = 0; visit < 4; visit++) {
+			match.getPlayer1Scores().add(visit == 0 ? 180 : 60);
+			match.getPlayer2Scores().add(visit == 0 ? 0 : 100);
+			match.setPlayer1RemainingScore(match.getPlayer1RemainingScore() - match.getPlayer1Scores().get(visit));
+			match.setPlayer2RemainingScore(match.getPlayer2RemainingScore() - match.getPlayer2Scores().get(visit));
+			match.setPlayer1Darts(match.getPlayer1Darts() + 3);
+			match.setPlayer2Darts(match.getPlayer2Darts() + 3);
+			log.update(row, match);
+			assertEquals(match, log.get(row));
+		}
+	}
+
+	@Test
+	void segmentRoundTripsThroughItsFile() throws IOException {
+		UUID first = UUID.randomUUID();
+		UUID second = UUID.randomUUID();
+		long[] timestamps = {1_000, 2_000, 2_000, 5_000};
+		ByteArrayOutputStream block = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(block);
+		int[] recordOffsets = new int[timestamps.length];
+		for (int i = 0; i < timestamps.length; i++) {
+			recordOffsets[i] = out.size();
+			out.writeInt(i * 1000);
+			out.writeByte(180);
+		}
+		Path file = directory.resolve("0000000040.seg");
+		Map<UUID, int[]> rows = Map.of(first, new int[] {40, 42, 43}, second, new int[] {41});
+		MatchSegment segment = MatchSegment.seal(file, 40, timestamps, recordOffsets, block.toByteArray(),
+				block.size(), rows);
+
+		assertFalse(segment.isPersisted());
+		assertFalse(Files.exists(file));
+		assertSegment(segment, first, second);
+		segment.persist();
+		assertTrue(segment.isPersisted());
+		assertSegment(segment, first, second);
+		assertSegment(MatchSegment.open(file), first, second);
+
+		segment.delete();
+		assertFalse(Files.exists(file));
+	}
+
+	private static void assertSegment(MatchSegment segment, UUID first, UUID second) {
+		assertEquals(40, segment.getFirstRow());
+		assertEquals(4, segment.getRowCount());
+		assertEquals(1_000, segment.getMinTime());
+		assertEquals(5_000, segment.getMaxTime());
+		assertArrayEquals(new int[] {40, 42, 43}, segment.rowsOf(first));
+		assertArrayEquals(new int[] {41}, segment.rowsOf(second));
+		assertArrayEquals(new int[0], segment.rowsOf(UUID.randomUUID()));
+		assertEquals(41, segment.firstRowAtOrAfter(1_500));
+		assertEquals(44, segment.firstRowAtOrAfter(6_000));
+		for (int row = 40; row < 44; row++) {
+			ByteBuffer record = segment.record(row);
+			assertEquals((row - 40) * 1000, record.getInt());
+			assertEquals(180, record.get() & 0xFF);
+		}
+	}
+
+	private static void assertTablefootballLog(TablefootballMatchLog log, MatchIndex index,
+			List<Tablefootball.Match> matches, List<UUID> players) {
+		assertEquals(matches, log.asList());
+		for (UUID player : players) {
+			List<Integer> expected = new ArrayList<>();
+			for (int row = 0; row < matches.size(); row++) {
+				Tablefootball.Match match = matches.get(row);
+				if (player.equals(match.getTeam1Id()) || player.equals(match.getTeam2Id())) {
+					expected.add(row);
+				}
+			}
+			assertEquals(expected, toList(log.allRows(player, index)));
+			int[] recent = log.recentRows(player, 30, index);
+			for (int i = 0; i < recent.length; i++) {
+				assertEquals(expected.get(expected.size() - 1 - i), recent[i]);
+			}
+		}
+		// Rows of minute 25 to 200, spanning segments and the rows still in memory
+		assertEquals(toList(rangeRows(25, 200)), toList(log.rowsBetween(START.plusMinutes(25), START.plusMinutes(200))));
+	}
+
+	private static TablefootballMatchLog tieredTablefootballLog(Path directory, List<Tablefootball.Match> matches) {
+		TablefootballMatchLog log = new TablefootballMatchLog();
+		log.enableTiering(new HistoryTiering(directory, 20, 10), directory);
+		replay(log, matches);
+		return log;
+	}
+
+	private static MatchIndex replay(TablefootballMatchLog log, List<Tablefootball.Match> matches) {
+		MatchIndex index = new MatchIndex();
+		for (Tablefootball.Match match : matches) {
+			int row = log.append(match);
+			index.add(match.getTeam1Id(), row);
+			index.add(match.getTeam2Id(), row);
+			log.spillIfNeeded(index, Integer.MAX_VALUE);
+		}
+		return index;
+	}
+
+	// Segment files are written in the background
+	private static void awaitSegmentFiles(PackedMatchLog<?> log, Path directory) throws Exception {
+		for (long deadline = System.nanoTime() + 10_000_000_000L; System.nanoTime() < deadline; Thread.sleep(20)) {
+			if (Files.isDirectory(directory) && fileKeys(directory).size() == log.getSegmentCount()) {
+				return;
+			}
+		}
+		throw new AssertionError("Segments were not written to " + directory);
+	}
+
+	// Identifies the segment files by their inode, which changes whenever a file is written again
+	private static Map<Path, Object> fileKeys(Path directory) throws IOException {
+		Map<Path, Object> keys = new HashMap<>();
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Path file : (Iterable<Path>) files::iterator) {
+				if (file.toString().endsWith(".seg")) {
+					keys.put(file, Files.readAttributes(file, BasicFileAttributes.class).fileKey());
+				}
+			}
+		}
+		return keys;
+	}
+
+	private static int[] rangeRows(int from, int to) {
+		int[] rows = new int[to - from];
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = from + i;
+		}
+		return rows;
+	}
+
+	private static List<Integer> toList(int[] rows) {
+		List<Integer> list = new ArrayList<>(rows.length);
+		for (int row : rows) {
+			list.add(row);
+		}
+		return list;
+	}
+
+	private static List<UUID> players(int count) {
+		List<UUID> players = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			players.add(UUID.randomUUID());
+		}
+		return players;
+	}
+
+	private static List<Tablefootball.Match> tablefootballMatches(Random random, List<UUID> players) {
+		List<Tablefootball.Match> matches = new ArrayList<>();
+		for (int i = 0; i < MATCHES; i++) {
+			UUID first = players.get(random.nextInt(players.size()));
+			UUID second = players.get((players.indexOf(first) + 1 + random.nextInt(players.size() - 1)) % players.size());
+			Tablefootball.Match match = new Tablefootball.Match(first, second, random.nextInt(11), random.nextInt(11),
+					random.nextBoolean());
+			match.setTimestamp(START.plusMinutes(i));
+			matches.add(match);
+		}
+		return matches;
+	}
+
+	private static List<Dart.Match> dartMatches(Random random, List<UUID> players) {
+		List<Dart.Match> matches = new ArrayList<>();
+		for (int i = 0; i < MATCHES; i++) {
+			Dart.Match match = new Dart.Match(players.get(i % 2), players.get(2 + i % 2), 501, Dart.DartVariant.X01,
+					i % 3 != 0);
+			match.setTimestamp(START.plusMinutes(i));
+			// Some matches have no visits yet; the others mix one- and two-byte visit scores
+			int visits = i % 5 == 0 ? 0 : random.nextInt(12);
+			for (int visit = 0; visit < visits; visit++) {
+				match.getPlayer1Scores().add(random.nextInt(181));
+				if (visit < visits - 1) {
+					match.getPlayer2Scores().add(random.nextInt(181));
+				}
+			}
+			match.setPlayer1Darts(3 * match.getPlayer1Scores().size());
+			match.setPlayer2Darts(3 * match.getPlayer2Scores().size());
+			match.setPlayer1RemainingScore(Math.max(0, 501 - match.getPlayer1Scores().stream().mapToInt(Integer::intValue).sum()));
+			match.setPlayer2RemainingScore(Math.max(0, 501 - match.getPlayer2Scores().stream().mapToInt(Integer::intValue).sum()));
+			if (visits > 0 && random.nextBoolean()) {
+				match.setCompleted(true);
+				match.setWinnerId(match.getPlayer1Id());
+			}
+			matches.add(match);
+		}
+		return matches;
+	}
+}
@@ -0,0 +1,90 @@
+package jonas.elobooahrd.model.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import jonas.elobooahrd.model.Player;
+import jonas.elobooahrd.model.Tablefootball;
+import jonas.elobooahrd.model.Team;
+
+class DuoSynergyIndexTest {
+	private final DuoSynergyIndex index = new DuoSynergyIndex();
+	private final Player anna = new Player("Anna", null);
+	private final Player ben = new Player("Ben", null);
+	private final Player carl = new Player("Carl", null);
+	private final Player dora = new Player("Dora", null);
+
+	@Test
+	void partnersShareOneRecord() {
+		index.record(List.of(anna, ben), true, 0.25);
+		index.record(List.of(ben, anna), false, 0.25);
+
+		DuoSynergyIndex.Pair pair = index.get(anna.getId(), ben.getId());
+		assertSame(pair, index.get(ben.getId(), anna.getId()));
+		assertEquals(2, pair.getGames());
+		assertEquals(1, pair.getWins());
+		assertEquals(1, pair.getLosses());
+		assertEquals(ben.getId(), pair.getPartnerOf(anna.getId()));
+		assertEquals(anna.getId(), pair.getPartnerOf(ben.getId()));
+		// (1 - 0.25) + (0 - 0.25) over two games
+		assertEquals(0.25, pair.getSynergy(), 1e-9);
+		assertNull(index.get(anna.getId(), carl.getId()));
+	}
+
+	@Test
+	void everyPairOfALargerTeamIsRecorded() {
+		index.record(List.of(anna, ben, carl), true, 0.5);
+
+		assertEquals(3, index.strongestDuos(1, 10).size());
+		assertEquals(1, index.get(ben.getId(), carl.getId()).getGames());
+		assertEquals(2, index.bestPartners(anna.getId(), 1, 10).size());
+	}
+
+	@Test
+	void partnersAreRankedBySynergyAboveTheMinimumGames() {
+		// Anna and Ben beat the odds twice, Anna and Carl win as expected, Anna and Dora only played once
+		index.record(List.of(anna, ben), true, 0.3);
+		index.record(List.of(anna, ben), true, 0.3);
+		index.record(List.of(anna, carl), true, 0.9);
+		index.record(List.of(anna, carl), false, 0.1);
+		index.record(List.of(anna, dora), true, 0.0);
+
+		List<DuoSynergyIndex.Pair> partners = index.bestPartners(anna.getId(), 2, 10);
+		assertEquals(List.of(ben.getId(), carl.getId()),
+				partners.stream().map(pair -> pair.getPartnerOf(anna.getId())).toList());
+		assertEquals(0.7, partners.get(0).getSynergy(), 1e-9);
+		assertEquals(0.0, partners.get(1).getSynergy(), 1e-9);
+		assertEquals(dora.getId(), index.strongestDuos(1, 1).get(0).getPartnerOf(anna.getId()));
+		assertTrue(index.bestPartners(anna.getId(), 3, 10).isEmpty());
+		assertTrue(index.bestPartners(carl.getId(), 1, 0).isEmpty());
+	}
+
+	@Test
+	void teamMatchesCompareTheResultWithTheRatingsBefore() {
+		Tablefootball game = new Tablefootball("Kicker", "Table football");
+		anna.setEloRating(game.getId(), 1200);
+		ben.setEloRating(game.getId(), 1200);
+		carl.setEloRating(game.getId(), 1000);
+		dora.setEloRating(game.getId(), 1000);
+		Team favourites = new Team("Favourites", game.getId(), List.of(anna, ben));
+		Team underdogs = new Team("Underdogs", game.getId(), List.of(carl, dora));
+		// The favourites were expected to score this much, which the upset moves to the underdogs
+		double favouritesExpected = 1 / (1 + Math.pow(10, -200 / 400.0));
+
+		game.recordTeamMatch(underdogs, favourites);
+
+		DuoSynergyIndex.Pair winners = game.getBestPartners(carl.getId(), 1, 1).get(0);
+		DuoSynergyIndex.Pair losers = game.getBestPartners(anna.getId(), 1, 1).get(0);
+		assertEquals(dora.getId(), winners.getPartnerOf(carl.getId()));
+		assertEquals(1, winners.getWins());
+		assertEquals(favouritesExpected, winners.getSynergy(), 1e-9);
+		assertEquals(-favouritesExpected, losers.getSynergy(), 1e-9);
+		assertEquals(List.of(winners, losers), game.getStrongestDuos(1, 10));
+	}
+}
@@ -0,0 +1,97 @@
+package jonas.elobooahrd.model.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import jonas.elobooahrd.model.Player;
+import jonas.elobooahrd.model.Tablefootball;
+
+class HeadToHeadIndexTest {
+	private final HeadToHeadIndex index = new HeadToHeadIndex();
+	private final UUID anna = UUID.randomUUID();
+	private final UUID ben = UUID.randomUUID();
+	private final UUID carl = UUID.randomUUID();
+
+	@Test
+	void bothPlayersSeeTheMatchFromTheirSide() {
+		index.record(anna, ben, 10, 4, 1000);
+		index.record(ben, anna, 10, 8, 2000);
+		index.record(anna, ben, 10, 9, 1500);
+
+		HeadToHeadIndex.Record annaVsBen = index.get(anna, ben);
+		assertEquals(ben, annaVsBen.getOpponentId());
+		assertEquals(2, annaVsBen.getWins());
+		assertEquals(1, annaVsBen.getLosses());
+		assertEquals(28, annaVsBen.getGoalsFor());
+		assertEquals(23, annaVsBen.getGoalsAgainst());
+		assertEquals(2000, annaVsBen.getLastPlayed());
+
+		HeadToHeadIndex.Record benVsAnna = index.get(ben, anna);
+		assertEquals(1, benVsAnna.getWins());
+		assertEquals(2, benVsAnna.getLosses());
+		assertEquals(23, benVsAnna.getGoalsFor());
+		assertEquals(28, benVsAnna.getGoalsAgainst());
+		assertNull(index.get(anna, carl));
+		assertNull(index.get(carl, anna));
+	}
+
+	@Test
+	void rivalsAreOrderedByMatchesThenRecency() {
+		UUID dora = UUID.randomUUID();
+		index.record(anna, ben, 10, 4, 1000);
+		index.record(anna, ben, 10, 4, 1100);
+		index.record(anna, carl, 10, 4, 3000);
+		index.record(anna, dora, 10, 4, 2000);
+
+		List<HeadToHeadIndex.Record> rivals = index.rivals(anna, 10);
+		assertEquals(List.of(ben, carl, dora), rivals.stream().map(HeadToHeadIndex.Record::getOpponentId).toList());
+		assertEquals(2, index.rivals(anna, 2).size());
+		assertTrue(index.rivals(anna, 0).isEmpty());
+		assertEquals(List.of(anna), index.rivals(dora, 10).stream().map(HeadToHeadIndex.Record::getOpponentId).toList());
+	}
+
+	@Test
+	void recordsMatchARecountOfTheHistory() {
+		Tablefootball game = new Tablefootball("Kicker", "Table football");
+		List<Player> players = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			players.add(new Player("Player " + i, null));
+		}
+		int[][] wins = new int[6][6];
+		int[][] goals = new int[6][6];
+		Random random = new Random(39);
+		for (int round = 0; round < 1000; round++) {
+			int first = random.nextInt(6);
+			int second = (first + 1 + random.nextInt(5)) % 6;
+			int firstScore = random.nextBoolean() ? 10 : random.nextInt(10);
+			int secondScore = firstScore == 10 ? random.nextInt(10) : 10;
+			game.recordMatch(players.get(first), players.get(second), firstScore, secondScore);
+			wins[firstScore > secondScore ? first : second][firstScore > secondScore ? second : first]++;
+			goals[first][second] += firstScore;
+			goals[second][first] += secondScore;
+		}
+
+		for (int i = 0; i < 6; i++) {
+			for (int j = 0; j < 6; j++) {
+				HeadToHeadIndex.Record record = game.getHeadToHead(players.get(i).getId(), players.get(j).getId());
+				if (i == j) {
+					assertNull(record);
+					continue;
+				}
+				assertEquals(wins[i][j], record.getWins(), i + " against " + j);
+				assertEquals(wins[j][i], record.getLosses(), i + " against " + j);
+				assertEquals(goals[i][j], record.getGoalsFor(), i + " against " + j);
+				assertEquals(goals[j][i], record.getGoalsAgainst(), i + " against " + j);
+			}
+			assertEquals(5, game.getRivals(players.get(i).getId(), 10).size());
+		}
+	}
+}
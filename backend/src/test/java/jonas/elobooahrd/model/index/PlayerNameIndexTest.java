@@ -0,0 +1,83 @@
+package jonas.elobooahrd.model.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+class PlayerNameIndexTest {
+	private final PlayerNameIndex index = new PlayerNameIndex();
+	private final UUID first = UUID.randomUUID();
+	private final UUID second = UUID.randomUUID();
+
+	@Test
+	void lookupsIgnoreCaseAndSurroundingSpaces() {
+		index.add(first, "Anna Schmidt", "Anna@Example.com");
+
+		assertEquals(first, index.findByName(" anna schmidt "));
+		assertEquals(first, index.findByEmail("anna@example.COM"));
+		assertNull(index.findByName("Anna"));
+		assertNull(index.findByName(" "));
+	}
+
+	@Test
+	void removingTheIndexedPlayerPromotesTheNextWithTheSameName() {
+		index.add(first, "Anna", "anna@example.com");
+		index.add(second, "ANNA", "anna@example.com");
+		UUID indexed = index.findByName("anna");
+
+		index.remove(indexed, "anna", "anna@example.com");
+		UUID other = indexed.equals(first) ? second : first;
+		assertEquals(other, index.findByName("Anna"));
+		assertEquals(other, index.findByEmail("anna@example.com"));
+
+		index.remove(other, "Anna", "anna@example.com");
+		assertNull(index.findByName("Anna"));
+		assertNull(index.findByEmail("anna@example.com"));
+	}
+
+	@Test
+	void renamingTheIndexedPlayerPromotesTheNext() {
+		index.add(first, "Anna", "anna@example.com");
+		index.add(second, "Anna", "anna@example.com");
+		UUID indexed = index.findByName("Anna");
+		UUID other = indexed.equals(first) ? second : first;
+
+		index.update(indexed, "Anna", "anna@example.com", "Hanna", "hanna@example.com");
+		assertEquals(other, index.findByName("Anna"));
+		assertEquals(other, index.findByEmail("anna@example.com"));
+		assertEquals(indexed, index.findByName("hanna"));
+		assertEquals(indexed, index.findByEmail("hanna@example.com"));
+	}
+
+	@Test
+	void removingAnotherHolderKeepsTheIndexedPlayer() {
+		index.add(first, "Anna", "anna@example.com");
+		index.add(second, "Anna", "anna@example.com");
+		UUID indexed = index.findByName("Anna");
+		UUID other = indexed.equals(first) ? second : first;
+
+		index.remove(other, "Anna", "anna@example.com");
+		assertEquals(indexed, index.findByName("Anna"));
+		assertEquals(indexed, index.findByEmail("anna@example.com"));
+	}
+
+	@Test
+	void prefixSearchReturnsMatchesInNameOrderUpToTheLimit() {
+		UUID bert = UUID.randomUUID();
+		UUID ben = UUID.randomUUID();
+		index.add(first, "Anna", null);
+		index.add(bert, "Bert", null);
+		index.add(ben, "ben", null);
+		index.add(second, "Bernd", null);
+
+		assertEquals(List.of(ben, second, bert), index.searchByPrefix("BE", 10));
+		assertEquals(List.of(ben, second), index.searchByPrefix("be", 2));
+		assertEquals(List.of(second, bert), index.searchByPrefix("ber", 10));
+		assertEquals(List.of(), index.searchByPrefix("c", 10));
+		assertEquals(4, index.searchByPrefix("", 10).size());
+	}
+}
@@ -0,0 +1,113 @@
+package jonas.elobooahrd.model.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import jonas.elobooahrd.model.GameContainer;
+import jonas.elobooahrd.model.Player;
+import jonas.elobooahrd.model.Tablefootball;
+
+class RatingIndexTest {
+	private static final UUID GAME = UUID.randomUUID();
+
+	@Test
+	void rangeIsOrderedByRatingAndInclusive() {
+		RatingIndex index = new RatingIndex();
+		Map<UUID, Integer> ratings = new HashMap<>();
+		Random random = new Random(29);
+		for (int i = 0; i < 200; i++) {
+			UUID playerId = UUID.randomUUID();
+			// Few distinct ratings, so most of them are shared
+			int rating = 950 + 10 * random.nextInt(10);
+			ratings.put(playerId, rating);
+			index.update(GAME, playerId, null, rating);
+		}
+
+		List<UUID> range = index.playersInRange(GAME, 980, 1010);
+		long expected = ratings.values().stream().filter(rating -> rating >= 980 && rating <= 1010).count();
+		assertEquals(expected, range.size());
+		for (int i = 1; i < range.size(); i++) {
+			assertTrue(ratings.get(range.get(i - 1)) >= ratings.get(range.get(i)));
+		}
+		assertEquals(200, index.playersInGame(GAME).size());
+		assertEquals(List.of(), index.playersInRange(GAME, 1010, 980));
+		assertEquals(List.of(), index.playersInRange(UUID.randomUUID(), 0, 2000));
+	}
+
+	@Test
+	void pagesWalkTheRangeWithoutGapsOrRepeats() {
+		RatingIndex index = new RatingIndex();
+		Map<UUID, Integer> ratings = new HashMap<>();
+		Random random = new Random(30);
+		for (int i = 0; i < 500; i++) {
+			UUID playerId = UUID.randomUUID();
+			int rating = 900 + random.nextInt(20);
+			ratings.put(playerId, rating);
+			index.update(GAME, playerId, null, rating);
+		}
+
+		for (int limit : new int[] {1, 7, 50, 1000}) {
+			List<UUID> paged = new ArrayList<>();
+			RatingIndex.Entry after = null;
+			List<UUID> page;
+			do {
+				page = index.playersInRange(GAME, 905, 914, after, limit);
+				assertTrue(page.size() <= limit);
+				paged.addAll(page);
+				if (!page.isEmpty()) {
+					UUID last = page.get(page.size() - 1);
+					after = new RatingIndex.Entry(ratings.get(last), last);
+				}
+			} while (page.size() == limit);
+			assertEquals(index.playersInRange(GAME, 905, 914), paged, "limit " + limit);
+		}
+	}
+
+	@Test
+	void pageAfterAnEntryOutsideTheRange() {
+		RatingIndex index = new RatingIndex();
+		UUID high = UUID.randomUUID();
+		UUID low = UUID.randomUUID();
+		index.update(GAME, high, null, 1100);
+		index.update(GAME, low, null, 900);
+
+		// A cursor above the range starts at its top, one below it yields nothing
+		assertEquals(List.of(high, low), index.playersInRange(GAME, 800, 1200, new RatingIndex.Entry(1300, low), 10));
+		assertEquals(List.of(), index.playersInRange(GAME, 800, 1200, new RatingIndex.Entry(700, high), 10));
+	}
+
+	@Test
+	void containerPagesFollowRatingChanges() {
+		GameContainer container = new GameContainer("Test");
+		Tablefootball game = (Tablefootball) container.addGame(new Tablefootball("Kicker", "Table football"));
+		List<Player> players = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			Player player = new Player("Player " + i, null);
+			player.setEloRating(game.getId(), 1000 + 10 * i);
+			players.add(container.addPlayer(player));
+		}
+
+		// Moving the top player to the bottom of the range is seen by the next query
+		players.get(9).setEloRating(game.getId(), 995);
+		List<Player> firstPage = container.getPlayersInRatingRange(game.getId(), 990, 1100, null, 5);
+		assertEquals(List.of(players.get(8), players.get(7), players.get(6), players.get(5), players.get(4)),
+				firstPage);
+		Player last = firstPage.get(4);
+		List<Player> secondPage = container.getPlayersInRatingRange(game.getId(), 990, 1100,
+				new RatingIndex.Entry(last.getEloRating(game.getId()), last.getId()), 5);
+		assertEquals(List.of(players.get(3), players.get(2), players.get(1), players.get(0), players.get(9)),
+				secondPage);
+
+		container.removePlayer(players.get(0).getId());
+		assertEquals(9, container.getLeaderboard(game.getId()).size());
+	}
+}
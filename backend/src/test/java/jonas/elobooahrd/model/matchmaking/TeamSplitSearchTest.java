@@ -0,0 +1,127 @@
+package jonas.elobooahrd.model.matchmaking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class TeamSplitSearchTest {
+	private static final int LIMIT = 5;
+
+	@Test
+	void randomLobbiesMatchBruteForce() {
+		Random random = new Random(42);
+		for (int n = 2; n <= 12; n++) {
+			for (int round = 0; round < 20; round++) {
+				int[] ratings = new int[n];
+				for (int i = 0; i < n; i++) {
+					ratings[i] = 800 + random.nextInt(800);
+				}
+				assertAllSizesMatchBruteForce(ratings);
+			}
+		}
+	}
+
+	@Test
+	void tiedRatingsMatchBruteForce() {
+		Random random = new Random(7);
+		for (int n = 2; n <= 12; n++) {
+			int[] equal = new int[n];
+			Arrays.fill(equal, 1000);
+			assertAllSizesMatchBruteForce(equal);
+
+			int[] fewLevels = new int[n];
+			for (int i = 0; i < n; i++) {
+				fewLevels[i] = 1000 + 100 * random.nextInt(3);
+			}
+			assertAllSizesMatchBruteForce(fewLevels);
+		}
+	}
+
+	@Test
+	void limitAboveSplitCountReturnsEverySplit() {
+		int[] ratings = {1200, 1100, 1000, 900, 800};
+		TeamSplitSearch.Result result = new TeamSplitSearch(ratings).search(2, 100, farDeadline());
+		assertEquals(bruteForceScores(ratings, 2).size(), result.splits().size());
+		assertTrue(result.exhaustive());
+	}
+
+	@Test
+	void invalidLobbiesAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> new TeamSplitSearch(new int[] {1000}));
+		assertThrows(IllegalArgumentException.class,
+				() -> new TeamSplitSearch(new int[TeamSplitSearch.MAX_PLAYERS + 1]));
+		TeamSplitSearch search = new TeamSplitSearch(new int[] {1000, 1000, 1000});
+		assertThrows(IllegalArgumentException.class, () -> search.search(0, LIMIT, farDeadline()));
+		assertThrows(IllegalArgumentException.class, () -> search.search(3, LIMIT, farDeadline()));
+		assertTrue(search.search(1, 0, farDeadline()).splits().isEmpty());
+	}
+
+	private static void assertAllSizesMatchBruteForce(int[] ratings) {
+		int n = ratings.length;
+		TeamSplitSearch search = new TeamSplitSearch(ratings);
+		for (int team1Size = 1; team1Size < n; team1Size++) {
+			TeamSplitSearch.Result result = search.search(team1Size, LIMIT, farDeadline());
+			String lobby = Arrays.toString(ratings) + ", team 1 of " + team1Size;
+			assertTrue(result.exhaustive(), lobby);
+
+			List<Long> expected = bruteForceScores(ratings, team1Size);
+			expected = expected.subList(0, Math.min(LIMIT, expected.size()));
+			List<Long> actual = new ArrayList<>();
+			Set<Integer> seen = new HashSet<>();
+			int all = (1 << n) - 1;
+			for (TeamSplitSearch.Split split : result.splits()) {
+				assertEquals(team1Size, Integer.bitCount(split.team1Mask()), lobby);
+				assertEquals(score(ratings, split.team1Mask()), split.score(), lobby);
+				// Each split is reported once, also when the teams could be swapped
+				assertTrue(seen.add(split.team1Mask()), lobby);
+				assertTrue(team1Size * 2 != n || !seen.contains(all & ~split.team1Mask()), lobby);
+				actual.add(split.score());
+			}
+			assertEquals(expected, actual, lobby);
+		}
+	}
+
+	// The scores of all distinct splits, fairest first; with equal team sizes a split and its mirror count once
+	private static List<Long> bruteForceScores(int[] ratings, int team1Size) {
+		int n = ratings.length;
+		int all = (1 << n) - 1;
+		List<Long> scores = new ArrayList<>();
+		for (int mask = 1; mask < all; mask++) {
+			if (Integer.bitCount(mask) != team1Size) {
+				continue;
+			}
+			if (team1Size * 2 == n && (all & ~mask) < mask) {
+				continue;
+			}
+			scores.add(score(ratings, mask));
+		}
+		scores.sort(null);
+		return scores;
+	}
+
+	private static long score(int[] ratings, int team1Mask) {
+		int n = ratings.length;
+		long total = 0;
+		long sum1 = 0;
+		for (int i = 0; i < n; i++) {
+			total += ratings[i];
+			if ((team1Mask & (1 << i)) != 0) {
+				sum1 += ratings[i];
+			}
+		}
+		return Math.abs(sum1 * n - total * Integer.bitCount(team1Mask));
+	}
+
+	private static long farDeadline() {
+		return System.nanoTime() + 60_000_000_000L;
+	}
+}
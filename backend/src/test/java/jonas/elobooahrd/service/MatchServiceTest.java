@@ -0,0 +1,192 @@
+package jonas.elobooahrd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import jonas.elobooahrd.dto.ChangeEventDTO;
+import jonas.elobooahrd.dto.MatchDTO;
+import jonas.elobooahrd.model.Dart;
+import jonas.elobooahrd.model.GameContainer;
+import jonas.elobooahrd.model.LeagueRegistry;
+import jonas.elobooahrd.model.Player;
+import jonas.elobooahrd.model.Tablefootball;
+
+class MatchServiceTest {
+
+	private GameContainer container;
+	private ChangeFeedService changeFeedService;
+	private MatchService matchService;
+	private Tablefootball tablefootball;
+	private Player alice;
+	private Player bob;
+	private Player carol;
+	private Player dave;
+
+	@BeforeEach
+	void setUp() {
+		container = new GameContainer("Test");
+		LeagueRegistry registry = new LeagueRegistry(container, null, null);
+		changeFeedService = new ChangeFeedService(registry, "", 1000);
+		matchService = new MatchService(new GameService(registry, changeFeedService), changeFeedService);
+		tablefootball = (Tablefootball) container.addGame(new Tablefootball("Kicker", "Table football"));
+		alice = container.addPlayer(new Player("Alice", "alice@example.com"));
+		bob = container.addPlayer(new Player("Bob", "bob@example.com"));
+		carol = container.addPlayer(new Player("Carol", "carol@example.com"));
+		dave = container.addPlayer(new Player("Dave", "dave@example.com"));
+	}
+
+	@Test
+	void teamMatchCreatesAndPublishesBothTeams() {
+		assertTrue(matchService.recordMatch(teamMatch(List.of(alice.getId(), bob.getId()),
+				List.of(carol.getId(), dave.getId()))));
+
+		assertEquals(2, tablefootball.getAllTeams().size());
+		assertNotNull(tablefootball.findTeam(List.of(alice, bob)));
+		assertNotNull(tablefootball.findTeam(List.of(carol, dave)));
+		assertEquals(2, countEvents(ChangeEventDTO.Type.TEAM_CREATED));
+		assertEquals(1, countEvents(ChangeEventDTO.Type.MATCH_RECORDED));
+	}
+
+	@Test
+	void invalidLoserLeavesNoWinnerTeamBehind() {
+		assertFalse(matchService.recordMatch(teamMatch(List.of(alice.getId(), bob.getId()),
+				List.of(carol.getId(), UUID.randomUUID()))));
+
+		assertTrue(tablefootball.getAllTeams().isEmpty());
+		assertEquals(0, countEvents(ChangeEventDTO.Type.TEAM_CREATED));
+	}
+
+	@Test
+	void unknownLoserTeamLeavesNoWinnerTeamBehind() {
+		MatchDTO match = teamMatch(List.of(alice.getId(), bob.getId()), null);
+		match.setLoserTeamId(UUID.randomUUID());
+
+		assertFalse(matchService.recordMatch(match));
+		assertTrue(tablefootball.getAllTeams().isEmpty());
+		assertEquals(0, countEvents(ChangeEventDTO.Type.TEAM_CREATED));
+	}
+
+	@Test
+	void sameNewTeamOnBothSidesIsRejected() {
+		assertFalse(matchService.recordMatch(teamMatch(List.of(alice.getId(), bob.getId()),
+				List.of(bob.getId(), alice.getId()))));
+
+		assertTrue(tablefootball.getAllTeams().isEmpty());
+		assertEquals(0, countEvents(ChangeEventDTO.Type.TEAM_CREATED));
+	}
+
+	@Test
+	void existingTeamIsReusedAfterItsMembersChange() {
+		assertTrue(matchService.recordMatch(teamMatch(List.of(alice.getId(), bob.getId()),
+				List.of(carol.getId(), dave.getId()))));
+		var team = tablefootball.findTeam(List.of(alice, bob));
+		team.setPlayers(List.of(alice, dave));
+
+		// The old members no longer find the team, the new ones do
+		assertEquals(null, tablefootball.findTeam(List.of(alice, bob)));
+		assertSame(team, tablefootball.findTeam(List.of(dave, alice)));
+		team.removePlayer(dave.getId());
+		team.addPlayer(carol);
+		assertSame(team, tablefootball.findTeam(List.of(alice, carol)));
+		assertEquals(null, tablefootball.findTeam(List.of(alice, dave)));
+	}
+
+	@Test
+	void freeForAllChangesSumToZeroInFinishingOrder() {
+		Dart darts = (Dart) container.addGame(new Dart("Darts", "Free-for-all"));
+		for (int count = 3; count <= 8; count++) {
+			List<Player> players = new ArrayList<>();
+			for (int i = 0; i < count; i++) {
+				players.add(container.addPlayer(new Player("FFA " + count + "-" + i, null)));
+			}
+			int[] before = ratings(players, darts.getId());
+			assertTrue(matchService.recordMatch(freeForAll(darts.getId(), players)));
+
+			int[] after = ratings(players, darts.getId());
+			int sum = 0;
+			for (int i = 0; i < count; i++) {
+				sum += after[i] - before[i];
+				if (i > 0) {
+					assertTrue(after[i] < after[i - 1], "N = " + count);
+				}
+			}
+			assertEquals(0, sum, "N = " + count);
+		}
+	}
+
+	@Test
+	void freeForAllWithUnknownOrRepeatedPlayersIsRejected() {
+		Dart darts = (Dart) container.addGame(new Dart("Darts", "Free-for-all"));
+		MatchDTO repeated = freeForAll(darts.getId(), List.of(alice, bob, alice));
+		assertFalse(matchService.recordMatch(repeated));
+
+		MatchDTO unknown = freeForAll(darts.getId(), List.of(alice, bob));
+		unknown.setFinishingOrder(List.of(alice.getId(), bob.getId(), UUID.randomUUID()));
+		assertFalse(matchService.recordMatch(unknown));
+		assertEquals(1000, alice.getEloRating(darts.getId()));
+		assertEquals(0, countEvents(ChangeEventDTO.Type.MATCH_RECORDED));
+	}
+
+	@Test
+	void freeForAllRecordTimeByPlayerCount() {
+		Dart darts = (Dart) container.addGame(new Dart("Darts", "Free-for-all"));
+		List<Player> players = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			players.add(container.addPlayer(new Player("Timed " + i, null)));
+		}
+		// Includes the write lock, validation, rating listeners and the change feed
+		System.out.printf("%8s %14s%n", "Players", "ns per match");
+		for (int count = 2; count <= 8; count++) {
+			MatchDTO match = freeForAll(darts.getId(), players.subList(0, count));
+			int rounds = 20_000;
+			long elapsed = 0;
+			for (int pass = 0; pass < 2; pass++) {
+				long start = System.nanoTime();
+				for (int round = 0; round < rounds; round++) {
+					Collections.rotate(match.getFinishingOrder(), 1);
+					matchService.recordMatch(match);
+				}
+				// The first pass warms up
+				elapsed = System.nanoTime() - start;
+			}
+			System.out.printf("%8d %14d%n", count, elapsed / rounds);
+		}
+	}
+
+	private MatchDTO freeForAll(UUID gameId, List<Player> finishingOrder) {
+		MatchDTO match = new MatchDTO();
+		match.setGameId(gameId);
+		match.setFinishingOrder(new ArrayList<>(finishingOrder.stream().map(Player::getId).toList()));
+		return match;
+	}
+
+	private static int[] ratings(List<Player> players, UUID gameId) {
+		return players.stream().mapToInt(player -> player.getEloRating(gameId)).toArray();
+	}
+
+	private MatchDTO teamMatch(List<UUID> winnerIds, List<UUID> loserIds) {
+		MatchDTO match = new MatchDTO();
+		match.setGameId(tablefootball.getId());
+		match.setTeamMatch(true);
+		match.setWinnerIds(winnerIds);
+		match.setLoserIds(loserIds);
+		return match;
+	}
+
+	private long countEvents(ChangeEventDTO.Type type) {
+		return changeFeedService.getChanges(0, 1000).getEvents().stream()
+				.filter(event -> event.getType() == type)
+				.count();
+	}
+}
@@ -0,0 +1,145 @@
+package jonas.elobooahrd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import jonas.elobooahrd.ElobooahrdApplication;
+import jonas.elobooahrd.dto.GameDTO;
+import jonas.elobooahrd.dto.MatchDTO;
+import jonas.elobooahrd.dto.PersistenceStatusDTO;
+import jonas.elobooahrd.dto.PlayerDTO;
+import jonas.elobooahrd.dto.TeamDTO;
+
+class PersistenceServiceTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void leaguesAreRestoredByReplayingTheirMatches() {
+		String url = "jdbc:h2:file:" + directory.resolve("elobooahrd");
+		GameDTO game;
+		List<PlayerDTO> players = new ArrayList<>();
+		List<MatchDTO> history;
+		Map<UUID, Map<UUID, Integer>> ratings;
+		List<TeamDTO> teams;
+
+		// The interval is long, so everything is written by the flush on shutdown
+		try (ConfigurableApplicationContext context = start(url)) {
+			GameService gameService = context.getBean(GameService.class);
+			PlayerService playerService = context.getBean(PlayerService.class);
+			MatchService matchService = context.getBean(MatchService.class);
+
+			GameDTO newGame = new GameDTO();
+			newGame.setName("Kicker");
+			newGame.setType("Tablefootball");
+			game = gameService.createGame(newGame);
+			for (String name : List.of("Anna", "Ben", "Cem", "Dana")) {
+				PlayerDTO player = new PlayerDTO();
+				player.setName(name);
+				players.add(playerService.createPlayer(player));
+			}
+			for (int i = 0; i < 12; i++) {
+				MatchDTO match = new MatchDTO();
+				match.setGameId(game.getId());
+				match.setWinnerIds(List.of(players.get(i % 4).getId()));
+				match.setLoserIds(List.of(players.get((i + 1 + i / 4) % 4).getId()));
+				match.setWinnerScores(List.of(10));
+				match.setLoserScores(List.of(i % 10));
+				assertTrue(matchService.recordMatch(match));
+			}
+			MatchDTO teamMatch = new MatchDTO();
+			teamMatch.setGameId(game.getId());
+			teamMatch.setTeamMatch(true);
+			teamMatch.setWinnerIds(List.of(players.get(0).getId(), players.get(1).getId()));
+			teamMatch.setLoserIds(List.of(players.get(2).getId(), players.get(3).getId()));
+			teamMatch.setWinnerScores(List.of(10));
+			teamMatch.setLoserScores(List.of(7));
+			assertTrue(matchService.recordMatch(teamMatch));
+
+			history = matchService.getMatchHistory(game.getId());
+			ratings = ratingsOf(playerService);
+			teams = gameService.getTeams(game.getId(), 10).orElseThrow();
+		}
+		assertEquals(13, history.size());
+		assertEquals(2, teams.size());
+
+		try (ConfigurableApplicationContext context = start(url)) {
+			GameService gameService = context.getBean(GameService.class);
+			PlayerService playerService = context.getBean(PlayerService.class);
+			MatchService matchService = context.getBean(MatchService.class);
+
+			assertEquals(game, gameService.getGame(game.getId()).orElseThrow());
+			assertEquals(history, matchService.getMatchHistory(game.getId()));
+			assertEquals(ratings, ratingsOf(playerService));
+			assertEquals(teams, gameService.getTeams(game.getId(), 10).orElseThrow());
+		}
+	}
+
+	@Test
+	void flushLagAndFailuresAreReported() throws Exception {
+		String url = "jdbc:h2:file:" + directory.resolve("status");
+		try (ConfigurableApplicationContext context = start(url)) {
+			PersistenceService persistenceService = context.getBean(PersistenceService.class);
+			PlayerService playerService = context.getBean(PlayerService.class);
+			persistenceService.flush();
+			PersistenceStatusDTO status = persistenceService.getStatus();
+			assertTrue(status.isEnabled());
+			assertEquals(0, status.getLagEvents());
+			assertEquals(0, status.getLagMillis());
+			assertNotNull(status.getLastFlush());
+
+			PlayerDTO player = new PlayerDTO();
+			player.setName("Anna");
+			playerService.createPlayer(player);
+			assertEquals(1, persistenceService.getStatus().getLagEvents());
+
+			// Without the players table every flush fails and the lag remains
+			try (Connection connection = DriverManager.getConnection(url, "sa", "");
+					Statement statement = connection.createStatement()) {
+				statement.execute("ALTER TABLE players RENAME TO players_moved");
+				persistenceService.flush();
+				persistenceService.flush();
+				status = persistenceService.getStatus();
+				assertEquals(2, status.getConsecutiveFailures());
+				assertEquals(1, status.getLagEvents());
+
+				statement.execute("ALTER TABLE players_moved RENAME TO players");
+			}
+			persistenceService.flush();
+			status = persistenceService.getStatus();
+			assertEquals(0, status.getConsecutiveFailures());
+			assertEquals(0, status.getLagEvents());
+			assertEquals(status.getLatestSequence(), status.getFlushedSequence());
+		}
+	}
+
+	private static Map<UUID, Map<UUID, Integer>> ratingsOf(PlayerService playerService) {
+		return playerService.getAllPlayers().stream()
+				.collect(Collectors.toMap(PlayerDTO::getId, PlayerDTO::getEloRatings));
+	}
+
+	private static ConfigurableApplicationContext start(String url) {
+		return new SpringApplicationBuilder(ElobooahrdApplication.class)
+				.web(WebApplicationType.NONE)
+				// The first scheduled flush starts after one interval, so the tests flush on their own
+				.run("--elobooahrd.persistence.url=" + url, "--elobooahrd.persistence.flush-interval=1h");
+	}
+}
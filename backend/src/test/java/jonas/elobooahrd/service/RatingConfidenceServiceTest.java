@@ -0,0 +1,115 @@
+package jonas.elobooahrd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import jonas.elobooahrd.model.GameContainer;
+import jonas.elobooahrd.model.LeagueRegistry;
+import jonas.elobooahrd.model.Player;
+import jonas.elobooahrd.model.Tablefootball;
+
+class RatingConfidenceServiceTest {
+	private static final int REFRESH_AFTER = 10;
+
+	private GameContainer container;
+	private LeagueRegistry registry;
+	private RatingConfidenceService confidenceService;
+	private Tablefootball tablefootball;
+	private final List<Player> players = new ArrayList<>();
+	private final Random random = new Random(45);
+
+	@BeforeEach
+	void setUp() {
+		container = new GameContainer("Test");
+		registry = new LeagueRegistry(container, null, null);
+		confidenceService = new RatingConfidenceService(registry, 50, 0.9, REFRESH_AFTER);
+		tablefootball = (Tablefootball) container.addGame(new Tablefootball("Kicker", "Table football"));
+		for (int i = 0; i < 6; i++) {
+			players.add(container.addPlayer(new Player("Player " + i, null)));
+		}
+	}
+
+	@Test
+	void fewerThanOneReplicateIsRejected() {
+		assertThrows(IllegalArgumentException.class, () -> new RatingConfidenceService(registry, 0, 0.95, 25));
+	}
+
+	@Test
+	void firstRequestStartsTheBootstrapWithoutWaitingForIt() throws InterruptedException {
+		playMatches(players, 200);
+
+		assertTrue(confidenceService.getIntervals(tablefootball.getId()).offsets().isEmpty());
+		RatingConfidenceService.GameIntervals intervals = await(result -> !result.offsets().isEmpty());
+		for (Player player : players) {
+			RatingConfidenceService.RatingInterval interval = intervals.of(player);
+			int rating = player.getEloRating(tablefootball.getId());
+			assertTrue(interval.low() <= rating && rating <= interval.high(),
+					rating + " outside " + interval);
+		}
+	}
+
+	@Test
+	void staleIntervalsAreServedUntilTheRefreshFinishes() throws InterruptedException {
+		playMatches(players, 100);
+		confidenceService.getIntervals(tablefootball.getId());
+		await(result -> !result.offsets().isEmpty());
+
+		// A newcomer gets an interval only once enough new matches started a refresh
+		Player newcomer = container.addPlayer(new Player("Newcomer", null));
+		playMatches(List.of(players.get(0), newcomer), REFRESH_AFTER - 1);
+		for (int i = 0; i < 5; i++) {
+			Thread.sleep(20);
+			assertNull(confidenceService.getIntervals(tablefootball.getId()).of(newcomer));
+		}
+
+		playMatches(List.of(players.get(0), newcomer), 1);
+		assertNull(confidenceService.getIntervals(tablefootball.getId()).of(newcomer));
+		RatingConfidenceService.GameIntervals refreshed = await(result -> result.of(newcomer) != null);
+		assertEquals(players.size() + 1, refreshed.offsets().size());
+	}
+
+	@Test
+	void unknownGameHasNoIntervals() {
+		UUID gameId = UUID.randomUUID();
+		RatingConfidenceService.GameIntervals intervals = confidenceService.getIntervals(gameId);
+		assertEquals(gameId, intervals.gameId());
+		assertTrue(intervals.offsets().isEmpty());
+		assertNull(intervals.of(players.get(0)));
+	}
+
+	private void playMatches(List<Player> candidates, int count) {
+		for (int i = 0; i < count; i++) {
+			Player first = candidates.get(random.nextInt(candidates.size()));
+			Player second;
+			do {
+				second = candidates.get(random.nextInt(candidates.size()));
+			} while (second == first);
+			tablefootball.recordMatch(first, second, 10, random.nextInt(10));
+		}
+	}
+
+	private RatingConfidenceService.GameIntervals await(Predicate<RatingConfidenceService.GameIntervals> done)
+			throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (System.currentTimeMillis() < deadline) {
+			RatingConfidenceService.GameIntervals intervals = confidenceService.getIntervals(tablefootball.getId());
+			if (done.test(intervals)) {
+				return intervals;
+			}
+			Thread.sleep(10);
+		}
+		return fail("The bootstrap did not finish in time");
+	}
+}
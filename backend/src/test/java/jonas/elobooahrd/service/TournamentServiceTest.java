@@ -0,0 +1,115 @@
+package jonas.elobooahrd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import jonas.elobooahrd.dto.TournamentOddsDTO;
+import jonas.elobooahrd.dto.TournamentRequestDTO;
+import jonas.elobooahrd.dto.TournamentSimulationDTO;
+import jonas.elobooahrd.model.GameContainer;
+import jonas.elobooahrd.model.LeagueRegistry;
+import jonas.elobooahrd.model.Player;
+import jonas.elobooahrd.model.Tablefootball;
+
+class TournamentServiceTest {
+
+	private GameContainer container;
+	private TournamentService tournamentService;
+	private Tablefootball tablefootball;
+
+	@BeforeEach
+	void setUp() {
+		container = new GameContainer("Test");
+		LeagueRegistry registry = new LeagueRegistry(container, null, null);
+		tournamentService = new TournamentService(new GameService(registry, new ChangeFeedService(registry, "", 1000)));
+		tablefootball = (Tablefootball) container.addGame(new Tablefootball("Kicker", "Table football"));
+	}
+
+	@Test
+	void roundRobinIsCappedByItsGamesPerSimulation() {
+		// 64 players play 2016 games per simulation, so 10^9 games allow 496031 simulations
+		List<UUID> players = playerIds(64);
+		IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+				() -> tournamentService.simulate(request("ROUND_ROBIN", players, 496_032)));
+		assertTrue(exception.getMessage().contains("at most 496031 simulations"), exception.getMessage());
+	}
+
+	@Test
+	void knockoutIsCappedByItsGamesPerSimulation() {
+		// 256 players play 255 games per simulation, so 10^9 games allow 3921568 simulations
+		List<UUID> players = playerIds(256);
+		IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+				() -> tournamentService.simulate(request("KNOCKOUT", players, 3_921_569)));
+		assertTrue(exception.getMessage().contains("at most 3921568 simulations"), exception.getMessage());
+	}
+
+	@Test
+	void playerAndSimulationLimitsAreChecked() {
+		assertThrows(IllegalArgumentException.class,
+				() -> tournamentService.simulate(request("ROUND_ROBIN", playerIds(65), 1)));
+		assertThrows(IllegalArgumentException.class,
+				() -> tournamentService.simulate(request("KNOCKOUT", playerIds(257), 1)));
+		assertThrows(IllegalArgumentException.class,
+				() -> tournamentService.simulate(request("KNOCKOUT", playerIds(4), 10_000_001)));
+		assertThrows(IllegalArgumentException.class,
+				() -> tournamentService.simulate(request("KNOCKOUT", playerIds(4), 0)));
+		List<UUID> repeated = playerIds(3);
+		repeated.add(repeated.get(0));
+		assertThrows(IllegalArgumentException.class,
+				() -> tournamentService.simulate(request("KNOCKOUT", repeated, 1)));
+		List<UUID> unknown = playerIds(3);
+		unknown.add(UUID.randomUUID());
+		assertThrows(IllegalArgumentException.class,
+				() -> tournamentService.simulate(request("KNOCKOUT", unknown, 1)));
+	}
+
+	@Test
+	void requestsWithinTheCapAreSimulated() {
+		List<UUID> players = playerIds(8);
+		TournamentRequestDTO request = request("round-robin", players, 20_000);
+		request.setSeed(43L);
+		TournamentSimulationDTO simulation = tournamentService.simulate(request).orElseThrow();
+
+		assertEquals("ROUND_ROBIN", simulation.getFormat());
+		assertEquals(8, simulation.getPlayers().size());
+		double total = simulation.getPlayers().stream().mapToDouble(TournamentOddsDTO::getWinProbability).sum();
+		assertEquals(1.0, total, 1e-9);
+		// The strongest player is the favourite
+		assertEquals(players.get(7), simulation.getPlayers().get(0).getPlayerId());
+		assertEquals(simulation, tournamentService.simulate(request).orElseThrow());
+	}
+
+	@Test
+	void unknownGameIsNotSimulated() {
+		TournamentRequestDTO request = request("KNOCKOUT", playerIds(4), 1);
+		request.setGameId(UUID.randomUUID());
+		assertTrue(tournamentService.simulate(request).isEmpty());
+	}
+
+	private List<UUID> playerIds(int count) {
+		List<UUID> ids = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Player player = new Player("Player " + container.getAllPlayers().size(), null);
+			player.setEloRating(tablefootball.getId(), 900 + 25 * i);
+			ids.add(container.addPlayer(player).getId());
+		}
+		return ids;
+	}
+
+	private TournamentRequestDTO request(String format, List<UUID> playerIds, int simulations) {
+		TournamentRequestDTO request = new TournamentRequestDTO();
+		request.setGameId(tablefootball.getId());
+		request.setFormat(format);
+		request.setPlayerIds(playerIds);
+		request.setSimulations(simulations);
+		return request;
+	}
+}
@@ -9,7 +9,9 @@ import { MatSelectModule } from '@angular/material/select';
 import { MatSnackBar, MatSnackBarModule } from '@angular/material/snack-bar';
 import { MatProgressSpinnerModule } from '@angular/material/progress-spinner';
 import { MatIconModule } from '@angular/material/icon';
+import { MatAutocompleteModule, MatAutocompleteSelectedEvent } from '@angular/material/autocomplete';
 import { Router, RouterLink } from '@angular/router';
+import { Observable, debounceTime, distinctUntilChanged, of, switchMap } from 'rxjs';
 import { MatchService } from '../../services/match.service';
 import { GameService } from '../../services/game.service';
 import { PlayerService } from '../../services/player.service';
@@ -32,6 +34,7 @@ import { Player } from '../../models/player.model';
     MatSnackBarModule,
     MatProgressSpinnerModule,
     MatIconModule,
+    MatAutocompleteModule,
     RouterLink
   ],
   templateUrl: './record-match.component.html',
@@ -45,7 +48,8 @@ export class RecordMatchComponent implements OnInit {
   errorMessage = '';
   
   games: Game[] = [];
-  players: Player[] = [];
+  player1Options$: Observable<Player[]> = of([]);
+  player2Options$: Observable<Player[]> = of([]);
 
   constructor(
     private fb: FormBuilder,
@@ -57,6 +61,8 @@ export class RecordMatchComponent implements OnInit {
   ) {
     this.matchForm = this.fb.group({
       gameId: ['', Validators.required],
+      player1Search: [''],
+      player2Search: [''],
       player1Id: ['', Validators.required],
       player2Id: ['', Validators.required],
       player1Score: [0, [Validators.required, Validators.min(0)]],
@@ -66,7 +72,32 @@ export class RecordMatchComponent implements OnInit {
 
   ngOnInit(): void {
     this.loadGames();
-    this.loadPlayers();
+    this.player1Options$ = this.searchOnInput('player1Search');
+    this.player2Options$ = this.searchOnInput('player2Search');
+  }
+
+  // Queries the server-side name index instead of loading every player up front
+  searchOnInput(controlName: string): Observable<Player[]> {
+    return this.matchForm.get(controlName)!.valueChanges.pipe(
+      debounceTime(150),
+      distinctUntilChanged(),
+      switchMap(value => typeof value === 'string' && value.trim()
+        ? this.playerService.searchPlayers(value.trim())
+        : of([]))
+    );
+  }
+
+  displayPlayer(player: Player | string | null): string {
+    return player && typeof player !== 'string' ? player.name : (player ?? '');
+  }
+
+  onPlayerSelected(idControlName: string, event: MatAutocompleteSelectedEvent): void {
+    const player: Player = event.option.value;
+    this.matchForm.get(idControlName)!.setValue(player.id);
+  }
+
+  clearPlayer(idControlName: string): void {
+    this.matchForm.get(idControlName)!.setValue('');
   }
 
   loadGames(): void {
@@ -84,23 +115,8 @@ export class RecordMatchComponent implements OnInit {
     });
   }
 
-  loadPlayers(): void {
-    this.playerService.getAllPlayers().subscribe({
-      next: (players) => {
-        this.players = players;
-        this.checkLoading();
-      },
-      error: (error) => {
-        console.error('Error loading players', error);
-        this.error = true;
-        this.errorMessage = 'Failed to load players. Please try again later.';
-        this.loading = false;
-      }
-    });
-  }
-
   checkLoading(): void {
-    if (this.games.length > 0 && this.players.length > 0) {
+    if (this.games.length > 0) {
       this.loading = false;
     }
   }
@@ -170,6 +186,5 @@ export class RecordMatchComponent implements OnInit {
     this.error = false;
     this.errorMessage = '';
     this.loadGames();
-    this.loadPlayers();
   }
 }
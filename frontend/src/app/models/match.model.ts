@@ -1,8 +1,10 @@
 export interface Match {
   id?: string;
   gameId: string;
+  timestamp?: string;
   winnerIds: string[];
   loserIds: string[];
+  finishingOrder?: string[];
   winnerScores?: number[];
   loserScores?: number[];
   isTeamMatch?: boolean;
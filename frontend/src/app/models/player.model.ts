@@ -2,4 +2,6 @@ export interface Player {
   id: string;
   name: string;
   eloRatings: { [gameId: string]: number };
+  ratingLow?: number;
+  ratingHigh?: number;
 }
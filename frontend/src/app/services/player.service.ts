@@ -38,6 +38,16 @@ export class PlayerService {
       );
   }
 
+  searchPlayers(query: string, limit = 10): Observable<Player[]> {
+    return this.http.get<Player[]>(`${this.apiUrl}/search`, { params: { q: query, limit } })
+      .pipe(
+        catchError(error => {
+          console.error(`Error searching players for "${query}"`, error);
+          return throwError(() => new Error('Failed to search players. Please try again later.'));
+        })
+      );
+  }
+
   createPlayer(player: Player): Observable<Player> {
     return this.http.post<Player>(this.apiUrl, player)
       .pipe(